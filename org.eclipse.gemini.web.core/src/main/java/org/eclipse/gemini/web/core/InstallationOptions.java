@@ -70,6 +70,10 @@ public final class InstallationOptions {
 
     private volatile boolean defaultWABHeaders;
 
+    private volatile boolean annotationIndex;
+
+    private final String referencedSystemPackages;
+
     /**
      * Creates a new <code>InstallationOptions</code> from the supplied <code>options</code> {@link Map}.
      * <p/>
@@ -92,6 +96,8 @@ public final class InstallationOptions {
         this.webJSPExtractLocation = normalisedOptions.get(WebContainerUtils.HEADER_WEB_JSP_EXTRACT_LOCATION);
 
         this.defaultWABHeaders = options.get(WebContainerUtils.HEADER_DEFAULT_WAB_HEADERS) != null;
+        this.annotationIndex = normalisedOptions.get(WebContainerUtils.HEADER_ANNOTATION_INDEX) != null;
+        this.referencedSystemPackages = normalisedOptions.get(WebContainerUtils.HEADER_REFERENCED_SYSTEM_PACKAGES);
     }
 
     private Map<String, String> normalise(Map<String, String> options) {
@@ -198,4 +204,37 @@ public final class InstallationOptions {
         this.defaultWABHeaders = defaultWABHeaders;
     }
 
+    /**
+     * Returns whether an index of the classes in <code>WEB-INF/classes</code> and <code>WEB-INF/lib</code> should be
+     * added to the web bundle, so that the servlet container can skip reading the bytecode of classes without servlet
+     * annotations when the web application starts. This is not covered by the OSGi Web Container specification and is
+     * <code>false</code> by default.
+     * 
+     * @return the annotation index installation option.
+     */
+    public boolean getAnnotationIndex() {
+        return this.annotationIndex;
+    }
+
+    public void setAnnotationIndex(boolean annotationIndex) {
+        this.annotationIndex = annotationIndex;
+    }
+
+    /**
+     * Gets the referenced system packages installation option. If set, a web bundle whose imports are defaulted
+     * imports only the system bundle exports which are referenced by its classes, which match a default list of
+     * packages that are commonly loaded reflectively, or which match one of the comma separated package names in the
+     * option value. A package name ending with <code>.*</code> matches the package and its sub-packages. If not set,
+     * all system bundle exports are imported.
+     * <p/>
+     * Only the constant pools of the classes in the WAR are read. Packages referenced only from JSP <code>import</code>
+     * directives or from class names in <code>web.xml</code>, tag library descriptors or other resources are not found
+     * and must be listed in the option value.
+     * 
+     * @return the referenced system packages installation option, or <code>null</code> if not set.
+     */
+    public String getReferencedSystemPackages() {
+        return this.referencedSystemPackages;
+    }
+
 }
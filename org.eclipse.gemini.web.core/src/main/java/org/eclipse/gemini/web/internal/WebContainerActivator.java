@@ -16,9 +16,18 @@
 
 package org.eclipse.gemini.web.internal;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import org.eclipse.gemini.web.core.WebBundleManifestTransformer;
 import org.eclipse.gemini.web.core.WebContainer;
@@ -27,27 +36,85 @@ import org.eclipse.gemini.web.internal.url.ChainingWebBundleManifestTransformer;
 import org.eclipse.gemini.web.internal.url.DefaultsWebBundleManifestTransformer;
 import org.eclipse.gemini.web.internal.url.SpecificationWebBundleManifestTransformer;
 import org.eclipse.gemini.web.internal.url.SystemBundleExportsImportingWebBundleManifestTransformer;
+import org.eclipse.gemini.web.internal.url.TransformedDirectories;
+import org.eclipse.gemini.web.internal.url.WebBundleCache;
 import org.eclipse.gemini.web.internal.url.WebBundleUrl;
 import org.eclipse.gemini.web.internal.url.WebBundleUrlStreamHandlerService;
+import org.eclipse.gemini.web.internal.url.WebBundleUrlStreamHandlerService.DirectoryTransformation;
 import org.eclipse.virgo.util.osgi.ServiceRegistrationTracker;
 import org.eclipse.virgo.util.osgi.manifest.VersionRange;
+import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.url.URLConstants;
 import org.osgi.service.url.URLStreamHandlerService;
 import org.osgi.util.tracker.ServiceTracker;
 import org.osgi.util.tracker.ServiceTrackerCustomizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class WebContainerActivator implements BundleActivator {
 
+    /**
+     * By default a WAR is read on the thread that installs it when its manifest is transformed. With property
+     * <code>org.eclipse.gemini.web.core.scanner.threads</code> greater than one the JARs and classes of WAR files on the
+     * local file system and of WAR directories are read on a fork-join pool with the given parallelism, while the
+     * results are still processed on the installing thread in a fixed order. The syntax is
+     * <code>org.eclipse.gemini.web.core.scanner.threads=&lt;number-of-threads&gt;</code>
+     */
+    static final String SCANNER_THREADS_PROPERTY_NAME = "org.eclipse.gemini.web.core.scanner.threads";
+
+    /**
+     * By default a WAR installed through a <code>webbundle:</code> URL is transformed every time it is installed. With
+     * property <code>org.eclipse.gemini.web.core.webbundle.cache.max.size</code> greater than zero the transformed WAR
+     * archives are cached in the data area of this bundle, keyed by their content and installation options, and the
+     * least recently used ones are evicted above the given size. The cache is available through the
+     * <code>org.eclipse.gemini.web:type=WebBundleCache</code> MBean. The syntax is
+     * <code>org.eclipse.gemini.web.core.webbundle.cache.max.size=&lt;size-in-kB&gt;</code>
+     */
+    static final String WEB_BUNDLE_CACHE_MAX_SIZE_PROPERTY_NAME = "org.eclipse.gemini.web.core.webbundle.cache.max.size";
+
+    /**
+     * By default the files of a WAR directory are copied when its manifest is transformed, and the framework copies the
+     * transformed directory to its storage. With property <code>org.eclipse.gemini.web.core.dir.transformation</code>
+     * set to <code>link</code> the files which are not transformed are hard linked instead of copied, falling back to
+     * copying where the file system does not support it. With <code>reference</code> the files are linked in the same
+     * way and the transformed directory is installed by reference, if the framework supports the
+     * <code>reference:</code> protocol, so that only the transformed manifest is written. Note that linked files share
+     * their content with the files of the WAR directory. The directories are transformed into the data area of this
+     * bundle, where a transformed directory is kept as long as a revision of the bundle installed from it uses it. The
+     * syntax is
+     * <code>org.eclipse.gemini.web.core.dir.transformation=copy|link|reference</code>
+     */
+    static final String DIR_TRANSFORMATION_PROPERTY_NAME = "org.eclipse.gemini.web.core.dir.transformation";
+
+    private static final String WEB_BUNDLE_CACHE_DIRECTORY_NAME = "webbundle-cache";
+
+    private static final String TRANSFORMED_DIRECTORIES_DIRECTORY_NAME = "transformed-directories";
+
+    private static final String URL_CONVERTER_FILTER = "(&(objectClass=org.eclipse.osgi.service.urlconversion.URLConverter)(protocol=bundleentry))";
+
+    private static final String WEB_BUNDLE_CACHE_MBEAN_NAME = "org.eclipse.gemini.web:type=WebBundleCache";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebContainerActivator.class);
+
     private final ServiceRegistrationTracker regTracker = new ServiceRegistrationTracker();
 
+    private ExecutorService scannerExecutorService;
+
+    private WebBundleCache webBundleCache;
+
+    private ObjectName webBundleCacheObjectName;
+
     private volatile EventManager eventManager;
 
     private ServiceTracker<ServletContainer, WebContainer> serviceTracker;
 
+    private ServiceTracker<?, ?> urlConverterTracker;
+
     @Override
     public void start(BundleContext context) throws Exception {
         WebBundleManifestTransformer transformer = registerWebBundleManifestTransformer(context);
@@ -65,7 +132,12 @@ public class WebContainerActivator implements BundleActivator {
     public void stop(BundleContext context) throws Exception {
         this.serviceTracker.close();
         this.regTracker.unregisterAll();
+        this.urlConverterTracker.close();
         this.eventManager.stop();
+        if (this.scannerExecutorService != null) {
+            this.scannerExecutorService.shutdownNow();
+        }
+        unregisterWebBundleCache();
     }
 
     private WebBundleManifestTransformer registerWebBundleManifestTransformer(BundleContext context) {
@@ -76,24 +148,121 @@ public class WebContainerActivator implements BundleActivator {
         WebBundleManifestTransformer systemBundleExportImportingWebBundleManifestTransformer = new SystemBundleExportsImportingWebBundleManifestTransformer(
             systemBundleExports);
 
-        WebBundleManifestTransformer chainingTransformer = new ChainingWebBundleManifestTransformer(specTransformer, defaultsTransformer,
-            systemBundleExportImportingWebBundleManifestTransformer);
+        this.scannerExecutorService = createScannerExecutorService(context);
+        WebBundleManifestTransformer chainingTransformer = new ChainingWebBundleManifestTransformer(this.scannerExecutorService, specTransformer,
+            defaultsTransformer, systemBundleExportImportingWebBundleManifestTransformer);
 
         ServiceRegistration<WebBundleManifestTransformer> reg = context.registerService(WebBundleManifestTransformer.class, chainingTransformer, null);
         this.regTracker.track(reg);
 
+        this.webBundleCache = createWebBundleCache(context, systemBundleExports);
+        registerWebBundleCache();
+
         return chainingTransformer;
     }
 
-    private void registerUrlStreamHandler(BundleContext context, WebBundleManifestTransformer transformer) {
+    static ExecutorService createScannerExecutorService(BundleContext context) {
+        String property = context.getProperty(SCANNER_THREADS_PROPERTY_NAME);
+        if (property == null) {
+            return null;
+        }
+        int threads;
+        try {
+            threads = Integer.parseInt(property.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value [" + property + "] of property [" + SCANNER_THREADS_PROPERTY_NAME + "]", e);
+        }
+        return threads <= 1 ? null : new ForkJoinPool(threads);
+    }
+
+    static WebBundleCache createWebBundleCache(BundleContext context, Map<String, VersionRange> systemBundleExports) {
+        String property = context.getProperty(WEB_BUNDLE_CACHE_MAX_SIZE_PROPERTY_NAME);
+        if (property == null) {
+            return null;
+        }
+        long maxSize;
+        try {
+            maxSize = Long.parseLong(property.trim()) * 1024;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value [" + property + "] of property [" + WEB_BUNDLE_CACHE_MAX_SIZE_PROPERTY_NAME + "]", e);
+        }
+        if (maxSize <= 0) {
+            return null;
+        }
+        File directory = context.getDataFile(WEB_BUNDLE_CACHE_DIRECTORY_NAME);
+        if (directory == null) {
+            LOGGER.warn("The framework has no file system support, transformed web bundles will not be cached.");
+            return null;
+        }
+        // the transformed web bundles depend on the version of this bundle and the exports of the system bundle
+        Bundle bundle = context.getBundle();
+        String configuration = bundle.getSymbolicName() + '_' + bundle.getVersion() + '_' + bundle.getLastModified() + '|'
+            + new TreeMap<>(systemBundleExports);
+        return new WebBundleCache(directory, maxSize, configuration);
+    }
+
+    private void registerWebBundleCache() {
+        if (this.webBundleCache == null) {
+            return;
+        }
+        try {
+            ObjectName objectName = new ObjectName(WEB_BUNDLE_CACHE_MBEAN_NAME);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this.webBundleCache, objectName);
+            this.webBundleCacheObjectName = objectName;
+        } catch (JMException e) {
+            LOGGER.warn("Unable to register the web bundle cache MBean.", e);
+        }
+    }
+
+    private void unregisterWebBundleCache() {
+        if (this.webBundleCacheObjectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.webBundleCacheObjectName);
+        } catch (JMException e) {
+            LOGGER.warn("Unable to unregister the web bundle cache MBean.", e);
+        }
+        this.webBundleCacheObjectName = null;
+    }
+
+    static DirectoryTransformation getDirectoryTransformation(BundleContext context) {
+        String property = context.getProperty(DIR_TRANSFORMATION_PROPERTY_NAME);
+        if (property == null) {
+            return DirectoryTransformation.COPY;
+        }
+        try {
+            return DirectoryTransformation.valueOf(property.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value [" + property + "] of property [" + DIR_TRANSFORMATION_PROPERTY_NAME + "]", e);
+        }
+    }
+
+    private void registerUrlStreamHandler(BundleContext context, WebBundleManifestTransformer transformer) throws InvalidSyntaxException {
+        this.urlConverterTracker = new ServiceTracker<>(context, context.createFilter(URL_CONVERTER_FILTER), null);
+        this.urlConverterTracker.open();
+
         Dictionary<String, Object> props = new Hashtable<>();
         props.put(URLConstants.URL_HANDLER_PROTOCOL, new String[] { WebBundleUrl.SCHEME });
 
         ServiceRegistration<URLStreamHandlerService> reg = context.registerService(URLStreamHandlerService.class,
-            new WebBundleUrlStreamHandlerService(transformer), props);
+            new WebBundleUrlStreamHandlerService(transformer, this.webBundleCache, getDirectoryTransformation(context),
+                createTransformedDirectories(context, this.urlConverterTracker)),
+            props);
         this.regTracker.track(reg);
     }
 
+    private static TransformedDirectories createTransformedDirectories(BundleContext context, ServiceTracker<?, ?> urlConverterTracker) {
+        File directory = context.getDataFile(TRANSFORMED_DIRECTORIES_DIRECTORY_NAME);
+        if (directory == null) {
+            LOGGER.warn("The framework has no file system support, web bundle directories will be transformed into the working directory.");
+            return null;
+        }
+        TransformedDirectories transformedDirectories = new TransformedDirectories(directory, context, urlConverterTracker);
+        transformedDirectories.deleteUnused();
+        return transformedDirectories;
+    }
+
     private static final class ServletContainerTracker implements ServiceTrackerCustomizer<ServletContainer, WebContainer> {
 
         private final ServiceRegistrationTracker regTracker = new ServiceRegistrationTracker();
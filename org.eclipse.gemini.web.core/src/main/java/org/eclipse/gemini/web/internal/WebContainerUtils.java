@@ -50,6 +50,16 @@ public final class WebContainerUtils {
      */
     public static final String HEADER_WEB_JSP_EXTRACT_LOCATION = "Web-JSPExtractLocation";
 
+    /**
+     * Constant for the <code>org-eclipse-gemini-web-AnnotationIndex</code> manifest header.
+     */
+    public static final String HEADER_ANNOTATION_INDEX = "org-eclipse-gemini-web-AnnotationIndex";
+
+    /**
+     * Constant for the <code>org-eclipse-gemini-web-ReferencedSystemPackages</code> manifest header.
+     */
+    public static final String HEADER_REFERENCED_SYSTEM_PACKAGES = "org-eclipse-gemini-web-ReferencedSystemPackages";
+
     static final String ENTRY_WEB_XML = "/WEB-INF/web.xml";
 
     private static final String WAR_EXTENSION = ".war";
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+
+import org.eclipse.gemini.web.internal.WebContainerUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes an index of the classes in <code>WEB-INF/classes</code> and in the JARs in <code>WEB-INF/lib</code> of a web
+ * application. For every class the index contains the size of its class file, its access flags, its supertypes and its
+ * runtime visible class annotations, which is all the servlet container needs to decide whether the class has to be
+ * processed for servlet annotations and <code>@HandlesTypes</code>. The servlet container then reads only the bytecode
+ * of the classes which have to be processed.
+ * <p/>
+ * The index is a UTF-8 text file with one tab separated record per line. The first line is the header
+ * <code>gemini-web-annotation-index&lt;TAB&gt;1</code>. Every location starts with a line
+ * <code>L&lt;TAB&gt;location&lt;TAB&gt;size</code>, where the location is <code>WEB-INF/classes</code> with size
+ * <code>-1</code>, or the path of a JAR in <code>WEB-INF/lib</code> with the size of the JAR. It is followed by one line
+ * <code>C&lt;TAB&gt;entry&lt;TAB&gt;size&lt;TAB&gt;access flags&lt;TAB&gt;class&lt;TAB&gt;superclass&lt;TAB&gt;interfaces&lt;TAB&gt;annotations</code>
+ * per class, where the entry is relative to the location, the class names are in the internal form of the class file
+ * format, lists are comma separated and <code>-</code> stands for none. Class files which cannot be parsed are left out,
+ * so that the servlet container processes them as usual.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+final class AnnotationIndexWriter {
+
+    static final String INDEX_ENTRY_NAME = "WEB-INF/gemini-web-annotation.index";
+
+    static final String INDEX_HEADER = "gemini-web-annotation-index\t1";
+
+    static final String CLASSES_LOCATION = "WEB-INF/classes";
+
+    private static final String CLASSES_ENTRY_PREFIX = CLASSES_LOCATION + "/";
+
+    private static final String LIB_ENTRY_PREFIX = "WEB-INF/lib/";
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final String JAR_SUFFIX = ".jar";
+
+    private static final String NONE = "-";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnnotationIndexWriter.class);
+
+    /**
+     * Writes the index of the web application with the given source to the given stream. The stream is not closed.
+     *
+     * @param source the WAR file or directory
+     * @param outputStream the stream to write the index to
+     * @throws IOException if the web application cannot be read or the index cannot be written
+     */
+    void write(URL source, OutputStream outputStream) throws IOException {
+        Map<String, Location> locations = new LinkedHashMap<>();
+        if (WebContainerUtils.isDirectory(source)) {
+            indexDirectory(source, locations);
+        } else {
+            indexFile(source, locations);
+        }
+
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        writer.write(INDEX_HEADER);
+        writer.write('\n');
+        for (Location location : locations.values()) {
+            writer.write("L\t" + location.name + "\t" + location.size + "\n");
+            for (String line : location.classLines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    private void indexFile(URL source, Map<String, Location> locations) throws IOException {
+        try (JarInputStream jis = new JarInputStream(source.openStream());) {
+            JarEntry entry;
+            while ((entry = jis.getNextJarEntry()) != null) {
+                String entryName = entry.getName();
+                if (entryName.startsWith(LIB_ENTRY_PREFIX) && entryName.endsWith(JAR_SUFFIX) && entryName.indexOf('/', LIB_ENTRY_PREFIX.length()) == -1) {
+                    CountingInputStream jarInputStream = new CountingInputStream(jis);
+                    Location location = new Location(entryName);
+                    indexJar(jarInputStream, location);
+                    location.size = jarInputStream.drain();
+                    locations.put(entryName, location);
+                } else if (entryName.startsWith(CLASSES_ENTRY_PREFIX) && entryName.endsWith(CLASS_SUFFIX)) {
+                    indexClass(entryName.substring(CLASSES_ENTRY_PREFIX.length()), readFully(jis), getClassesLocation(locations));
+                }
+            }
+        }
+    }
+
+    private void indexDirectory(URL source, Map<String, Location> locations) throws IOException {
+        Path bundleDir;
+        try {
+            bundleDir = WebContainerUtils.sourceAsPath(source);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Unexpected URISyntaxException.", e);
+        }
+
+        Path classesDir = bundleDir.resolve(CLASSES_LOCATION);
+        if (Files.isDirectory(classesDir)) {
+            indexClassesDirectory(classesDir, "", getClassesLocation(locations));
+        }
+
+        Path libDir = bundleDir.resolve(LIB_ENTRY_PREFIX);
+        if (Files.isDirectory(libDir)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(libDir)) {
+                for (Path file : files) {
+                    String fileName = file.getFileName().toString();
+                    if (!Files.isDirectory(file) && fileName.endsWith(JAR_SUFFIX)) {
+                        Location location = new Location(LIB_ENTRY_PREFIX + fileName);
+                        try (InputStream in = Files.newInputStream(file)) {
+                            indexJar(in, location);
+                        }
+                        location.size = Files.size(file);
+                        locations.put(location.name, location);
+                    }
+                }
+            }
+        }
+    }
+
+    private void indexClassesDirectory(Path directory, String prefix, Location location) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                if (Files.isDirectory(file)) {
+                    indexClassesDirectory(file, prefix + fileName + "/", location);
+                } else if (fileName.endsWith(CLASS_SUFFIX)) {
+                    indexClass(prefix + fileName, Files.readAllBytes(file), location);
+                }
+            }
+        }
+    }
+
+    private void indexJar(InputStream inputStream, Location location) throws IOException {
+        JarInputStream jis = new JarInputStream(inputStream);
+        JarEntry entry;
+        while ((entry = jis.getNextJarEntry()) != null) {
+            String entryName = entry.getName();
+            if (entryName.endsWith(CLASS_SUFFIX)) {
+                indexClass(entryName, readFully(jis), location);
+            }
+        }
+    }
+
+    private static Location getClassesLocation(Map<String, Location> locations) {
+        Location location = locations.get(CLASSES_LOCATION);
+        if (location == null) {
+            location = new Location(CLASSES_LOCATION);
+            locations.put(CLASSES_LOCATION, location);
+        }
+        return location;
+    }
+
+    private void indexClass(String entryName, byte[] content, Location location) {
+        ClassFileHeader header;
+        try {
+            header = ClassFileHeader.read(new ByteArrayInputStream(content));
+        } catch (IOException e) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Cannot index class [" + entryName + "] in [" + location.name + "].", e);
+            }
+            return;
+        }
+        location.classLines.add("C\t" + entryName + "\t" + content.length + "\t" + header.getAccessFlags() + "\t" + header.getClassName() + "\t"
+            + (header.getSuperclassName() == null ? NONE : header.getSuperclassName()) + "\t" + toList(header.getInterfaceNames()) + "\t"
+            + toList(header.getAnnotationTypes()));
+    }
+
+    private static String toList(List<String> names) {
+        if (names.isEmpty()) {
+            return NONE;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (String name : names) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(name);
+        }
+        return builder.toString();
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Location {
+
+        private final String name;
+
+        private final List<String> classLines = new ArrayList<>();
+
+        private long size = -1;
+
+        Location(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Counts the bytes read from a nested JAR, without closing the stream of the enclosing WAR.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                this.count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                this.count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            this.count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() {
+            // the stream of the enclosing WAR is closed by its owner
+        }
+
+        long drain() throws IOException {
+            byte[] buffer = new byte[8192];
+            while (read(buffer, 0, buffer.length) != -1) {
+                // count the rest of the JAR
+            }
+            return this.count;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.eclipse.gemini.web.internal.url;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
 
 import org.eclipse.gemini.web.core.InstallationOptions;
 import org.eclipse.gemini.web.core.WebBundleManifestTransformer;
@@ -28,8 +29,23 @@ public class ChainingWebBundleManifestTransformer implements WebBundleManifestTr
 
     private final WebBundleManifestTransformer[] manifestTransformers;
 
+    private final ExecutorService executorService;
+
     public ChainingWebBundleManifestTransformer(WebBundleManifestTransformer... transformers) {
+        this((ExecutorService) null, transformers);
+    }
+
+    /**
+     * Creates a <code>ChainingWebBundleManifestTransformer</code> which reads the WARs it analyses with the given
+     * executor.
+     * 
+     * @param executorService the executor to read the JARs and classes of WARs with, or <code>null</code> to read them
+     *        on the transforming thread
+     * @param transformers the transformers to chain
+     */
+    public ChainingWebBundleManifestTransformer(ExecutorService executorService, WebBundleManifestTransformer... transformers) {
         this.manifestTransformers = transformers;
+        this.executorService = executorService;
     }
 
     @Override
@@ -37,8 +53,23 @@ public class ChainingWebBundleManifestTransformer implements WebBundleManifestTr
         if (options == null) {
             options = new InstallationOptions(Collections.<String, String> emptyMap());
         }
+        WarAnalysis warAnalysis = new WarAnalysis(sourceURL, needsReferencedPackages(manifest, options), this.executorService);
+        for (WebBundleManifestTransformer manifestTransformer : this.manifestTransformers) {
+            if (manifestTransformer instanceof WarAnalysingWebBundleManifestTransformer) {
+                ((WarAnalysingWebBundleManifestTransformer) manifestTransformer).transform(manifest, sourceURL, options, webBundle, warAnalysis);
+            } else {
+                manifestTransformer.transform(manifest, sourceURL, options, webBundle);
+            }
+        }
+    }
+
+    private boolean needsReferencedPackages(BundleManifest manifest, InstallationOptions options) {
         for (WebBundleManifestTransformer manifestTransformer : this.manifestTransformers) {
-            manifestTransformer.transform(manifest, sourceURL, options, webBundle);
+            if (manifestTransformer instanceof WarAnalysingWebBundleManifestTransformer
+                && ((WarAnalysingWebBundleManifestTransformer) manifestTransformer).needsReferencedPackages(manifest, options)) {
+                return true;
+            }
         }
+        return false;
     }
 }
@@ -0,0 +1,315 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The access flags, the name, the supertypes and the runtime visible class annotations of a class file. Class names
+ * are in the internal form of the class file format, e.g. <code>java/lang/Object</code>.
+ * <p/>
+ * Only the parts of the class file that are needed to find these are parsed; the fields, the methods and all other
+ * attributes are skipped.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+final class ClassFileHeader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private static final int CONSTANT_UTF8 = 1;
+
+    private static final int CONSTANT_INTEGER = 3;
+
+    private static final int CONSTANT_FLOAT = 4;
+
+    private static final int CONSTANT_LONG = 5;
+
+    private static final int CONSTANT_DOUBLE = 6;
+
+    private static final int CONSTANT_CLASS = 7;
+
+    private static final int CONSTANT_STRING = 8;
+
+    private static final int CONSTANT_FIELDREF = 9;
+
+    private static final int CONSTANT_METHODREF = 10;
+
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+
+    private static final int CONSTANT_METHOD_TYPE = 16;
+
+    private static final int CONSTANT_DYNAMIC = 17;
+
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+
+    private static final int CONSTANT_MODULE = 19;
+
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final int accessFlags;
+
+    private final String className;
+
+    private final String superclassName;
+
+    private final List<String> interfaceNames;
+
+    private final List<String> annotationTypes;
+
+    private ClassFileHeader(int accessFlags, String className, String superclassName, List<String> interfaceNames, List<String> annotationTypes) {
+        this.accessFlags = accessFlags;
+        this.className = className;
+        this.superclassName = superclassName;
+        this.interfaceNames = interfaceNames;
+        this.annotationTypes = annotationTypes;
+    }
+
+    /**
+     * Reads the header of the class file from the given stream. The stream is not closed.
+     *
+     * @param inputStream the class file content
+     * @return the header of the class file
+     * @throws IOException if the stream cannot be read or does not contain a valid class file
+     */
+    static ClassFileHeader read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        ConstantPool constantPool = ConstantPool.read(in);
+        String[] utf8Constants = constantPool.utf8Constants;
+        int[] classConstants = constantPool.classConstants;
+
+        int accessFlags = in.readUnsignedShort();
+        String className = getClassName(in.readUnsignedShort(), utf8Constants, classConstants);
+        int superclassIndex = in.readUnsignedShort();
+        String superclassName = superclassIndex == 0 ? null : getClassName(superclassIndex, utf8Constants, classConstants);
+
+        int interfacesCount = in.readUnsignedShort();
+        List<String> interfaceNames = new ArrayList<>(interfacesCount);
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaceNames.add(getClassName(in.readUnsignedShort(), utf8Constants, classConstants));
+        }
+
+        skipMembers(in);
+        skipMembers(in);
+
+        List<String> annotationTypes = new ArrayList<>();
+        int attributesCount = in.readUnsignedShort();
+        for (int i = 0; i < attributesCount; i++) {
+            String attributeName = getUtf8(in.readUnsignedShort(), utf8Constants);
+            long length = in.readInt() & 0xFFFFFFFFL;
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                int annotationsCount = in.readUnsignedShort();
+                for (int j = 0; j < annotationsCount; j++) {
+                    String descriptor = getUtf8(in.readUnsignedShort(), utf8Constants);
+                    annotationTypes.add(toClassName(descriptor));
+                    skipElementValuePairs(in);
+                }
+            } else {
+                skipFully(in, length);
+            }
+        }
+
+        return new ClassFileHeader(accessFlags, className, superclassName, interfaceNames, annotationTypes);
+    }
+
+    int getAccessFlags() {
+        return this.accessFlags;
+    }
+
+    String getClassName() {
+        return this.className;
+    }
+
+    /**
+     * @return the name of the superclass, or <code>null</code> for <code>java/lang/Object</code> and for modules
+     */
+    String getSuperclassName() {
+        return this.superclassName;
+    }
+
+    List<String> getInterfaceNames() {
+        return this.interfaceNames;
+    }
+
+    List<String> getAnnotationTypes() {
+        return this.annotationTypes;
+    }
+
+    /**
+     * The UTF-8, class and string constants of a class file, indexed by their constant pool index.
+     */
+    static final class ConstantPool {
+
+        final String[] utf8Constants;
+
+        final int[] classConstants;
+
+        final int[] stringConstants;
+
+        private ConstantPool(int count) {
+            this.utf8Constants = new String[count];
+            this.classConstants = new int[count];
+            this.stringConstants = new int[count];
+        }
+
+        /**
+         * Reads the magic number, the version and the constant pool of a class file from the given stream, which is
+         * left positioned at the access flags of the class.
+         *
+         * @param in the class file content
+         * @return the constant pool
+         * @throws IOException if the stream cannot be read or does not contain a valid class file
+         */
+        static ConstantPool read(DataInputStream in) throws IOException {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a class file.");
+            }
+            skipFully(in, 4);
+
+            ConstantPool constantPool = new ConstantPool(in.readUnsignedShort());
+            for (int i = 1; i < constantPool.utf8Constants.length; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case CONSTANT_UTF8:
+                        constantPool.utf8Constants[i] = in.readUTF();
+                        break;
+                    case CONSTANT_CLASS:
+                        constantPool.classConstants[i] = in.readUnsignedShort();
+                        break;
+                    case CONSTANT_STRING:
+                        constantPool.stringConstants[i] = in.readUnsignedShort();
+                        break;
+                    case CONSTANT_METHOD_TYPE:
+                    case CONSTANT_MODULE:
+                    case CONSTANT_PACKAGE:
+                        skipFully(in, 2);
+                        break;
+                    case CONSTANT_METHOD_HANDLE:
+                        skipFully(in, 3);
+                        break;
+                    case CONSTANT_INTEGER:
+                    case CONSTANT_FLOAT:
+                    case CONSTANT_FIELDREF:
+                    case CONSTANT_METHODREF:
+                    case CONSTANT_INTERFACE_METHODREF:
+                    case CONSTANT_NAME_AND_TYPE:
+                    case CONSTANT_DYNAMIC:
+                    case CONSTANT_INVOKE_DYNAMIC:
+                        skipFully(in, 4);
+                        break;
+                    case CONSTANT_LONG:
+                    case CONSTANT_DOUBLE:
+                        skipFully(in, 8);
+                        i++;
+                        break;
+                    default:
+                        throw new IOException("Unknown constant pool tag [" + tag + "].");
+                }
+            }
+            return constantPool;
+        }
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        int membersCount = in.readUnsignedShort();
+        for (int i = 0; i < membersCount; i++) {
+            skipFully(in, 6);
+            int attributesCount = in.readUnsignedShort();
+            for (int j = 0; j < attributesCount; j++) {
+                skipFully(in, 2);
+                skipFully(in, in.readInt() & 0xFFFFFFFFL);
+            }
+        }
+    }
+
+    private static void skipElementValuePairs(DataInputStream in) throws IOException {
+        int pairsCount = in.readUnsignedShort();
+        for (int i = 0; i < pairsCount; i++) {
+            skipFully(in, 2);
+            skipElementValue(in);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                skipFully(in, 4);
+                break;
+            case '@':
+                skipFully(in, 2);
+                skipElementValuePairs(in);
+                break;
+            case '[':
+                int valuesCount = in.readUnsignedShort();
+                for (int i = 0; i < valuesCount; i++) {
+                    skipElementValue(in);
+                }
+                break;
+            default:
+                skipFully(in, 2);
+        }
+    }
+
+    private static String getClassName(int classIndex, String[] utf8Constants, int[] classConstants) throws IOException {
+        if (classIndex <= 0 || classIndex >= classConstants.length || classConstants[classIndex] == 0) {
+            throw new IOException("Invalid class constant index [" + classIndex + "].");
+        }
+        return getUtf8(classConstants[classIndex], utf8Constants);
+    }
+
+    private static String getUtf8(int utf8Index, String[] utf8Constants) throws IOException {
+        if (utf8Index <= 0 || utf8Index >= utf8Constants.length || utf8Constants[utf8Index] == null) {
+            throw new IOException("Invalid UTF-8 constant index [" + utf8Index + "].");
+        }
+        return utf8Constants[utf8Index];
+    }
+
+    private static String toClassName(String descriptor) {
+        if (descriptor.length() > 2 && descriptor.charAt(0) == 'L' && descriptor.charAt(descriptor.length() - 1) == ';') {
+            return descriptor.substring(1, descriptor.length() - 1);
+        }
+        return descriptor;
+    }
+
+    private static void skipFully(DataInputStream in, long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() == -1) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+import org.eclipse.gemini.web.internal.url.ClassFileHeader.ConstantPool;
+
+/**
+ * Finds the packages referenced from the constant pool of a class file: the packages of the classes it refers to, of
+ * the types in its field, method and generic signatures and of its annotations, and the packages named by string
+ * constants which look like class names, e.g. <code>Class.forName("javax.sql.DataSource")</code>.
+ * <p/>
+ * The result may contain packages which are not actually used, but a class cannot link to a package which is not
+ * found. Packages loaded reflectively under computed names are not found.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+final class ClassFileReferences {
+
+    private ClassFileReferences() {
+    }
+
+    /**
+     * Adds the packages referenced by the class file in the given stream to the given set. The stream is not closed.
+     *
+     * @param inputStream the class file content
+     * @param packages the set of package names to add to
+     * @throws IOException if the stream cannot be read or does not contain a valid class file
+     */
+    static void addReferencedPackages(InputStream inputStream, Set<String> packages) throws IOException {
+        ConstantPool constantPool = ConstantPool.read(new DataInputStream(inputStream));
+        for (int i = 1; i < constantPool.utf8Constants.length; i++) {
+            int classConstant = constantPool.classConstants[i];
+            if (classConstant != 0 && constantPool.utf8Constants[classConstant] != null) {
+                addInternalName(constantPool.utf8Constants[classConstant], packages);
+            }
+            int stringConstant = constantPool.stringConstants[i];
+            if (stringConstant != 0 && constantPool.utf8Constants[stringConstant] != null) {
+                addDottedName(constantPool.utf8Constants[stringConstant], packages);
+            }
+            if (constantPool.utf8Constants[i] != null) {
+                addSignatureTypes(constantPool.utf8Constants[i], packages);
+            }
+        }
+    }
+
+    /**
+     * Adds the package of a class constant, which is either an internal class name or an array descriptor.
+     */
+    private static void addInternalName(String name, Set<String> packages) {
+        if (name.startsWith("[")) {
+            addSignatureTypes(name, packages);
+        } else {
+            addPackage(name, '/', packages);
+        }
+    }
+
+    /**
+     * Adds the packages of the <code>L...;</code> class types in a descriptor or signature. Other UTF-8 constants
+     * rarely contain such a sequence and at worst add a package which is not used.
+     */
+    private static void addSignatureTypes(String signature, Set<String> packages) {
+        int start = signature.indexOf('L');
+        while (start != -1) {
+            int end = start + 1;
+            while (end < signature.length() && isInternalNamePart(signature.charAt(end))) {
+                end++;
+            }
+            if (end < signature.length() && (signature.charAt(end) == ';' || signature.charAt(end) == '<')) {
+                addPackage(signature.substring(start + 1, end), '/', packages);
+            }
+            start = signature.indexOf('L', start + 1);
+        }
+    }
+
+    private static void addDottedName(String name, Set<String> packages) {
+        if (name.indexOf('.') <= 0 || name.charAt(name.length() - 1) == '.') {
+            return;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '.' ? name.charAt(i - 1) == '.' : !Character.isJavaIdentifierPart(c)) {
+                return;
+            }
+        }
+        addPackage(name, '.', packages);
+        // the constant may name a package rather than a class
+        packages.add(name);
+    }
+
+    private static boolean isInternalNamePart(char c) {
+        return c == '/' || Character.isJavaIdentifierPart(c);
+    }
+
+    private static void addPackage(String className, char separator, Set<String> packages) {
+        int lastSeparatorIndex = className.lastIndexOf(separator);
+        if (lastSeparatorIndex > 0) {
+            packages.add(className.substring(0, lastSeparatorIndex).replace('/', '.'));
+        }
+    }
+}
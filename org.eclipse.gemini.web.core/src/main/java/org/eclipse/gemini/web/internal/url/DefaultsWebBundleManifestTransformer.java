@@ -18,11 +18,9 @@ package org.eclipse.gemini.web.internal.url;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.gemini.web.core.InstallationOptions;
-import org.eclipse.gemini.web.core.WebBundleManifestTransformer;
 import org.eclipse.gemini.web.internal.WebContainerUtils;
 import org.eclipse.virgo.util.osgi.manifest.BundleManifest;
 import org.eclipse.virgo.util.osgi.manifest.BundleSymbolicName;
@@ -30,7 +28,7 @@ import org.eclipse.virgo.util.osgi.manifest.ImportedPackage;
 import org.osgi.framework.Constants;
 import org.osgi.framework.Version;
 
-public final class DefaultsWebBundleManifestTransformer implements WebBundleManifestTransformer {
+public final class DefaultsWebBundleManifestTransformer implements WarAnalysingWebBundleManifestTransformer {
 
     private static final int MINIMUM_BUNDLE_MANIFEST_VERSION = 2;
 
@@ -38,14 +36,25 @@ public final class DefaultsWebBundleManifestTransformer implements WebBundleMani
 
     @Override
     public void transform(BundleManifest manifest, URL sourceURL, InstallationOptions options, boolean webBundle) throws IOException {
+        transform(manifest, sourceURL, options, webBundle, new WarAnalysis(sourceURL, false));
+    }
+
+    @Override
+    public void transform(BundleManifest manifest, URL sourceURL, InstallationOptions options, boolean webBundle, WarAnalysis warAnalysis)
+        throws IOException {
         if (!webBundle || options.getDefaultWABHeaders()) {
             applyDefaultBundleSymbolicName(sourceURL, manifest);
             applyDefaultBundleManifestVersion(manifest);
-            applyBundleClassPath(sourceURL, manifest);
+            applyBundleClassPath(warAnalysis, manifest);
             applyImportPackage(manifest);
         }
     }
 
+    @Override
+    public boolean needsReferencedPackages(BundleManifest manifest, InstallationOptions options) {
+        return false;
+    }
+
     private void applyImportPackage(BundleManifest manifest) {
         addImportInNecessary("javax.servlet", new Version("2.5"), manifest);
         addImportInNecessary("javax.servlet.annotation", new Version("2.6"), manifest);
@@ -70,28 +79,14 @@ public final class DefaultsWebBundleManifestTransformer implements WebBundleMani
         packageImport.getAttributes().put(Constants.VERSION_ATTRIBUTE, version.toString());
     }
 
-    private void applyBundleClassPath(URL source, BundleManifest manifest) throws IOException {
+    private void applyBundleClassPath(WarAnalysis warAnalysis, BundleManifest manifest) throws IOException {
         List<String> bundleClassPath = manifest.getBundleClasspath();
 
         if (!bundleClassPath.contains(WEB_INF_CLASSES)) {
             bundleClassPath.add(0, WEB_INF_CLASSES);
         }
 
-        final List<String> entries = new ArrayList<>();
-        WebBundleScanner scanner = new WebBundleScanner(source, new WebBundleScannerCallback() {
-
-            @Override
-            public void classFound(String entry) {
-            }
-
-            @Override
-            public void jarFound(String entry) {
-                entries.add(entry);
-            }
-        });
-        scanner.scanWar();
-
-        for (String entry : entries) {
+        for (String entry : warAnalysis.getJars()) {
             if (!bundleClassPath.contains(entry)) {
                 bundleClassPath.add(entry);
             }
@@ -31,11 +31,18 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.jar.JarFile;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * Utility class for transforming the files in a directory.
  * <p/>
  * Files cannot be added, only changed or removed. Actual transformation of files is performed by an implementation of
  * the {@link DirTransformerCallback} interface.
+ * <p/>
+ * Files which are not transformed are copied, or optionally hard linked so that only the transformed files are
+ * written. Linking falls back to copying when the file system does not support hard links between the directories.
+ * Note that a linked file shares its content with the original file, so changing either of them changes both.
  */
 final class DirTransformer {
 
@@ -69,8 +76,12 @@ final class DirTransformer {
 
     private static final String MANIFEST_VERSION_HEADER = "Manifest-Version: 1.0";
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirTransformer.class);
+
     private final DirTransformerCallback callback;
 
+    private boolean linkFiles;
+
     /**
      * Creates a new <code>DirTransformer</code> that uses the supplied {@link DirTransformerCallback} for
      * transformation.
@@ -78,10 +89,22 @@ final class DirTransformer {
      * @param callback the <code>DirTransformerCallback</code> to use for file transformation.
      */
     DirTransformer(DirTransformerCallback callback) {
+        this(callback, false);
+    }
+
+    /**
+     * Creates a new <code>DirTransformer</code> that uses the supplied {@link DirTransformerCallback} for
+     * transformation and optionally hard links the files which are not transformed instead of copying them.
+     * 
+     * @param callback the <code>DirTransformerCallback</code> to use for file transformation.
+     * @param linkFiles <code>true</code> if the files which are not transformed should be hard linked.
+     */
+    DirTransformer(DirTransformerCallback callback, boolean linkFiles) {
         if (callback == null) {
             throw new IllegalArgumentException("Callback must not be null");
         }
         this.callback = callback;
+        this.linkFiles = linkFiles;
     }
 
     /**
@@ -138,7 +161,22 @@ final class DirTransformer {
         }
         if (!transformed) {
             Files.createDirectories(toFile.getParent());
-            Files.copy(fromFile, toFile, new CopyOption[] { StandardCopyOption.REPLACE_EXISTING });
+            if (!this.linkFiles || !linkFile(fromFile, toFile)) {
+                Files.copy(fromFile, toFile, new CopyOption[] { StandardCopyOption.REPLACE_EXISTING });
+            }
+        }
+    }
+
+    private boolean linkFile(Path fromFile, Path toFile) throws IOException {
+        Files.deleteIfExists(toFile);
+        try {
+            Files.createLink(toFile, fromFile);
+            return true;
+        } catch (UnsupportedOperationException | IOException e) {
+            // e.g. the directories are on different file stores, the remaining files are copied
+            LOGGER.debug("Cannot link [" + toFile + "] to [" + fromFile + "], the files will be copied.", e);
+            this.linkFiles = false;
+            return false;
         }
     }
 
@@ -16,6 +16,7 @@
 
 package org.eclipse.gemini.web.internal.url;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
@@ -28,6 +29,12 @@ import java.nio.file.Paths;
  * <p/>
  * A {@link URL} is used to source the real connection for the directory data, and a {@link DirTransformer} is used to
  * customize the exact transformations being performed.
+ * <p/>
+ * The directory can be transformed into a given directory, which can optionally be installed by reference: the input
+ * stream is then opened through the framework's <code>reference:</code> protocol, so that the framework uses the
+ * transformed directory in place instead of copying it to its storage. The transformed directory must then be kept
+ * while the bundle is installed, so it is never deleted by this connection. Frameworks which do not support the
+ * <code>reference:</code> protocol are given the content of the directory as usual.
  * 
  * @see DirTransformer
  */
@@ -35,10 +42,16 @@ final class DirTransformingURLConnection extends URLConnection {
 
     private static final String TEMP_DIR = "file:temp/";
 
+    private static final String REFERENCE_SCHEME = "reference:";
+
+    private static final String FILE_SCHEME = "file:";
+
     private final DirTransformer transformer;
 
     private final boolean ensureManifestIsPresent;
 
+    private final boolean installByReference;
+
     private final Object monitor = new Object();
 
     private URL transformedURL;
@@ -71,11 +84,37 @@ final class DirTransformingURLConnection extends URLConnection {
         super(url);
         this.transformer = transformer;
         this.ensureManifestIsPresent = ensureManifestIsPresent;
+        this.installByReference = false;
 
         this.transformedURL = new URL(TEMP_DIR + getPath());
         FileUtils.deleteDirectory(Paths.get(this.transformedURL.getPath()));
     }
 
+    /**
+     * Creates a new <code>DirTransformingURLConnection</code> that will provide content from the directory identified
+     * by <code>url</code> transformed by <code>transformer</code> into <code>transformedDirectory</code>, that will
+     * optionally ensure that a manifest is provided, creating one if necessary, and that will optionally have the
+     * transformed directory installed by reference.
+     * 
+     * @param url the {@link URL} of the directory.
+     * @param transformer the <code>DirTransformer</code> to apply as content is being read.
+     * @param ensureManifestIsPresent <code>true</code> if the presence of a MANIFEST.MF should be ensured.
+     * @param transformedDirectory the directory to transform into, which is not used by any installed bundle.
+     * @param installByReference <code>true</code> if the transformed directory should be installed by reference.
+     * @throws MalformedURLException the exception is thrown in case the URL of the transformed directory cannot be
+     *         created.
+     */
+    DirTransformingURLConnection(URL url, DirTransformer transformer, boolean ensureManifestIsPresent, File transformedDirectory,
+        boolean installByReference) throws MalformedURLException {
+        super(url);
+        this.transformer = transformer;
+        this.ensureManifestIsPresent = ensureManifestIsPresent;
+        this.installByReference = installByReference;
+
+        // the transformer does not decode the path of the URL
+        this.transformedURL = new URL(FILE_SCHEME + transformedDirectory.getAbsolutePath());
+    }
+
     @Override
     public void connect() throws IOException {
     }
@@ -87,10 +126,29 @@ final class DirTransformingURLConnection extends URLConnection {
     public InputStream getInputStream() throws IOException {
         synchronized (this.monitor) {
             this.transformer.transform(this.url, this.transformedURL, this.ensureManifestIsPresent);
+            if (this.installByReference) {
+                URL referenceURL = getReferenceURL();
+                if (referenceURL != null) {
+                    return referenceURL.openStream();
+                }
+            }
             return this.transformedURL.openStream();
         }
     }
 
+    /**
+     * Returns the <code>reference:</code> URL of the transformed directory, or <code>null</code> if the framework does
+     * not support the <code>reference:</code> protocol.
+     */
+    private URL getReferenceURL() {
+        try {
+            // the framework resolves relative references against its install area and does not decode the path
+            return new URL(REFERENCE_SCHEME + FILE_SCHEME + Paths.get(this.transformedURL.getPath()).toAbsolutePath());
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
     private String getPath() {
         String path = this.url.getPath();
         int index = path.lastIndexOf('/');
@@ -0,0 +1,522 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import org.eclipse.virgo.util.io.JarTransformer;
+import org.eclipse.virgo.util.io.JarTransformer.JarTransformerCallback;
+
+/**
+ * Rewrites a JAR file with a {@link JarTransformerCallback} like {@link JarTransformer} does, but copies the compressed
+ * bytes of the entries which the callback does not transform instead of decompressing and compressing them again. The
+ * CRCs and sizes of these entries are taken from the central directory of the JAR. Only the entries written by the
+ * callback are compressed.
+ * <p/>
+ * The manifest is written first, followed by the entries of the JAR in the order of its central directory and then by
+ * the entries the callback writes for other entries than the manifest. JARs which need ZIP64 extensions and encrypted
+ * entries are not supported.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Not thread-safe.
+ */
+final class JarRewriter {
+
+    /**
+     * Thrown if a JAR uses a ZIP feature which is not supported by the rewriter. The JAR can still be transformed with
+     * a {@link JarTransformer}.
+     */
+    static final class UnsupportedJarException extends ZipException {
+
+        private static final long serialVersionUID = 4926374819270431522L;
+
+        UnsupportedJarException(String message) {
+            super(message);
+        }
+    }
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int ZIP64_END_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int ZIP64_END_LOCATOR_SIZE = 20;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    private static final int CENTRAL_HEADER_SIZE = 46;
+
+    private static final int END_SIZE = 22;
+
+    private static final int MAX_16 = 0xffff;
+
+    private static final long MAX_32 = 0xffffffffL;
+
+    private static final int FLAG_ENCRYPTED = 1;
+
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] DEFAULT_MANIFEST = "Manifest-Version: 1.0\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+
+    private final JarTransformerCallback callback;
+
+    private final boolean ensureManifestIsPresent;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * Creates a new <code>JarRewriter</code> that uses the supplied {@link JarTransformerCallback} for transformation and
+     * that optionally ensures that a manifest is present, creating one if necessary.
+     *
+     * @param callback the <code>JarTransformerCallback</code> to use for entry transformation.
+     * @param ensureManifestIsPresent <code>true</code> if the presence of a MANIFEST.MF should be ensured.
+     */
+    JarRewriter(JarTransformerCallback callback, boolean ensureManifestIsPresent) {
+        this.callback = callback;
+        this.ensureManifestIsPresent = ensureManifestIsPresent;
+    }
+
+    /**
+     * Rewrites the given JAR to the given file.
+     *
+     * @param source the JAR to rewrite
+     * @param target the file to write the rewritten JAR to
+     * @throws UnsupportedJarException if the JAR uses a ZIP feature which is not supported
+     * @throws IOException if the JAR cannot be rewritten
+     */
+    void rewrite(Path source, Path target) throws IOException {
+        try (RandomAccessFile sourceFile = new RandomAccessFile(source.toFile(), "r");) {
+            Source jar = new FileSource(sourceFile);
+            List<CentralHeader> entries = readCentralDirectory(jar);
+            try (ZipFile zipFile = new ZipFile(source.toFile());
+                CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(target)));) {
+                rewrite(jar, zipFile, entries, out);
+            }
+        }
+    }
+
+    private void rewrite(Source jar, ZipFile zipFile, List<CentralHeader> entries, CountingOutputStream out) throws IOException {
+        List<CentralHeader> writtenEntries = new ArrayList<>(entries.size());
+
+        // the manifest comes first, JarInputStream only finds it there
+        CentralHeader manifest = null;
+        for (CentralHeader entry : entries) {
+            if (JarFile.MANIFEST_NAME.equals(entry.name)) {
+                manifest = entry;
+                break;
+            }
+        }
+        if (manifest != null || this.ensureManifestIsPresent) {
+            writeManifest(zipFile, jar, manifest, out, writtenEntries);
+        }
+
+        ByteArrayOutputStream transformedEntries = new ByteArrayOutputStream();
+        try (JarOutputStream jos = new JarOutputStream(transformedEntries);) {
+            for (CentralHeader entry : entries) {
+                if (entry == manifest) {
+                    continue;
+                }
+                boolean transformed;
+                try (InputStream is = new EntryInputStream(zipFile, entry.name);) {
+                    transformed = this.callback.transformEntry(entry.name, is, jos);
+                }
+                if (!transformed) {
+                    copyEntry(jar, entry, out, writtenEntries);
+                }
+            }
+        }
+        copyEntries(transformedEntries.toByteArray(), out, writtenEntries);
+
+        writeCentralDirectory(writtenEntries, out);
+    }
+
+    private void writeManifest(ZipFile zipFile, Source jar, CentralHeader manifest, CountingOutputStream out, List<CentralHeader> writtenEntries)
+        throws IOException {
+        ByteArrayOutputStream transformedManifest = new ByteArrayOutputStream();
+        boolean transformed;
+        try (JarOutputStream jos = new JarOutputStream(transformedManifest);
+            InputStream is = manifest != null ? new EntryInputStream(zipFile, manifest.name) : new ByteArrayInputStream(DEFAULT_MANIFEST);) {
+            transformed = this.callback.transformEntry(JarFile.MANIFEST_NAME, is, jos);
+            if (!transformed && manifest == null) {
+                jos.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+                jos.write(DEFAULT_MANIFEST);
+                jos.closeEntry();
+            }
+        }
+        if (transformed || manifest == null) {
+            copyEntries(transformedManifest.toByteArray(), out, writtenEntries);
+        } else {
+            copyEntry(jar, manifest, out, writtenEntries);
+        }
+    }
+
+    private void copyEntries(byte[] entries, CountingOutputStream out, List<CentralHeader> writtenEntries) throws IOException {
+        Source source = new ByteArraySource(entries);
+        for (CentralHeader entry : readCentralDirectory(source)) {
+            copyEntry(source, entry, out, writtenEntries);
+        }
+    }
+
+    /**
+     * Copies the compressed bytes of the given entry with a local header which has the CRC and sizes of the central
+     * header, so that no data descriptor is needed.
+     */
+    private void copyEntry(Source source, CentralHeader entry, CountingOutputStream out, List<CentralHeader> writtenEntries) throws IOException {
+        byte[] localHeader = new byte[LOCAL_HEADER_SIZE];
+        source.read(entry.localHeaderOffset, localHeader, 0, LOCAL_HEADER_SIZE);
+        if (getInt(localHeader, 0) != LOCAL_HEADER_SIGNATURE) {
+            throw new UnsupportedJarException("No local header of entry [" + entry.name + "] at its central directory offset");
+        }
+        int localNameLength = getShort(localHeader, 26);
+        byte[] localExtra = new byte[getShort(localHeader, 28)];
+        source.read(entry.localHeaderOffset + LOCAL_HEADER_SIZE + localNameLength, localExtra, 0, localExtra.length);
+
+        long offset = out.getCount();
+        if (offset > MAX_32) {
+            throw new UnsupportedJarException("The rewritten JAR needs ZIP64 extensions");
+        }
+        byte[] header = new byte[LOCAL_HEADER_SIZE];
+        putInt(header, 0, LOCAL_HEADER_SIGNATURE);
+        // version needed, flags, method, time, date, CRC, sizes and name length as in the central header
+        System.arraycopy(entry.header, 6, header, 4, 24);
+        putShort(header, 6, entry.flags & ~FLAG_DATA_DESCRIPTOR);
+        putShort(header, 28, localExtra.length);
+        out.write(header);
+        out.write(entry.nameBytes);
+        out.write(localExtra);
+
+        long position = entry.localHeaderOffset + LOCAL_HEADER_SIZE + localNameLength + localExtra.length;
+        long remaining = entry.compressedSize;
+        while (remaining > 0) {
+            int length = (int) Math.min(remaining, this.buffer.length);
+            source.read(position, this.buffer, 0, length);
+            out.write(this.buffer, 0, length);
+            position += length;
+            remaining -= length;
+        }
+
+        writtenEntries.add(entry.movedTo(offset));
+    }
+
+    private static void writeCentralDirectory(List<CentralHeader> entries, CountingOutputStream out) throws IOException {
+        long offset = out.getCount();
+        for (CentralHeader entry : entries) {
+            out.write(entry.header);
+            out.write(entry.nameBytes);
+            out.write(entry.extra);
+            out.write(entry.comment);
+        }
+        long size = out.getCount() - offset;
+        if (entries.size() >= MAX_16 || offset > MAX_32 || size > MAX_32) {
+            throw new UnsupportedJarException("The rewritten JAR needs ZIP64 extensions");
+        }
+        byte[] end = new byte[END_SIZE];
+        putInt(end, 0, END_SIGNATURE);
+        putShort(end, 8, entries.size());
+        putShort(end, 10, entries.size());
+        putInt(end, 12, size);
+        putInt(end, 16, offset);
+        out.write(end);
+    }
+
+    private static List<CentralHeader> readCentralDirectory(Source source) throws IOException {
+        long length = source.length();
+        int tailLength = (int) Math.min(length, END_SIZE + MAX_16);
+        byte[] tail = new byte[tailLength];
+        source.read(length - tailLength, tail, 0, tailLength);
+        int end = -1;
+        for (int i = tailLength - END_SIZE; i >= 0; i--) {
+            if (getInt(tail, i) == END_SIGNATURE) {
+                end = i;
+                break;
+            }
+        }
+        if (end == -1) {
+            throw new UnsupportedJarException("No end of central directory");
+        }
+        if (end >= ZIP64_END_LOCATOR_SIZE && getInt(tail, end - ZIP64_END_LOCATOR_SIZE) == ZIP64_END_LOCATOR_SIGNATURE) {
+            throw new UnsupportedJarException("ZIP64 extensions are not supported");
+        }
+        int count = getShort(tail, end + 10);
+        long size = getUnsignedInt(tail, end + 12);
+        long offset = getUnsignedInt(tail, end + 16);
+        if (count == MAX_16 || size == MAX_32 || offset == MAX_32) {
+            throw new UnsupportedJarException("ZIP64 extensions are not supported");
+        }
+        if (offset + size > length) {
+            throw new UnsupportedJarException("The central directory is not where its end says");
+        }
+
+        byte[] centralDirectory = new byte[(int) size];
+        source.read(offset, centralDirectory, 0, centralDirectory.length);
+        List<CentralHeader> entries = new ArrayList<>(count);
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            if (position + CENTRAL_HEADER_SIZE > centralDirectory.length || getInt(centralDirectory, position) != CENTRAL_HEADER_SIGNATURE) {
+                throw new UnsupportedJarException("Invalid central directory");
+            }
+            CentralHeader entry = new CentralHeader(centralDirectory, position);
+            if ((entry.flags & FLAG_ENCRYPTED) != 0) {
+                throw new UnsupportedJarException("Entry [" + entry.name + "] is encrypted");
+            }
+            if (entry.compressedSize == MAX_32 || entry.localHeaderOffset == MAX_32 || getUnsignedInt(entry.header, 24) == MAX_32) {
+                throw new UnsupportedJarException("ZIP64 extensions are not supported");
+            }
+            entries.add(entry);
+            position += CENTRAL_HEADER_SIZE + entry.nameBytes.length + entry.extra.length + entry.comment.length;
+        }
+        return entries;
+    }
+
+    private static int getShort(byte[] bytes, int offset) {
+        return bytes[offset] & 0xff | (bytes[offset + 1] & 0xff) << 8;
+    }
+
+    private static int getInt(byte[] bytes, int offset) {
+        return getShort(bytes, offset) | getShort(bytes, offset + 2) << 16;
+    }
+
+    private static long getUnsignedInt(byte[] bytes, int offset) {
+        return getInt(bytes, offset) & MAX_32;
+    }
+
+    private static void putShort(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+    }
+
+    private static void putInt(byte[] bytes, int offset, long value) {
+        putShort(bytes, offset, (int) value);
+        putShort(bytes, offset + 2, (int) (value >>> 16));
+    }
+
+    /**
+     * A central directory header.
+     */
+    private static final class CentralHeader {
+
+        private final byte[] header;
+
+        private final byte[] nameBytes;
+
+        private final byte[] extra;
+
+        private final byte[] comment;
+
+        private final String name;
+
+        private final int flags;
+
+        private final long compressedSize;
+
+        private final long localHeaderOffset;
+
+        CentralHeader(byte[] centralDirectory, int position) throws UnsupportedJarException {
+            this.header = new byte[CENTRAL_HEADER_SIZE];
+            System.arraycopy(centralDirectory, position, this.header, 0, CENTRAL_HEADER_SIZE);
+            int nameStart = position + CENTRAL_HEADER_SIZE;
+            int extraStart = nameStart + getShort(this.header, 28);
+            int commentStart = extraStart + getShort(this.header, 30);
+            int commentEnd = commentStart + getShort(this.header, 32);
+            this.nameBytes = copyOfRange(centralDirectory, nameStart, extraStart);
+            this.extra = copyOfRange(centralDirectory, extraStart, commentStart);
+            this.comment = copyOfRange(centralDirectory, commentStart, commentEnd);
+            this.name = new String(this.nameBytes, StandardCharsets.UTF_8);
+            this.flags = getShort(this.header, 8);
+            this.compressedSize = getUnsignedInt(this.header, 20);
+            this.localHeaderOffset = getUnsignedInt(this.header, 42);
+        }
+
+        private CentralHeader(CentralHeader entry, long localHeaderOffset) {
+            this.header = entry.header.clone();
+            this.nameBytes = entry.nameBytes;
+            this.extra = entry.extra;
+            this.comment = entry.comment;
+            this.name = entry.name;
+            this.flags = entry.flags & ~FLAG_DATA_DESCRIPTOR;
+            this.compressedSize = entry.compressedSize;
+            this.localHeaderOffset = localHeaderOffset;
+            putShort(this.header, 8, this.flags);
+            // disk number start
+            putShort(this.header, 34, 0);
+            putInt(this.header, 42, localHeaderOffset);
+        }
+
+        CentralHeader movedTo(long offset) {
+            return new CentralHeader(this, offset);
+        }
+
+        private static byte[] copyOfRange(byte[] bytes, int from, int to) throws UnsupportedJarException {
+            if (to > bytes.length) {
+                throw new UnsupportedJarException("Invalid central directory");
+            }
+            byte[] copy = new byte[to - from];
+            System.arraycopy(bytes, from, copy, 0, copy.length);
+            return copy;
+        }
+    }
+
+    /**
+     * Random access to the bytes of a JAR.
+     */
+    private abstract static class Source {
+
+        abstract long length() throws IOException;
+
+        abstract void read(long position, byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    private static final class FileSource extends Source {
+
+        private final RandomAccessFile file;
+
+        FileSource(RandomAccessFile file) {
+            this.file = file;
+        }
+
+        @Override
+        long length() throws IOException {
+            return this.file.length();
+        }
+
+        @Override
+        void read(long position, byte[] bytes, int offset, int length) throws IOException {
+            this.file.seek(position);
+            this.file.readFully(bytes, offset, length);
+        }
+    }
+
+    private static final class ByteArraySource extends Source {
+
+        private final byte[] content;
+
+        ByteArraySource(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        long length() {
+            return this.content.length;
+        }
+
+        @Override
+        void read(long position, byte[] bytes, int offset, int length) throws IOException {
+            if (position < 0 || position + length > this.content.length) {
+                throw new ZipException("Invalid position " + position);
+            }
+            System.arraycopy(this.content, (int) position, bytes, offset, length);
+        }
+    }
+
+    /**
+     * The content of an entry, which is only decompressed if the callback reads it.
+     */
+    private static final class EntryInputStream extends InputStream {
+
+        private final ZipFile zipFile;
+
+        private final String name;
+
+        private InputStream in;
+
+        EntryInputStream(ZipFile zipFile, String name) {
+            this.zipFile = zipFile;
+            this.name = name;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return getInputStream().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return getInputStream().read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return getInputStream().available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.in != null) {
+                this.in.close();
+            }
+        }
+
+        private InputStream getInputStream() throws IOException {
+            if (this.in == null) {
+                ZipEntry entry = this.zipFile.getEntry(this.name);
+                if (entry == null) {
+                    throw new ZipException("Cannot read entry [" + this.name + "] of [" + this.zipFile.getName() + "]");
+                }
+                this.in = this.zipFile.getInputStream(entry);
+            }
+            return this.in;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+
+        long getCount() {
+            return this.count;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.eclipse.gemini.web.internal.WebContainerUtils;
+import org.eclipse.gemini.web.internal.url.JarRewriter.UnsupportedJarException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation of {@link URLConnection} that transforms a JAR file on the local file system with a
+ * {@link JarRewriter} when it is read. The rewritten JAR is written to a temporary file, which is deleted when the
+ * returned stream is closed.
+ * <p/>
+ * JARs which the <code>JarRewriter</code> does not support are read from the given fallback connection.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+final class JarRewritingURLConnection extends URLConnection {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JarRewritingURLConnection.class);
+
+    private final JarRewriter rewriter;
+
+    private final URLConnection fallbackConnection;
+
+    private final Object monitor = new Object();
+
+    /**
+     * Creates a new <code>JarRewritingURLConnection</code> that will provide content from the JAR file identified by
+     * <code>url</code> rewritten by <code>rewriter</code>.
+     *
+     * @param url the <code>file:</code> {@link URL} of the JAR.
+     * @param rewriter the <code>JarRewriter</code> to apply as content is being read.
+     * @param fallbackConnection the connection to read JARs from which the <code>rewriter</code> does not support.
+     */
+    JarRewritingURLConnection(URL url, JarRewriter rewriter, URLConnection fallbackConnection) {
+        super(url);
+        this.rewriter = rewriter;
+        this.fallbackConnection = fallbackConnection;
+    }
+
+    @Override
+    public void connect() throws IOException {
+    }
+
+    /**
+     * Rewrite the JAR before returning the input stream.
+     */
+    @Override
+    public InputStream getInputStream() throws IOException {
+        synchronized (this.monitor) {
+            Path source;
+            try {
+                source = WebContainerUtils.sourceAsPath(this.url);
+            } catch (URISyntaxException e) {
+                throw new IOException("Cannot read [" + this.url + "]", e);
+            }
+            Path target = Files.createTempFile("webbundle", ".war");
+            try {
+                this.rewriter.rewrite(source, target);
+            } catch (UnsupportedJarException e) {
+                Files.deleteIfExists(target);
+                LOGGER.debug("Cannot rewrite [" + this.url + "], it will be transformed entry by entry: " + e.getMessage());
+                return this.fallbackConnection.getInputStream();
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(target);
+                throw e;
+            }
+            return Files.newInputStream(target, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+    }
+}
@@ -0,0 +1,446 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scans a WAR file on the local file system or a WAR directory like {@link WebBundleScanner}, but reads the JARs and,
+ * if the callback wants them, the class contents on an {@link ExecutorService}. A WAR file is read through its central
+ * directory instead of sequentially.
+ * <p/>
+ * The callback is only called on the scanning thread. It is notified of the JARs in the order of the entries in the
+ * central directory of a WAR file, or of the files in <code>WEB-INF/lib</code> of a WAR directory, and of the JARs
+ * found through <code>Class-Path</code> headers right after the JAR referencing them, so the order does not depend on
+ * the order in which the reads complete. Only a bounded number of JARs and batches of classes are read ahead of the
+ * callback.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Not thread-safe.
+ */
+final class ParallelWebBundleScanner {
+
+    private static final int CLASS_BATCH_SIZE = 64;
+
+    private static final int READ_AHEAD = 2 * Runtime.getRuntime().availableProcessors();
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelWebBundleScanner.class);
+
+    private final WebBundleScannerCallback callBack;
+
+    private final boolean findClassesInNestedJars;
+
+    private final boolean readClassContents;
+
+    private final ExecutorService executorService;
+
+    private final Set<String> scannedJars = new HashSet<>();
+
+    ParallelWebBundleScanner(WebBundleScannerCallback callBack, boolean findClassesInNestedJars, ExecutorService executorService) {
+        this.callBack = callBack;
+        this.findClassesInNestedJars = findClassesInNestedJars;
+        this.readClassContents = callBack instanceof WebBundleScannerClassContentCallback;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Scans the given WAR file.
+     *
+     * @param warFile the path of the WAR file
+     * @throws IOException if the WAR cannot be scanned
+     */
+    void scanWarFile(String warFile) throws IOException {
+        try (ZipFile zipFile = new ZipFile(warFile)) {
+            WarFileContent content = new WarFileContent(zipFile);
+            List<Item> items = new ArrayList<>();
+            ClassesItem classesItem = null;
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String entryName = entries.nextElement().getName();
+                content.entryNames.add(entryName);
+                if (entryName.startsWith(WebBundleScanner.LIB_ENTRY_PREFIX) && entryName.endsWith(WebBundleScanner.JAR_SUFFIX)) {
+                    items.add(new JarItem(entryName, entryName, entryName));
+                    classesItem = null;
+                } else if (entryName.startsWith(WebBundleScanner.CLASSES_ENTRY_PREFIX) && entryName.endsWith(WebBundleScanner.CLASS_SUFFIX)) {
+                    if (classesItem == null || classesItem.ids.size() == CLASS_BATCH_SIZE) {
+                        classesItem = new ClassesItem();
+                        items.add(classesItem);
+                    }
+                    classesItem.add(entryName, entryName.substring(WebBundleScanner.CLASSES_ENTRY_PREFIX.length()));
+                }
+            }
+            scan(items, content);
+        }
+    }
+
+    /**
+     * Scans the given WAR directory.
+     *
+     * @param bundleDir the WAR directory
+     * @throws IOException if the WAR cannot be scanned
+     */
+    void scanWarDirectory(java.nio.file.Path bundleDir) throws IOException {
+        List<Item> items = new ArrayList<>();
+        java.nio.file.Path libDir = bundleDir.resolve("WEB-INF").resolve("lib");
+        if (Files.isDirectory(libDir)) {
+            try (DirectoryStream<java.nio.file.Path> files = Files.newDirectoryStream(libDir)) {
+                for (java.nio.file.Path file : files) {
+                    if (!Files.isDirectory(file) && file.getFileName().toString().endsWith(WebBundleScanner.JAR_SUFFIX)) {
+                        items.add(new JarItem(file.toString(), WebBundleScanner.LIB_ENTRY_PREFIX + file.getFileName().toString(),
+                            file.toAbsolutePath().toString()));
+                    }
+                }
+            }
+        }
+        java.nio.file.Path classesDir = bundleDir.resolve("WEB-INF").resolve("classes");
+        if (Files.isDirectory(classesDir)) {
+            addClassesItems(classesDir, items, null);
+        }
+        scan(items, new WarDirectoryContent(bundleDir));
+    }
+
+    /**
+     * Adds the classes in the given directory to the last batch of classes or to new batches.
+     *
+     * @return the last batch of classes
+     */
+    private static ClassesItem addClassesItems(java.nio.file.Path directory, List<Item> items, ClassesItem lastClassesItem) throws IOException {
+        ClassesItem classesItem = lastClassesItem;
+        try (DirectoryStream<java.nio.file.Path> files = Files.newDirectoryStream(directory)) {
+            for (java.nio.file.Path file : files) {
+                if (Files.isDirectory(file)) {
+                    classesItem = addClassesItems(file, items, classesItem);
+                } else if (file.getFileName().toString().endsWith(WebBundleScanner.CLASS_SUFFIX)) {
+                    if (classesItem == null || classesItem.ids.size() == CLASS_BATCH_SIZE) {
+                        classesItem = new ClassesItem();
+                        items.add(classesItem);
+                    }
+                    String path = WebBundleScanner.normalizePath(file.toString());
+                    classesItem.add(file.toString(),
+                        path.substring(path.lastIndexOf(WebBundleScanner.CLASSES_ENTRY_PREFIX) + WebBundleScanner.CLASSES_ENTRY_PREFIX.length()));
+                }
+            }
+        }
+        return classesItem;
+    }
+
+    private void scan(List<Item> items, WarContent content) throws IOException {
+        List<Future<ReadResult>> reads = new ArrayList<>(items.size());
+        try {
+            for (int i = 0; i < items.size(); i++) {
+                while (reads.size() < items.size() && reads.size() <= i + READ_AHEAD) {
+                    reads.add(read(items.get(reads.size()), content));
+                }
+                Item item = items.get(i);
+                ReadResult readResult = get(reads.set(i, null));
+                if (item instanceof JarItem) {
+                    JarItem jarItem = (JarItem) item;
+                    if (driveCallBackIfNewJarFound(jarItem.name)) {
+                        notifyJar(jarItem, readResult, content);
+                    }
+                } else {
+                    notifyClasses(readResult);
+                }
+            }
+        } finally {
+            for (Future<ReadResult> read : reads) {
+                if (read != null) {
+                    read.cancel(true);
+                }
+            }
+        }
+    }
+
+    private Future<ReadResult> read(final Item item, final WarContent content) {
+        FutureTask<ReadResult> read = new FutureTask<>(new Callable<ReadResult>() {
+
+            @Override
+            public ReadResult call() throws IOException {
+                return item instanceof JarItem ? readJar((JarItem) item, content) : readClasses((ClassesItem) item, content);
+            }
+        });
+        if (item instanceof JarItem || this.readClassContents) {
+            this.executorService.execute(read);
+        } else {
+            // only the names of the classes are needed
+            read.run();
+        }
+        return read;
+    }
+
+    private void notifyJar(JarItem jarItem, ReadResult readResult, WarContent content) throws IOException {
+        for (String classPathItem : readResult.classPath) {
+            JarItem referencedJar;
+            try {
+                referencedJar = content.resolve(jarItem, classPathItem);
+            } catch (IllegalArgumentException e) {
+                // skip invalid relative paths which try to escape the WAR
+                LOGGER.debug("", e);
+                continue;
+            }
+            if (referencedJar != null && driveCallBackIfNewJarFound(referencedJar.name)) {
+                notifyJar(referencedJar, readJar(referencedJar, content), content);
+            }
+        }
+        notifyClasses(readResult);
+    }
+
+    private void notifyClasses(ReadResult readResult) throws IOException {
+        for (int i = 0; i < readResult.classNames.size(); i++) {
+            String className = readResult.classNames.get(i);
+            this.callBack.classFound(className);
+            if (readResult.classContents != null) {
+                ((WebBundleScannerClassContentCallback) this.callBack).classContentFound(className,
+                    new ByteArrayInputStream(readResult.classContents.get(i)));
+            }
+        }
+    }
+
+    private boolean driveCallBackIfNewJarFound(String pathToJar) {
+        // Prevent infinite recursion.
+        if (!this.scannedJars.add(pathToJar)) {
+            return false;
+        }
+        this.callBack.jarFound(pathToJar);
+        return true;
+    }
+
+    private ReadResult readJar(JarItem jarItem, WarContent content) throws IOException {
+        ReadResult readResult = new ReadResult(this.readClassContents && this.findClassesInNestedJars);
+        try (JarInputStream jis = new JarInputStream(content.open(jarItem.id))) {
+            Manifest manifest = jis.getManifest();
+            if (manifest != null) {
+                Attributes mainAttributes = manifest.getMainAttributes();
+                String classPath = mainAttributes == null ? null : mainAttributes.getValue(WebBundleScanner.CLASS_PATH_ATTRIBUTE_NAME);
+                if (classPath != null) {
+                    for (String classPathItem : classPath.split(WebBundleScanner.CLASS_PATH_SEPARATOR)) {
+                        readResult.classPath.add(classPathItem);
+                    }
+                }
+            }
+            if (this.findClassesInNestedJars) {
+                JarEntry entry;
+                while ((entry = jis.getNextJarEntry()) != null) {
+                    if (entry.getName().endsWith(WebBundleScanner.CLASS_SUFFIX)) {
+                        readResult.add(entry.getName(), jis);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IOException("Cannot scan " + jarItem.id, e);
+        }
+        return readResult;
+    }
+
+    private ReadResult readClasses(ClassesItem classesItem, WarContent content) throws IOException {
+        ReadResult readResult = new ReadResult(this.readClassContents);
+        for (int i = 0; i < classesItem.ids.size(); i++) {
+            if (this.readClassContents) {
+                try (InputStream in = content.open(classesItem.ids.get(i))) {
+                    readResult.add(classesItem.names.get(i), in);
+                }
+            } else {
+                readResult.add(classesItem.names.get(i), null);
+            }
+        }
+        return readResult;
+    }
+
+    private static ReadResult get(Future<ReadResult> read) throws IOException {
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while scanning the WAR.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private interface Item {
+    }
+
+    private static final class JarItem implements Item {
+
+        private final String id;
+
+        private final String name;
+
+        private final String base;
+
+        /**
+         * @param id the path of the JAR to open it with
+         * @param name the path of the JAR passed to the callback
+         * @param base the path of the JAR its <code>Class-Path</code> is relative to
+         */
+        JarItem(String id, String name, String base) {
+            this.id = id;
+            this.name = name;
+            this.base = base;
+        }
+    }
+
+    private static final class ClassesItem implements Item {
+
+        private final List<String> ids = new ArrayList<>(CLASS_BATCH_SIZE);
+
+        private final List<String> names = new ArrayList<>(CLASS_BATCH_SIZE);
+
+        void add(String id, String name) {
+            this.ids.add(id);
+            this.names.add(name);
+        }
+    }
+
+    private static final class ReadResult {
+
+        private final List<String> classPath = new ArrayList<>();
+
+        private final List<String> classNames = new ArrayList<>();
+
+        private final List<byte[]> classContents;
+
+        ReadResult(boolean readClassContents) {
+            this.classContents = readClassContents ? new ArrayList<byte[]>() : null;
+        }
+
+        void add(String className, InputStream classContent) throws IOException {
+            this.classNames.add(className);
+            if (this.classContents != null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = classContent.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                this.classContents.add(out.toByteArray());
+            }
+        }
+    }
+
+    private abstract static class WarContent {
+
+        abstract InputStream open(String id) throws IOException;
+
+        /**
+         * Resolves an item of the <code>Class-Path</code> of the given JAR.
+         *
+         * @return the referenced JAR, or <code>null</code> if it is not in the WAR
+         * @throws IllegalArgumentException if the item is not a valid relative path within the WAR
+         */
+        abstract JarItem resolve(JarItem jarItem, String classPathItem) throws IOException;
+    }
+
+    private static final class WarFileContent extends WarContent {
+
+        private final ZipFile zipFile;
+
+        private final Set<String> entryNames = new HashSet<>();
+
+        WarFileContent(ZipFile zipFile) {
+            this.zipFile = zipFile;
+        }
+
+        @Override
+        InputStream open(String id) throws IOException {
+            ZipEntry entry = this.zipFile.getEntry(id);
+            if (entry == null) {
+                throw new IOException("Entry [" + id + "] not found.");
+            }
+            return this.zipFile.getInputStream(entry);
+        }
+
+        @Override
+        JarItem resolve(JarItem jarItem, String classPathItem) {
+            String jarPath = WebBundleScanner.getNormalisedDirectoryPath(jarItem.base).applyRelativePath(new Path(classPathItem)).toString();
+            String entryName = WebBundleScanner.findLongestSuffix(jarPath, this.entryNames);
+            return entryName == null ? null : new JarItem(entryName, entryName, entryName);
+        }
+    }
+
+    private static final class WarDirectoryContent extends WarContent {
+
+        private final java.nio.file.Path bundleDir;
+
+        WarDirectoryContent(java.nio.file.Path bundleDir) {
+            this.bundleDir = bundleDir;
+        }
+
+        @Override
+        InputStream open(String id) throws IOException {
+            return Files.newInputStream(Paths.get(id));
+        }
+
+        @Override
+        JarItem resolve(JarItem jarItem, String classPathItem) {
+            Path entryPath = WebBundleScanner.getNormalisedDirectoryPath(jarItem.base).applyRelativePath(new Path(classPathItem));
+            java.nio.file.Path nestedJar = Paths.get(entryPath.toString());
+            if (!nestedJar.isAbsolute()) {
+                nestedJar = this.bundleDir.resolve(entryPath.toString());
+            }
+            if (Files.isDirectory(nestedJar)) {
+                return null;
+            }
+            URI pathToJar = this.bundleDir.toUri().relativize(nestedJar.toUri());
+            if (pathToJar.equals(nestedJar.toUri())) {
+                // cannot obtain relative path
+                return null;
+            }
+            return new JarItem(nestedJar.toString(), pathToJar.getPath(), nestedJar.toAbsolutePath().toString());
+        }
+    }
+}
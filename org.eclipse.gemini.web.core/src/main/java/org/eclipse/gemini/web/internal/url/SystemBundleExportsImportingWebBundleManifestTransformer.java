@@ -18,20 +18,30 @@ package org.eclipse.gemini.web.internal.url;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
 import org.eclipse.gemini.web.core.InstallationOptions;
-import org.eclipse.gemini.web.core.WebBundleManifestTransformer;
+import org.eclipse.gemini.web.internal.WebContainerUtils;
 import org.eclipse.virgo.util.osgi.manifest.BundleManifest;
 import org.eclipse.virgo.util.osgi.manifest.VersionRange;
 
-public final class SystemBundleExportsImportingWebBundleManifestTransformer implements WebBundleManifestTransformer {
+public final class SystemBundleExportsImportingWebBundleManifestTransformer implements WarAnalysingWebBundleManifestTransformer {
 
-    private final Map<String, VersionRange> systemBundleExports;
+    /**
+     * Packages which libraries commonly load reflectively, e.g. through factory lookups, JNDI or service loaders, and
+     * which are therefore imported even when no class of the WAR refers to them.
+     */
+    static final List<String> REFLECTIVELY_USED_PACKAGES = Arrays.asList("javax.xml.*", "org.w3c.dom.*", "org.xml.sax.*", "javax.naming.*",
+        "javax.management.*", "javax.sql", "javax.transaction.*", "javax.annotation.*");
+
+    private static final String SUB_PACKAGES_SUFFIX = ".*";
 
-    private final PackagesInWarScanner warPackagesScanner = new PackagesInWarScanner();
+    private final Map<String, VersionRange> systemBundleExports;
 
     public SystemBundleExportsImportingWebBundleManifestTransformer(Map<String, VersionRange> systemBundleExports) {
         this.systemBundleExports = systemBundleExports;
@@ -39,17 +49,73 @@ public final class SystemBundleExportsImportingWebBundleManifestTransformer impl
 
     @Override
     public void transform(BundleManifest manifest, URL sourceURL, InstallationOptions options, boolean webBundle) throws IOException {
+        transform(manifest, sourceURL, options, webBundle, new WarAnalysis(sourceURL, needsReferencedPackages(manifest, options)));
+    }
+
+    @Override
+    public void transform(BundleManifest manifest, URL sourceURL, InstallationOptions options, boolean webBundle, WarAnalysis warAnalysis)
+        throws IOException {
         if (!webBundle || options.getDefaultWABHeaders()) {
-            addImportsForSystemBundleExports(manifest, this.warPackagesScanner.getPackagesContainedInWar(sourceURL));
+            String referencedSystemPackages = getReferencedSystemPackages(manifest, options);
+            Set<String> referencedPackages = referencedSystemPackages == null ? null : warAnalysis.getReferencedPackages();
+            addImportsForSystemBundleExports(manifest, warAnalysis.getContainedPackages(), referencedPackages,
+                getAllowedPackages(referencedSystemPackages));
         }
     }
 
-    private void addImportsForSystemBundleExports(BundleManifest bundleManifest, Set<String> packagesInWar) {
+    @Override
+    public boolean needsReferencedPackages(BundleManifest manifest, InstallationOptions options) {
+        return getReferencedSystemPackages(manifest, options) != null;
+    }
+
+    private static String getReferencedSystemPackages(BundleManifest manifest, InstallationOptions options) {
+        String referencedSystemPackages = options == null ? null : options.getReferencedSystemPackages();
+        if (referencedSystemPackages == null && manifest != null) {
+            referencedSystemPackages = manifest.getHeader(WebContainerUtils.HEADER_REFERENCED_SYSTEM_PACKAGES);
+        }
+        return referencedSystemPackages;
+    }
+
+    private static List<String> getAllowedPackages(String referencedSystemPackages) {
+        List<String> allowedPackages = new ArrayList<>(REFLECTIVELY_USED_PACKAGES);
+        if (referencedSystemPackages != null) {
+            for (String packageName : referencedSystemPackages.split(",")) {
+                if (!packageName.trim().isEmpty()) {
+                    allowedPackages.add(packageName.trim());
+                }
+            }
+        }
+        return allowedPackages;
+    }
+
+    /**
+     * Imports the system bundle exports which are not contained in the WAR. If the referenced packages are known, only
+     * those and the allowed packages are imported.
+     */
+    private void addImportsForSystemBundleExports(BundleManifest bundleManifest, Set<String> packagesInWar, Set<String> referencedPackages,
+        List<String> allowedPackages) {
         for (Entry<String, VersionRange> exportedPackage : this.systemBundleExports.entrySet()) {
             String packageName = exportedPackage.getKey();
+            if (referencedPackages != null && !referencedPackages.contains(packageName) && !isAllowed(packageName, allowedPackages)) {
+                continue;
+            }
             if (!packagesInWar.contains(packageName) && PackageMergeUtils.findImportedPackage(bundleManifest, packageName) == null) {
                 bundleManifest.getImportPackage().addImportedPackage(packageName).setVersion(exportedPackage.getValue());
             }
         }
     }
+
+    private static boolean isAllowed(String packageName, List<String> allowedPackages) {
+        for (String allowedPackage : allowedPackages) {
+            if (allowedPackage.endsWith(SUB_PACKAGES_SUFFIX)) {
+                String parentPackage = allowedPackage.substring(0, allowedPackage.length() - SUB_PACKAGES_SUFFIX.length());
+                if (packageName.equals(parentPackage) || packageName.startsWith(parentPackage + ".")) {
+                    return true;
+                }
+            } else if (packageName.equals(allowedPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
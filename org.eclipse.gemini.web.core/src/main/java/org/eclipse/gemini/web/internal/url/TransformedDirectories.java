@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarFile;
+
+import org.eclipse.osgi.service.urlconversion.URLConverter;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleRevisions;
+import org.osgi.framework.wiring.BundleWiring;
+import org.osgi.framework.wiring.FrameworkWiring;
+import org.osgi.util.tracker.ServiceTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The directories into which WAR directories installed through <code>webbundle:</code> URLs are transformed, kept in a
+ * directory in the data area of this bundle. Each location, which contains the full path of the WAR directory, has a
+ * directory of its own, named after a digest of the location.
+ * <p/>
+ * Every transformation is written to a new generation in the directory of its location, as the framework may use a
+ * previous generation in place if it has installed it by reference. A generation is only deleted once no revision of
+ * any installed bundle uses it, as a bundle may be installed by reference from a stream of a <code>webbundle:</code>
+ * URL under a location of its own. The generation a revision uses is found by resolving the revision's manifest entry
+ * to a file with the framework's {@link URLConverter}. Without a converter no generation is deleted.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+public final class TransformedDirectories {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransformedDirectories.class);
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final String LOCATION_FILE_NAME = "location";
+
+    private static final String META_INF = "META-INF";
+
+    private static final String MANIFEST = "MANIFEST.MF";
+
+    private static final String FILE_PROTOCOL = "file";
+
+    private final File directory;
+
+    private final BundleContext bundleContext;
+
+    private final ServiceTracker<?, ?> urlConverterTracker;
+
+    private final Object monitor = new Object();
+
+    /**
+     * Creates <code>TransformedDirectories</code> in the given directory.
+     *
+     * @param directory the directory of the transformed directories
+     * @param bundleContext the context used to find the bundles installed from the locations
+     * @param urlConverterTracker the tracker of the framework's {@link URLConverter} for <code>bundleentry:</code> URLs
+     */
+    public TransformedDirectories(File directory, BundleContext bundleContext, ServiceTracker<?, ?> urlConverterTracker) {
+        this.directory = directory;
+        this.bundleContext = bundleContext;
+        this.urlConverterTracker = urlConverterTracker;
+    }
+
+    /**
+     * Deletes the transformed directories no installed bundle may use, for example those of bundles which were
+     * uninstalled.
+     */
+    public void deleteUnused() {
+        synchronized (this.monitor) {
+            File[] locationDirectories = this.directory.listFiles();
+            if (locationDirectories == null || locationDirectories.length == 0) {
+                return;
+            }
+            Set<File> generationsInUse = getGenerationsInUse();
+            for (File locationDirectory : locationDirectories) {
+                String location;
+                try {
+                    location = readLocation(locationDirectory);
+                } catch (IOException e) {
+                    LOGGER.warn("Cannot read the location of transformed directory [" + locationDirectory + "].", e);
+                    continue;
+                }
+                if (location == null || deleteUnusedGenerations(locationDirectory, generationsInUse).isEmpty()) {
+                    delete(locationDirectory);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a new directory to transform the WAR directory installed from the given location into and deletes the
+     * generations of the location which are no longer used.
+     *
+     * @param location the <code>webbundle:</code> location
+     * @return the new, empty directory
+     * @throws IOException if the directory cannot be created
+     */
+    File newDirectory(String location) throws IOException {
+        synchronized (this.monitor) {
+            File locationDirectory = new File(this.directory, digest(location));
+            List<File> generations = getGenerations(locationDirectory);
+            if (!generations.isEmpty()) {
+                generations = deleteUnusedGenerations(locationDirectory, getGenerationsInUse());
+            }
+            if (!location.equals(readLocation(locationDirectory))) {
+                Files.createDirectories(locationDirectory.toPath());
+                Files.write(new File(locationDirectory, LOCATION_FILE_NAME).toPath(), location.getBytes(StandardCharsets.UTF_8));
+            }
+            long generation = generations.isEmpty() ? 1 : getGeneration(generations.get(generations.size() - 1)) + 1;
+            File generationDirectory = new File(locationDirectory, Long.toString(generation));
+            Files.createDirectory(generationDirectory.toPath());
+            return generationDirectory;
+        }
+    }
+
+    /**
+     * Deletes the generations of the given location directory which are not in use.
+     *
+     * @param generationsInUse the generations in use or <code>null</code> if they are not known
+     * @return the remaining generations, oldest first
+     */
+    private static List<File> deleteUnusedGenerations(File locationDirectory, Set<File> generationsInUse) {
+        List<File> generations = getGenerations(locationDirectory);
+        if (generationsInUse == null) {
+            return generations;
+        }
+        List<File> remainingGenerations = new ArrayList<>();
+        for (File generation : generations) {
+            if (isInUse(generation, generationsInUse)) {
+                remainingGenerations.add(generation);
+            } else {
+                delete(generation);
+            }
+        }
+        return remainingGenerations;
+    }
+
+    /**
+     * @return the directories the revisions of the installed bundles, including those which were uninstalled but not
+     *         refreshed yet, use, or <code>null</code> if they cannot be determined
+     */
+    private Set<File> getGenerationsInUse() {
+        Object converter = this.urlConverterTracker.getService();
+        if (converter == null) {
+            return null;
+        }
+        Set<Bundle> bundles = new HashSet<>(Arrays.asList(this.bundleContext.getBundles()));
+        FrameworkWiring frameworkWiring = this.bundleContext.getBundle(Constants.SYSTEM_BUNDLE_LOCATION).adapt(FrameworkWiring.class);
+        if (frameworkWiring != null) {
+            bundles.addAll(frameworkWiring.getRemovalPendingBundles());
+        }
+
+        Set<File> generationsInUse = new HashSet<>();
+        for (Bundle bundle : bundles) {
+            try {
+                addGenerationsInUse(generationsInUse, (URLConverter) converter, bundle);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Cannot determine the transformed directories used by bundle [" + bundle + "].", e);
+                return null;
+            }
+        }
+        return generationsInUse;
+    }
+
+    private void addGenerationsInUse(Set<File> generationsInUse, URLConverter converter, Bundle bundle) throws IOException {
+        if (bundle.getState() != Bundle.UNINSTALLED) {
+            addGenerationInUse(generationsInUse, converter, bundle.getEntry(JarFile.MANIFEST_NAME));
+        }
+        // the revisions replaced by an update or an uninstall use their generations until the bundle is refreshed
+        BundleRevisions bundleRevisions = bundle.adapt(BundleRevisions.class);
+        if (bundleRevisions != null) {
+            for (BundleRevision bundleRevision : bundleRevisions.getRevisions()) {
+                BundleWiring bundleWiring = bundleRevision.getWiring();
+                if (bundleWiring != null) {
+                    for (URL manifest : bundleWiring.findEntries(META_INF, MANIFEST, 0)) {
+                        addGenerationInUse(generationsInUse, converter, manifest);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isInUse(File generation, Set<File> generationsInUse) {
+        try {
+            return generationsInUse.contains(generation.getCanonicalFile());
+        } catch (IOException e) {
+            LOGGER.warn("Cannot determine whether transformed directory [" + generation + "] is used.", e);
+            return true;
+        }
+    }
+
+    private void addGenerationInUse(Set<File> generationsInUse, URLConverter converter, URL manifest) throws IOException {
+        if (manifest == null) {
+            return;
+        }
+        URL fileURL = converter.resolve(manifest);
+        if (fileURL != null && FILE_PROTOCOL.equals(fileURL.getProtocol())) {
+            File generation = new File(fileURL.getPath()).getCanonicalFile().getParentFile().getParentFile();
+            // only the directories transformed by this bundle are of interest
+            if (generation != null && generation.getPath().startsWith(this.directory.getCanonicalPath() + File.separator)) {
+                generationsInUse.add(generation);
+            }
+        }
+    }
+
+    private static List<File> getGenerations(File locationDirectory) {
+        List<File> generations = new ArrayList<>();
+        File[] files = locationDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory() && getGeneration(file) > 0) {
+                    generations.add(file);
+                }
+            }
+        }
+        Collections.sort(generations, new Comparator<File>() {
+
+            @Override
+            public int compare(File generation1, File generation2) {
+                return Long.compare(getGeneration(generation1), getGeneration(generation2));
+            }
+        });
+        return generations;
+    }
+
+    private static long getGeneration(File generation) {
+        try {
+            return Long.parseLong(generation.getName());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the location of the given directory or <code>null</code> if it has none
+     */
+    private static String readLocation(File locationDirectory) throws IOException {
+        File locationFile = new File(locationDirectory, LOCATION_FILE_NAME);
+        if (!locationFile.isFile()) {
+            return null;
+        }
+        return new String(Files.readAllBytes(locationFile.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void delete(File file) {
+        if (!FileUtils.deleteDirectory(file.toPath())) {
+            LOGGER.warn("Cannot delete transformed directory [" + file + "].");
+        }
+    }
+
+    private static String digest(String location) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] bytes = digest.digest(location.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import java.io.IOException;
+import java.net.URL;
+
+import org.eclipse.gemini.web.core.InstallationOptions;
+import org.eclipse.gemini.web.core.WebBundleManifestTransformer;
+import org.eclipse.virgo.util.osgi.manifest.BundleManifest;
+
+/**
+ * A {@link WebBundleManifestTransformer} which uses a {@link WarAnalysis} of the WAR. The
+ * {@link ChainingWebBundleManifestTransformer} hands the same analysis to all such transformers in the chain so that
+ * the WAR is scanned at most once per transformation.
+ */
+interface WarAnalysingWebBundleManifestTransformer extends WebBundleManifestTransformer {
+
+    /**
+     * Returns whether the transformation of the given manifest needs the packages referenced by the classes in the WAR.
+     *
+     * @param manifest the manifest to transform
+     * @param options the installation options
+     * @return <code>true</code> if {@link WarAnalysis#getReferencedPackages()} is used
+     */
+    boolean needsReferencedPackages(BundleManifest manifest, InstallationOptions options);
+
+    /**
+     * Transforms the manifest as {@link #transform(BundleManifest, URL, InstallationOptions, boolean)} does, using the
+     * given analysis of the WAR.
+     *
+     * @param manifest the manifest to transform
+     * @param sourceURL the WAR content
+     * @param options the installation options
+     * @param webBundle whether the WAR is a web application bundle
+     * @param warAnalysis the analysis of the WAR
+     * @throws IOException if the transformation fails
+     */
+    void transform(BundleManifest manifest, URL sourceURL, InstallationOptions options, boolean webBundle, WarAnalysis warAnalysis)
+        throws IOException;
+}
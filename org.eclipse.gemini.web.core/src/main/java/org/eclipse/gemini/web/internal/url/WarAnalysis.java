@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The JARs, the packages and the number of classes of a WAR, found in a single {@link WebBundleScanner} pass over the
+ * WAR when they are first asked for, so that the transformers of a manifest transformation can share them.
+ * <p/>
+ * The JARs are those in <code>WEB-INF/lib</code> and those reachable from them through <code>Class-Path</code>
+ * manifest headers. The classes are those in <code>WEB-INF/classes</code> and in these JARs.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Not thread-safe.
+ */
+final class WarAnalysis {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarAnalysis.class);
+
+    private final URL source;
+
+    private final ExecutorService executorService;
+
+    private final List<String> jars = new ArrayList<>();
+
+    private final Set<String> containedPackages = new HashSet<>();
+
+    private Set<String> referencedPackages;
+
+    private int classCount;
+
+    private boolean analysed;
+
+    /**
+     * Creates a <code>WarAnalysis</code> of the given WAR.
+     *
+     * @param source the WAR content, or <code>null</code> for an empty analysis
+     * @param findReferencedPackages whether to read the constant pools of the classes for the packages they refer to
+     */
+    WarAnalysis(URL source, boolean findReferencedPackages) {
+        this(source, findReferencedPackages, null);
+    }
+
+    /**
+     * Creates a <code>WarAnalysis</code> of the given WAR, which reads the JARs and classes of the WAR with the given
+     * executor.
+     *
+     * @param source the WAR content, or <code>null</code> for an empty analysis
+     * @param findReferencedPackages whether to read the constant pools of the classes for the packages they refer to
+     * @param executorService the executor to read the WAR with, or <code>null</code> to read it on the calling thread
+     */
+    WarAnalysis(URL source, boolean findReferencedPackages, ExecutorService executorService) {
+        this.source = source;
+        this.executorService = executorService;
+        this.referencedPackages = findReferencedPackages ? new HashSet<String>() : null;
+    }
+
+    /**
+     * @return the paths of the JARs, in the order they were found
+     * @throws IOException if the WAR cannot be scanned
+     */
+    List<String> getJars() throws IOException {
+        analyse();
+        return this.jars;
+    }
+
+    /**
+     * @return the packages of the classes in the WAR
+     * @throws IOException if the WAR cannot be scanned
+     */
+    Set<String> getContainedPackages() throws IOException {
+        analyse();
+        return this.containedPackages;
+    }
+
+    /**
+     * @return the packages referenced by the classes in the WAR, or <code>null</code> if they were not searched for or
+     *         could not be determined for all classes
+     * @throws IOException if the WAR cannot be scanned
+     */
+    Set<String> getReferencedPackages() throws IOException {
+        analyse();
+        return this.referencedPackages;
+    }
+
+    /**
+     * @return the number of classes in the WAR
+     * @throws IOException if the WAR cannot be scanned
+     */
+    int getClassCount() throws IOException {
+        analyse();
+        return this.classCount;
+    }
+
+    private void analyse() throws IOException {
+        if (this.analysed || this.source == null) {
+            return;
+        }
+        this.analysed = true;
+        // class contents are only read if their references are needed
+        WebBundleScannerCallback callback = this.referencedPackages == null ? new AnalysisCallback() : new ReferencesAnalysisCallback();
+        new WebBundleScanner(this.source, callback, true, this.executorService).scanWar();
+    }
+
+    private void addReferencedPackages(String entry, InputStream classContent) throws IOException {
+        // an empty class file has no references
+        PushbackInputStream in = new PushbackInputStream(classContent);
+        int firstByte = in.read();
+        if (firstByte == -1) {
+            return;
+        }
+        in.unread(firstByte);
+        try {
+            ClassFileReferences.addReferencedPackages(in, this.referencedPackages);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read the references of class [" + entry + "]. All system bundle exports will be imported.", e);
+            this.referencedPackages = null;
+        }
+    }
+
+    private class AnalysisCallback implements WebBundleScannerCallback {
+
+        @Override
+        public void jarFound(String entry) {
+            WarAnalysis.this.jars.add(entry);
+        }
+
+        @Override
+        public void classFound(String entry) {
+            WarAnalysis.this.classCount++;
+            int lastSlashIndex = entry.lastIndexOf('/');
+            if (lastSlashIndex >= 0) {
+                WarAnalysis.this.containedPackages.add(entry.substring(0, lastSlashIndex).replace('/', '.'));
+            }
+        }
+    }
+
+    private final class ReferencesAnalysisCallback extends AnalysisCallback implements WebBundleScannerClassContentCallback {
+
+        @Override
+        public void classContentFound(String entry, InputStream classContent) throws IOException {
+            if (WarAnalysis.this.referencedPackages != null) {
+                addReferencedPackages(entry, classContent);
+            }
+        }
+    }
+}
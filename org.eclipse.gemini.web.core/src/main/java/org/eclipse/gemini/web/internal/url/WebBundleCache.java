@@ -0,0 +1,387 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.gemini.web.core.InstallationOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A content-addressed disk cache of transformed web bundles, so that a WAR which is installed again with the same
+ * options, e.g. after a restart of the framework or a redeploy of an unchanged WAR, is not transformed again. An entry
+ * is keyed by a digest of the configuration of the transformers, the location of the WAR, the normalised
+ * {@link InstallationOptions} and the content of the WAR.
+ * <p/>
+ * The entries are kept in a directory, which survives restarts. When the entries exceed the maximum size the least
+ * recently used ones are evicted. WAR directories are not cached, as their transformation is a directory rather than a
+ * stream.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+public final class WebBundleCache implements WebBundleCacheMBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebBundleCache.class);
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final String ENTRY_SUFFIX = ".war";
+
+    private static final String TEMP_FILE_PREFIX = "transform";
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final File directory;
+
+    private final long maxSize;
+
+    private final String configuration;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong size = new AtomicLong();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    private final Object monitor = new Object();
+
+    /**
+     * Creates a <code>WebBundleCache</code> in the given directory, taking over the entries already in it.
+     *
+     * @param directory the directory of the entries
+     * @param maxSize the size in bytes above which the least recently used entries are evicted
+     * @param configuration identifies the configuration of the transformers, the entries of a different configuration
+     *            are not used
+     */
+    public WebBundleCache(File directory, long maxSize, String configuration) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.configuration = configuration;
+        load();
+    }
+
+    /**
+     * Returns a connection which takes the transformed web bundle from this cache, or adds the web bundle transformed by
+     * the given connection to it.
+     *
+     * @param source the WAR
+     * @param options the options of the <code>webbundle:</code> URL
+     * @param transformingConnection the connection which transforms the WAR
+     * @return the caching connection
+     */
+    URLConnection openConnection(URL source, Map<String, String> options, URLConnection transformingConnection) {
+        return new CachingURLConnection(source, options, transformingConnection);
+    }
+
+    @Override
+    public int getEntryCount() {
+        return this.entries.size();
+    }
+
+    @Override
+    public long getSize() {
+        return this.size.get();
+    }
+
+    @Override
+    public long getMaxSize() {
+        return this.maxSize;
+    }
+
+    @Override
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hits = this.hitCount.get();
+        long total = hits + this.missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public long getBytesSaved() {
+        return this.bytesSaved.get();
+    }
+
+    @Override
+    public String[] getEntries() {
+        List<Map.Entry<String, Entry>> sortedEntries = getEntriesByLastUse();
+        Collections.reverse(sortedEntries);
+        String[] result = new String[sortedEntries.size()];
+        for (int i = 0; i < result.length; i++) {
+            Entry entry = sortedEntries.get(i).getValue();
+            result[i] = sortedEntries.get(i).getKey() + " " + entry.size + " bytes, last used " + new Date(entry.lastUse) + ", " + entry.hits.get()
+                + " hits";
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this.monitor) {
+            for (String key : new ArrayList<>(this.entries.keySet())) {
+                remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the key of the given WAR installed with the given options.
+     */
+    String getKey(URL source, Map<String, String> options) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(this.configuration.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        // the default symbolic name of the web bundle is derived from the location
+        digest.update(source.toExternalForm().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(getNormalisedOptions(new InstallationOptions(options)).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        try (InputStream in = source.openStream()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHexString(digest.digest());
+    }
+
+    /**
+     * Returns the cached web bundle with the given key, or transforms it with the given connection and adds it to the
+     * cache.
+     */
+    InputStream getInputStream(String key, URLConnection transformingConnection) throws IOException {
+        Entry entry = this.entries.get(key);
+        if (entry != null) {
+            try {
+                File file = getFile(key);
+                InputStream in = new FileInputStream(file);
+                entry.lastUse = System.currentTimeMillis();
+                // the last use survives restarts as the modification time
+                file.setLastModified(entry.lastUse);
+                entry.hits.incrementAndGet();
+                this.hitCount.incrementAndGet();
+                this.bytesSaved.addAndGet(entry.size);
+                return in;
+            } catch (FileNotFoundException e) {
+                // removed from the directory since
+                synchronized (this.monitor) {
+                    remove(key);
+                }
+            }
+        }
+
+        this.missCount.incrementAndGet();
+        Files.createDirectories(this.directory.toPath());
+        File temp = File.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX, this.directory);
+        boolean tempHandedOver = false;
+        try {
+            try (InputStream in = transformingConnection.getInputStream()) {
+                Files.copy(in, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (temp.length() > this.maxSize) {
+                // too large to be cached, read once from the temporary file
+                InputStream in = Files.newInputStream(temp.toPath(), StandardOpenOption.DELETE_ON_CLOSE);
+                tempHandedOver = true;
+                return in;
+            }
+            File file = getFile(key);
+            synchronized (this.monitor) {
+                try {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                tempHandedOver = true;
+                add(key, new Entry(file.length(), System.currentTimeMillis()));
+                evict();
+                return new FileInputStream(file);
+            }
+        } finally {
+            if (!tempHandedOver) {
+                delete(temp);
+            }
+        }
+    }
+
+    private void load() {
+        File[] files = this.directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        synchronized (this.monitor) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(TEMP_FILE_PREFIX) && name.endsWith(TEMP_FILE_SUFFIX)) {
+                    // left by a transformation which did not complete
+                    delete(file);
+                } else if (name.endsWith(ENTRY_SUFFIX) && file.isFile()) {
+                    add(name.substring(0, name.length() - ENTRY_SUFFIX.length()), new Entry(file.length(), file.lastModified()));
+                }
+            }
+            evict();
+        }
+    }
+
+    private void add(String key, Entry entry) {
+        Entry previous = this.entries.put(key, entry);
+        this.size.addAndGet(entry.size - (previous == null ? 0 : previous.size));
+    }
+
+    private void remove(String key) {
+        Entry entry = this.entries.remove(key);
+        if (entry != null) {
+            this.size.addAndGet(-entry.size);
+            delete(getFile(key));
+        }
+    }
+
+    private void evict() {
+        if (this.size.get() <= this.maxSize) {
+            return;
+        }
+        for (Map.Entry<String, Entry> entry : getEntriesByLastUse()) {
+            remove(entry.getKey());
+            if (this.size.get() <= this.maxSize) {
+                return;
+            }
+        }
+    }
+
+    private List<Map.Entry<String, Entry>> getEntriesByLastUse() {
+        List<Map.Entry<String, Entry>> sortedEntries = new ArrayList<>(this.entries.entrySet());
+        Collections.sort(sortedEntries, new Comparator<Map.Entry<String, Entry>>() {
+
+            @Override
+            public int compare(Map.Entry<String, Entry> entry1, Map.Entry<String, Entry> entry2) {
+                return Long.compare(entry1.getValue().lastUse, entry2.getValue().lastUse);
+            }
+        });
+        return sortedEntries;
+    }
+
+    private File getFile(String key) {
+        return new File(this.directory, key + ENTRY_SUFFIX);
+    }
+
+    private static void delete(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            LOGGER.warn("Cannot delete web bundle cache file [" + file + "].", e);
+        }
+    }
+
+    private static String getNormalisedOptions(InstallationOptions options) {
+        return options.getBundleSymbolicName() + '\n' + options.getBundleVersion() + '\n' + options.getBundleManifestVersion() + '\n'
+            + options.getBundleClassPath() + '\n' + options.getImportPackageDeclaration() + '\n' + options.getExportPackageDeclaration() + '\n'
+            + options.getWebContextPath() + '\n' + options.getWebJSPExtractLocation() + '\n' + options.getDefaultWABHeaders() + '\n'
+            + options.getAnnotationIndex() + '\n' + options.getReferencedSystemPackages();
+    }
+
+    private static String toHexString(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    private static final class Entry {
+
+        private final long size;
+
+        private final AtomicLong hits = new AtomicLong();
+
+        private volatile long lastUse;
+
+        Entry(long size, long lastUse) {
+            this.size = size;
+            this.lastUse = lastUse;
+        }
+    }
+
+    /**
+     * A connection which takes the transformed web bundle from the cache, the WAR is only transformed if it is not
+     * cached.
+     */
+    private final class CachingURLConnection extends URLConnection {
+
+        private final Map<String, String> options;
+
+        private final URLConnection transformingConnection;
+
+        CachingURLConnection(URL source, Map<String, String> options, URLConnection transformingConnection) {
+            super(source);
+            this.options = options;
+            this.transformingConnection = transformingConnection;
+        }
+
+        @Override
+        public void connect() throws IOException {
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return WebBundleCache.this.getInputStream(getKey(this.url, this.options), this.transformingConnection);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+/**
+ * The JMX view of a {@link WebBundleCache}.
+ */
+public interface WebBundleCacheMBean {
+
+    /**
+     * @return the number of cached web bundles
+     */
+    int getEntryCount();
+
+    /**
+     * @return the size in bytes of the cached web bundles
+     */
+    long getSize();
+
+    /**
+     * @return the size in bytes above which the least recently used web bundles are evicted
+     */
+    long getMaxSize();
+
+    /**
+     * @return the number of web bundles taken from the cache
+     */
+    long getHitCount();
+
+    /**
+     * @return the number of web bundles which were transformed because they were not in the cache
+     */
+    long getMissCount();
+
+    /**
+     * @return the ratio of the web bundles taken from the cache to all web bundles asked for, or <code>0</code> if none
+     *         was asked for
+     */
+    double getHitRatio();
+
+    /**
+     * @return the size in bytes of the web bundles taken from the cache instead of being transformed
+     */
+    long getBytesSaved();
+
+    /**
+     * @return the cached web bundles, the most recently used first, as key, size in bytes, last use and hits
+     */
+    String[] getEntries();
+
+    /**
+     * Removes all web bundles from the cache.
+     */
+    void clear();
+}
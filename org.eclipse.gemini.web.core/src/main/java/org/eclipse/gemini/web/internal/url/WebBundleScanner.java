@@ -25,10 +25,13 @@ import java.net.URLDecoder;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.Collection;
+import java.nio.file.StandardCopyOption;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -44,17 +47,17 @@ final class WebBundleScanner {
 
     private static final String FILE_SCHEME = "file";
 
-    private static final String JAR_SUFFIX = ".jar";
+    static final String JAR_SUFFIX = ".jar";
 
-    private static final String CLASS_SUFFIX = ".class";
+    static final String CLASS_SUFFIX = ".class";
 
-    private static final String LIB_ENTRY_PREFIX = "WEB-INF/lib/";
+    static final String LIB_ENTRY_PREFIX = "WEB-INF/lib/";
 
-    private static final String CLASSES_ENTRY_PREFIX = "WEB-INF/classes/";
+    static final String CLASSES_ENTRY_PREFIX = "WEB-INF/classes/";
 
-    private static final String CLASS_PATH_ATTRIBUTE_NAME = "Class-Path";
+    static final String CLASS_PATH_ATTRIBUTE_NAME = "Class-Path";
 
-    private static final String CLASS_PATH_SEPARATOR = " ";
+    static final String CLASS_PATH_SEPARATOR = " ";
 
     private final Object monitor = new Object();
 
@@ -62,7 +65,11 @@ final class WebBundleScanner {
 
     private final String localSourcePath;
 
-    private final Collection<ZipEntry> sourceZipEntries = new HashSet<>();
+    private String sourcePath;
+
+    private JarFile sourceJarFile;
+
+    private Map<String, ZipEntry> sourceEntries;
 
     private final WebBundleScannerCallback callBack;
 
@@ -70,6 +77,8 @@ final class WebBundleScanner {
 
     private final Set<String> scannedJars = new HashSet<>();
 
+    private final ExecutorService executorService;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(WebBundleScanner.class);
 
     WebBundleScanner(URL source, WebBundleScannerCallback callBack) {
@@ -84,10 +93,25 @@ final class WebBundleScanner {
      * @param findClassesInNestedJars
      */
     WebBundleScanner(URL source, WebBundleScannerCallback callBack, boolean findClassesInNestedJars) {
+        this(source, callBack, findClassesInNestedJars, null);
+    }
+
+    /**
+     * Creates a WebBundleScanner for a given WAR with a given callBack, which reads WAR directories and WAR files on
+     * the local file system with a {@link ParallelWebBundleScanner}.
+     * 
+     * @param source the WAR content
+     * @param callBack The callBack to notify of entries in the WAR
+     * @param findClassesInNestedJars
+     * @param executorService the executor to read the JARs and classes with, or <code>null</code> to read them on the
+     *        scanning thread
+     */
+    WebBundleScanner(URL source, WebBundleScannerCallback callBack, boolean findClassesInNestedJars, ExecutorService executorService) {
         this.source = source;
         this.callBack = callBack;
         this.findClassesInNestedJars = findClassesInNestedJars;
         this.localSourcePath = getLocalSourcePath(source);
+        this.executorService = executorService;
     }
 
     /**
@@ -99,15 +123,61 @@ final class WebBundleScanner {
     void scanWar() throws IOException {
         synchronized (this.monitor) {
             this.scannedJars.clear();
-            this.sourceZipEntries.clear();
             if (WebContainerUtils.isDirectory(this.source)) {
-                scanWarDirectory();
-            } else {
-                scanWarFile();
+                if (this.executorService != null) {
+                    scanWarDirectoryInParallel();
+                } else {
+                    scanWarDirectory();
+                }
+                return;
+            }
+            java.nio.file.Path spooledSource = null;
+            try {
+                if (this.localSourcePath == null) {
+                    // Class-Path entries are looked up in a local copy rather than by streaming the WAR again
+                    spooledSource = spoolSource();
+                    this.sourcePath = spooledSource.toString();
+                } else {
+                    this.sourcePath = this.localSourcePath;
+                }
+                if (this.executorService != null) {
+                    new ParallelWebBundleScanner(this.callBack, this.findClassesInNestedJars, this.executorService).scanWarFile(this.sourcePath);
+                } else {
+                    scanWarFile();
+                }
+            } finally {
+                closeSourceJarFile();
+                if (spooledSource != null) {
+                    Files.deleteIfExists(spooledSource);
+                }
             }
         }
     }
 
+    private java.nio.file.Path spoolSource() throws IOException {
+        java.nio.file.Path spooledSource = Files.createTempFile("webbundle-scanner", ".war");
+        try (InputStream in = this.source.openStream()) {
+            Files.copy(in, spooledSource, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spooledSource);
+            throw e;
+        }
+        return spooledSource;
+    }
+
+    private InputStream openSource() throws IOException {
+        return this.localSourcePath == null ? Files.newInputStream(Paths.get(this.sourcePath)) : this.source.openStream();
+    }
+
+    private void scanWarDirectoryInParallel() throws IOException {
+        try {
+            new ParallelWebBundleScanner(this.callBack, this.findClassesInNestedJars, this.executorService).scanWarDirectory(
+                WebContainerUtils.sourceAsPath(this.source));
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Unexpected URISyntaxException.", e);
+        }
+    }
+
     private void scanWarDirectory() throws IOException {
         try {
             java.nio.file.Path bundleDir = WebContainerUtils.sourceAsPath(this.source);
@@ -162,14 +232,20 @@ final class WebBundleScanner {
                     doScanClassesDirectory(file);
                 } else if (file.getFileName().toString().endsWith(CLASS_SUFFIX)) {
                     String path = normalizePath(file.toString());
-                    this.callBack.classFound(path.substring(path.lastIndexOf(CLASSES_ENTRY_PREFIX) + CLASSES_ENTRY_PREFIX.length()));
+                    String className = path.substring(path.lastIndexOf(CLASSES_ENTRY_PREFIX) + CLASSES_ENTRY_PREFIX.length());
+                    this.callBack.classFound(className);
+                    if (this.callBack instanceof WebBundleScannerClassContentCallback) {
+                        try (InputStream classContent = Files.newInputStream(file)) {
+                            ((WebBundleScannerClassContentCallback) this.callBack).classContentFound(className, classContent);
+                        }
+                    }
                 }
             }
         }
     }
 
     private void scanWarFile() throws IOException {
-        try (JarInputStream jis = new JarInputStream(this.source.openStream());) {
+        try (JarInputStream jis = new JarInputStream(openSource());) {
             JarEntry entry;
             while ((entry = jis.getNextJarEntry()) != null) {
                 String entryName = entry.getName();
@@ -179,7 +255,7 @@ final class WebBundleScanner {
                         doScanNestedJar(entryName, nestedJis);
                     }
                 } else if (entryName.startsWith(CLASSES_ENTRY_PREFIX) && entryName.endsWith(CLASS_SUFFIX)) {
-                    this.callBack.classFound(entry.getName().substring(CLASSES_ENTRY_PREFIX.length()));
+                    notifyClassFound(entry.getName().substring(CLASSES_ENTRY_PREFIX.length()), jis);
                 }
             }
         }
@@ -214,13 +290,13 @@ final class WebBundleScanner {
             while ((entry = jis.getNextJarEntry()) != null) {
                 String entryName = entry.getName();
                 if (entryName.endsWith(CLASS_SUFFIX)) {
-                    notifyClassFound(entryName);
+                    notifyClassFound(entryName, jis);
                 }
             }
         }
     }
 
-    private static Path getNormalisedDirectoryPath(String jarEntryName) {
+    static Path getNormalisedDirectoryPath(String jarEntryName) {
         String jarPath = normalizePath(jarEntryName);
         int lastDirectoryIndex = jarPath.lastIndexOf("/");
         return lastDirectoryIndex == -1 ? new Path() : new Path(jarPath.substring(0, lastDirectoryIndex));
@@ -259,12 +335,12 @@ final class WebBundleScanner {
 
     private void scanNestedJarInWarFile(Path directoryPath, final String jarPath) throws IOException {
         Path entryPath = directoryPath.applyRelativePath(new Path(jarPath));
-        if (this.localSourcePath == null) {
-            scanNestedJarInWarFileWithStream(entryPath.toString());
-            return;
+        String entryName = findLongestSuffix(entryPath.toString(), getSourceEntries().keySet());
+        if (entryName != null && driveCallBackIfNewJarFound(entryName)) {
+            try (JarInputStream nestedJis = new JarInputStream(this.sourceJarFile.getInputStream(this.sourceEntries.get(entryName)))) {
+                doScanNestedJar(entryName, nestedJis);
+            }
         }
-
-        scanNestedJarInWarFileWithZipFile(entryPath.toString(), this.localSourcePath);
     }
 
     private String getLocalSourcePath(final URL url) {
@@ -274,73 +350,59 @@ final class WebBundleScanner {
         return URLDecoder.decode(url.getPath());
     }
 
-    private void scanNestedJarInWarFileWithStream(String jarPath) throws IOException {
-        try (JarInputStream jis = new JarInputStream(this.source.openStream());) {
-            JarEntry entry;
-            while ((entry = jis.getNextJarEntry()) != null) {
-                String entryName = entry.getName();
-                if (jarPath.endsWith(entryName)) {
-                    if (driveCallBackIfNewJarFound(entryName)) {
-                        JarInputStream nestedJis = new JarInputStream(jis);
-                        doScanNestedJar(entryName, nestedJis);
-                    }
-                }
+    /**
+     * Returns the longest of the given entry names which the given path ends with. Each suffix of the path is looked up
+     * in the names instead of comparing the path with every name.
+     *
+     * @param path the path to look up
+     * @param entryNames the entry names
+     * @return the longest matching entry name, or <code>null</code> if the path does not end with any of the names
+     */
+    static String findLongestSuffix(String path, Set<String> entryNames) {
+        for (int i = 0; i < path.length(); i++) {
+            String suffix = path.substring(i);
+            if (entryNames.contains(suffix)) {
+                return suffix;
             }
         }
+        return null;
     }
 
-    private void scanNestedJarInWarFileWithZipFile(String jarPath, String localSourcePath) throws IOException {
-        JarFile jarFile = null;
-        try {
-            InputStream foundInputStream = null;
-            String foundZipEntryName = null;
-            if (this.sourceZipEntries.isEmpty()) {// then search and cache all entries
-                jarFile = new JarFile(localSourcePath);
-                Enumeration<JarEntry> jarFileEntries = jarFile.entries();
-                while (jarFileEntries.hasMoreElements()) {
-                    final ZipEntry zipEntry = jarFileEntries.nextElement();
-                    // 1. cache
-                    this.sourceZipEntries.add(zipEntry);
-                    // 2. search if it is not found still
-                    if (foundZipEntryName == null && jarPath.endsWith(zipEntry.getName())) {
-                        foundZipEntryName = zipEntry.getName();
-                        foundInputStream = jarFile.getInputStream(zipEntry);
-                    }
-                }
-            } else {// search entry in cache
-                for (ZipEntry zipEntry : this.sourceZipEntries) {
-                    if (jarPath.endsWith(zipEntry.getName())) {
-                        jarFile = new JarFile(localSourcePath);
-                        foundZipEntryName = zipEntry.getName();
-                        foundInputStream = jarFile.getInputStream(zipEntry);
-                        break;
-                    }
-
+    private Map<String, ZipEntry> getSourceEntries() throws IOException {
+        if (this.sourceEntries == null) {
+            this.sourceJarFile = new JarFile(this.sourcePath);
+            this.sourceEntries = new HashMap<>();
+            Enumeration<JarEntry> entries = this.sourceJarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (!this.sourceEntries.containsKey(entry.getName())) {
+                    this.sourceEntries.put(entry.getName(), entry);
                 }
             }
+        }
+        return this.sourceEntries;
+    }
 
-            if (foundZipEntryName != null && driveCallBackIfNewJarFound(foundZipEntryName)) {
-                JarInputStream nestedJis = new JarInputStream(foundInputStream);
-                doScanNestedJar(foundZipEntryName, nestedJis);
-            }
-        } finally {// quiet close
-            if (jarFile != null) {
-                try {
-                    jarFile.close();
-                } catch (IOException _) {
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug("", _);
-                    }
-                }
+    private void closeSourceJarFile() {
+        this.sourceEntries = null;
+        if (this.sourceJarFile != null) {
+            try {
+                this.sourceJarFile.close();
+            } catch (IOException e) {
+                LOGGER.debug("", e);
             }
+            this.sourceJarFile = null;
         }
     }
 
-    private void notifyClassFound(String entryName) {
+    private void notifyClassFound(String entryName, InputStream classContent) throws IOException {
         this.callBack.classFound(entryName);
+        if (this.callBack instanceof WebBundleScannerClassContentCallback) {
+            ((WebBundleScannerClassContentCallback) this.callBack).classContentFound(entryName, classContent);
+        }
     }
 
-    private static String normalizePath(String path) {
+    static String normalizePath(String path) {
         return path.replace('\\', '/');
     }
 }
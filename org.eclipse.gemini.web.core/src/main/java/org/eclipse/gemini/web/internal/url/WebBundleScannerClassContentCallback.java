@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link WebBundleScannerCallback} which is also given the content of the classes found by the
+ * {@link WebBundleScanner}, so that they can be analysed in the same pass over the WAR.
+ */
+interface WebBundleScannerClassContentCallback extends WebBundleScannerCallback {
+
+    /**
+     * Called after {@link #classFound(String)} with the content of the class. The stream must not be closed.
+     *
+     * @param className the path of the class, as passed to <code>classFound</code>
+     * @param classContent the content of the class
+     * @throws IOException if the content cannot be read
+     */
+    void classContentFound(String className, InputStream classContent) throws IOException;
+}
@@ -56,12 +56,83 @@ import org.osgi.service.url.URLStreamHandlerService;
  */
 public final class WebBundleUrlStreamHandlerService extends AbstractURLStreamHandlerService {
 
+    /**
+     * How WAR directories are transformed.
+     */
+    public enum DirectoryTransformation {
+
+        /**
+         * The files are copied to the transformed directory, which the framework copies to its storage.
+         */
+        COPY,
+
+        /**
+         * The files which are not transformed are hard linked to the transformed directory, which the framework copies
+         * to its storage.
+         */
+        LINK,
+
+        /**
+         * The files which are not transformed are hard linked to the transformed directory, which the framework installs
+         * by reference. Requires {@link TransformedDirectories}, which keep the transformed directory while it is used,
+         * and is otherwise the same as {@link #LINK}.
+         */
+        REFERENCE
+    }
+
     private static final String FILE_PROTOCOL = "file";
 
     private final WebBundleManifestTransformer transformer;
 
+    private final WebBundleCache cache;
+
+    private final DirectoryTransformation directoryTransformation;
+
+    private final TransformedDirectories transformedDirectories;
+
     public WebBundleUrlStreamHandlerService(WebBundleManifestTransformer transformer) {
+        this(transformer, null);
+    }
+
+    /**
+     * Creates a <code>WebBundleUrlStreamHandlerService</code> which takes transformed WARs from the given cache.
+     *
+     * @param transformer the transformer of the manifests
+     * @param cache the cache of the transformed WARs, or <code>null</code> to transform each WAR when it is read
+     */
+    public WebBundleUrlStreamHandlerService(WebBundleManifestTransformer transformer, WebBundleCache cache) {
+        this(transformer, cache, DirectoryTransformation.COPY);
+    }
+
+    /**
+     * Creates a <code>WebBundleUrlStreamHandlerService</code> which takes transformed WARs from the given cache and
+     * transforms WAR directories as given.
+     *
+     * @param transformer the transformer of the manifests
+     * @param cache the cache of the transformed WARs, or <code>null</code> to transform each WAR when it is read
+     * @param directoryTransformation how WAR directories are transformed
+     */
+    public WebBundleUrlStreamHandlerService(WebBundleManifestTransformer transformer, WebBundleCache cache,
+        DirectoryTransformation directoryTransformation) {
+        this(transformer, cache, directoryTransformation, null);
+    }
+
+    /**
+     * Creates a <code>WebBundleUrlStreamHandlerService</code> which takes transformed WARs from the given cache and
+     * transforms WAR directories as given into the given transformed directories.
+     *
+     * @param transformer the transformer of the manifests
+     * @param cache the cache of the transformed WARs, or <code>null</code> to transform each WAR when it is read
+     * @param directoryTransformation how WAR directories are transformed
+     * @param transformedDirectories the directories to transform WAR directories into, or <code>null</code> to transform
+     *        them into a temporary directory named after the WAR directory
+     */
+    public WebBundleUrlStreamHandlerService(WebBundleManifestTransformer transformer, WebBundleCache cache,
+        DirectoryTransformation directoryTransformation, TransformedDirectories transformedDirectories) {
         this.transformer = transformer;
+        this.cache = cache;
+        this.directoryTransformation = directoryTransformation;
+        this.transformedDirectories = transformedDirectories;
     }
 
     @Override
@@ -70,11 +141,25 @@ public final class WebBundleUrlStreamHandlerService extends AbstractURLStreamHan
         URL actualUrl = new URL(url.getLocation());
 
         if (FILE_PROTOCOL.equals(actualUrl.getProtocol()) && new File(actualUrl.getPath()).isDirectory()) {
-            DirTransformer dirTransformer = new DirTransformer(new Callback(actualUrl, url, this.transformer));
-            return new DirTransformingURLConnection(actualUrl, dirTransformer, true);
+            DirTransformer dirTransformer = new DirTransformer(new Callback(actualUrl, url, this.transformer),
+                this.directoryTransformation != DirectoryTransformation.COPY);
+            if (this.transformedDirectories == null) {
+                return new DirTransformingURLConnection(actualUrl, dirTransformer, true);
+            }
+            // the location contains the full path of the WAR directory and is the same for updates and reinstalls
+            return new DirTransformingURLConnection(actualUrl, dirTransformer, true, this.transformedDirectories.newDirectory(u.toExternalForm()),
+                this.directoryTransformation == DirectoryTransformation.REFERENCE);
         }
-        JarTransformer jarTransformer = new JarTransformer(new Callback(actualUrl, url, this.transformer));
-        return new JarTransformingURLConnection(actualUrl, jarTransformer, true);
+        Callback callback = new Callback(actualUrl, url, this.transformer);
+        URLConnection connection = new JarTransformingURLConnection(actualUrl, new JarTransformer(callback), true);
+        if (FILE_PROTOCOL.equals(actualUrl.getProtocol())) {
+            // the entries which are not transformed are copied without decompressing them
+            connection = new JarRewritingURLConnection(actualUrl, new JarRewriter(callback, true), connection);
+        }
+        if (this.cache != null) {
+            return this.cache.openConnection(actualUrl, url.getOptions(), connection);
+        }
+        return connection;
     }
 
     private static final class Callback implements JarTransformerCallback, DirTransformerCallback {
@@ -83,6 +168,10 @@ public final class WebBundleUrlStreamHandlerService extends AbstractURLStreamHan
 
         private static final Path MANIFEST_MF = Paths.get("MANIFEST.MF");
 
+        private static final Path WEB_INF = Paths.get("WEB-INF");
+
+        private static final Path ANNOTATION_INDEX = Paths.get(AnnotationIndexWriter.INDEX_ENTRY_NAME).getFileName();
+
         private final WebBundleManifestTransformer transformer;
 
         private final URL sourceURL;
@@ -99,8 +188,18 @@ public final class WebBundleUrlStreamHandlerService extends AbstractURLStreamHan
         public boolean transformEntry(String entryName, InputStream is, JarOutputStream jos) throws IOException {
             if (JarFile.MANIFEST_NAME.equals(entryName)) {
                 jos.putNextEntry(new ZipEntry(entryName));
-                transformManifest(is, jos);
+                boolean annotationIndex = transformManifest(is, jos);
                 jos.closeEntry();
+                if (annotationIndex) {
+                    jos.putNextEntry(new ZipEntry(AnnotationIndexWriter.INDEX_ENTRY_NAME));
+                    new AnnotationIndexWriter().write(this.sourceURL, jos);
+                    jos.closeEntry();
+                }
+                return true;
+            }
+
+            // The annotation index is always generated from the content of the web application.
+            if (AnnotationIndexWriter.INDEX_ENTRY_NAME.equals(entryName)) {
                 return true;
             }
 
@@ -108,18 +207,25 @@ public final class WebBundleUrlStreamHandlerService extends AbstractURLStreamHan
             return isSignatureFile(entryName);
         }
 
-        private void transformManifest(InputStream inputStream, OutputStream outputStream) throws IOException {
+        /**
+         * Transforms the manifest and returns whether an annotation index should be added to the web bundle.
+         */
+        private boolean transformManifest(InputStream inputStream, OutputStream outputStream) throws IOException {
             InputStreamReader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
             BundleManifest manifest = BundleManifestFactory.createBundleManifest(reader);
             InstallationOptions options = new InstallationOptions(this.webBundleUrl.getOptions());
             if (manifest.getHeader(WebContainerUtils.HEADER_DEFAULT_WAB_HEADERS) != null) {
                 options.setDefaultWABHeaders(true);
             }
+            if (manifest.getHeader(WebContainerUtils.HEADER_ANNOTATION_INDEX) != null) {
+                options.setAnnotationIndex(true);
+            }
 
             boolean webBundle = WebContainerUtils.isWebApplicationBundle(manifest);
             this.transformer.transform(manifest, this.sourceURL, options, webBundle);
 
             toManifest(manifest.toDictionary()).write(outputStream);
+            return options.getAnnotationIndex();
         }
 
         private boolean isSignatureFile(String entryName) {
@@ -153,12 +259,25 @@ public final class WebBundleUrlStreamHandlerService extends AbstractURLStreamHan
         public boolean transformFile(InputStream inputStream, Path toFile) throws IOException {
             if (MANIFEST_MF.equals(toFile.getFileName()) && META_INF.equals(toFile.getParent().getFileName())) {
                 Files.createDirectories(toFile.getParent());
+                boolean annotationIndex;
                 try (OutputStream outputStream = Files.newOutputStream(toFile);) {
-                    transformManifest(inputStream, outputStream);
+                    annotationIndex = transformManifest(inputStream, outputStream);
+                }
+                if (annotationIndex) {
+                    Path indexFile = toFile.getParent().getParent().resolve(AnnotationIndexWriter.INDEX_ENTRY_NAME);
+                    Files.createDirectories(indexFile.getParent());
+                    try (OutputStream outputStream = Files.newOutputStream(indexFile);) {
+                        new AnnotationIndexWriter().write(this.sourceURL, outputStream);
+                    }
                 }
                 return true;
             }
 
+            // The annotation index is always generated from the content of the web application.
+            if (ANNOTATION_INDEX.equals(toFile.getFileName()) && WEB_INF.equals(toFile.getParent().getFileName())) {
+                return true;
+            }
+
             // Delete signature files. Should be generalized into another
             // transformer type.
             return isSignatureFile(toFile);
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import org.eclipse.gemini.web.core.WebBundleManifestTransformer;
+import org.eclipse.gemini.web.internal.url.ChainingWebBundleManifestTransformer;
+import org.eclipse.gemini.web.internal.url.DefaultsWebBundleManifestTransformer;
+import org.eclipse.gemini.web.internal.url.SpecificationWebBundleManifestTransformer;
+import org.eclipse.gemini.web.internal.url.SystemBundleExportsImportingWebBundleManifestTransformer;
+import org.eclipse.gemini.web.internal.url.WebBundleUrlStreamHandlerService;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.launch.FrameworkFactory;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleWiring;
+import org.osgi.framework.wiring.FrameworkWiring;
+
+/**
+ * Compares the number of imported packages, the number of package wires and the resolve time of WARs installed with
+ * imports for all system bundle exports with those of the same WARs installed with imports for the referenced system
+ * bundle exports only.
+ * <p />
+ * The reduction of the imported packages is asserted by
+ * <code>SystemBundleExportsImportingWebBundleManifestTransformerTests</code>, this benchmark additionally needs an OSGi
+ * framework on the class path to measure the package wires and the resolve time of real WARs.
+ * <p />
+ * Not run as part of the tests. Usage: <code>SystemBundleImportsBenchmark war... [-iterations n]</code>
+ */
+public final class SystemBundleImportsBenchmark {
+
+    private static final String SERVLET_PACKAGES = "javax.servlet;javax.servlet.annotation;javax.servlet.descriptor;javax.servlet.http;version=3.1.0,"
+        + "javax.servlet.jsp;javax.servlet.jsp.el;javax.servlet.jsp.tagext;version=2.3.0,javax.el;version=3.0.0,"
+        + "javax.websocket;javax.websocket.server;version=1.1.0";
+
+    public static void main(String[] args) throws Exception {
+        int iterations = 10;
+        Map<String, URL> wars = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-iterations".equals(args[i])) {
+                iterations = Integer.parseInt(args[++i]);
+            } else {
+                wars.put(args[i], new File(args[i]).toURI().toURL());
+            }
+        }
+
+        Path storage = Files.createTempDirectory("system-bundle-imports");
+        Map<String, String> configuration = new HashMap<>();
+        configuration.put(Constants.FRAMEWORK_STORAGE, storage.toString());
+        configuration.put(Constants.FRAMEWORK_STORAGE_CLEAN, Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT);
+        configuration.put(Constants.FRAMEWORK_SYSTEMPACKAGES_EXTRA, SERVLET_PACKAGES);
+        Framework framework = ServiceLoader.load(FrameworkFactory.class).iterator().next().newFramework(configuration);
+        framework.start();
+        try {
+            WebBundleManifestTransformer transformer = new ChainingWebBundleManifestTransformer(new SpecificationWebBundleManifestTransformer(),
+                new DefaultsWebBundleManifestTransformer(), new SystemBundleExportsImportingWebBundleManifestTransformer(
+                    new SystemBundleExportsResolver(framework.getBundleContext()).getSystemBundleExports()));
+            WebBundleUrlStreamHandlerService service = new WebBundleUrlStreamHandlerService(transformer);
+
+            for (Map.Entry<String, URL> war : wars.entrySet()) {
+                for (boolean referencedOnly : new boolean[] { false, true }) {
+                    run(framework, service, war.getKey(), war.getValue(), referencedOnly, iterations);
+                }
+            }
+        } finally {
+            framework.stop();
+            framework.waitForStop(0);
+        }
+    }
+
+    private static void run(Framework framework, final WebBundleUrlStreamHandlerService service, String name, URL war, boolean referencedOnly,
+        int iterations) throws Exception {
+        String query = "?Web-ContextPath=/benchmark&" + WebContainerUtils.HEADER_DEFAULT_WAB_HEADERS + "=true"
+            + (referencedOnly ? "&" + WebContainerUtils.HEADER_REFERENCED_SYSTEM_PACKAGES + "=" : "");
+        URL url = new URL(WebContainerUtils.WEB_BUNDLE_SCHEME, null, -1, war.toString() + query, new URLStreamHandler() {
+
+            @Override
+            protected URLConnection openConnection(URL u) throws IOException {
+                return service.openConnection(u);
+            }
+        });
+
+        FrameworkWiring frameworkWiring = framework.adapt(FrameworkWiring.class);
+        long resolveNanos = 0;
+        int importedPackages = 0;
+        int wiredPackages = 0;
+        // the first iteration warms up
+        for (int i = 0; i <= iterations; i++) {
+            Bundle bundle;
+            try (InputStream in = url.openStream()) {
+                bundle = framework.getBundleContext().installBundle(url.toString() + "&iteration=" + i, in);
+            }
+            long start = System.nanoTime();
+            frameworkWiring.resolveBundles(Collections.singleton(bundle));
+            long nanos = System.nanoTime() - start;
+            BundleWiring wiring = bundle.adapt(BundleWiring.class);
+            if (wiring == null) {
+                throw new IllegalStateException("WAR [" + name + "] could not be resolved.");
+            }
+            if (i > 0) {
+                resolveNanos += nanos;
+            }
+            importedPackages = bundle.adapt(BundleRevision.class).getDeclaredRequirements(BundleRevision.PACKAGE_NAMESPACE).size();
+            wiredPackages = wiring.getRequiredWires(BundleRevision.PACKAGE_NAMESPACE).size();
+            bundle.uninstall();
+            frameworkWiring.refreshBundles(null);
+        }
+        System.out.println(name + (referencedOnly ? " referenced system packages: " : " all system packages: ") + importedPackages
+            + " imports, " + wiredPackages + " wires, " + resolveNanos / iterations / 1000 + " us/resolve");
+    }
+}
@@ -86,6 +86,9 @@ public class WebContainerActivatorTests {
     public void testStart() throws Exception {
         expect(this.bundleContext.getBundle(0)).andReturn(this.systemBundle);
         expect(this.bundleContext.getProperty(SystemBundleExportsResolver.OSGI_RESOLVER_MODE)).andReturn("");
+        expect(this.bundleContext.getProperty(WebContainerActivator.SCANNER_THREADS_PROPERTY_NAME)).andReturn(null);
+        expect(this.bundleContext.getProperty(WebContainerActivator.WEB_BUNDLE_CACHE_MAX_SIZE_PROPERTY_NAME)).andReturn(null);
+        expect(this.bundleContext.getProperty(WebContainerActivator.DIR_TRANSFORMATION_PROPERTY_NAME)).andReturn(null);
         expect(this.systemBundle.adapt(BundleRevision.class)).andReturn(this.bundleRevision);
         expect(this.bundleRevision.getWiring()).andReturn(this.bundleWiring);
         expect(this.bundleWiring.getCapabilities(BundleRevision.PACKAGE_NAMESPACE)).andReturn(new ArrayList<BundleCapability>());
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.junit.Test;
+
+public class AnnotationIndexWriterTests {
+
+    private static final int ACC_FINAL = 0x0010;
+
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final String ANNOTATED_ENTRY = Annotated.class.getName().replace('.', '/') + ".class";
+
+    @Test
+    public void testClassFileHeader() throws IOException {
+        ClassFileHeader header = ClassFileHeader.read(new ByteArrayInputStream(getClassBytes()));
+        assertEquals(Annotated.class.getName().replace('.', '/'), header.getClassName());
+        assertEquals("java/lang/Object", header.getSuperclassName());
+        assertEquals(Arrays.asList("java/lang/Runnable"), header.getInterfaceNames());
+        assertEquals(Arrays.asList("java/lang/Deprecated"), header.getAnnotationTypes());
+    }
+
+    @Test
+    public void testIndexWarFile() throws IOException {
+        Path war = Files.createTempFile("annotation-index", ".war");
+        try {
+            byte[] jar = createJar();
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(war))) {
+                putEntry(out, "WEB-INF/classes/" + ANNOTATED_ENTRY, getClassBytes());
+                putEntry(out, "WEB-INF/classes/broken.class", new byte[] { 1, 2, 3 });
+                putEntry(out, "WEB-INF/lib/annotated.jar", jar);
+            }
+            List<String> lines = writeIndex(war);
+            assertEquals(AnnotationIndexWriter.INDEX_HEADER, lines.get(0));
+            assertEquals("L\tWEB-INF/classes\t-1", lines.get(1));
+            assertEquals(getClassLine(), lines.get(2));
+            assertEquals("L\tWEB-INF/lib/annotated.jar\t" + jar.length, lines.get(3));
+            assertEquals(getClassLine(), lines.get(4));
+            assertEquals(5, lines.size());
+        } finally {
+            Files.delete(war);
+        }
+    }
+
+    @Test
+    public void testIndexDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("annotation-index");
+        Path classFile = directory.resolve("WEB-INF/classes/" + ANNOTATED_ENTRY);
+        Path jarFile = directory.resolve("WEB-INF/lib/annotated.jar");
+        try {
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, getClassBytes());
+            Files.createDirectories(jarFile.getParent());
+            Files.write(jarFile, createJar());
+
+            List<String> lines = writeIndex(directory);
+            assertEquals(Arrays.asList(AnnotationIndexWriter.INDEX_HEADER, "L\tWEB-INF/classes\t-1", getClassLine(),
+                "L\tWEB-INF/lib/annotated.jar\t" + Files.size(jarFile), getClassLine()), lines);
+        } finally {
+            assertTrue(FileUtils.deleteDirectory(directory));
+        }
+    }
+
+    private static List<String> writeIndex(Path source) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AnnotationIndexWriter().write(source.toUri().toURL(), out);
+        return Arrays.asList(new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+    }
+
+    private static String getClassLine() throws IOException {
+        return "C\t" + ANNOTATED_ENTRY + "\t" + getClassBytes().length + "\t" + (ACC_SUPER | ACC_FINAL) + "\t" + Annotated.class.getName().replace('.', '/')
+            + "\tjava/lang/Object\tjava/lang/Runnable\tjava/lang/Deprecated";
+    }
+
+    private static byte[] createJar() throws IOException {
+        ByteArrayOutputStream jar = new ByteArrayOutputStream();
+        try (JarOutputStream out = new JarOutputStream(jar)) {
+            putEntry(out, ANNOTATED_ENTRY, getClassBytes());
+        }
+        return jar.toByteArray();
+    }
+
+    private static void putEntry(JarOutputStream out, String name, byte[] content) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.closeEntry();
+    }
+
+    private static byte[] getClassBytes() throws IOException {
+        try (InputStream in = AnnotationIndexWriterTests.class.getClassLoader().getResourceAsStream(ANNOTATED_ENTRY)) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            copy(in, content);
+            return content.toByteArray();
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    @Deprecated
+    static final class Annotated implements Runnable {
+
+        @Override
+        public void run() {
+        }
+    }
+}
@@ -19,11 +19,17 @@ package org.eclipse.gemini.web.internal.url;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 
 import org.eclipse.gemini.web.core.InstallationOptions;
 import org.eclipse.gemini.web.core.WebBundleManifestTransformer;
@@ -69,4 +75,48 @@ public class ChainingWebBundleManifestTransformerTests {
         chainingWebBundleManifestTransformer.transform(bundleManifest, url, installationOptions, true);
     }
 
+    @Test
+    public void testTransformSharesWarAnalysis() throws IOException {
+        final List<WarAnalysis> warAnalyses = new ArrayList<>();
+        URL url = new File("src/test/resources/contains-system-bundle-package.war").toURI().toURL();
+
+        new ChainingWebBundleManifestTransformer(new RecordingTransformer(warAnalyses, false), new RecordingTransformer(warAnalyses, true)).transform(
+            BundleManifestFactory.createBundleManifest(), url, null, false);
+
+        assertEquals(2, warAnalyses.size());
+        assertSame(warAnalyses.get(0), warAnalyses.get(1));
+        assertEquals(Arrays.asList("WEB-INF/lib/a.jar"), warAnalyses.get(0).getJars());
+        assertEquals(2, warAnalyses.get(0).getClassCount());
+        assertEquals(new HashSet<>(Arrays.asList("from.classes", "from.lib")), warAnalyses.get(0).getContainedPackages());
+        assertNotNull(warAnalyses.get(0).getReferencedPackages());
+        assertTrue(warAnalyses.get(0).getReferencedPackages().contains("java.lang"));
+    }
+
+    private static final class RecordingTransformer implements WarAnalysingWebBundleManifestTransformer {
+
+        private final List<WarAnalysis> warAnalyses;
+
+        private final boolean needsReferencedPackages;
+
+        RecordingTransformer(List<WarAnalysis> warAnalyses, boolean needsReferencedPackages) {
+            this.warAnalyses = warAnalyses;
+            this.needsReferencedPackages = needsReferencedPackages;
+        }
+
+        @Override
+        public void transform(BundleManifest manifest, URL sourceURL, InstallationOptions options, boolean webBundle) throws IOException {
+            throw new AssertionError("The shared analysis is not used.");
+        }
+
+        @Override
+        public void transform(BundleManifest manifest, URL sourceURL, InstallationOptions options, boolean webBundle, WarAnalysis warAnalysis)
+            throws IOException {
+            this.warAnalyses.add(warAnalysis);
+        }
+
+        @Override
+        public boolean needsReferencedPackages(BundleManifest manifest, InstallationOptions options) {
+            return this.needsReferencedPackages;
+        }
+    }
 }
@@ -17,6 +17,7 @@
 package org.eclipse.gemini.web.internal.url;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -161,6 +162,44 @@ public class DirTransformerTests {
         assertTrue(FileUtils.deleteDirectory(webAppDir));
     }
 
+    @Test
+    public void testTransformLinksUnchangedFiles() throws Exception {
+        URL directory = new URL(SOURCE_URL);
+        URL tempDirectory = new URL(TARGET_URL);
+
+        // Create content
+        Path webAppDir = Paths.get(directory.getPath());
+        Path webXml = webAppDir.resolve(WEB_INF).resolve(WEB_XML);
+        Files.createDirectories(webXml.getParent());
+        Files.createFile(webXml);
+        Path manifest = webAppDir.resolve(JarFile.MANIFEST_NAME);
+        Files.createDirectories(manifest.getParent());
+        createManifest(manifest, HEADER_1, HEADER_2);
+
+        DirTransformer transformer = new DirTransformer(new DirTransformerCallback() {
+
+            @Override
+            public boolean transformFile(InputStream inputStream, Path toFile) throws IOException {
+                if (MANIFEST_MF.equals(toFile.getFileName()) && META_INF.equals(toFile.getParent().getFileName())) {
+                    Files.createDirectories(toFile.getParent());
+                    createManifest(toFile, HEADER_3);
+                    return true;
+                }
+                return false;
+            }
+        }, true);
+
+        transformer.transform(directory, tempDirectory);
+        Path tempWebAppDir = Paths.get(tempDirectory.getPath());
+        checkManifest(tempWebAppDir.resolve(JarFile.MANIFEST_NAME));
+        assertTrue(Files.isSameFile(webXml, tempWebAppDir.resolve(WEB_INF).resolve(WEB_XML)));
+        assertFalse(Files.isSameFile(manifest, tempWebAppDir.resolve(JarFile.MANIFEST_NAME)));
+
+        assertTrue(FileUtils.deleteDirectory(tempWebAppDir));
+        assertTrue(Files.exists(webXml));
+        assertTrue(FileUtils.deleteDirectory(webAppDir));
+    }
+
     private void assertDirsSame(Path webAppDir, Path tempWebAppDir) {
         assertEquals(webAppDir.getFileName(), tempWebAppDir.getFileName());
         assertEquals(webAppDir.toFile().length(), tempWebAppDir.toFile().length());
@@ -19,6 +19,7 @@ package org.eclipse.gemini.web.internal.url;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -77,4 +78,37 @@ public class DirTransformingURLConnectionTests {
         assertTrue(FileUtils.deleteDirectory(tempWebAppDir));
         assertTrue(FileUtils.deleteDirectory(webAppDir));
     }
+
+    @Test
+    public void testInstallByReferenceWithoutReferenceProtocol() throws Exception {
+        URL directory = new URL(SOURCE_URL);
+        URL tempDirectory = new URL(TARGET_URL);
+
+        // Create content
+        Path webAppDir = Paths.get(directory.getPath());
+        Path webXml = webAppDir.resolve(WEB_INF).resolve(WEB_XML);
+        Files.createDirectories(webXml.getParent());
+        Files.createFile(webXml);
+
+        DirTransformer transformer = new DirTransformer(new DirTransformerCallback() {
+
+            @Override
+            public boolean transformFile(InputStream inputStream, Path toFile) throws IOException {
+                return false;
+            }
+        }, true);
+
+        // without a framework the reference: protocol is not known and the directory is read as usual
+        DirTransformingURLConnection connection = new DirTransformingURLConnection(directory, transformer, false,
+            new File(tempDirectory.getPath()), true);
+        try (InputStream is = connection.getInputStream();) {
+            assertNotNull(is);
+        }
+
+        Path tempWebAppDir = Paths.get(tempDirectory.getPath());
+        assertTrue(Files.isSameFile(webXml, tempWebAppDir.resolve(WEB_INF).resolve(WEB_XML)));
+
+        assertTrue(FileUtils.deleteDirectory(tempWebAppDir));
+        assertTrue(FileUtils.deleteDirectory(webAppDir));
+    }
 }
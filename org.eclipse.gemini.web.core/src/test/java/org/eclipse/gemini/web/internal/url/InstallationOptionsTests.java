@@ -64,6 +64,8 @@ public class InstallationOptionsTests {
         assertNull(options.getWebContextPath());
         assertNull(options.getWebJSPExtractLocation());
         assertFalse(options.getDefaultWABHeaders());
+        assertFalse(options.getAnnotationIndex());
+        assertNull(options.getReferencedSystemPackages());
     }
 
     @Test
@@ -90,6 +92,8 @@ public class InstallationOptionsTests {
         map.put(WebContainerUtils.HEADER_WEB_JSP_EXTRACT_LOCATION, extractLocation);
 
         map.put(WebContainerUtils.HEADER_DEFAULT_WAB_HEADERS, "");
+        map.put(WebContainerUtils.HEADER_ANNOTATION_INDEX, "");
+        map.put(WebContainerUtils.HEADER_REFERENCED_SYSTEM_PACKAGES, "com.sun.*");
 
         InstallationOptions options = new InstallationOptions(map);
         assertEquals(symbolicName, options.getBundleSymbolicName());
@@ -104,6 +108,8 @@ public class InstallationOptionsTests {
         options.setDefaultWABHeaders(false);
 
         assertFalse(options.getDefaultWABHeaders());
+        assertTrue(options.getAnnotationIndex());
+        assertEquals("com.sun.*", options.getReferencedSystemPackages());
     }
 
     @Test
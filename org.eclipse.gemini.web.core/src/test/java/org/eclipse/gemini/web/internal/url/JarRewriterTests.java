@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.gemini.web.internal.url.JarRewriter.UnsupportedJarException;
+import org.eclipse.virgo.util.io.JarTransformer.JarTransformerCallback;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JarRewriterTests {
+
+    private static final Path WAR_NO_MANIFEST = Paths.get("../org.eclipse.gemini.web.test/src/test/resources/no-manifest.war");
+
+    private static final String WEB_XML = "WEB-INF/web.xml";
+
+    private static final String LIB_JAR = "WEB-INF/lib/lib.jar";
+
+    private static final String SIGNATURE_FILE = "META-INF/TEST.SF";
+
+    private static final String ADDED_ENTRY = "WEB-INF/added.txt";
+
+    private Path source;
+
+    private Path target;
+
+    @Before
+    public void setUp() throws IOException {
+        this.source = Files.createTempFile("jar-rewriter", ".war");
+        this.target = Files.createTempFile("jar-rewriter", ".war");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.source);
+        Files.deleteIfExists(this.target);
+    }
+
+    @Test
+    public void testRewriteTransformsManifestAndCopiesOtherEntries() throws IOException {
+        createJar(this.source, true);
+
+        new JarRewriter(new TestCallback(), true).rewrite(this.source, this.target);
+
+        try (JarInputStream jis = new JarInputStream(Files.newInputStream(this.target))) {
+            assertEquals("test", jis.getManifest().getMainAttributes().getValue("Custom-Header"));
+            Map<String, byte[]> entries = readEntries(jis);
+            assertEquals(Arrays.asList(ADDED_ENTRY, WEB_XML, LIB_JAR), new ArrayList<>(entries.keySet()));
+            assertArrayEquals(content(WEB_XML), entries.get(WEB_XML));
+            assertArrayEquals(content(LIB_JAR), entries.get(LIB_JAR));
+        }
+        try (ZipFile sourceZip = new ZipFile(this.source.toFile()); ZipFile targetZip = new ZipFile(this.target.toFile())) {
+            for (String name : new String[] { WEB_XML, LIB_JAR }) {
+                ZipEntry sourceEntry = sourceZip.getEntry(name);
+                ZipEntry targetEntry = targetZip.getEntry(name);
+                assertEquals(sourceEntry.getMethod(), targetEntry.getMethod());
+                assertEquals(sourceEntry.getCompressedSize(), targetEntry.getCompressedSize());
+                assertEquals(sourceEntry.getCrc(), targetEntry.getCrc());
+            }
+            assertNull(targetZip.getEntry(SIGNATURE_FILE));
+        }
+    }
+
+    @Test
+    public void testRewriteAddsMissingManifest() throws IOException {
+        createJar(this.source, false);
+
+        new JarRewriter(new JarTransformerCallback() {
+
+            @Override
+            public boolean transformEntry(String entryName, InputStream is, JarOutputStream jos) throws IOException {
+                return false;
+            }
+        }, true).rewrite(this.source, this.target);
+
+        try (JarInputStream jis = new JarInputStream(Files.newInputStream(this.target))) {
+            assertEquals("1.0", jis.getManifest().getMainAttributes().getValue("Manifest-Version"));
+            assertEquals(Arrays.asList(WEB_XML, LIB_JAR, SIGNATURE_FILE), new ArrayList<>(readEntries(jis).keySet()));
+        }
+    }
+
+    @Test
+    public void testRewriteWar() throws IOException {
+        new JarRewriter(new TestCallback(), true).rewrite(WAR_NO_MANIFEST, this.target);
+
+        Map<String, byte[]> expectedEntries = new LinkedHashMap<>();
+        expectedEntries.put(ADDED_ENTRY, new byte[0]);
+        try (JarFile war = new JarFile(WAR_NO_MANIFEST.toFile())) {
+            Enumeration<JarEntry> entries = war.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                try (InputStream is = war.getInputStream(entry)) {
+                    expectedEntries.put(entry.getName(), readAll(is));
+                }
+            }
+        }
+
+        try (JarInputStream jis = new JarInputStream(Files.newInputStream(this.target))) {
+            assertNotNull(jis.getManifest());
+            Map<String, byte[]> entries = readEntries(jis);
+            assertEquals(new ArrayList<>(expectedEntries.keySet()), new ArrayList<>(entries.keySet()));
+            for (Map.Entry<String, byte[]> entry : expectedEntries.entrySet()) {
+                assertArrayEquals(entry.getKey(), entry.getValue(), entries.get(entry.getKey()));
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedJarException.class)
+    public void testRewriteNoJar() throws IOException {
+        Files.write(this.source, "no jar".getBytes(StandardCharsets.UTF_8));
+
+        new JarRewriter(new TestCallback(), true).rewrite(this.source, this.target);
+    }
+
+    private static void createJar(Path jar, boolean withManifest) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jos = withManifest ? new JarOutputStream(out, manifest)
+            : new JarOutputStream(out)) {
+            jos.putNextEntry(new ZipEntry(WEB_XML));
+            jos.write(content(WEB_XML));
+            jos.closeEntry();
+
+            byte[] lib = content(LIB_JAR);
+            CRC32 crc = new CRC32();
+            crc.update(lib);
+            ZipEntry libEntry = new ZipEntry(LIB_JAR);
+            libEntry.setMethod(ZipEntry.STORED);
+            libEntry.setSize(lib.length);
+            libEntry.setCrc(crc.getValue());
+            jos.putNextEntry(libEntry);
+            jos.write(lib);
+            jos.closeEntry();
+
+            jos.putNextEntry(new ZipEntry(SIGNATURE_FILE));
+            jos.write(content(SIGNATURE_FILE));
+            jos.closeEntry();
+        }
+    }
+
+    private static byte[] content(String name) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append(name).append(' ').append(i).append('\n');
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, byte[]> readEntries(JarInputStream jis) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        JarEntry entry;
+        while ((entry = jis.getNextJarEntry()) != null) {
+            entries.put(entry.getName(), readAll(jis));
+        }
+        return entries;
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Adds a header and an entry when transforming the manifest and deletes signature files.
+     */
+    private static final class TestCallback implements JarTransformerCallback {
+
+        @Override
+        public boolean transformEntry(String entryName, InputStream is, JarOutputStream jos) throws IOException {
+            if (JarFile.MANIFEST_NAME.equals(entryName)) {
+                Manifest manifest = new Manifest(is);
+                manifest.getMainAttributes().putValue("Custom-Header", "test");
+                jos.putNextEntry(new ZipEntry(entryName));
+                manifest.write(jos);
+                jos.closeEntry();
+                jos.putNextEntry(new ZipEntry(ADDED_ENTRY));
+                jos.closeEntry();
+                return true;
+            }
+            return entryName.endsWith(".SF");
+        }
+    }
+}
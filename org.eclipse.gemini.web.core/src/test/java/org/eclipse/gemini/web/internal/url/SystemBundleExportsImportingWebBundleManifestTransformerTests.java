@@ -17,14 +17,22 @@
 package org.eclipse.gemini.web.internal.url;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.eclipse.gemini.web.core.InstallationOptions;
 import org.eclipse.gemini.web.internal.WebContainerUtils;
@@ -33,6 +41,7 @@ import org.eclipse.virgo.util.osgi.manifest.BundleManifestFactory;
 import org.eclipse.virgo.util.osgi.manifest.ImportedPackage;
 import org.eclipse.virgo.util.osgi.manifest.VersionRange;
 import org.junit.Test;
+import org.junit.runner.Description;
 
 public class SystemBundleExportsImportingWebBundleManifestTransformerTests {
 
@@ -124,4 +133,87 @@ public class SystemBundleExportsImportingWebBundleManifestTransformerTests {
         assertEquals(1, importedPackages.size());
         assertEquals("javax.sql", importedPackages.get(0).getPackageName());
     }
+
+    @Test
+    public void onlyReferencedPackagesShouldBeImported() throws IOException {
+        Map<String, VersionRange> exports = new HashMap<>();
+        exports.put("org.junit.runner", new VersionRange("[1.0.0,1.0.0]"));
+        exports.put("org.unused", new VersionRange("[1.0.0,1.0.0]"));
+        exports.put("javax.sql", new VersionRange("[0,0]"));
+        exports.put("javax.xml.parsers", new VersionRange("[0,0]"));
+        exports.put("extra", new VersionRange("[0,0]"));
+        exports.put("extra.sub", new VersionRange("[0,0]"));
+        exports.put("extras", new VersionRange("[0,0]"));
+
+        SystemBundleExportsImportingWebBundleManifestTransformer transformer = new SystemBundleExportsImportingWebBundleManifestTransformer(exports);
+
+        Map<String, String> optionsMap = new HashMap<>();
+        optionsMap.put(WebContainerUtils.HEADER_REFERENCED_SYSTEM_PACKAGES, "extra.*");
+        InstallationOptions options = new InstallationOptions(optionsMap);
+
+        Path war = createWarWithReferencingClass();
+        try {
+            BundleManifest bundleManifest = BundleManifestFactory.createBundleManifest();
+            transformer.transform(bundleManifest, war.toUri().toURL(), options, WebContainerUtils.isWebApplicationBundle(bundleManifest));
+
+            Set<String> importedPackageNames = new TreeSet<>();
+            for (ImportedPackage importedPackage : bundleManifest.getImportPackage().getImportedPackages()) {
+                importedPackageNames.add(importedPackage.getPackageName());
+            }
+            assertEquals(new TreeSet<>(Arrays.asList("extra", "extra.sub", "javax.sql", "javax.xml.parsers", "org.junit.runner")),
+                importedPackageNames);
+        } finally {
+            FileUtils.deleteDirectory(war);
+        }
+    }
+
+    @Test
+    public void referencedPackagesShouldReduceImportsOfJavaSeSystemPackages() throws IOException {
+        Map<String, VersionRange> exports = new HashMap<>();
+        for (String packageName : Files.readAllLines(new File("src/test/resources/java7-system-packages.txt").toPath(), StandardCharsets.UTF_8)) {
+            exports.put(packageName, new VersionRange("[0,0]"));
+        }
+
+        SystemBundleExportsImportingWebBundleManifestTransformer transformer = new SystemBundleExportsImportingWebBundleManifestTransformer(exports);
+
+        Map<String, String> optionsMap = new HashMap<>();
+        optionsMap.put(WebContainerUtils.HEADER_REFERENCED_SYSTEM_PACKAGES, "");
+
+        Path war = createWarWithReferencingClass();
+        try {
+            BundleManifest allImports = BundleManifestFactory.createBundleManifest();
+            transformer.transform(allImports, war.toUri().toURL(), new InstallationOptions(Collections.<String, String> emptyMap()),
+                WebContainerUtils.isWebApplicationBundle(allImports));
+
+            BundleManifest referencedImports = BundleManifestFactory.createBundleManifest();
+            transformer.transform(referencedImports, war.toUri().toURL(), new InstallationOptions(optionsMap),
+                WebContainerUtils.isWebApplicationBundle(referencedImports));
+
+            int allImportCount = allImports.getImportPackage().getImportedPackages().size();
+            int referencedImportCount = referencedImports.getImportPackage().getImportedPackages().size();
+            assertEquals(exports.size(), allImportCount);
+            assertTrue(referencedImportCount < allImportCount);
+            // only the javax.xml, org.w3c.dom, org.xml.sax, javax.naming, javax.management, javax.sql, javax.transaction
+            // and javax.annotation packages are left as no class of the WAR refers to a Java SE package
+            assertEquals(68, referencedImportCount);
+        } finally {
+            FileUtils.deleteDirectory(war);
+        }
+    }
+
+    private Path createWarWithReferencingClass() throws IOException {
+        Path war = Files.createTempDirectory("referenced-packages");
+        String entry = Referencing.class.getName().replace('.', '/') + ".class";
+        Path classFile = war.resolve("WEB-INF/classes/" + entry);
+        Files.createDirectories(classFile.getParent());
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(entry)) {
+            Files.copy(in, classFile);
+        }
+        return war;
+    }
+
+    static final class Referencing {
+
+        Description description;
+    }
 }
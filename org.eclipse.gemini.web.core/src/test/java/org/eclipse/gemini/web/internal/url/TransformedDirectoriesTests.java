@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+import org.eclipse.gemini.web.internal.url.DirTransformer.DirTransformerCallback;
+import org.eclipse.osgi.service.urlconversion.URLConverter;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.launch.FrameworkFactory;
+import org.osgi.util.tracker.ServiceTracker;
+
+public class TransformedDirectoriesTests {
+
+    private static final String WEB_XML = "WEB-INF/web.xml";
+
+    private static final byte[] WEB_XML_CONTENT = "<web-app/>".getBytes(StandardCharsets.UTF_8);
+
+    private static final String URL_CONVERTER_FILTER = "(&(objectClass=org.eclipse.osgi.service.urlconversion.URLConverter)(protocol=bundleentry))";
+
+    // the framework registers URL handler factories which cannot be reset on every JDK, so it is launched only once
+    private static Path tempDirectory;
+
+    private static Framework framework;
+
+    private static ServiceTracker<?, ?> urlConverterTracker;
+
+    private Path directory;
+
+    private TransformedDirectories transformedDirectories;
+
+    @BeforeClass
+    public static void startFramework() throws Exception {
+        tempDirectory = Files.createTempDirectory("transformed-directories");
+        Map<String, String> configuration = new HashMap<>();
+        configuration.put(Constants.FRAMEWORK_STORAGE, tempDirectory.resolve("storage").toString());
+        configuration.put(Constants.FRAMEWORK_STORAGE_CLEAN, Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT);
+        framework = ServiceLoader.load(FrameworkFactory.class).iterator().next().newFramework(configuration);
+        framework.init();
+        BundleContext bundleContext = framework.getBundleContext();
+        urlConverterTracker = new ServiceTracker<>(bundleContext, bundleContext.createFilter(URL_CONVERTER_FILTER), null);
+        urlConverterTracker.open();
+    }
+
+    @AfterClass
+    public static void stopFramework() throws Exception {
+        urlConverterTracker.close();
+        framework.stop();
+        framework.waitForStop(0);
+        delete(tempDirectory);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory(tempDirectory, "data");
+        this.transformedDirectories = new TransformedDirectories(this.directory.toFile(), framework.getBundleContext(), urlConverterTracker);
+    }
+
+    @After
+    public void tearDown() throws IOException, BundleException {
+        for (Bundle bundle : framework.getBundleContext().getBundles()) {
+            if (bundle.getBundleId() != 0) {
+                bundle.uninstall();
+            }
+        }
+    }
+
+    @Test
+    public void testInstallByReference() throws Exception {
+        Path webAppDir = createWebAppDir("a/web-app");
+        String location = getLocation(webAppDir);
+        File generation = this.transformedDirectories.newDirectory(location);
+
+        Bundle bundle = install(webAppDir, location, generation);
+
+        // the framework uses the transformed directory in place
+        URL webXml = ((URLConverter) urlConverterTracker.getService()).resolve(bundle.getEntry(WEB_XML));
+        assertEquals(new File(generation, WEB_XML).getCanonicalFile(), new File(webXml.getPath()).getCanonicalFile());
+        assertArrayEquals(WEB_XML_CONTENT, read(bundle.getEntry(WEB_XML)));
+        assertTrue(Files.isSameFile(webAppDir.resolve(WEB_XML), generation.toPath().resolve(WEB_XML)));
+
+        // the directory is kept while the bundle uses it, even if the WAR directory is transformed again
+        File nextGeneration = this.transformedDirectories.newDirectory(location);
+        assertNotEquals(generation, nextGeneration);
+        this.transformedDirectories.deleteUnused();
+        assertTrue(new File(generation, WEB_XML).isFile());
+        assertFalse(nextGeneration.exists());
+        assertArrayEquals(WEB_XML_CONTENT, read(bundle.getEntry(WEB_XML)));
+
+        bundle.uninstall();
+        this.transformedDirectories.deleteUnused();
+        assertFalse(generation.exists());
+        assertEquals(0, this.directory.toFile().list().length);
+    }
+
+    @Test
+    public void testWebAppDirsWithSameName() throws Exception {
+        Path webAppDir1 = createWebAppDir("b/web-app");
+        Path webAppDir2 = createWebAppDir("c/web-app");
+        File generation1 = this.transformedDirectories.newDirectory(getLocation(webAppDir1));
+        Bundle bundle = install(webAppDir1, getLocation(webAppDir1), generation1);
+
+        File generation2 = this.transformedDirectories.newDirectory(getLocation(webAppDir2));
+
+        assertNotEquals(generation1.getParentFile(), generation2.getParentFile());
+        assertTrue(new File(generation1, WEB_XML).isFile());
+        assertArrayEquals(WEB_XML_CONTENT, read(bundle.getEntry(WEB_XML)));
+    }
+
+    @Test
+    public void testInstallByReferenceUnderOtherLocation() throws Exception {
+        Path webAppDir = createWebAppDir("e/web-app");
+        String location = getLocation(webAppDir);
+        File generation = this.transformedDirectories.newDirectory(location);
+
+        // no bundle is installed from the webbundle: location itself
+        Bundle bundle = install(webAppDir, "other-location", generation);
+
+        File nextGeneration = this.transformedDirectories.newDirectory(location);
+        this.transformedDirectories.deleteUnused();
+        assertTrue(new File(generation, WEB_XML).isFile());
+        assertFalse(nextGeneration.exists());
+        assertArrayEquals(WEB_XML_CONTENT, read(bundle.getEntry(WEB_XML)));
+
+        bundle.uninstall();
+        this.transformedDirectories.deleteUnused();
+        assertFalse(generation.exists());
+    }
+
+    @Test
+    public void testDirectoriesAreKeptWithoutUrlConverter() throws Exception {
+        Path webAppDir = createWebAppDir("d/web-app");
+        String location = getLocation(webAppDir);
+        File generation = this.transformedDirectories.newDirectory(location);
+        install(webAppDir, location, generation);
+
+        ServiceTracker<?, ?> closedTracker = new ServiceTracker<>(framework.getBundleContext(),
+            framework.getBundleContext().createFilter(URL_CONVERTER_FILTER), null);
+        TransformedDirectories transformedDirectories = new TransformedDirectories(this.directory.toFile(), framework.getBundleContext(),
+            closedTracker);
+        transformedDirectories.newDirectory(location);
+        transformedDirectories.deleteUnused();
+
+        assertTrue(new File(generation, WEB_XML).isFile());
+    }
+
+    private static Bundle install(Path webAppDir, String location, File generation) throws IOException, BundleException {
+        DirTransformingURLConnection connection = new DirTransformingURLConnection(webAppDir.toUri().toURL(),
+            new DirTransformer(new ManifestCallback(webAppDir.getParent().getFileName().toString()), true), true, generation, true);
+        try (InputStream is = connection.getInputStream()) {
+            Bundle bundle = framework.getBundleContext().installBundle(location, is);
+            assertNotNull(bundle);
+            return bundle;
+        }
+    }
+
+    private static Path createWebAppDir(String path) throws IOException {
+        Path webAppDir = tempDirectory.resolve(path);
+        Files.createDirectories(webAppDir.resolve(WEB_XML).getParent());
+        Files.write(webAppDir.resolve(WEB_XML), WEB_XML_CONTENT);
+        return webAppDir;
+    }
+
+    private static String getLocation(Path webAppDir) {
+        return WebBundleUrl.SCHEME + ":file:" + webAppDir.toAbsolutePath() + "?Web-ContextPath=/test";
+    }
+
+    private static byte[] read(URL url) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream is = url.openStream()) {
+            byte[] buffer = new byte[256];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void delete(Path path) throws IOException {
+        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Writes a bundle manifest with the given symbolic name.
+     */
+    private static final class ManifestCallback implements DirTransformerCallback {
+
+        private final String symbolicName;
+
+        private ManifestCallback(String symbolicName) {
+            this.symbolicName = symbolicName;
+        }
+
+        @Override
+        public boolean transformFile(InputStream inputStream, Path toFile) throws IOException {
+            if (!toFile.endsWith("META-INF/MANIFEST.MF")) {
+                return false;
+            }
+            Manifest manifest = new Manifest();
+            Attributes attributes = manifest.getMainAttributes();
+            attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+            attributes.putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+            attributes.putValue(Constants.BUNDLE_SYMBOLICNAME, this.symbolicName);
+            Files.createDirectories(toFile.getParent());
+            try (OutputStream out = Files.newOutputStream(toFile)) {
+                manifest.write(out);
+            }
+            return true;
+        }
+    }
+}
@@ -26,12 +26,12 @@ import java.util.Set;
 
 import org.junit.Test;
 
-public class PackagesInWarScannerTests {
+public class WarAnalysisTests {
 
     @Test
-    public void scanning() throws MalformedURLException, IOException {
-        PackagesInWarScanner scanner = new PackagesInWarScanner();
-        Set<String> packagesContainedInWar = scanner.getPackagesContainedInWar(new URL("file:target/resources/simple-war.war"));
+    public void containedPackages() throws MalformedURLException, IOException {
+        WarAnalysis warAnalysis = new WarAnalysis(new URL("file:target/resources/simple-war.war"), false);
+        Set<String> packagesContainedInWar = warAnalysis.getContainedPackages();
 
         assertEquals(4, packagesContainedInWar.size());
 
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.internal.url;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WebBundleCacheTests {
+
+    private static final String CONFIGURATION = "test";
+
+    private static final Map<String, String> OPTIONS = Collections.singletonMap("Web-ContextPath", "/test");
+
+    private Path directory;
+
+    private Path war;
+
+    @Before
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("webbundle-cache");
+        this.war = Files.createTempFile("webbundle-cache", ".war");
+        Files.write(this.war, "war content".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.directory);
+        Files.deleteIfExists(this.war);
+    }
+
+    @Test
+    public void testTransformedWarIsTakenFromCache() throws IOException {
+        WebBundleCache cache = new WebBundleCache(this.directory.toFile(), 1024, CONFIGURATION);
+        TransformingURLConnection transformingConnection = new TransformingURLConnection(this.war.toUri().toURL(), "transformed");
+
+        assertArrayEquals(transformingConnection.content, read(cache.openConnection(this.war.toUri().toURL(), OPTIONS, transformingConnection)));
+        assertArrayEquals(transformingConnection.content, read(cache.openConnection(this.war.toUri().toURL(), OPTIONS, transformingConnection)));
+
+        assertEquals(1, transformingConnection.transformations);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRatio(), 0);
+        assertEquals(transformingConnection.content.length, cache.getBytesSaved());
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(1, cache.getEntries().length);
+    }
+
+    @Test
+    public void testChangedWarIsTransformedAgain() throws IOException {
+        WebBundleCache cache = new WebBundleCache(this.directory.toFile(), 1024, CONFIGURATION);
+        TransformingURLConnection transformingConnection = new TransformingURLConnection(this.war.toUri().toURL(), "transformed");
+
+        read(cache.openConnection(this.war.toUri().toURL(), OPTIONS, transformingConnection));
+        Files.write(this.war, "changed war content".getBytes(StandardCharsets.UTF_8));
+        read(cache.openConnection(this.war.toUri().toURL(), OPTIONS, transformingConnection));
+        read(cache.openConnection(this.war.toUri().toURL(), Collections.singletonMap("Web-ContextPath", "/other"), transformingConnection));
+
+        assertEquals(3, transformingConnection.transformations);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.getEntryCount());
+    }
+
+    @Test
+    public void testCacheSurvivesRestart() throws IOException {
+        TransformingURLConnection transformingConnection = new TransformingURLConnection(this.war.toUri().toURL(), "transformed");
+        read(new WebBundleCache(this.directory.toFile(), 1024, CONFIGURATION).openConnection(this.war.toUri().toURL(), OPTIONS,
+            transformingConnection));
+
+        WebBundleCache cache = new WebBundleCache(this.directory.toFile(), 1024, CONFIGURATION);
+        assertArrayEquals(transformingConnection.content, read(cache.openConnection(this.war.toUri().toURL(), OPTIONS, transformingConnection)));
+        assertEquals(1, transformingConnection.transformations);
+
+        cache = new WebBundleCache(this.directory.toFile(), 1024, "other configuration");
+        read(cache.openConnection(this.war.toUri().toURL(), OPTIONS, transformingConnection));
+        assertEquals(2, transformingConnection.transformations);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws IOException, InterruptedException {
+        WebBundleCache cache = new WebBundleCache(this.directory.toFile(), 20, CONFIGURATION);
+        TransformingURLConnection transformingConnection = new TransformingURLConnection(this.war.toUri().toURL(), "0123456789");
+
+        read(cache.openConnection(this.war.toUri().toURL(), Collections.singletonMap("Web-ContextPath", "/a"), transformingConnection));
+        Thread.sleep(10);
+        read(cache.openConnection(this.war.toUri().toURL(), Collections.singletonMap("Web-ContextPath", "/b"), transformingConnection));
+        Thread.sleep(10);
+        read(cache.openConnection(this.war.toUri().toURL(), Collections.singletonMap("Web-ContextPath", "/a"), transformingConnection));
+        Thread.sleep(10);
+        read(cache.openConnection(this.war.toUri().toURL(), Collections.singletonMap("Web-ContextPath", "/c"), transformingConnection));
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(20, cache.getSize());
+        read(cache.openConnection(this.war.toUri().toURL(), Collections.singletonMap("Web-ContextPath", "/a"), transformingConnection));
+        assertEquals(2, cache.getHitCount());
+        read(cache.openConnection(this.war.toUri().toURL(), Collections.singletonMap("Web-ContextPath", "/b"), transformingConnection));
+        assertEquals(4, transformingConnection.transformations);
+    }
+
+    @Test
+    public void testWarLargerThanCacheIsNotCached() throws IOException {
+        WebBundleCache cache = new WebBundleCache(this.directory.toFile(), 5, CONFIGURATION);
+        TransformingURLConnection transformingConnection = new TransformingURLConnection(this.war.toUri().toURL(), "transformed");
+
+        assertArrayEquals(transformingConnection.content, read(cache.openConnection(this.war.toUri().toURL(), OPTIONS, transformingConnection)));
+
+        assertEquals(0, cache.getEntryCount());
+        assertFalse(Files.newDirectoryStream(this.directory).iterator().hasNext());
+    }
+
+    @Test
+    public void testClear() throws IOException {
+        WebBundleCache cache = new WebBundleCache(this.directory.toFile(), 1024, CONFIGURATION);
+        read(cache.openConnection(this.war.toUri().toURL(), OPTIONS, new TransformingURLConnection(this.war.toUri().toURL(), "transformed")));
+
+        cache.clear();
+
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSize());
+        assertFalse(Files.newDirectoryStream(this.directory).iterator().hasNext());
+    }
+
+    private static byte[] read(URLConnection connection) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[256];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static final class TransformingURLConnection extends URLConnection {
+
+        private final byte[] content;
+
+        private int transformations;
+
+        TransformingURLConnection(URL url, String content) {
+            super(url);
+            this.content = content.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void connect() throws IOException {
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            this.transformations++;
+            return new ByteArrayInputStream(this.content);
+        }
+    }
+}
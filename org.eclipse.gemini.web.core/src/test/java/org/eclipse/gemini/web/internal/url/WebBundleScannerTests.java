@@ -18,17 +18,32 @@ package org.eclipse.gemini.web.internal.url;
 
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.easymock.EasyMock;
+import org.junit.After;
 import org.junit.Test;
 
 public class WebBundleScannerTests {
@@ -39,6 +54,15 @@ public class WebBundleScannerTests {
 
     private static final Path WAR_WITH_CORRUPTED_JAR = Paths.get("src/test/resources/contains-jar-with-bad-formated-manifest");
 
+    private static final Path WAR_NO_MANIFEST = Paths.get("../org.eclipse.gemini.web.test/src/test/resources/no-manifest.war");
+
+    private final ExecutorService executorService = new ForkJoinPool(4);
+
+    @After
+    public void shutdownExecutorService() {
+        this.executorService.shutdownNow();
+    }
+
     @Test
     public void testScanClasspathDeps() throws IOException {
         final WebBundleScannerCallback callback = EasyMock.createMock(WebBundleScannerCallback.class);
@@ -156,19 +180,127 @@ public class WebBundleScannerTests {
         scan(WAR_WITH_CORRUPTED_JAR.toUri().toURL(), callback, true);
     }
 
+    @Test
+    public void testScanClasspathDepsInParallel() throws IOException {
+        WebBundleScannerCallback callback = EasyMock.createMock(WebBundleScannerCallback.class);
+
+        setExpectationsClasspathDeps(callback);
+
+        scan(WAR_CLASSPATHDEPS.toUri().toURL(), callback, false, this.executorService);
+    }
+
+    @Test
+    public void testScanLibIncludingNestedJarsInParallel() throws IOException {
+        WebBundleScannerCallback callback = EasyMock.createMock(WebBundleScannerCallback.class);
+
+        setExpectationsIncludingNestedJars(callback);
+
+        scan(WAR_FILE.toUri().toURL(), callback, true, this.executorService);
+    }
+
+    @Test
+    public void testScanDirIncludingNestedJarsInParallel() throws Exception {
+        Path pr = unpackToDir(WAR_FILE);
+        try {
+            WebBundleScannerCallback callback = EasyMock.createMock(WebBundleScannerCallback.class);
+
+            setExpectationsIncludingNestedJars(callback);
+
+            scan(pr.toUri().toURL(), callback, true, this.executorService);
+        } finally {
+            FileUtils.deleteDirectory(pr);
+        }
+    }
+
+    @Test
+    public void testScanDirIncludingClasspathDepsInParallel() throws Exception {
+        Path pr = unpackToDir(WAR_CLASSPATHDEPS);
+        try {
+            WebBundleScannerCallback callback = EasyMock.createMock(WebBundleScannerCallback.class);
+
+            setExpectationsClasspathDeps(callback);
+
+            scan(pr.toUri().toURL(), callback, true, this.executorService);
+        } finally {
+            FileUtils.deleteDirectory(pr);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testScanDirWithCorruptedNestedJarsInParallel() throws Exception {
+        WebBundleScannerCallback callback = EasyMock.createMock(WebBundleScannerCallback.class);
+        callback.jarFound("WEB-INF/lib/jarfile.jar");
+        scan(WAR_WITH_CORRUPTED_JAR.toUri().toURL(), callback, true, this.executorService);
+    }
+
+    @Test
+    public void testParallelScanNotifiesInSequentialOrder() throws IOException {
+        RecordingCallback sequentialCallback = new RecordingCallback();
+        new WebBundleScanner(WAR_NO_MANIFEST.toUri().toURL(), sequentialCallback, true).scanWar();
+
+        RecordingCallback parallelCallback = new RecordingCallback();
+        new WebBundleScanner(WAR_NO_MANIFEST.toUri().toURL(), parallelCallback, true, this.executorService).scanWar();
+
+        assertTrue(sequentialCallback.events.size() > 2);
+        assertEquals(sequentialCallback.events, parallelCallback.events);
+    }
+
+    @Test
+    public void testScanClasspathDepsFromStream() throws IOException {
+        WebBundleScannerCallback callback = EasyMock.createMock(WebBundleScannerCallback.class);
+
+        setExpectationsClasspathDeps(callback);
+
+        scan(toStreamURL(WAR_CLASSPATHDEPS), callback);
+    }
+
+    @Test
+    public void testScanClasspathDepsFromStreamInParallel() throws IOException {
+        WebBundleScannerCallback callback = EasyMock.createMock(WebBundleScannerCallback.class);
+
+        setExpectationsClasspathDeps(callback);
+
+        scan(toStreamURL(WAR_CLASSPATHDEPS), callback, false, this.executorService);
+    }
+
+    @Test
+    public void testFindLongestSuffix() {
+        Set<String> entryNames = new HashSet<>(Arrays.asList("jar2.jar", "j2/jar2.jar", "WEB-INF/lib/jar1.jar"));
+
+        assertEquals("j2/jar2.jar", WebBundleScanner.findLongestSuffix("WEB-INF/lib/../../j2/jar2.jar", entryNames));
+        assertEquals("jar2.jar", WebBundleScanner.findLongestSuffix("j3/jar2.jar", entryNames));
+        assertEquals("WEB-INF/lib/jar1.jar", WebBundleScanner.findLongestSuffix("WEB-INF/lib/jar1.jar", entryNames));
+        assertNull(WebBundleScanner.findLongestSuffix("WEB-INF/lib/jar3.jar", entryNames));
+    }
+
     private void scan(final URL url, final WebBundleScannerCallback callback) throws IOException {
         this.scan(url, callback, false);
     }
 
     private void scan(final URL url, final WebBundleScannerCallback callback, final boolean findClassesInNestedJars) throws IOException {
+        scan(url, callback, findClassesInNestedJars, null);
+    }
+
+    private void scan(final URL url, final WebBundleScannerCallback callback, final boolean findClassesInNestedJars,
+        ExecutorService executorService) throws IOException {
         replay(callback);
 
-        final WebBundleScanner scanner = new WebBundleScanner(url, callback, findClassesInNestedJars);
+        final WebBundleScanner scanner = new WebBundleScanner(url, callback, findClassesInNestedJars, executorService);
         scanner.scanWar();
 
         verify(callback);
     }
 
+    private URL toStreamURL(final Path warFile) throws IOException {
+        return new URL("test", null, -1, warFile.toString(), new URLStreamHandler() {
+
+            @Override
+            protected URLConnection openConnection(URL u) throws IOException {
+                return warFile.toUri().toURL().openConnection();
+            }
+        });
+    }
+
     private Path unpackToDir(Path warFile) throws IOException {
         Path destination = Paths.get(System.getProperty("java.io.tmpdir"), "unpack-" + System.currentTimeMillis());
         Files.createDirectories(destination);
@@ -186,4 +318,30 @@ public class WebBundleScannerTests {
         }
         return destination;
     }
+
+    private static final class RecordingCallback implements WebBundleScannerClassContentCallback {
+
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void jarFound(String pathToJar) {
+            this.events.add("jar " + pathToJar);
+        }
+
+        @Override
+        public void classFound(String className) {
+            this.events.add("class " + className);
+        }
+
+        @Override
+        public void classContentFound(String className, InputStream classContent) throws IOException {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = classContent.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            this.events.add("content " + className + " " + content.size());
+        }
+    }
 }
@@ -30,14 +30,19 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
 
+import org.eclipse.gemini.web.internal.WebContainerUtils;
 import org.junit.Test;
 
 public class WebBundleUrlStreamHandlerServiceTests {
@@ -115,6 +120,36 @@ public class WebBundleUrlStreamHandlerServiceTests {
         assertTrue(FileUtils.deleteDirectory(Paths.get(directory.getPath())));
     }
 
+    @Test
+    public void testAnnotationIndexOfPlainWar() throws Exception {
+        Path war = Files.createTempFile("plain-war", ".war");
+        try {
+            Manifest manifest = new Manifest();
+            manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+            try (JarOutputStream jos = new JarOutputStream(Files.newOutputStream(war), manifest)) {
+                jos.putNextEntry(new ZipEntry("WEB-INF/web.xml"));
+                jos.closeEntry();
+            }
+
+            Map<String, String> options = new HashMap<>();
+            options.put("Web-ContextPath", "/plain");
+            options.put(WebContainerUtils.HEADER_ANNOTATION_INDEX, "true");
+            WebBundleUrl url = new TestWarUrl(war.toUri().toString(), options);
+
+            boolean annotationIndex = false;
+            try (JarInputStream jis = new JarInputStream(url.toURL().openConnection().getInputStream())) {
+                assertEquals("/plain", jis.getManifest().getMainAttributes().getValue("Web-ContextPath"));
+                JarEntry entry;
+                while ((entry = jis.getNextJarEntry()) != null) {
+                    annotationIndex |= AnnotationIndexWriter.INDEX_ENTRY_NAME.equals(entry.getName());
+                }
+            }
+            assertTrue(annotationIndex);
+        } finally {
+            Files.delete(war);
+        }
+    }
+
     private void checkContent(URLConnection connection, String contextPath, Path webXml) throws Exception {
         try (InputStream inputStream = connection.getInputStream();) {
             assertNotNull(inputStream);
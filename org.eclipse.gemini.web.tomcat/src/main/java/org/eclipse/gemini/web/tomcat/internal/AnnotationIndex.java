@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.ServletContainerInitializer;
+
+import org.osgi.framework.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The index of the classes in <code>WEB-INF/classes</code> and in the JARs in <code>WEB-INF/lib</code> of a web
+ * application bundle, which is added to the bundle by the <code>webbundle:</code> URL handler when the
+ * <code>org-eclipse-gemini-web-AnnotationIndex</code> installation option is set. It tells which classes can contain
+ * neither servlet annotations nor types handled by a <code>ServletContainerInitializer</code>, so that their bytecode
+ * does not have to be read during annotation processing.
+ * <p/>
+ * A class is only known to the index if its entry is listed for the location it is read from, and its size is checked
+ * wherever it is available, so classes which are not covered by the index are processed as usual.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Not thread-safe.
+ */
+final class AnnotationIndex {
+
+    static final String INDEX_ENTRY_NAME = "WEB-INF/gemini-web-annotation.index";
+
+    static final String CLASSES_LOCATION = "WEB-INF/classes";
+
+    private static final String INDEX_HEADER = "gemini-web-annotation-index\t1";
+
+    private static final String SERVLET_ANNOTATION_PACKAGE = "javax/servlet/annotation/";
+
+    private static final String JAVA_PACKAGE = "java/";
+
+    private static final String OBJECT = "java/lang/Object";
+
+    private static final String NONE = "-";
+
+    private static final int ACC_ANNOTATION = 0x2000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnnotationIndex.class);
+
+    private final Map<String, Location> locations = new HashMap<>();
+
+    private final Map<String, IndexedClass> classes = new HashMap<>();
+
+    private final Set<String> ambiguousClassNames = new HashSet<>();
+
+    private final Map<String, Boolean> relevance = new HashMap<>();
+
+    private final Set<String> handledAnnotationNames = new HashSet<>();
+
+    private final Set<String> handledTypeNames = new HashSet<>();
+
+    private boolean handledJavaTypes;
+
+    private AnnotationIndex() {
+    }
+
+    /**
+     * Reads the index of the given bundle.
+     *
+     * @param bundle the web application bundle
+     * @return the index, or <code>null</code> if the bundle has no valid index
+     */
+    static AnnotationIndex read(Bundle bundle) {
+        URL entry = bundle.getEntry(INDEX_ENTRY_NAME);
+        if (entry == null) {
+            return null;
+        }
+        try (InputStream in = entry.openStream()) {
+            return read(in);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cannot read the annotation index of bundle [" + bundle.getSymbolicName() + "]. Annotations will be processed without it.", e);
+            return null;
+        }
+    }
+
+    static AnnotationIndex read(InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        if (!INDEX_HEADER.equals(reader.readLine())) {
+            throw new IOException("Unsupported annotation index format.");
+        }
+        AnnotationIndex index = new AnnotationIndex();
+        Location location = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] fields = line.split("\t");
+            if ("L".equals(fields[0]) && fields.length == 3) {
+                location = new Location(Long.parseLong(fields[2]));
+                index.locations.put(fields[1], location);
+            } else if ("C".equals(fields[0]) && fields.length == 8 && location != null) {
+                IndexedClass indexedClass = new IndexedClass(Long.parseLong(fields[2]), Integer.parseInt(fields[3]), fields[4], toName(fields[5]),
+                    toNames(fields[6]), toNames(fields[7]));
+                location.classes.put(fields[1], indexedClass);
+                index.addClass(indexedClass);
+            } else {
+                throw new IOException("Invalid annotation index line [" + line + "].");
+            }
+        }
+        return index;
+    }
+
+    private void addClass(IndexedClass indexedClass) {
+        IndexedClass previous = this.classes.put(indexedClass.className, indexedClass);
+        if (previous != null && !previous.hasSameHierarchy(indexedClass)) {
+            this.ambiguousClassNames.add(indexedClass.className);
+        }
+    }
+
+    /**
+     * Sets the types handled by the <code>ServletContainerInitializer</code>s of the web application, which can only
+     * be determined during annotation processing.
+     *
+     * @param typeInitializerMap the handled types and their initializers
+     */
+    void setHandledTypes(Map<Class<?>, Set<ServletContainerInitializer>> typeInitializerMap) {
+        this.relevance.clear();
+        this.handledAnnotationNames.clear();
+        this.handledTypeNames.clear();
+        this.handledJavaTypes = false;
+        for (Class<?> type : typeInitializerMap.keySet()) {
+            String name = type.getName().replace('.', '/');
+            if (type.isAnnotation()) {
+                this.handledAnnotationNames.add(name);
+            } else {
+                this.handledTypeNames.add(name);
+                this.handledJavaTypes |= name.startsWith(JAVA_PACKAGE);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the given location is covered by the index. JARs in <code>WEB-INF/lib</code> must have the size
+     * recorded in the index.
+     *
+     * @param location <code>WEB-INF/classes</code> or the path of a JAR in <code>WEB-INF/lib</code>
+     * @param size the size of the JAR, ignored for <code>WEB-INF/classes</code>
+     * @return <code>true</code> if the location is covered by the index
+     */
+    boolean covers(String location, long size) {
+        Location indexedLocation = this.locations.get(location);
+        return indexedLocation != null && (CLASSES_LOCATION.equals(location) || indexedLocation.size == size);
+    }
+
+    /**
+     * Returns whether the bytecode of the given class file can be skipped during annotation processing, i.e. whether
+     * the class is listed in the index with the given size and neither has a servlet annotation nor an annotation or a
+     * supertype handled by a <code>ServletContainerInitializer</code>.
+     *
+     * @param location <code>WEB-INF/classes</code> or the path of a JAR in <code>WEB-INF/lib</code>
+     * @param entryName the path of the class file relative to the location
+     * @param size the size of the class file, or -1 if it is not known
+     * @return <code>true</code> if the class file does not have to be read
+     */
+    boolean canSkip(String location, String entryName, long size) {
+        Location indexedLocation = this.locations.get(location);
+        if (indexedLocation == null) {
+            return false;
+        }
+        IndexedClass indexedClass = indexedLocation.classes.get(entryName);
+        if (indexedClass == null || size != -1 && size != indexedClass.size) {
+            return false;
+        }
+        return !hasRelevantAnnotation(indexedClass) && ((indexedClass.accessFlags & ACC_ANNOTATION) != 0 || !isHandledType(indexedClass.className));
+    }
+
+    private boolean hasRelevantAnnotation(IndexedClass indexedClass) {
+        for (String annotationType : indexedClass.annotationTypes) {
+            if (annotationType.startsWith(SERVLET_ANNOTATION_PACKAGE) || this.handledAnnotationNames.contains(annotationType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the given type is, extends or implements a handled type, or cannot be resolved completely.
+     */
+    private boolean isHandledType(String className) {
+        if (this.handledTypeNames.isEmpty()) {
+            return false;
+        }
+        Boolean handled = this.relevance.get(className);
+        if (handled != null) {
+            return handled.booleanValue();
+        }
+        // guards against cycles in corrupt class hierarchies
+        this.relevance.put(className, Boolean.TRUE);
+
+        boolean result = computeHandledType(className);
+        this.relevance.put(className, Boolean.valueOf(result));
+        return result;
+    }
+
+    private boolean computeHandledType(String className) {
+        if (this.handledTypeNames.contains(className)) {
+            return true;
+        }
+        if (OBJECT.equals(className)) {
+            return false;
+        }
+        IndexedClass indexedClass = this.classes.get(className);
+        if (indexedClass == null || this.ambiguousClassNames.contains(className)) {
+            return !className.startsWith(JAVA_PACKAGE) || this.handledJavaTypes;
+        }
+        if (indexedClass.superclassName != null && isHandledType(indexedClass.superclassName)) {
+            return true;
+        }
+        for (String interfaceName : indexedClass.interfaceNames) {
+            if (isHandledType(interfaceName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String toName(String field) {
+        return NONE.equals(field) ? null : field;
+    }
+
+    private static String[] toNames(String field) {
+        return NONE.equals(field) ? new String[0] : field.split(",");
+    }
+
+    private static final class Location {
+
+        private final long size;
+
+        private final Map<String, IndexedClass> classes = new HashMap<>();
+
+        Location(long size) {
+            this.size = size;
+        }
+    }
+
+    private static final class IndexedClass {
+
+        private final long size;
+
+        private final int accessFlags;
+
+        private final String className;
+
+        private final String superclassName;
+
+        private final String[] interfaceNames;
+
+        private final String[] annotationTypes;
+
+        IndexedClass(long size, int accessFlags, String className, String superclassName, String[] interfaceNames, String[] annotationTypes) {
+            this.size = size;
+            this.accessFlags = accessFlags;
+            this.className = className;
+            this.superclassName = superclassName;
+            this.interfaceNames = interfaceNames;
+            this.annotationTypes = annotationTypes;
+        }
+
+        boolean hasSameHierarchy(IndexedClass other) {
+            return (this.superclassName == null ? other.superclassName == null : this.superclassName.equals(other.superclassName))
+                && Arrays.equals(this.interfaceNames, other.interfaceNames);
+        }
+    }
+}
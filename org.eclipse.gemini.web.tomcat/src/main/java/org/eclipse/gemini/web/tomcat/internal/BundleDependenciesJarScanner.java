@@ -20,7 +20,17 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletContext;
 
@@ -55,6 +65,30 @@ import org.slf4j.LoggerFactory;
  */
 final class BundleDependenciesJarScanner implements JarScanner {
 
+    /**
+     * By default the bundles are scanned every time a web application is started. The results of the scans can be
+     * cached with property <code>org.eclipse.gemini.web.tomcat.scanner.cache</code>, a bundle is then scanned again only
+     * when it is updated. The cached results are kept in the work directory of the container and survive its restarts.
+     * The syntax is <code>org.eclipse.gemini.web.tomcat.scanner.cache=true</code>
+     */
+    static final String SCANNER_CACHE_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.scanner.cache";
+
+    /**
+     * By default the bundles are scanned one after another on the thread that deploys the web application. With
+     * property <code>org.eclipse.gemini.web.tomcat.scanner.threads</code> greater than one the bundles are opened and
+     * read on a pool of the given size, while their contents are still passed to Tomcat on the deploying thread in the
+     * same order. The syntax is <code>org.eclipse.gemini.web.tomcat.scanner.threads=&lt;number-of-threads&gt;</code>
+     */
+    static final String SCANNER_THREADS_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.scanner.threads";
+
+    private static final String THREAD_NAME_PREFIX = "gemini-web-jar-scanner-";
+
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    private static final int READ_AHEAD_PER_THREAD = 2;
+
+    private static final String WORK_DIRECTORY_NAME = "work";
+
     private static final String JAR_URL_SUFFIX = "!/";
 
     private static final String JAR_URL_PREFIX = "jar:";
@@ -67,14 +101,88 @@ final class BundleDependenciesJarScanner implements JarScanner {
 
     private final ServiceTracker<?, ?> urlConverterTracker;
 
+    private final JarScanResultCache jarScanResultCache;
+
+    private final ThreadPoolExecutor executorService;
+
+    private final JarScanProfiler jarScanProfiler;
+
     private JarScanFilter jarScanFilter;
 
     BundleDependenciesJarScanner(BundleDependencyDeterminer bundleDependencyDeterminer, BundleFileResolver bundleFileResolver,
         BundleContext bundleContext, ServiceTracker<?, ?> urlConverterTracker) {
+        this(bundleDependencyDeterminer, bundleFileResolver, bundleContext, urlConverterTracker, null);
+    }
+
+    BundleDependenciesJarScanner(BundleDependencyDeterminer bundleDependencyDeterminer, BundleFileResolver bundleFileResolver,
+        BundleContext bundleContext, ServiceTracker<?, ?> urlConverterTracker, JarScanProfiler jarScanProfiler) {
         this.bundleDependencyDeterminer = bundleDependencyDeterminer;
         this.bundleFileResolver = bundleFileResolver;
         this.jarScanFilter = new BundleDependenciesJarScanFilter(bundleContext);
         this.urlConverterTracker = urlConverterTracker;
+        this.jarScanResultCache = Boolean.parseBoolean(bundleContext.getProperty(SCANNER_CACHE_PROPERTY_NAME)) ? new JarScanResultCache(bundleContext)
+            : null;
+        this.executorService = createExecutorService(bundleContext);
+        this.jarScanProfiler = jarScanProfiler;
+    }
+
+    private static ThreadPoolExecutor createExecutorService(BundleContext bundleContext) {
+        String property = bundleContext.getProperty(SCANNER_THREADS_PROPERTY_NAME);
+        if (property == null) {
+            return null;
+        }
+        int threads;
+        try {
+            threads = Integer.parseInt(property.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value [" + property + "] of property [" + SCANNER_THREADS_PROPERTY_NAME + "]", e);
+        }
+        if (threads <= 1) {
+            return null;
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+                private final AtomicInteger threadCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + this.threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Stops the threads used for scanning in parallel.
+     */
+    void destroy() {
+        if (this.executorService != null) {
+            this.executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads the cached scan results, if caching is enabled.
+     *
+     * @param catalinaBase the base directory of the container
+     */
+    void loadScanResults(File catalinaBase) {
+        if (this.jarScanResultCache != null) {
+            this.jarScanResultCache.load(new File(new File(catalinaBase, WORK_DIRECTORY_NAME), JarScanResultCache.CACHE_FILE_NAME));
+        }
+    }
+
+    /**
+     * Persists the cached scan results, if caching is enabled.
+     */
+    void saveScanResults() {
+        if (this.jarScanResultCache != null) {
+            this.jarScanResultCache.save();
+        }
     }
 
     @Override
@@ -97,84 +205,215 @@ final class BundleDependenciesJarScanner implements JarScanner {
     }
 
     private void scanDependentBundles(Bundle rootBundle, JarScanType jarScanType, JarScannerCallback callback) {
+        List<Bundle> bundles = new ArrayList<>();
+        List<Boolean> webappFlags = new ArrayList<>();
+
         Bundle apacheWebsocketBundle = FrameworkUtil.getBundle(WsSci.class);
         if (apacheWebsocketBundle != null) {
-            scanBundle(apacheWebsocketBundle, callback, false);
+            bundles.add(apacheWebsocketBundle);
+            webappFlags.add(false);
         }
 
         Bundle apacheJasperBundle = FrameworkUtil.getBundle(JasperInitializer.class);
         if (apacheJasperBundle != null) {
-            scanBundle(apacheJasperBundle, callback, false);
+            bundles.add(apacheJasperBundle);
+            webappFlags.add(false);
         }
 
         Set<Bundle> dependencies = this.bundleDependencyDeterminer.getDependencies(rootBundle);
 
         for (Bundle bundle : dependencies) {
             if (getJarScanFilter().check(jarScanType, bundle.getSymbolicName())) {
-                scanBundle(bundle, callback, true);
+                bundles.add(bundle);
+                webappFlags.add(true);
+            }
+        }
+
+        if (this.executorService == null || bundles.size() < 2) {
+            for (int i = 0; i < bundles.size(); i++) {
+                scanBundle(bundles.get(i), jarScanType, resolveBundleLocation(bundles.get(i)), null, callback, webappFlags.get(i));
+            }
+        } else {
+            scanBundlesInParallel(bundles, webappFlags, jarScanType, callback);
+        }
+    }
+
+    /**
+     * Resolves and reads the bundles on the scanner's thread pool, while the callback, which is not thread-safe, is
+     * given the bundles on the calling thread in the same order as in the sequential scan. Only a bounded number of
+     * bundles are read ahead of the callback, so that the memory held by the read bundles does not grow with the number
+     * of dependencies.
+     */
+    private void scanBundlesInParallel(List<Bundle> bundles, List<Boolean> webappFlags, JarScanType jarScanType, JarScannerCallback callback) {
+        int readAhead = READ_AHEAD_PER_THREAD * this.executorService.getMaximumPoolSize();
+        List<Future<PreReadBundle>> preReadBundles = new ArrayList<>(bundles.size());
+        try {
+            for (int i = 0; i < bundles.size(); i++) {
+                while (preReadBundles.size() < bundles.size() && preReadBundles.size() <= i + readAhead) {
+                    int next = preReadBundles.size();
+                    preReadBundles.add(preRead(bundles.get(next), jarScanType, webappFlags.get(next)));
+                }
+                Bundle bundle = bundles.get(i);
+                try {
+                    PreReadBundle preReadBundle = preReadBundles.set(i, null).get();
+                    scanBundle(bundle, jarScanType, preReadBundle.location, preReadBundle.jar, callback, webappFlags.get(i));
+                } catch (ExecutionException e) {
+                    LOGGER.debug("Failed to read the bundle [" + bundle + "] in advance, scanning it directly.", e.getCause());
+                    scanBundle(bundle, jarScanType, resolveBundleLocation(bundle), null, callback, webappFlags.get(i));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    LOGGER.warn("Interrupted while scanning the dependencies of the web application.");
+                    return;
+                }
+            }
+        } finally {
+            for (Future<PreReadBundle> preReadBundle : preReadBundles) {
+                if (preReadBundle != null) {
+                    preReadBundle.cancel(true);
+                }
             }
         }
     }
 
-    private void scanBundle(Bundle bundle, JarScannerCallback callback, boolean isWebapp) {
+    private Future<PreReadBundle> preRead(final Bundle bundle, final JarScanType jarScanType, final boolean isWebapp) {
+        return this.executorService.submit(new Callable<PreReadBundle>() {
+
+            @Override
+            public PreReadBundle call() throws IOException {
+                BundleLocation location = resolveBundleLocation(bundle);
+                if (location == null || location.jarUrl == null || (BundleDependenciesJarScanner.this.jarScanResultCache != null
+                    && BundleDependenciesJarScanner.this.jarScanResultCache.contains(bundle, jarScanType, location.jarUrl, isWebapp))) {
+                    return new PreReadBundle(location, null);
+                }
+                return new PreReadBundle(location, PreReadJar.read(location.jarUrl));
+            }
+        });
+    }
+
+    /**
+     * @return the location of the given bundle or <code>null</code> if the bundle cannot be scanned
+     */
+    private BundleLocation resolveBundleLocation(Bundle bundle) {
         File bundleFile = this.bundleFileResolver.resolve(bundle);
         if (bundleFile != null) {
-            scanBundleFile(bundleFile, callback, isWebapp);
-        } else {
-            URL root = bundle.getEntry("/");
+            return resolveBundleFileLocation(bundleFile);
+        }
+
+        URL root = bundle.getEntry("/");
+        try {
             try {
-                try {
-                    Object converter = this.urlConverterTracker.getService();
-                    if (converter != null) {
-                        root = ((org.eclipse.osgi.service.urlconversion.URLConverter) converter).resolve(root);
-                    }
-                } catch (Exception ignore) {
+                Object converter = this.urlConverterTracker.getService();
+                if (converter != null) {
+                    root = ((org.eclipse.osgi.service.urlconversion.URLConverter) converter).resolve(root);
                 }
+            } catch (Exception ignore) {
+            }
 
-                if (root != null) {
-                    if ("file".equals(root.getProtocol())) {
-                        scanBundleFile(new File(root.getPath()), callback, isWebapp);
-                    } else if ("jar".equals(root.getProtocol())) {
-                        scanBundleUrl(root, callback, isWebapp);
-                    } else {
-                        URL bundleUrl = new URL(JAR_URL_PREFIX + root.toExternalForm() + JAR_URL_SUFFIX);
-                        scanBundleUrl(bundleUrl, callback, isWebapp);
-                    }
+            if (root != null) {
+                if ("file".equals(root.getProtocol())) {
+                    return resolveBundleFileLocation(new File(root.getPath()));
+                } else if ("jar".equals(root.getProtocol())) {
+                    return new BundleLocation(null, root);
                 } else {
-                    LOGGER.warn("Failed to scan the bundle [" + bundle + "].");
+                    return resolveBundleUrlLocation(new URL(JAR_URL_PREFIX + root.toExternalForm() + JAR_URL_SUFFIX));
                 }
-            } catch (IOException e) {
-                LOGGER.warn("Failed to scan the bundle location [" + root + "].");
+            } else {
+                LOGGER.warn("Failed to scan the bundle [" + bundle + "].");
             }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to scan the bundle location [" + root + "].");
         }
+        return null;
     }
 
-    private void scanBundleFile(File bundleFile, JarScannerCallback callback, boolean isWebapp) {
+    private static BundleLocation resolveBundleFileLocation(File bundleFile) {
         if (bundleFile.isDirectory()) {
+            return new BundleLocation(bundleFile, null);
+        }
+        try {
+            return resolveBundleUrlLocation(new URL(JAR_URL_PREFIX + bundleFile.toURI().toURL() + JAR_URL_SUFFIX));
+        } catch (MalformedURLException e) {
+            LOGGER.warn("Failed to create jar: url for bundle file [" + bundleFile + "].");
+            return null;
+        }
+    }
+
+    private static BundleLocation resolveBundleUrlLocation(URL url) {
+        if ("jar".equals(url.getProtocol()) || url.getPath().endsWith(".jar")) {
+            return new BundleLocation(null, url);
+        }
+        return null;
+    }
+
+    private void scanBundle(Bundle bundle, JarScanType jarScanType, BundleLocation location, Jar preReadJar, JarScannerCallback callback,
+        boolean isWebapp) {
+        if (location == null) {
+            return;
+        }
+        if (this.jarScanProfiler == null) {
+            scanBundleLocation(bundle, jarScanType, location, preReadJar, callback, isWebapp);
+            return;
+        }
+        // only the dependencies of the web application are checked against the skip list, not Jasper and WebSocket
+        this.jarScanProfiler.setCurrentBundle(bundle.getSymbolicName(), isWebapp);
+        try {
+            scanBundleLocation(bundle, jarScanType, location, preReadJar, callback, isWebapp);
+        } finally {
+            this.jarScanProfiler.setCurrentBundle(null, false);
+        }
+    }
+
+    private void scanBundleLocation(Bundle bundle, JarScanType jarScanType, BundleLocation location, Jar preReadJar, JarScannerCallback callback,
+        boolean isWebapp) {
+        if (location.directory != null) {
             try {
-                callback.scan(bundleFile, null, isWebapp);
+                callback.scan(location.directory, null, isWebapp);
             } catch (IOException e) {
-                LOGGER.warn("Failure when attempting to scan bundle file [" + bundleFile + "].", e);
-            }
-        } else {
-            URL bundleUrl;
-            try {
-                bundleUrl = new URL(JAR_URL_PREFIX + bundleFile.toURI().toURL() + JAR_URL_SUFFIX);
-            } catch (MalformedURLException e) {
-                LOGGER.warn("Failed to create jar: url for bundle file [" + bundleFile + "].");
-                return;
+                LOGGER.warn("Failure when attempting to scan bundle file [" + location.directory + "].", e);
             }
-            scanBundleUrl(bundleUrl, callback, isWebapp);
+            return;
         }
-    }
 
-    private void scanBundleUrl(URL url, JarScannerCallback callback, boolean isWebapp) {
-        if ("jar".equals(url.getProtocol()) || url.getPath().endsWith(".jar")) {
-            try (Jar jar = JarFactory.newInstance(url)) {
-                callback.scan(jar, null, isWebapp);
+        URL url = location.jarUrl;
+        if (this.jarScanResultCache != null) {
+            try {
+                this.jarScanResultCache.scan(bundle, jarScanType, url, preReadJar, callback, isWebapp);
             } catch (IOException e) {
                 LOGGER.warn("Failure when attempting to scan bundle via jar URL [" + url + "].", e);
             }
+            return;
+        }
+        try (Jar jar = preReadJar != null ? preReadJar : JarFactory.newInstance(url)) {
+            callback.scan(jar, null, isWebapp);
+        } catch (IOException e) {
+            LOGGER.warn("Failure when attempting to scan bundle via jar URL [" + url + "].", e);
+        }
+    }
+
+    /**
+     * Where a bundle is scanned: either a directory or a <code>jar:</code> URL.
+     */
+    private static final class BundleLocation {
+
+        private final File directory;
+
+        private final URL jarUrl;
+
+        BundleLocation(File directory, URL jarUrl) {
+            this.directory = directory;
+            this.jarUrl = jarUrl;
+        }
+    }
+
+    private static final class PreReadBundle {
+
+        private final BundleLocation location;
+
+        private final Jar jar;
+
+        PreReadBundle(BundleLocation location, Jar jar) {
+            this.location = location;
+            this.jar = jar;
         }
     }
 }
@@ -16,16 +16,29 @@
 
 package org.eclipse.gemini.web.tomcat.internal;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.Set;
+
 import javax.servlet.ServletContext;
 
+import org.apache.tomcat.Jar;
 import org.apache.tomcat.JarScanFilter;
 import org.apache.tomcat.JarScanType;
 import org.apache.tomcat.JarScanner;
 import org.apache.tomcat.JarScannerCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A <code>JarScanner</code> implementation that delegates to a chain of <code>JarScanner</code>s.
  * <p />
+ * A JAR or directory is passed to the callback only once per scan, even if more than one of the
+ * <code>JarScanner</code>s finds it.
+ * <p />
  *
  * <strong>Concurrent Semantics</strong><br />
  *
@@ -34,16 +47,41 @@ import org.apache.tomcat.JarScannerCallback;
  */
 final class ChainingJarScanner implements JarScanner {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChainingJarScanner.class);
+
     private final JarScanner[] jarScanners;
 
+    private final JarScanProfiler jarScanProfiler;
+
     ChainingJarScanner(JarScanner... jarScanners) {
+        this(null, jarScanners);
+    }
+
+    ChainingJarScanner(JarScanProfiler jarScanProfiler, JarScanner... jarScanners) {
         this.jarScanners = jarScanners;
+        this.jarScanProfiler = jarScanProfiler;
     }
 
     @Override
     public void scan(JarScanType jarScanType, ServletContext context, JarScannerCallback callback) {
-        for (JarScanner jarScanner : this.jarScanners) {
-            jarScanner.scan(jarScanType, context, callback);
+        JarScanProfiler.ScanProfile profile = null;
+        if (this.jarScanProfiler != null && callback != null) {
+            profile = this.jarScanProfiler.startScan(context == null ? null : context.getContextPath(), jarScanType);
+            callback = new ProfilingJarScannerCallback(callback, this.jarScanProfiler, profile);
+        }
+        DeduplicatingJarScannerCallback deduplicatingCallback = callback == null ? null : new DeduplicatingJarScannerCallback(callback);
+        try {
+            for (JarScanner jarScanner : this.jarScanners) {
+                jarScanner.scan(jarScanType, context, deduplicatingCallback);
+            }
+        } finally {
+            if (profile != null) {
+                this.jarScanProfiler.endScan(profile);
+            }
+        }
+        if (deduplicatingCallback != null && deduplicatingCallback.duplicateCount > 0) {
+            LOGGER.info("Avoided " + deduplicatingCallback.duplicateCount + " duplicate scan(s) of type [" + jarScanType + "] for web application ["
+                + (context == null ? null : context.getContextPath()) + "].");
         }
     }
 
@@ -57,4 +95,67 @@ final class ChainingJarScanner implements JarScanner {
         // no-op
     }
 
+    /**
+     * A <code>JarScannerCallback</code> which passes each JAR and directory only once to the given callback. JARs and
+     * directories are identified by their canonical location.
+     */
+    private static final class DeduplicatingJarScannerCallback implements JarScannerCallback {
+
+        private final JarScannerCallback callback;
+
+        private final Set<String> scannedLocations = new HashSet<>();
+
+        private int duplicateCount;
+
+        DeduplicatingJarScannerCallback(JarScannerCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void scan(Jar jar, String webappPath, boolean isWebapp) throws IOException {
+            if (isFirstScan(getCanonicalLocation(jar.getJarFileURL()))) {
+                this.callback.scan(jar, webappPath, isWebapp);
+            }
+        }
+
+        @Override
+        public void scan(File file, String webappPath, boolean isWebapp) throws IOException {
+            if (isFirstScan(getCanonicalLocation(file))) {
+                this.callback.scan(file, webappPath, isWebapp);
+            }
+        }
+
+        @Override
+        public void scanWebInfClasses() throws IOException {
+            this.callback.scanWebInfClasses();
+        }
+
+        private boolean isFirstScan(String location) {
+            if (this.scannedLocations.add(location)) {
+                return true;
+            }
+            this.duplicateCount++;
+            LOGGER.debug("Skipping [" + location + "] as it has already been scanned.");
+            return false;
+        }
+
+        private static String getCanonicalLocation(URL url) {
+            if ("file".equals(url.getProtocol())) {
+                try {
+                    return getCanonicalLocation(new File(url.toURI()));
+                } catch (URISyntaxException | IllegalArgumentException e) {
+                    // not a hierarchical file URL, compare the URL as is
+                }
+            }
+            return url.toExternalForm();
+        }
+
+        private static String getCanonicalLocation(File file) {
+            try {
+                return file.getCanonicalPath();
+            } catch (IOException e) {
+                return file.getAbsolutePath();
+            }
+        }
+    }
 }
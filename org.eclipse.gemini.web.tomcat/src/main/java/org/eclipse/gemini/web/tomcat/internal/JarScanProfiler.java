@@ -0,0 +1,393 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tomcat.JarScanType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Profiles the jar scans of the web applications: for each JAR or directory passed to Tomcat, the time spent in Tomcat's
+ * callback, the bytes the callback read and what the JAR or directory contains that Tomcat looks for. A summary is
+ * logged after each scan, the profiles of the latest scans are available through the profiler's MBean.
+ * <p />
+ * The JARs and directories are not read again: what they contain is taken from the entries Tomcat's callback lists and
+ * opens during the scan, for directories only the well-known entries are looked up. Tomcat processes the annotations
+ * of the JARs after the scans, so whether a JAR contains classes with servlet annotations or classes matched by the
+ * <code>@HandlesTypes</code> of a servlet container initializer is recorded by the annotation processing. Bundles which
+ * were scanned but contain none of TLDs, web fragments, servlet container initializers, static resources under
+ * <code>META-INF/resources</code> and such classes are suggested for
+ * <code>org.eclipse.gemini.web.tomcat.scanner.skip.bundles</code>, provided a scan listed all the entries of one of
+ * their JARs and the annotations of all their JARs were processed.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+public final class JarScanProfiler {
+
+    /**
+     * The jar scans are not profiled by default. The profiling is enabled with property
+     * <code>org.eclipse.gemini.web.tomcat.scanner.profile</code>. The syntax is
+     * <code>org.eclipse.gemini.web.tomcat.scanner.profile=true</code>
+     */
+    static final String SCANNER_PROFILE_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.scanner.profile";
+
+    /**
+     * What Tomcat looks for in the scanned JARs and directories.
+     */
+    enum Finding {
+        TLD, WEB_FRAGMENT, SCI, RESOURCES, ANNOTATIONS
+    }
+
+    private static final int MAX_PROFILES = 32;
+
+    private static final String META_INF = "META-INF/";
+
+    private static final String WEB_FRAGMENT = "META-INF/web-fragment.xml";
+
+    private static final String SCI_SERVICE = "META-INF/services/javax.servlet.ServletContainerInitializer";
+
+    private static final String RESOURCES = "META-INF/resources/";
+
+    private static final String JAR_URL_PREFIX = "jar:";
+
+    private static final String JAR_URL_SUFFIX = "!/";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Deque<ScanProfile> profiles = new ArrayDeque<>();
+
+    private final ThreadLocal<ScannedBundle> currentBundle = new ThreadLocal<>();
+
+    private final ConcurrentMap<String, Boolean> annotationsFound = new ConcurrentHashMap<>();
+
+    /**
+     * Attributes the JARs and directories scanned by the current thread to the given bundle, until it is called with
+     * <code>null</code>.
+     *
+     * @param bundleSymbolicName the symbolic name of the bundle or <code>null</code>
+     * @param skippable whether <code>org.eclipse.gemini.web.tomcat.scanner.skip.bundles</code> applies to the bundle
+     */
+    void setCurrentBundle(String bundleSymbolicName, boolean skippable) {
+        if (bundleSymbolicName == null) {
+            this.currentBundle.remove();
+        } else {
+            this.currentBundle.set(new ScannedBundle(bundleSymbolicName, skippable));
+        }
+    }
+
+    ScannedBundle getCurrentBundle() {
+        return this.currentBundle.get();
+    }
+
+    ScanProfile startScan(String contextPath, JarScanType jarScanType) {
+        return new ScanProfile(contextPath, jarScanType);
+    }
+
+    void endScan(ScanProfile profile) {
+        profile.end();
+        synchronized (this.profiles) {
+            this.profiles.addLast(profile);
+            if (this.profiles.size() > MAX_PROFILES) {
+                this.profiles.removeFirst();
+            }
+        }
+        if (this.log.isInfoEnabled()) {
+            this.log.info(profile.toString(this.annotationsFound) + "Suggested bundles to skip: " + toString(getSuggestedSkipBundles(getProfiles())));
+        }
+    }
+
+    /**
+     * Records the outcome of the annotation processing of a JAR.
+     *
+     * @param jarUrl the URL of the JAR
+     * @param found whether classes with servlet annotations or classes handled by a servlet container initializer
+     *        were found
+     */
+    void recordAnnotationProcessing(URL jarUrl, boolean found) {
+        String location = jarUrl.toExternalForm();
+        if (location.startsWith(JAR_URL_PREFIX) && location.endsWith(JAR_URL_SUFFIX)) {
+            location = location.substring(JAR_URL_PREFIX.length(), location.length() - JAR_URL_SUFFIX.length());
+        }
+        if (found) {
+            this.annotationsFound.put(location, Boolean.TRUE);
+        } else {
+            this.annotationsFound.putIfAbsent(location, Boolean.FALSE);
+        }
+    }
+
+    /**
+     * @return the number of scans whose profiles are kept
+     */
+    public int getProfileCount() {
+        synchronized (this.profiles) {
+            return this.profiles.size();
+        }
+    }
+
+    /**
+     * @return the bundles which were scanned by the profiled scans without contributing anything, the most expensive
+     *         ones first
+     */
+    public String[] getSuggestedSkipBundles() {
+        List<String> suggestions = getSuggestedSkipBundles(getProfiles());
+        return suggestions.toArray(new String[suggestions.size()]);
+    }
+
+    /**
+     * Reports the profiles of the latest scans, ending with the suggested value of the
+     * <code>org.eclipse.gemini.web.tomcat.scanner.skip.bundles</code> property.
+     *
+     * @return the report
+     */
+    public String report() {
+        List<ScanProfile> profiles = getProfiles();
+        StringBuilder report = new StringBuilder();
+        for (ScanProfile profile : profiles) {
+            report.append(profile.toString(this.annotationsFound)).append('\n');
+        }
+        report.append("Suggested bundles to skip, to be added to ").append(BundleDependenciesJarScanFilter.SCANNER_SKIP_BUNDLES_PROPERTY_NAME).append(": ").append(
+            toString(getSuggestedSkipBundles(profiles)));
+        return report.toString();
+    }
+
+    /**
+     * Discards the profiles of the latest scans.
+     */
+    public void reset() {
+        synchronized (this.profiles) {
+            this.profiles.clear();
+        }
+        this.annotationsFound.clear();
+    }
+
+    private List<ScanProfile> getProfiles() {
+        synchronized (this.profiles) {
+            return new ArrayList<>(this.profiles);
+        }
+    }
+
+    private List<String> getSuggestedSkipBundles(List<ScanProfile> profiles) {
+        final Map<String, Long> costs = new HashMap<>();
+        Set<String> contributingBundles = new HashSet<>();
+        Set<String> listedBundles = new HashSet<>();
+        Set<String> unprocessedBundles = new HashSet<>();
+        for (ScanProfile profile : profiles) {
+            for (LocationProfile location : profile.getLocations()) {
+                // the bundles of Jasper and WebSocket are always scanned, the skip list does not apply to them
+                if (location.bundle == null || !location.bundle.skippable) {
+                    continue;
+                }
+                String bundleSymbolicName = location.bundle.symbolicName;
+                Long cost = costs.get(bundleSymbolicName);
+                costs.put(bundleSymbolicName, (cost == null ? 0 : cost) + location.nanos);
+                Boolean annotations = this.annotationsFound.get(location.location);
+                if (!location.findings.isEmpty() || Boolean.TRUE.equals(annotations)) {
+                    contributingBundles.add(bundleSymbolicName);
+                } else if (annotations == null) {
+                    unprocessedBundles.add(bundleSymbolicName);
+                }
+                if (location.listed) {
+                    listedBundles.add(bundleSymbolicName);
+                }
+            }
+        }
+        List<String> suggestions = new ArrayList<>();
+        for (String bundleSymbolicName : listedBundles) {
+            if (!contributingBundles.contains(bundleSymbolicName) && !unprocessedBundles.contains(bundleSymbolicName)) {
+                suggestions.add(bundleSymbolicName);
+            }
+        }
+        Collections.sort(suggestions, new Comparator<String>() {
+
+            @Override
+            public int compare(String bundle1, String bundle2) {
+                return Long.compare(costs.get(bundle2), costs.get(bundle1));
+            }
+        });
+        return suggestions;
+    }
+
+    private static String toString(List<String> bundles) {
+        StringBuilder result = new StringBuilder();
+        for (String bundle : bundles) {
+            if (result.length() > 0) {
+                result.append(',');
+            }
+            result.append(bundle);
+        }
+        return result.toString();
+    }
+
+    /**
+     * @return what the well-known entries of the given directory contain that Tomcat looks for
+     */
+    static Set<Finding> getFindings(File directory) {
+        Set<Finding> findings = EnumSet.noneOf(Finding.class);
+        if (new File(directory, WEB_FRAGMENT).isFile()) {
+            findings.add(Finding.WEB_FRAGMENT);
+        }
+        if (new File(directory, SCI_SERVICE).isFile()) {
+            findings.add(Finding.SCI);
+        }
+        String[] resources = new File(directory, RESOURCES).list();
+        if (resources != null && resources.length > 0) {
+            findings.add(Finding.RESOURCES);
+        }
+        return findings;
+    }
+
+    /**
+     * @return what Tomcat looks for if the given entry exists, or <code>null</code> if it looks for nothing
+     */
+    static Finding getFinding(String name) {
+        if (name.startsWith(META_INF) && name.endsWith(".tld")) {
+            return Finding.TLD;
+        } else if (WEB_FRAGMENT.equals(name)) {
+            return Finding.WEB_FRAGMENT;
+        } else if (SCI_SERVICE.equals(name)) {
+            return Finding.SCI;
+        } else if (name.startsWith(RESOURCES) && name.length() > RESOURCES.length()) {
+            return Finding.RESOURCES;
+        }
+        return null;
+    }
+
+    /**
+     * The bundle whose JARs and directories are scanned.
+     */
+    static final class ScannedBundle {
+
+        private final String symbolicName;
+
+        private final boolean skippable;
+
+        ScannedBundle(String symbolicName, boolean skippable) {
+            this.symbolicName = symbolicName;
+            this.skippable = skippable;
+        }
+    }
+
+    /**
+     * The profile of one scan of a web application.
+     */
+    static final class ScanProfile {
+
+        private final String contextPath;
+
+        private final JarScanType jarScanType;
+
+        private final long startTime = System.nanoTime();
+
+        private final Map<String, LocationProfile> locations = new LinkedHashMap<>();
+
+        private volatile long nanos;
+
+        ScanProfile(String contextPath, JarScanType jarScanType) {
+            this.contextPath = contextPath;
+            this.jarScanType = jarScanType;
+        }
+
+        void record(ScannedBundle bundle, String location, long nanos, long bytes, Set<Finding> findings, boolean listed) {
+            synchronized (this.locations) {
+                this.locations.put(location, new LocationProfile(bundle, location, nanos, bytes, findings, listed));
+            }
+        }
+
+        void end() {
+            this.nanos = System.nanoTime() - this.startTime;
+        }
+
+        List<LocationProfile> getLocations() {
+            synchronized (this.locations) {
+                return new ArrayList<>(this.locations.values());
+            }
+        }
+
+        String toString(Map<String, Boolean> annotationsFound) {
+            List<LocationProfile> sortedLocations = getLocations();
+            Collections.sort(sortedLocations, new Comparator<LocationProfile>() {
+
+                @Override
+                public int compare(LocationProfile location1, LocationProfile location2) {
+                    return Long.compare(location2.nanos, location1.nanos);
+                }
+            });
+            StringBuilder result = new StringBuilder();
+            result.append("Jar scan [").append(this.jarScanType).append("] of web application [").append(this.contextPath).append("] took ").append(
+                TimeUnit.NANOSECONDS.toMillis(this.nanos)).append(" ms for ").append(sortedLocations.size()).append(" location(s):\n");
+            for (LocationProfile location : sortedLocations) {
+                result.append("  ").append(location.toString(annotationsFound.get(location.location))).append('\n');
+            }
+            return result.toString();
+        }
+    }
+
+    static final class LocationProfile {
+
+        private final ScannedBundle bundle;
+
+        private final String location;
+
+        private final long nanos;
+
+        private final long bytes;
+
+        private final Set<Finding> findings;
+
+        private final boolean listed;
+
+        LocationProfile(ScannedBundle bundle, String location, long nanos, long bytes, Set<Finding> findings, boolean listed) {
+            this.bundle = bundle;
+            this.location = location;
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.findings = findings;
+            this.listed = listed;
+        }
+
+        String toString(Boolean annotationsFound) {
+            Set<Finding> allFindings = EnumSet.noneOf(Finding.class);
+            allFindings.addAll(this.findings);
+            if (Boolean.TRUE.equals(annotationsFound)) {
+                allFindings.add(Finding.ANNOTATIONS);
+            }
+            return TimeUnit.NANOSECONDS.toMillis(this.nanos) + " ms, " + (this.bytes < 0 ? "n/a" : this.bytes + " bytes") + ", "
+                + (this.bundle == null ? "" : this.bundle.symbolicName + " ") + "[" + this.location + "] " + allFindings
+                + (this.listed ? "" : " (entries not listed)") + (annotationsFound == null ? " (annotations not processed)" : "");
+        }
+    }
+}
@@ -0,0 +1,540 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.Manifest;
+
+import org.apache.tomcat.Jar;
+import org.apache.tomcat.JarScanType;
+import org.apache.tomcat.JarScannerCallback;
+import org.apache.tomcat.util.scan.JarFactory;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache of what the {@link JarScannerCallback}s read from the JARs of the bundles a web application depends on. The
+ * results are keyed by the bundle's id, its last modification time and the {@link JarScanType}, so a bundle that is
+ * updated or reinstalled is scanned again. When a cached result exists, the callback is given a {@link Jar} that
+ * replays the recorded result instead of opening the bundle's JAR. The cache can be persisted, so that it survives
+ * restarts of the container.
+ * <p />
+ * Only the entries under <code>META-INF/</code> and the entries read by the callback are recorded for the iteration
+ * over the JAR's entries, this is where Tomcat's callbacks look for TLDs and web fragments. Any other access the
+ * callback makes when the result is replayed opens the JAR.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+final class JarScanResultCache {
+
+    static final String CACHE_FILE_NAME = "gemini-web-jar-scan.cache";
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String META_INF = "META-INF/";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final BundleContext bundleContext;
+
+    private final ConcurrentMap<String, ScanResult> results = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final Object monitor = new Object();
+
+    private File cacheFile;
+
+    JarScanResultCache(BundleContext bundleContext) {
+        this.bundleContext = bundleContext;
+    }
+
+    /**
+     * Passes the bundle's JAR to the callback, replaying the cached result if there is one and recording the result
+     * otherwise.
+     *
+     * @param bundle the bundle that is scanned
+     * @param jarScanType the type of the scan
+     * @param url the <code>jar:</code> URL of the bundle
+     * @param preReadJar the already opened JAR or <code>null</code> if the JAR should be opened when it is needed, it is
+     *            closed in any case
+     * @param callback the callback
+     * @param isWebapp whether the JAR is part of the web application
+     * @throws IOException if the callback fails or the JAR cannot be read
+     */
+    void scan(Bundle bundle, JarScanType jarScanType, URL url, Jar preReadJar, JarScannerCallback callback, boolean isWebapp) throws IOException {
+        String key = getKey(bundle, jarScanType, url, isWebapp);
+        ScanResult result = this.results.get(key);
+        if (result != null) {
+            if (preReadJar != null) {
+                preReadJar.close();
+            }
+            this.hitCount.incrementAndGet();
+            try (Jar jar = new ReplayingJar(result, url)) {
+                callback.scan(jar, null, isWebapp);
+            }
+            return;
+        }
+
+        this.missCount.incrementAndGet();
+        try (RecordingJar jar = new RecordingJar(preReadJar != null ? preReadJar : JarFactory.newInstance(url), bundle.getBundleId(),
+            bundle.getLastModified())) {
+            callback.scan(jar, null, isWebapp);
+            this.results.put(key, jar.getResult());
+        }
+    }
+
+    /**
+     * @return <code>true</code> if a result of the given scan is cached
+     */
+    boolean contains(Bundle bundle, JarScanType jarScanType, URL url, boolean isWebapp) {
+        return this.results.containsKey(getKey(bundle, jarScanType, url, isWebapp));
+    }
+
+    long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * Loads the results persisted in the given file, results which cannot be read are discarded.
+     *
+     * @param file the file the results are persisted in
+     */
+    void load(File file) {
+        synchronized (this.monitor) {
+            this.cacheFile = file;
+            if (!file.isFile()) {
+                return;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != FORMAT_VERSION) {
+                    return;
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String key = in.readUTF();
+                    this.results.putIfAbsent(key, ScanResult.read(in));
+                }
+            } catch (IOException e) {
+                this.log.warn("Cannot read the jar scan results from [" + file + "], the bundles will be scanned again.", e);
+                this.results.clear();
+            }
+        }
+    }
+
+    /**
+     * Persists the results of the bundles which are still installed and not modified since they were scanned to the
+     * file the results were loaded from.
+     */
+    void save() {
+        synchronized (this.monitor) {
+            if (this.cacheFile == null) {
+                return;
+            }
+            removeStaleResults();
+            File directory = this.cacheFile.getParentFile();
+            try {
+                Files.createDirectories(directory.toPath());
+                File tempFile = File.createTempFile(CACHE_FILE_NAME, null, directory);
+                try {
+                    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                        List<Map.Entry<String, ScanResult>> entries = new ArrayList<>(this.results.entrySet());
+                        out.writeInt(FORMAT_VERSION);
+                        out.writeInt(entries.size());
+                        for (Map.Entry<String, ScanResult> entry : entries) {
+                            out.writeUTF(entry.getKey());
+                            entry.getValue().write(out);
+                        }
+                    }
+                    Files.move(tempFile.toPath(), this.cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tempFile.toPath());
+                }
+            } catch (IOException e) {
+                this.log.warn("Cannot write the jar scan results to [" + this.cacheFile + "].", e);
+            }
+        }
+    }
+
+    private void removeStaleResults() {
+        Iterator<ScanResult> iterator = this.results.values().iterator();
+        while (iterator.hasNext()) {
+            ScanResult result = iterator.next();
+            Bundle bundle = this.bundleContext.getBundle(result.bundleId);
+            if (bundle == null || bundle.getLastModified() != result.lastModified) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String getKey(Bundle bundle, JarScanType jarScanType, URL url, boolean isWebapp) {
+        return bundle.getBundleId() + "|" + bundle.getLastModified() + "|" + jarScanType + "|" + isWebapp + "|" + url.toExternalForm();
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * What a callback found in a bundle's JAR: the entries it iterated over, the entries it looked up by name and the
+     * contents it read.
+     */
+    private static final class ScanResult {
+
+        private final long bundleId;
+
+        private final long lastModified;
+
+        private final String jarFileUrl;
+
+        private final Map<String, EntryResult> entries;
+
+        ScanResult(long bundleId, long lastModified, String jarFileUrl, Map<String, EntryResult> entries) {
+            this.bundleId = bundleId;
+            this.lastModified = lastModified;
+            this.jarFileUrl = jarFileUrl;
+            this.entries = entries;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(this.bundleId);
+            out.writeLong(this.lastModified);
+            out.writeUTF(this.jarFileUrl);
+            out.writeInt(this.entries.size());
+            for (Map.Entry<String, EntryResult> entry : this.entries.entrySet()) {
+                EntryResult entryResult = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeBoolean(entryResult.listed);
+                out.writeByte(entryResult.exists == null ? -1 : entryResult.exists ? 1 : 0);
+                out.writeBoolean(entryResult.content != null);
+                if (entryResult.content != null) {
+                    out.writeInt(entryResult.content.length);
+                    out.write(entryResult.content);
+                }
+            }
+        }
+
+        static ScanResult read(DataInputStream in) throws IOException {
+            long bundleId = in.readLong();
+            long lastModified = in.readLong();
+            String jarFileUrl = in.readUTF();
+            int count = in.readInt();
+            Map<String, EntryResult> entries = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                EntryResult entryResult = new EntryResult();
+                entryResult.listed = in.readBoolean();
+                byte exists = in.readByte();
+                entryResult.exists = exists < 0 ? null : Boolean.valueOf(exists == 1);
+                if (in.readBoolean()) {
+                    byte[] content = new byte[in.readInt()];
+                    in.readFully(content);
+                    entryResult.content = content;
+                }
+                entries.put(name, entryResult);
+            }
+            return new ScanResult(bundleId, lastModified, jarFileUrl, entries);
+        }
+    }
+
+    private static final class EntryResult {
+
+        private boolean listed;
+
+        private Boolean exists;
+
+        private byte[] content;
+    }
+
+    /**
+     * A {@link Jar} that records what is read through it.
+     */
+    private static final class RecordingJar implements Jar {
+
+        private final Jar jar;
+
+        private final long bundleId;
+
+        private final long lastModified;
+
+        private final Map<String, EntryResult> entries = new LinkedHashMap<>();
+
+        RecordingJar(Jar jar, long bundleId, long lastModified) {
+            this.jar = jar;
+            this.bundleId = bundleId;
+            this.lastModified = lastModified;
+        }
+
+        ScanResult getResult() {
+            return new ScanResult(this.bundleId, this.lastModified, this.jar.getJarFileURL().toExternalForm(), this.entries);
+        }
+
+        private EntryResult getEntryResult(String name) {
+            EntryResult entryResult = this.entries.get(name);
+            if (entryResult == null) {
+                entryResult = new EntryResult();
+                this.entries.put(name, entryResult);
+            }
+            return entryResult;
+        }
+
+        @Override
+        public URL getJarFileURL() {
+            return this.jar.getJarFileURL();
+        }
+
+        @Override
+        @Deprecated
+        public boolean entryExists(String name) throws IOException {
+            boolean exists = this.jar.entryExists(name);
+            getEntryResult(name).exists = exists;
+            return exists;
+        }
+
+        @Override
+        public InputStream getInputStream(String name) throws IOException {
+            try (InputStream in = this.jar.getInputStream(name)) {
+                EntryResult entryResult = getEntryResult(name);
+                entryResult.exists = in != null;
+                if (in == null) {
+                    return null;
+                }
+                entryResult.content = readFully(in);
+                return new ByteArrayInputStream(entryResult.content);
+            }
+        }
+
+        @Override
+        public long getLastModified(String name) throws IOException {
+            return this.jar.getLastModified(name);
+        }
+
+        @Override
+        public boolean exists(String name) throws IOException {
+            boolean exists = this.jar.exists(name);
+            getEntryResult(name).exists = exists;
+            return exists;
+        }
+
+        @Override
+        public void nextEntry() {
+            this.jar.nextEntry();
+        }
+
+        @Override
+        public String getEntryName() {
+            String name = this.jar.getEntryName();
+            if (name != null && name.startsWith(META_INF)) {
+                getEntryResult(name).listed = true;
+            }
+            return name;
+        }
+
+        @Override
+        public InputStream getEntryInputStream() throws IOException {
+            String name = this.jar.getEntryName();
+            try (InputStream in = this.jar.getEntryInputStream()) {
+                EntryResult entryResult = getEntryResult(name);
+                entryResult.listed = true;
+                entryResult.exists = true;
+                entryResult.content = readFully(in);
+                return new ByteArrayInputStream(entryResult.content);
+            }
+        }
+
+        @Override
+        public String getURL(String entry) {
+            return this.jar.getURL(entry);
+        }
+
+        @Override
+        public Manifest getManifest() throws IOException {
+            return this.jar.getManifest();
+        }
+
+        @Override
+        public void reset() throws IOException {
+            this.jar.reset();
+        }
+
+        @Override
+        public void close() {
+            this.jar.close();
+        }
+    }
+
+    /**
+     * A {@link Jar} that replays a recorded result and opens the JAR only for what was not recorded.
+     */
+    private static final class ReplayingJar implements Jar {
+
+        private final ScanResult result;
+
+        private final URL url;
+
+        private final List<String> listedEntries = new ArrayList<>();
+
+        private int index = -1;
+
+        private Jar jar;
+
+        ReplayingJar(ScanResult result, URL url) {
+            this.result = result;
+            this.url = url;
+            for (Map.Entry<String, EntryResult> entry : result.entries.entrySet()) {
+                if (entry.getValue().listed) {
+                    this.listedEntries.add(entry.getKey());
+                }
+            }
+        }
+
+        private Jar getJar() throws IOException {
+            if (this.jar == null) {
+                this.jar = JarFactory.newInstance(this.url);
+            }
+            return this.jar;
+        }
+
+        @Override
+        public URL getJarFileURL() {
+            try {
+                return new URL(this.result.jarFileUrl);
+            } catch (IOException e) {
+                throw new IllegalStateException("Invalid cached jar file URL [" + this.result.jarFileUrl + "]", e);
+            }
+        }
+
+        @Override
+        @Deprecated
+        public boolean entryExists(String name) throws IOException {
+            return exists(name);
+        }
+
+        @Override
+        public InputStream getInputStream(String name) throws IOException {
+            EntryResult entryResult = this.result.entries.get(name);
+            if (entryResult != null) {
+                if (entryResult.content != null) {
+                    return new ByteArrayInputStream(entryResult.content);
+                }
+                if (Boolean.FALSE.equals(entryResult.exists)) {
+                    return null;
+                }
+            }
+            return getJar().getInputStream(name);
+        }
+
+        @Override
+        public long getLastModified(String name) throws IOException {
+            return getJar().getLastModified(name);
+        }
+
+        @Override
+        public boolean exists(String name) throws IOException {
+            EntryResult entryResult = this.result.entries.get(name);
+            if (entryResult != null) {
+                if (entryResult.exists != null) {
+                    return entryResult.exists;
+                }
+                if (entryResult.listed) {
+                    return true;
+                }
+            }
+            return getJar().exists(name);
+        }
+
+        @Override
+        public void nextEntry() {
+            if (this.index < this.listedEntries.size()) {
+                this.index++;
+            }
+        }
+
+        @Override
+        public String getEntryName() {
+            return this.index >= 0 && this.index < this.listedEntries.size() ? this.listedEntries.get(this.index) : null;
+        }
+
+        @Override
+        public InputStream getEntryInputStream() throws IOException {
+            String name = getEntryName();
+            if (name == null) {
+                return null;
+            }
+            return getInputStream(name);
+        }
+
+        @Override
+        public String getURL(String entry) {
+            return "jar:" + this.result.jarFileUrl + "!/" + entry;
+        }
+
+        @Override
+        public Manifest getManifest() throws IOException {
+            return getJar().getManifest();
+        }
+
+        @Override
+        public void reset() {
+            this.index = -1;
+        }
+
+        @Override
+        public void close() {
+            if (this.jar != null) {
+                this.jar.close();
+            }
+        }
+    }
+}
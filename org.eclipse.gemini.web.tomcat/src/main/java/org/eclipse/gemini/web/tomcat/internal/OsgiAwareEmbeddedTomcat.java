@@ -20,12 +20,15 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Map;
+import java.util.Set;
 
 import javax.naming.NamingException;
 import javax.naming.Reference;
@@ -44,16 +47,24 @@ import org.apache.catalina.LifecycleException;
 import org.apache.catalina.Server;
 import org.apache.catalina.Service;
 import org.apache.catalina.Valve;
+import org.apache.catalina.WebResource;
 import org.apache.catalina.core.StandardContext;
 import org.apache.catalina.startup.Catalina;
 import org.apache.catalina.startup.ContextConfig;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.naming.java.javaURLContextFactory;
+import org.apache.tomcat.Jar;
 import org.apache.tomcat.JarScanner;
+import org.apache.tomcat.util.bcel.classfile.AnnotationEntry;
+import org.apache.tomcat.util.bcel.classfile.ClassFormatException;
+import org.apache.tomcat.util.bcel.classfile.JavaClass;
+import org.apache.tomcat.util.descriptor.web.WebXml;
 import org.apache.tomcat.util.digester.Digester;
+import org.apache.tomcat.util.scan.JarFactory;
 import org.apache.tomcat.util.scan.StandardJarScanner;
 import org.eclipse.gemini.web.core.spi.ServletContainerException;
 import org.eclipse.gemini.web.tomcat.internal.loader.ChainedClassLoader;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
 import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolverFactory;
 import org.eclipse.gemini.web.tomcat.internal.support.PackageAdminBundleDependencyDeterminer;
 import org.eclipse.virgo.util.osgi.ServiceRegistrationTracker;
@@ -114,18 +125,24 @@ public final class OsgiAwareEmbeddedTomcat extends Tomcat {
 
     private final DelegatingJarScannerCustomizer jarScannerCustomizer;
 
-    private final JarScanner bundleDependenciesJarScanner;
+    private final BundleFileResolver bundleFileResolver;
+
+    private final BundleDependenciesJarScanner bundleDependenciesJarScanner;
 
     private final JarScanner defaultJarScanner;
 
+    private final JarScanProfiler jarScanProfiler;
+
     private final ServiceTracker<?, ?> urlConverterTracker;
 
     private String hostConfigDir;
 
     OsgiAwareEmbeddedTomcat(BundleContext context, ServiceTracker<?, ?> urlConverterTracker) {
         this.bundleContext = context;
-        this.bundleDependenciesJarScanner = new BundleDependenciesJarScanner(new PackageAdminBundleDependencyDeterminer(),
-            BundleFileResolverFactory.createBundleFileResolver(), context, urlConverterTracker);
+        this.jarScanProfiler = Boolean.parseBoolean(context.getProperty(JarScanProfiler.SCANNER_PROFILE_PROPERTY_NAME)) ? new JarScanProfiler() : null;
+        this.bundleFileResolver = BundleFileResolverFactory.createBundleFileResolver();
+        this.bundleDependenciesJarScanner = new BundleDependenciesJarScanner(new PackageAdminBundleDependencyDeterminer(), this.bundleFileResolver,
+            context, urlConverterTracker, this.jarScanProfiler);
         this.defaultJarScanner = new StandardJarScanner();
         this.jarScannerCustomizer = new DelegatingJarScannerCustomizer(context);
         this.urlConverterTracker = urlConverterTracker;
@@ -140,6 +157,7 @@ public final class OsgiAwareEmbeddedTomcat extends Tomcat {
     public void start() throws LifecycleException {
         this.jarScannerCustomizer.open();
         getServer();
+        this.bundleDependenciesJarScanner.loadScanResults(this.server.getCatalinaBase());
         this.server.start();
     }
 
@@ -147,6 +165,7 @@ public final class OsgiAwareEmbeddedTomcat extends Tomcat {
     public void stop() throws LifecycleException {
         super.stop();
         this.jarScannerCustomizer.close();
+        this.bundleDependenciesJarScanner.saveScanResults();
     }
 
     public void setServer(Server server) {
@@ -177,6 +196,13 @@ public final class OsgiAwareEmbeddedTomcat extends Tomcat {
         return this.urlConverterTracker;
     }
 
+    /**
+     * @return the profiler of the jar scans or <code>null</code> if the jar scans are not profiled
+     */
+    JarScanProfiler getJarScanProfiler() {
+        return this.jarScanProfiler;
+    }
+
     private Engine findEngine() {
         Server server = getServer();
         Service[] findServices = server.findServices();
@@ -241,6 +267,8 @@ public final class OsgiAwareEmbeddedTomcat extends Tomcat {
 
         this.tracker.unregisterAll();
 
+        this.bundleDependenciesJarScanner.destroy();
+
         if (this.oldCatalinaBaseDir != null) {
             System.setProperty(Globals.CATALINA_BASE_PROP, this.oldCatalinaBaseDir);
         }
@@ -262,7 +290,7 @@ public final class OsgiAwareEmbeddedTomcat extends Tomcat {
 
         StandardContext context = new ExtendedStandardContext(bundle);
 
-        ContextConfig config = new ExtendedContextConfig();
+        ContextConfig config = new ExtendedContextConfig(bundle, this.bundleFileResolver, this.jarScanProfiler);
 
         if (this.configDir == null) {
             // Allocate the tomcat's configuration directory
@@ -436,12 +464,190 @@ public final class OsgiAwareEmbeddedTomcat extends Tomcat {
     }
 
     /**
-     * Override {@link ContextConfig}. This changes the {@link ClassLoader} used to load the web-embed.xml to the
-     * <code>ClassLoader</code> of this bundle.
-     *
+     * Override {@link ContextConfig}. This skips reading the bytecode of the classes which the annotation index of the
+     * web application bundle shows to be irrelevant for annotation processing. When the jar scans are profiled, it
+     * records for each JAR whether annotation processing found classes with servlet annotations or classes matched by
+     * the <code>@HandlesTypes</code> of a <code>ServletContainerInitializer</code>.
      *
+     * @see AnnotationIndex
+     * @see JarScanProfiler
      */
     private static class ExtendedContextConfig extends ContextConfig {
+
+        private static final String CLASSES_PATH = "/" + AnnotationIndex.CLASSES_LOCATION + "/";
+
+        private static final String LIB_PATH = "/WEB-INF/lib/";
+
+        private static final String JAR_SUFFIX = ".jar";
+
+        private static final String CLASS_SUFFIX = ".class";
+
+        private static final String SERVLET_ANNOTATION_TYPE_PREFIX = "Ljavax/servlet/annotation/Web";
+
+        private final Bundle bundle;
+
+        private final BundleFileResolver bundleFileResolver;
+
+        private final JarScanProfiler jarScanProfiler;
+
+        private AnnotationIndex annotationIndex;
+
+        private boolean annotationsFound;
+
+        private boolean handledTypesSet;
+
+        private int skippedClasses;
+
+        ExtendedContextConfig(Bundle bundle, BundleFileResolver bundleFileResolver, JarScanProfiler jarScanProfiler) {
+            this.bundle = bundle;
+            this.bundleFileResolver = bundleFileResolver;
+            this.jarScanProfiler = jarScanProfiler;
+        }
+
+        @Override
+        protected void webConfig() {
+            this.annotationIndex = this.bundle == null ? null : AnnotationIndex.read(this.bundle);
+            this.handledTypesSet = false;
+            this.skippedClasses = 0;
+            try {
+                super.webConfig();
+            } finally {
+                if (this.annotationIndex != null && LOGGER.isInfoEnabled()) {
+                    LOGGER.info("Skipped reading " + this.skippedClasses + " class(es) of web application [" + this.context.getName()
+                        + "] during annotation processing using its annotation index.");
+                }
+                this.annotationIndex = null;
+            }
+        }
+
+        /**
+         * Returns the annotation index once the types handled by the <code>ServletContainerInitializer</code>s are
+         * known, which is the case when the classes are processed.
+         */
+        private AnnotationIndex getAnnotationIndex() {
+            if (this.annotationIndex != null && !this.handledTypesSet) {
+                this.annotationIndex.setHandledTypes(this.typeInitializerMap);
+                this.handledTypesSet = true;
+            }
+            return this.annotationIndex;
+        }
+
+        // The value type of the class cache, ContextConfig.JavaClassCacheEntry, is package-private in Tomcat, so the
+        // overriding methods cannot declare the generic parameter type and have to use the raw type
+        @Override
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        protected void processAnnotationsWebResource(WebResource webResource, WebXml fragment, boolean handlesTypesOnly, Map javaClassCache) {
+            AnnotationIndex index = getAnnotationIndex();
+            if (index != null && webResource.isFile()) {
+                String path = webResource.getWebappPath();
+                if (path.startsWith(CLASSES_PATH) && path.endsWith(CLASS_SUFFIX)
+                    && index.canSkip(AnnotationIndex.CLASSES_LOCATION, path.substring(CLASSES_PATH.length()), webResource.getContentLength())) {
+                    this.skippedClasses++;
+                    return;
+                }
+            }
+            super.processAnnotationsWebResource(webResource, fragment, handlesTypesOnly, javaClassCache);
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        protected void processAnnotationsJar(URL url, WebXml fragment, boolean handlesTypesOnly, Map javaClassCache) {
+            if (this.jarScanProfiler == null) {
+                processAnnotationsJarUsingIndex(url, fragment, handlesTypesOnly, javaClassCache);
+                return;
+            }
+            this.annotationsFound = false;
+            processAnnotationsJarUsingIndex(url, fragment, handlesTypesOnly, javaClassCache);
+            this.jarScanProfiler.recordAnnotationProcessing(url, this.annotationsFound);
+        }
+
+        @Override
+        protected void processClass(WebXml fragment, JavaClass clazz) {
+            if (this.jarScanProfiler != null && !this.annotationsFound && hasServletAnnotation(clazz)) {
+                this.annotationsFound = true;
+            }
+            super.processClass(fragment, clazz);
+        }
+
+        @Override
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        protected void checkHandlesTypes(JavaClass javaClass, Map javaClassCache) {
+            if (this.jarScanProfiler == null || this.annotationsFound) {
+                super.checkHandlesTypes(javaClass, javaClassCache);
+                return;
+            }
+            int handledClasses = getHandledClassCount();
+            super.checkHandlesTypes(javaClass, javaClassCache);
+            if (getHandledClassCount() > handledClasses) {
+                this.annotationsFound = true;
+            }
+        }
+
+        private int getHandledClassCount() {
+            int count = 0;
+            for (Set<Class<?>> handledClasses : this.initializerClassMap.values()) {
+                count += handledClasses.size();
+            }
+            return count;
+        }
+
+        private static boolean hasServletAnnotation(JavaClass clazz) {
+            AnnotationEntry[] annotationEntries = clazz.getAnnotationEntries();
+            if (annotationEntries != null) {
+                for (AnnotationEntry annotationEntry : annotationEntries) {
+                    if (annotationEntry.getAnnotationType().startsWith(SERVLET_ANNOTATION_TYPE_PREFIX)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        private void processAnnotationsJarUsingIndex(URL url, WebXml fragment, boolean handlesTypesOnly, Map javaClassCache) {
+            AnnotationIndex index = getAnnotationIndex();
+            String location = index == null ? null : getLibLocation(url);
+            if (location == null || !index.covers(location, this.bundleFileResolver.resolveBundleEntrySize(this.bundle, location))) {
+                super.processAnnotationsJar(url, fragment, handlesTypesOnly, javaClassCache);
+                return;
+            }
+
+            try (Jar jar = JarFactory.newInstance(url)) {
+                jar.nextEntry();
+                for (String entryName = jar.getEntryName(); entryName != null; jar.nextEntry(), entryName = jar.getEntryName()) {
+                    if (!entryName.endsWith(CLASS_SUFFIX)) {
+                        continue;
+                    }
+                    if (index.canSkip(location, entryName, -1)) {
+                        this.skippedClasses++;
+                        continue;
+                    }
+                    try (InputStream is = jar.getEntryInputStream()) {
+                        processAnnotationsStream(is, fragment, handlesTypesOnly, javaClassCache);
+                    } catch (IOException | ClassFormatException e) {
+                        LOGGER.error("Unable to process class [" + entryName + "] in JAR [" + url + "] for annotations.", e);
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.error("Unable to process JAR [" + url + "] for annotations.", e);
+            }
+        }
+
+        /**
+         * Returns the path of the JAR in <code>WEB-INF/lib</code> with the given URL, or <code>null</code> if the URL
+         * does not point to such a JAR.
+         */
+        static String getLibLocation(URL url) {
+            String path = url.toExternalForm();
+            if (path.endsWith("!/")) {
+                path = path.substring(0, path.length() - 2);
+            }
+            int index = path.lastIndexOf(LIB_PATH);
+            if (index == -1 || !path.endsWith(JAR_SUFFIX) || path.indexOf('/', index + LIB_PATH.length()) != -1) {
+                return null;
+            }
+            return path.substring(index + 1);
+        }
     }
 
     /**
@@ -512,7 +718,7 @@ public final class OsgiAwareEmbeddedTomcat extends Tomcat {
             finalJarScanners = jarScanners;
         }
 
-        return new ChainingJarScanner(finalJarScanners);
+        return new ChainingJarScanner(this.jarScanProfiler, finalJarScanners);
     }
 
 }
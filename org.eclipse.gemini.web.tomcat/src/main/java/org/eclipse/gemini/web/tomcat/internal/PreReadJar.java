@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Manifest;
+
+import org.apache.tomcat.Jar;
+import org.apache.tomcat.util.scan.JarFactory;
+
+/**
+ * A {@link Jar} whose entry names and the entries the scan callbacks read are read into memory up front, so that the
+ * JAR can be read on one thread and scanned on another. The entries read up front are the manifest, the TLDs and the
+ * <code>web-fragment.xml</code> in <code>META-INF/</code> and the service provider configurations in
+ * <code>META-INF/services/</code>, other entries such as <code>META-INF/resources/</code> are not. The JAR is opened
+ * again only if the contents of another entry or the last modification time of an entry are requested.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Not thread-safe.
+ */
+final class PreReadJar implements Jar {
+
+    private static final String META_INF = "META-INF/";
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    private static final String WEB_FRAGMENT = "META-INF/web-fragment.xml";
+
+    private static final String SERVICES = "META-INF/services/";
+
+    private static final String TLD_SUFFIX = ".tld";
+
+    private final URL url;
+
+    private final URL jarFileUrl;
+
+    private final String entryUrlPrefix;
+
+    private final List<String> entryNames;
+
+    private final Set<String> entryNameSet;
+
+    private final Map<String, byte[]> contents;
+
+    private int index = -1;
+
+    private Jar jar;
+
+    private PreReadJar(URL url, URL jarFileUrl, String entryUrlPrefix, List<String> entryNames, Map<String, byte[]> contents) {
+        this.url = url;
+        this.jarFileUrl = jarFileUrl;
+        this.entryUrlPrefix = entryUrlPrefix;
+        this.entryNames = entryNames;
+        this.entryNameSet = new HashSet<>(entryNames);
+        this.contents = contents;
+    }
+
+    /**
+     * Reads the entry names and the entries the scan callbacks read of the JAR with the given URL.
+     *
+     * @param url the <code>jar:</code> URL of the JAR
+     * @return the read JAR
+     * @throws IOException if the JAR cannot be read
+     */
+    static PreReadJar read(URL url) throws IOException {
+        List<String> entryNames = new ArrayList<>();
+        Map<String, byte[]> contents = new HashMap<>();
+        try (Jar jar = JarFactory.newInstance(url)) {
+            jar.nextEntry();
+            for (String name = jar.getEntryName(); name != null; jar.nextEntry(), name = jar.getEntryName()) {
+                entryNames.add(name);
+                if (isPreRead(name)) {
+                    try (InputStream in = jar.getEntryInputStream()) {
+                        contents.put(name, readFully(in));
+                    }
+                }
+            }
+            return new PreReadJar(url, jar.getJarFileURL(), jar.getURL(""), entryNames, contents);
+        }
+    }
+
+    private static boolean isPreRead(String name) {
+        if (!name.startsWith(META_INF) || name.endsWith("/")) {
+            return false;
+        }
+        return name.equals(MANIFEST) || name.equals(WEB_FRAGMENT) || name.endsWith(TLD_SUFFIX) || name.startsWith(SERVICES);
+    }
+
+    private Jar getJar() throws IOException {
+        if (this.jar == null) {
+            this.jar = JarFactory.newInstance(this.url);
+        }
+        return this.jar;
+    }
+
+    @Override
+    public URL getJarFileURL() {
+        return this.jarFileUrl;
+    }
+
+    @Override
+    @Deprecated
+    public boolean entryExists(String name) {
+        return exists(name);
+    }
+
+    @Override
+    public InputStream getInputStream(String name) throws IOException {
+        byte[] content = this.contents.get(name);
+        if (content != null) {
+            return new ByteArrayInputStream(content);
+        }
+        if (!this.entryNameSet.contains(name)) {
+            return null;
+        }
+        return getJar().getInputStream(name);
+    }
+
+    @Override
+    public long getLastModified(String name) throws IOException {
+        return getJar().getLastModified(name);
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return this.entryNameSet.contains(name);
+    }
+
+    @Override
+    public void nextEntry() {
+        if (this.index < this.entryNames.size()) {
+            this.index++;
+        }
+    }
+
+    @Override
+    public String getEntryName() {
+        return this.index >= 0 && this.index < this.entryNames.size() ? this.entryNames.get(this.index) : null;
+    }
+
+    @Override
+    public InputStream getEntryInputStream() throws IOException {
+        String name = getEntryName();
+        return name == null ? null : getInputStream(name);
+    }
+
+    @Override
+    public String getURL(String entry) {
+        return this.entryUrlPrefix + entry;
+    }
+
+    @Override
+    public Manifest getManifest() throws IOException {
+        byte[] content = this.contents.get(MANIFEST);
+        return content == null ? null : new Manifest(new ByteArrayInputStream(content));
+    }
+
+    @Override
+    public void reset() {
+        this.index = -1;
+    }
+
+    @Override
+    public void close() {
+        if (this.jar != null) {
+            this.jar.close();
+            this.jar = null;
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
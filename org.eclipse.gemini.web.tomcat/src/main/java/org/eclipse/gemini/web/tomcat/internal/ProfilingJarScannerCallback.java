@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.jar.Manifest;
+
+import org.apache.tomcat.Jar;
+import org.apache.tomcat.JarScannerCallback;
+
+/**
+ * A <code>JarScannerCallback</code> which records the time spent in the given callback, the bytes it reads and what it
+ * finds in the JARs in the profile of the scan. The findings are collected from the entries the given callback lists
+ * and opens, so the JARs are not read a second time.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Not thread-safe.
+ */
+final class ProfilingJarScannerCallback implements JarScannerCallback {
+
+    private final JarScannerCallback callback;
+
+    private final JarScanProfiler profiler;
+
+    private final JarScanProfiler.ScanProfile profile;
+
+    ProfilingJarScannerCallback(JarScannerCallback callback, JarScanProfiler profiler, JarScanProfiler.ScanProfile profile) {
+        this.callback = callback;
+        this.profiler = profiler;
+        this.profile = profile;
+    }
+
+    @Override
+    public void scan(Jar jar, String webappPath, boolean isWebapp) throws IOException {
+        ProfilingJar profilingJar = new ProfilingJar(jar);
+        long start = System.nanoTime();
+        try {
+            this.callback.scan(profilingJar, webappPath, isWebapp);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            this.profile.record(this.profiler.getCurrentBundle(), jar.getJarFileURL().toExternalForm(), nanos, profilingJar.bytes,
+                profilingJar.findings, profilingJar.listed);
+        }
+    }
+
+    @Override
+    public void scan(File file, String webappPath, boolean isWebapp) throws IOException {
+        long start = System.nanoTime();
+        try {
+            this.callback.scan(file, webappPath, isWebapp);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            this.profile.record(this.profiler.getCurrentBundle(), file.getPath(), nanos, -1, JarScanProfiler.getFindings(file), false);
+        }
+    }
+
+    @Override
+    public void scanWebInfClasses() throws IOException {
+        this.callback.scanWebInfClasses();
+    }
+
+    /**
+     * A {@link Jar} which counts the bytes read from its entries and records the entries Tomcat looks for.
+     */
+    private static final class ProfilingJar implements Jar {
+
+        private final Jar jar;
+
+        private final Set<JarScanProfiler.Finding> findings = EnumSet.noneOf(JarScanProfiler.Finding.class);
+
+        private long bytes;
+
+        private boolean listed;
+
+        private boolean nextEntryCalled;
+
+        ProfilingJar(Jar jar) {
+            this.jar = jar;
+        }
+
+        private void found(String name) {
+            JarScanProfiler.Finding finding = JarScanProfiler.getFinding(name);
+            if (finding != null) {
+                this.findings.add(finding);
+            }
+        }
+
+        private InputStream count(InputStream in) {
+            if (in == null) {
+                return null;
+            }
+            return new FilterInputStream(in) {
+
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b != -1) {
+                        ProfilingJar.this.bytes++;
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = super.read(b, off, len);
+                    if (read > 0) {
+                        ProfilingJar.this.bytes += read;
+                    }
+                    return read;
+                }
+
+                @Override
+                public long skip(long n) throws IOException {
+                    long skipped = super.skip(n);
+                    ProfilingJar.this.bytes += skipped;
+                    return skipped;
+                }
+            };
+        }
+
+        @Override
+        public URL getJarFileURL() {
+            return this.jar.getJarFileURL();
+        }
+
+        @Override
+        @Deprecated
+        public boolean entryExists(String name) throws IOException {
+            boolean exists = this.jar.entryExists(name);
+            if (exists) {
+                found(name);
+            }
+            return exists;
+        }
+
+        @Override
+        public InputStream getInputStream(String name) throws IOException {
+            InputStream in = this.jar.getInputStream(name);
+            if (in != null) {
+                found(name);
+            }
+            return count(in);
+        }
+
+        @Override
+        public long getLastModified(String name) throws IOException {
+            return this.jar.getLastModified(name);
+        }
+
+        @Override
+        public boolean exists(String name) throws IOException {
+            boolean exists = this.jar.exists(name);
+            if (exists) {
+                found(name);
+            }
+            return exists;
+        }
+
+        @Override
+        public void nextEntry() {
+            this.jar.nextEntry();
+            this.nextEntryCalled = true;
+        }
+
+        @Override
+        public String getEntryName() {
+            String name = this.jar.getEntryName();
+            if (name != null) {
+                found(name);
+            } else if (this.nextEntryCalled) {
+                // the callback went through all the entries
+                this.listed = true;
+            }
+            return name;
+        }
+
+        @Override
+        public InputStream getEntryInputStream() throws IOException {
+            return count(this.jar.getEntryInputStream());
+        }
+
+        @Override
+        public String getURL(String entry) {
+            return this.jar.getURL(entry);
+        }
+
+        @Override
+        public Manifest getManifest() throws IOException {
+            return this.jar.getManifest();
+        }
+
+        @Override
+        public void reset() throws IOException {
+            this.jar.reset();
+            this.nextEntryCalled = false;
+        }
+
+        @Override
+        public void close() {
+            this.jar.close();
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.eclipse.gemini.web.tomcat.internal;
 
 import java.io.File;
 
+import javax.management.ObjectName;
 import javax.servlet.ServletContext;
 
 import org.apache.catalina.Container;
@@ -25,6 +26,7 @@ import org.apache.catalina.Context;
 import org.apache.catalina.Host;
 import org.apache.catalina.LifecycleException;
 import org.apache.catalina.core.StandardContext;
+import org.apache.tomcat.util.modeler.Registry;
 import org.eclipse.gemini.web.core.spi.ContextPathExistsException;
 import org.eclipse.gemini.web.core.spi.ServletContainer;
 import org.eclipse.gemini.web.core.spi.ServletContainerException;
@@ -32,6 +34,8 @@ import org.eclipse.gemini.web.core.spi.WebApplicationHandle;
 import org.eclipse.gemini.web.tomcat.internal.bundleresources.BundleWebResourceRoot;
 import org.eclipse.gemini.web.tomcat.internal.loader.BundleWebappLoader;
 import org.eclipse.gemini.web.tomcat.internal.loader.ChainedClassLoader;
+import org.eclipse.gemini.web.tomcat.internal.loader.ClassLoaderLeakDetector;
+import org.eclipse.gemini.web.tomcat.internal.loader.DiscardedRevisionCleaner;
 import org.eclipse.gemini.web.tomcat.internal.loader.StandardWebBundleClassLoaderFactory;
 import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
 import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolverFactory;
@@ -40,9 +44,28 @@ import org.eclipse.virgo.util.osgi.ServiceRegistrationTracker;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 final class TomcatServletContainer implements ServletContainer {
 
+    /**
+     * The time in seconds after which the class loader of a stopped web application that has not been garbage
+     * collected yet is reported as leaked, provided a full garbage collection has happened since the web application
+     * was stopped. A negative value disables the leak detection. The syntax is
+     * <code>org.eclipse.gemini.web.tomcat.classloader.leak.detection.delay=&lt;seconds&gt;</code>, the default is
+     * <code>-1</code>.
+     */
+    static final String LEAK_DETECTION_DELAY_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.classloader.leak.detection.delay";
+
+    private static final long LEAK_DETECTION_DELAY_DEFAULT = -1;
+
+    private static final String LEAK_DETECTOR_MBEAN_TYPE = "ClassLoaderLeakDetector";
+
+    private static final String JAR_SCAN_PROFILER_MBEAN_TYPE = "JarScanProfiler";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TomcatServletContainer.class);
+
     private final TomcatMBeanManager mbeanManager;
 
     private final OsgiAwareEmbeddedTomcat tomcat;
@@ -53,6 +76,10 @@ final class TomcatServletContainer implements ServletContainer {
 
     private final BundleContext context;
 
+    private final ClassLoaderLeakDetector classLoaderLeakDetector;
+
+    private final DiscardedRevisionCleaner discardedRevisionCleaner;
+
     public TomcatServletContainer(OsgiAwareEmbeddedTomcat tomcat, BundleContext context) {
         this.classLoaderCustomizer = new DelegatingClassLoaderCustomizer(context);
         this.tomcat = tomcat;
@@ -64,6 +91,21 @@ final class TomcatServletContainer implements ServletContainer {
             throw new ServletContainerException("Unable to initialize Tomcat.", e);
         }
         this.context = context;
+        this.classLoaderLeakDetector = createClassLoaderLeakDetector(context);
+        this.discardedRevisionCleaner = new DiscardedRevisionCleaner(context);
+    }
+
+    private static ClassLoaderLeakDetector createClassLoaderLeakDetector(BundleContext context) {
+        long delay = LEAK_DETECTION_DELAY_DEFAULT;
+        String property = context.getProperty(LEAK_DETECTION_DELAY_PROPERTY_NAME);
+        if (property != null) {
+            try {
+                delay = Long.parseLong(property.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value [" + property + "] of property [" + LEAK_DETECTION_DELAY_PROPERTY_NAME + "]", e);
+            }
+        }
+        return delay < 0 ? null : new ClassLoaderLeakDetector(delay * 1000L);
     }
 
     public void start() {
@@ -74,7 +116,10 @@ final class TomcatServletContainer implements ServletContainer {
             ServiceRegistration<WebBundleClassLoaderFactory> registration = this.context.registerService(WebBundleClassLoaderFactory.class,
                 classLoaderFactory, null);
             this.registrationTracker.track(registration);
+            this.discardedRevisionCleaner.start();
             doStart();
+            startClassLoaderLeakDetector();
+            registerJarScanProfiler();
         } catch (LifecycleException e) {
             throw new ServletContainerException("Unable to start Tomcat.", e);
         }
@@ -83,6 +128,10 @@ final class TomcatServletContainer implements ServletContainer {
     public void stop() {
         try {
             doStop();
+            if (this.classLoaderLeakDetector != null) {
+                this.classLoaderLeakDetector.stop();
+            }
+            this.discardedRevisionCleaner.stop();
             this.mbeanManager.stop();
             this.registrationTracker.unregisterAll();
             this.classLoaderCustomizer.close();
@@ -100,7 +149,8 @@ final class TomcatServletContainer implements ServletContainer {
 
             StandardContext context = (StandardContext) this.tomcat.addWebapp(contextPath, docBase, bundle);
 
-            BundleWebappLoader loader = new BundleWebappLoader(bundle, this.classLoaderCustomizer);
+            BundleWebappLoader loader = new BundleWebappLoader(bundle, this.classLoaderCustomizer, this.classLoaderLeakDetector,
+                this.discardedRevisionCleaner);
             context.setLoader(loader);
             context.setResources(new BundleWebResourceRoot(bundle, this.tomcat.getUrlConverterTracker()));
 
@@ -148,6 +198,34 @@ final class TomcatServletContainer implements ServletContainer {
         }
     }
 
+    private void registerJarScanProfiler() {
+        JarScanProfiler jarScanProfiler = this.tomcat.getJarScanProfiler();
+        if (jarScanProfiler == null) {
+            return;
+        }
+        try {
+            // unregistered by the MBean manager together with the other MBeans of the engine
+            ObjectName objectName = new ObjectName(this.tomcat.getEngine().getName() + ":type=" + JAR_SCAN_PROFILER_MBEAN_TYPE);
+            Registry.getRegistry(null, null).registerComponent(jarScanProfiler, objectName, null);
+        } catch (Exception e) {
+            LOGGER.warn("Unable to register the jar scan profiler MBean.", e);
+        }
+    }
+
+    private void startClassLoaderLeakDetector() {
+        if (this.classLoaderLeakDetector == null) {
+            return;
+        }
+        this.classLoaderLeakDetector.start();
+        try {
+            // unregistered by the MBean manager together with the other MBeans of the engine
+            ObjectName objectName = new ObjectName(this.tomcat.getEngine().getName() + ":type=" + LEAK_DETECTOR_MBEAN_TYPE);
+            Registry.getRegistry(null, null).registerComponent(this.classLoaderLeakDetector, objectName, null);
+        } catch (Exception e) {
+            LOGGER.warn("Unable to register the class loader leak detector MBean.", e);
+        }
+    }
+
     private void doStart() throws LifecycleException {
         ClassLoader current = Thread.currentThread().getContextClassLoader();
         try {
@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+
+/**
+ * An index of all entry paths of a {@link Bundle} and of the fragments attached to it. The index is built lazily on
+ * first use by walking {@link Bundle#getEntryPaths(String)} of the host and then of each fragment, so that an entry
+ * provided by the host takes precedence over the same entry provided by a fragment, and a fragment attached earlier
+ * takes precedence over one attached later.
+ * <p />
+ * Once built, lookups, misses and directory listings are answered from the index without calling the framework. Only
+ * the {@link URL} of an entry is obtained from the bundle that owns it. The index is discarded by
+ * {@link #invalidate()} when the bundle is updated or fragments are attached or detached, and rebuilt on next use.
+ * <p />
+ * Entry paths are kept in the form returned by <code>getEntryPaths</code>: relative to the bundle root, without a
+ * leading <code>/</code> and with a trailing <code>/</code> for directories. The root directory is the empty path.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+final class BundleEntryIndex {
+
+    private static final String PATH_SEPARATOR = "/";
+
+    private static final String ROOT_PATH = "";
+
+    private static final String DOT = ".";
+
+    private static final String[] NO_CHILDREN = new String[0];
+
+    private final Bundle bundle;
+
+    private final Object monitor = new Object();
+
+    private volatile Snapshot snapshot;
+
+    BundleEntryIndex(Bundle bundle) {
+        this.bundle = bundle;
+    }
+
+    /**
+     * Returns the indexed entry path for the given path, or <code>null</code> if neither the bundle nor its fragments
+     * contain such an entry. A path that names a directory without a trailing <code>/</code> resolves to the directory
+     * entry.
+     *
+     * @param path the path relative to the bundle root, with or without a leading <code>/</code>
+     * @return the indexed entry path or <code>null</code>
+     */
+    String findEntryPath(String path) {
+        String entryPath = normalize(path);
+        Map<String, Bundle> owners = getSnapshot().owners;
+        if (owners.containsKey(entryPath)) {
+            return entryPath;
+        }
+        if (!entryPath.endsWith(PATH_SEPARATOR)) {
+            String directoryPath = entryPath + PATH_SEPARATOR;
+            if (owners.containsKey(directoryPath)) {
+                return directoryPath;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the <code>URL</code> of an entry path previously returned by {@link #findEntryPath(String)} or
+     * {@link #list(String)}, asking the bundle that provides it.
+     *
+     * @param entryPath the indexed entry path
+     * @return the entry <code>URL</code> or <code>null</code> if the entry is no longer present
+     */
+    URL getEntry(String entryPath) {
+        Bundle owner = getOwner(entryPath);
+        if (owner == null) {
+            return null;
+        }
+        return owner.getEntry(entryPath);
+    }
+
+    /**
+     * Returns the bundle that provides an entry path previously returned by {@link #findEntryPath(String)} or
+     * {@link #list(String)}, which is either the host or one of its fragments.
+     *
+     * @param entryPath the indexed entry path
+     * @return the providing <code>Bundle</code> or <code>null</code> if the entry is no longer present
+     */
+    Bundle getOwner(String entryPath) {
+        return getSnapshot().owners.get(entryPath);
+    }
+
+    /**
+     * Returns the entry paths of the direct children of the given directory entry path.
+     *
+     * @param entryPath the indexed entry path of a directory
+     * @return the entry paths of the children, sorted, or an empty list
+     */
+    List<String> list(String entryPath) {
+        String[] children = getSnapshot().children.get(entryPath);
+        if (children == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(children));
+    }
+
+    static boolean isDirectory(String entryPath) {
+        return entryPath.length() == 0 || entryPath.endsWith(PATH_SEPARATOR);
+    }
+
+    /**
+     * Discards the current index. It will be rebuilt on next use.
+     */
+    void invalidate() {
+        synchronized (this.monitor) {
+            this.snapshot = null;
+        }
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = this.snapshot;
+        if (current == null) {
+            synchronized (this.monitor) {
+                current = this.snapshot;
+                if (current == null) {
+                    current = new Snapshot(this.bundle, getFragments(this.bundle));
+                    this.snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static String normalize(String path) {
+        String entryPath = path;
+        if (entryPath.startsWith(PATH_SEPARATOR)) {
+            entryPath = entryPath.substring(1);
+        }
+        if (entryPath.equals(DOT)) {
+            return ROOT_PATH;
+        }
+        if (entryPath.endsWith(PATH_SEPARATOR + DOT)) {
+            return entryPath.substring(0, entryPath.length() - 1);
+        }
+        return entryPath;
+    }
+
+    private static List<Bundle> getFragments(Bundle bundle) {
+        List<Bundle> fragments = new ArrayList<>();
+        BundleRevision bundleRevision = bundle.adapt(BundleRevision.class);
+        if (bundleRevision != null) {
+            BundleWiring bundleWiring = bundleRevision.getWiring();
+            if (bundleWiring != null) {
+                List<BundleWire> bundleWires = bundleWiring.getProvidedWires(BundleRevision.HOST_NAMESPACE);
+                for (int i = 0; bundleWires != null && i < bundleWires.size(); i++) {
+                    fragments.add(bundleWires.get(i).getRequirerWiring().getRevision().getBundle());
+                }
+            }
+        }
+        return fragments;
+    }
+
+    private static final class Snapshot {
+
+        private final Map<String, Bundle> owners = new HashMap<>();
+
+        private final Map<String, String[]> children = new HashMap<>();
+
+        Snapshot(Bundle host, List<Bundle> fragments) {
+            Map<String, List<String>> directories = new HashMap<>();
+            this.owners.put(ROOT_PATH, host);
+            addEntries(host, directories);
+            for (Bundle fragment : fragments) {
+                addEntries(fragment, directories);
+            }
+            for (Map.Entry<String, List<String>> directory : directories.entrySet()) {
+                List<String> entries = directory.getValue();
+                String[] sorted = entries.toArray(new String[entries.size()]);
+                Arrays.sort(sorted);
+                this.children.put(directory.getKey(), sorted.length == 0 ? NO_CHILDREN : sorted);
+            }
+        }
+
+        private void addEntries(Bundle bundle, Map<String, List<String>> directories) {
+            Deque<String> pending = new ArrayDeque<>();
+            pending.push(ROOT_PATH);
+            while (!pending.isEmpty()) {
+                String directory = pending.pop();
+                Enumeration<String> entryPaths = bundle.getEntryPaths(directory);
+                if (entryPaths == null) {
+                    continue;
+                }
+                List<String> entries = directories.get(directory);
+                if (entries == null) {
+                    entries = new ArrayList<>();
+                    directories.put(directory, entries);
+                }
+                while (entryPaths.hasMoreElements()) {
+                    String entryPath = normalize(entryPaths.nextElement());
+                    // the host and the fragments attached earlier take precedence
+                    if (!this.owners.containsKey(entryPath)) {
+                        this.owners.put(entryPath, bundle);
+                        entries.add(entryPath);
+                    }
+                    // directories are merged, so they are walked in every bundle that provides them
+                    if (isDirectory(entryPath)) {
+                        pending.push(entryPath);
+                    }
+                }
+            }
+        }
+    }
+}
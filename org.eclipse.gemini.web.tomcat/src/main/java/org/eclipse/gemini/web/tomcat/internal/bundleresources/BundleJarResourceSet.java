@@ -17,108 +17,84 @@
 package org.eclipse.gemini.web.tomcat.internal.bundleresources;
 
 import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
-import java.util.HashMap;
-import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
-import java.util.jar.Manifest;
+import java.util.jar.JarFile;
 
 import org.apache.catalina.LifecycleException;
-import org.apache.catalina.WebResource;
 import org.apache.catalina.WebResourceRoot;
 import org.apache.catalina.webresources.JarResourceSet;
+import org.apache.tomcat.util.compat.JreCompat;
 
+/**
+ * A resource set for a JAR nested in the web application's bundle. The JAR is opened as a {@link JarFile} on the file
+ * provided by {@link BundleWebResourceRoot#getArchiveFile(String)}, so that its central directory is read once and
+ * entries and their content are looked up by random access instead of streaming through the whole JAR.
+ */
 final class BundleJarResourceSet extends JarResourceSet {
 
+    // Not initialized in the declaration as the super constructor may already start this resource set
+    private JarFile archive;
+
+    private long archiveUseCount;
+
     BundleJarResourceSet(WebResourceRoot root, String webAppMount, String base, String internalPath) throws IllegalArgumentException {
         super(root, webAppMount, base, internalPath);
     }
 
-    @Override
-    protected WebResource createArchiveResource(JarEntry jarEntry, String webAppPath, Manifest manifest) {
-        return new BundleJarResource(this, webAppPath, getBaseUrlString(), jarEntry);
-    }
-
     @Override
     protected void initInternal() throws LifecycleException {
-        URLConnection conn = null;
         URL baseUrl = null;
         try {
             baseUrl = new URL(getBase());
-            conn = baseUrl.openConnection();
-        } catch (IOException e) {
+        } catch (MalformedURLException e) {
             throw new IllegalArgumentException(e);
         }
 
-        try (JarInputStream jarIs = new JarInputStream(conn.getInputStream())) {
-            setManifest(jarIs.getManifest());
+        try {
+            setManifest(openJarFile().getManifest());
         } catch (IOException ioe) {
             throw new IllegalArgumentException(ioe);
+        } finally {
+            closeJarFile();
         }
 
         setBaseUrl(baseUrl);
     }
 
     @Override
-    protected HashMap<String,JarEntry> getArchiveEntries(boolean single) {
+    protected JarFile openJarFile() throws IOException {
         synchronized (archiveLock) {
-            if (archiveEntries == null && !single) {
-                URLConnection conn = null;
-                URL baseUrl = null;
-                try {
-                    baseUrl = new URL(getBase());
-                    conn = baseUrl.openConnection();
-                } catch (IOException e) {
-                    throw new IllegalArgumentException(e);
-                }
-
-                archiveEntries = new HashMap<>();
-                try (JarInputStream jarIs = new JarInputStream(conn.getInputStream())) {
-                    JarEntry entry = jarIs.getNextJarEntry();
-                    while (entry != null) {
-                        archiveEntries.put(entry.getName(), entry);
-                        entry = jarIs.getNextJarEntry();
-                    }
-                } catch (IOException ioe) {
-                    // Should never happen
-                    archiveEntries = null;
-                    throw new IllegalStateException(ioe);
-                }
+            if (this.archive == null) {
+                String archivePath = new URL(getBase()).getPath();
+                this.archive = JreCompat.getInstance().jarFileNewInstance(((BundleWebResourceRoot) getRoot()).getArchiveFile(archivePath));
             }
-            return archiveEntries;
+            this.archiveUseCount++;
+            return this.archive;
         }
     }
 
     @Override
-    protected JarEntry getArchiveEntry(String pathInArchive) {
-        URLConnection conn = null;
-        URL baseUrl = null;
-        try {
-            baseUrl = new URL(getBase());
-            conn = baseUrl.openConnection();
-        } catch (IOException e) {
-            throw new IllegalArgumentException(e);
-        }
-
-        JarEntry entry = null;
-        try (JarInputStream jarIs = new JarInputStream(conn.getInputStream())) {
-            entry = jarIs.getNextJarEntry();
-            while (entry != null && !entry.getName().equals(pathInArchive)) {
-                entry = jarIs.getNextJarEntry();
+    protected void closeJarFile() {
+        synchronized (archiveLock) {
+            if (this.archiveUseCount > 0) {
+                this.archiveUseCount--;
             }
-
-            return entry;
-        } catch (IOException ioe) {
-            // Should never happen
-            throw new IllegalStateException(ioe);
         }
     }
 
     @Override
-    protected boolean isMultiRelease() {
-        // TODO how to replace JarFile.isMultiRelease (jdk9)
-        // we have URL and cannot get JarFile but JarInputStream
-        return false;
+    public void gc() {
+        synchronized (archiveLock) {
+            if (this.archive != null && this.archiveUseCount == 0) {
+                try {
+                    this.archive.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+                this.archive = null;
+                archiveEntries = null;
+            }
+        }
     }
 }
@@ -23,30 +23,22 @@ import java.net.JarURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
-import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 import java.util.jar.Manifest;
 
 import org.apache.catalina.WebResourceRoot;
 import org.apache.catalina.webresources.AbstractResource;
 import org.apache.juli.logging.Log;
 import org.apache.tomcat.util.buf.UriUtil;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileEntry;
 import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
 import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolverFactory;
 import org.osgi.framework.Bundle;
-import org.osgi.framework.wiring.BundleRevision;
-import org.osgi.framework.wiring.BundleWire;
-import org.osgi.framework.wiring.BundleWiring;
 
 final class BundleWebResource extends AbstractResource {
 
@@ -64,15 +56,19 @@ final class BundleWebResource extends AbstractResource {
 
     private static final String DOT = ".";
 
+    private static final String JAR_SUFFIX = ".jar";
+
     private final WebResourceRoot root;
 
     private final String path;
 
+    private final String entryPath;
+
     private final Bundle bundle;
 
-    private final List<Bundle> fragments;
+    private final BundleEntryIndex entryIndex;
 
-    private final BundleFileResolver bundleFileResolver = BundleFileResolverFactory.createBundleFileResolver();
+    private final BundleFileResolver bundleFileResolver;
 
     private final boolean checkEntryPath;
 
@@ -84,12 +80,22 @@ final class BundleWebResource extends AbstractResource {
 
     private BundleWebResourceAttributes attributes;
 
+    private BundleFileEntry bundleFileEntry;
+
+    private boolean bundleFileEntryResolved;
+
     BundleWebResource(Bundle bundle, WebResourceRoot root) {
+        this(bundle, root, BundleFileResolverFactory.createBundleFileResolver());
+    }
+
+    BundleWebResource(Bundle bundle, WebResourceRoot root, BundleFileResolver bundleFileResolver) {
         super(root, "");
         this.root = root;
         this.path = "";
+        this.entryPath = "";
         this.bundle = bundle;
-        this.fragments = getFragments(bundle);
+        this.entryIndex = new BundleEntryIndex(bundle);
+        this.bundleFileResolver = bundleFileResolver;
         this.checkEntryPath = checkEntryPath();
         File bundleLocation = getBundleLocation();
         if (bundleLocation != null) {
@@ -122,13 +128,15 @@ final class BundleWebResource extends AbstractResource {
         return bundleLocation;
     }
 
-    private BundleWebResource(Bundle bundle, WebResourceRoot root, List<Bundle> fragments, String path, boolean checkEntryPath,
-        String bundleLocationCanonicalPath, boolean isBundleLocationDirectory) {
+    private BundleWebResource(Bundle bundle, WebResourceRoot root, BundleEntryIndex entryIndex, BundleFileResolver bundleFileResolver,
+        String path, String entryPath, boolean checkEntryPath, String bundleLocationCanonicalPath, boolean isBundleLocationDirectory) {
         super(root, path);
         this.root = root;
         this.path = path;
+        this.entryPath = entryPath;
         this.bundle = bundle;
-        this.fragments = fragments;
+        this.entryIndex = entryIndex;
+        this.bundleFileResolver = bundleFileResolver;
         this.checkEntryPath = checkEntryPath;
         this.bundleLocationCanonicalPath = bundleLocationCanonicalPath;
         this.isBundleLocationDirectory = isBundleLocationDirectory;
@@ -140,111 +148,40 @@ final class BundleWebResource extends AbstractResource {
 
     List<BundleWebResource> list() {
         List<BundleWebResource> entries = new ArrayList<>();
-        Set<String> paths = getEntryPathsFromBundle();
-        if (paths != null) {
-            Iterator<String> iterator = paths.iterator();
-            while (iterator.hasNext()) {
-                String subPath = iterator.next();
-                entries.add(createBundleEntry(subPath));
-            }
+        for (String subPath : this.entryIndex.list(this.entryPath)) {
+            entries.add(createBundleEntry(subPath, subPath));
         }
         return entries;
     }
 
-    private BundleWebResource createBundleEntry(String path) {
-        return new BundleWebResource(this.bundle, this.root, this.fragments, path, this.checkEntryPath, this.bundleLocationCanonicalPath,
-            this.isBundleLocationDirectory);
-    }
-
-    private Set<String> getEntryPathsFromBundle() {
-        Set<String> paths = getEntryPathsFromBundle(this.bundle);
-
-        for (int i = 0; i < this.fragments.size(); i++) {
-            paths.addAll(getEntryPathsFromBundle(this.fragments.get(i)));
-        }
-
-        if (paths.isEmpty()) {
-            return null;
-        }
-
-        return paths;
-    }
-
-    private Set<String> getEntryPathsFromBundle(Bundle bundle) {
-        final Enumeration<String> ep = bundle.getEntryPaths(this.path);
-
-        Set<String> paths = new HashSet<>();
-        if (ep != null) {
-            while (ep.hasMoreElements()) {
-                paths.add(ep.nextElement());
-            }
-        }
-
-        return paths;
-    }
-
-    Entry<BundleWebResource, URL> getEntry(String subPath) {
-        String finalPath = this.path + subPath;
-        URL entryURL = getEntryFromBundle(finalPath);
-        if (entryURL != null) {
-            Map<BundleWebResource, URL> result = new HashMap<>();
-            result.put(createBundleEntry(finalPath), entryURL);
-            return result.entrySet().iterator().next();
-        }
-        return null;
+    private BundleWebResource createBundleEntry(String path, String entryPath) {
+        return new BundleWebResource(this.bundle, this.root, this.entryIndex, this.bundleFileResolver, path, entryPath, this.checkEntryPath,
+            this.bundleLocationCanonicalPath, this.isBundleLocationDirectory);
     }
 
     /**
-     * This method has been generalized from this.bundle.getEntry(path) to allow entries to be supplied by a fragment.
+     * The entry is looked up in the {@link BundleEntryIndex} so that entries supplied by a fragment are found as well
+     * and misses do not reach the framework.
      */
-    private URL getEntryFromBundle(String path) {
+    BundleWebResource getEntry(String subPath) {
+        String finalPath = this.path + subPath;
         if (this.checkEntryPath
-            && (checkNotAttemptingToAccess(path, META_INF_DOT) || checkNotAttemptingToAccess(path, WEB_INF_DOT)
-                || checkNotAttemptingToAccess(path, OSGI_INF_DOT) || checkNotAttemptingToAccess(path, OSGI_OPT_DOT))) {
+            && (checkNotAttemptingToAccess(finalPath, META_INF_DOT) || checkNotAttemptingToAccess(finalPath, WEB_INF_DOT)
+                || checkNotAttemptingToAccess(finalPath, OSGI_INF_DOT) || checkNotAttemptingToAccess(finalPath, OSGI_OPT_DOT))) {
             return null;
         }
 
-        if (path.endsWith(PATH_SEPARATOR) || path.length() == 0) {
-            URL url = this.bundle.getEntry(path);
-            if (url == null) {
-                // try fragments
-                for (int i = 0; i < this.fragments.size(); i++) {
-                    Bundle b = this.fragments.get(i);
-                    url = b.getEntry(path);
-                    if (url != null) {
-                        break;
-                    }
-                }
-            }
-            return url;
+        String finalEntryPath = this.entryIndex.findEntryPath(finalPath);
+        if (finalEntryPath != null) {
+            return createBundleEntry(finalPath, finalEntryPath);
         }
-
-        String searchPath;
-        String searchFile;
-        int lastSlashIndex = path.lastIndexOf(PATH_SEPARATOR);
-        if (lastSlashIndex == -1) {
-            searchPath = PATH_SEPARATOR;
-            searchFile = path;
-        } else {
-            searchPath = path.substring(0, lastSlashIndex);
-            searchFile = path.substring(lastSlashIndex + 1);
-        }
-
-        if (searchFile.equals(DOT)) {
-            return this.bundle.getEntry(path.substring(0, path.length() - 1));
-        }
-
-        Enumeration<URL> entries = this.bundle.findEntries(searchPath, searchFile, false);
-
-        if (entries != null) {
-            if (entries.hasMoreElements()) {
-                return entries.nextElement();
-            }
-        }
-
         return null;
     }
 
+    void invalidateEntryIndex() {
+        this.entryIndex.invalidate();
+    }
+
     private boolean checkNotAttemptingToAccess(String path, String prefix) {
         return path.startsWith(prefix + PATH_SEPARATOR) || path.startsWith(PATH_SEPARATOR + prefix + PATH_SEPARATOR)
             || path.startsWith(DOT + PATH_SEPARATOR + prefix + PATH_SEPARATOR);
@@ -272,14 +209,16 @@ final class BundleWebResource extends AbstractResource {
     @Override
     public URL getURL() {
         if (this.url == null) {
-            this.url = getEntryFromBundle(this.path);
-
-            String urlStr = this.url.toString();
-            if (urlStr.endsWith(".jar")) {
-                try {
-                    this.url = UriUtil.buildJarUrl(urlStr);
-                } catch (MalformedURLException e) {
-                    throw new IllegalArgumentException(e);
+            this.url = this.entryIndex.getEntry(this.entryPath);
+
+            if (this.url != null) {
+                String urlStr = this.url.toString();
+                if (urlStr.endsWith(".jar")) {
+                    try {
+                        this.url = UriUtil.buildJarUrl(urlStr);
+                    } catch (MalformedURLException e) {
+                        throw new IllegalArgumentException(e);
+                    }
                 }
             }
         }
@@ -291,19 +230,6 @@ final class BundleWebResource extends AbstractResource {
         return String.format("BundleWebResource [bundle=%s,path=%s]", this.bundle, this.path);
     }
 
-    private List<Bundle> getFragments(Bundle bundle) {
-        List<Bundle> fragments = new ArrayList<>();
-        BundleRevision bundleRevision = bundle.adapt(BundleRevision.class);
-        if (bundleRevision != null) {
-            BundleWiring bundleWiring = bundleRevision.getWiring();
-            List<BundleWire> bundleWires = bundleWiring.getProvidedWires(BundleRevision.HOST_NAMESPACE);
-            for (int i = 0; bundleWires != null && i < bundleWires.size(); i++) {
-                fragments.add(bundleWires.get(i).getRequirerWiring().getRevision().getBundle());
-            }
-        }
-        return fragments;
-    }
-
     private boolean checkEntryPath() {
         try {
             return Paths.get(META_INF).toRealPath().equals(Paths.get(META_INF_DOT).toRealPath());
@@ -344,7 +270,25 @@ final class BundleWebResource extends AbstractResource {
             }
             return entry.toAbsolutePath().toString();
         }
-        return null;
+        return getExtractedFilePath();
+    }
+
+    /**
+     * Returns the path of the file the framework extracts this file to, if the bundle is installed from an archive and
+     * the root is configured to expose files of this size through the file system. This lets the connector serve them
+     * with sendfile instead of copying them through the heap.
+     */
+    private String getExtractedFilePath() {
+        long sendfileMinSize = this.root instanceof BundleWebResourceRoot ? ((BundleWebResourceRoot) this.root).getSendfileMinSize() : -1L;
+        if (sendfileMinSize < 0 || isDirectory() || this.entryPath.endsWith(JAR_SUFFIX)) {
+            return null;
+        }
+        BundleFileEntry fileEntry = getBundleFileEntry();
+        if (fileEntry == null || fileEntry.getSize() < sendfileMinSize) {
+            return null;
+        }
+        File file = fileEntry.getFile();
+        return file != null ? file.getAbsolutePath() : null;
     }
 
     private String getBundleLocationCanonicalPath() {
@@ -365,8 +309,16 @@ final class BundleWebResource extends AbstractResource {
         return getURL();
     }
 
+    /**
+     * Returns <code>null</code> if the content is held by the content cache of the root, so that it is served from the
+     * cache through {@link #getInputStream()} instead of being copied to the heap, also by Tomcat's resource cache.
+     */
     @Override
     public byte[] getContent() {
+        if (getCachedContent() != null) {
+            return null;
+        }
+
         long len = getContentLength();
 
         if (len > Integer.MAX_VALUE) {
@@ -379,7 +331,7 @@ final class BundleWebResource extends AbstractResource {
         byte[] result = new byte[size];
 
         int pos = 0;
-        try (InputStream is = getURL().openStream()) {
+        try (InputStream is = openStream()) {
             while (pos < size) {
                 int n = is.read(result, pos, size - pos);
                 if (n < 0) {
@@ -415,9 +367,7 @@ final class BundleWebResource extends AbstractResource {
 
     @Override
     public boolean isDirectory() {
-        URL url = getURL();
-        return url.getFile().endsWith(PATH_SEPARATOR) &&
-            !"jar".equals(url.getProtocol());
+        return BundleEntryIndex.isDirectory(this.entryPath);
     }
 
     @Override
@@ -433,6 +383,17 @@ final class BundleWebResource extends AbstractResource {
     @Override
     protected InputStream doGetInputStream() {
         try {
+            if (!this.entryPath.endsWith(JAR_SUFFIX)) {
+                ByteBuffer content = getCachedContent();
+                if (content != null) {
+                    return new BundleWebResourceContentCache.ByteBufferInputStream(content);
+                }
+                BundleFileEntry fileEntry = getBundleFileEntry();
+                if (fileEntry != null) {
+                    return fileEntry.getInputStream();
+                }
+            }
+
             URL url = getURL();
             if ("jar".equals(url.getProtocol()) || url.getPath().endsWith(".jar")) {
                 JarURLConnection jarConn = (JarURLConnection) url.openConnection();
@@ -448,12 +409,84 @@ final class BundleWebResource extends AbstractResource {
         }
     }
 
+    /**
+     * Returns the content of this file from the content cache of the root, or <code>null</code> if there is no cache
+     * or the content cannot be cached.
+     */
+    private ByteBuffer getCachedContent() {
+        final BundleWebResourceContentCache contentCache = getContentCache();
+        if (contentCache == null || isDirectory()) {
+            return null;
+        }
+        try {
+            return contentCache.getContent(this.entryPath, this.bundle.getLastModified(), new BundleWebResourceContentCache.ContentSource() {
+
+                @Override
+                public long getContentLength() {
+                    return BundleWebResource.this.getContentLength();
+                }
+
+                @Override
+                public InputStream openStream() throws IOException {
+                    return BundleWebResource.this.openStream();
+                }
+            });
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Opens a stream on the content of this file, directly on the bundle entry if the framework supports it, or through
+     * the bundle entry <code>URL</code> otherwise.
+     */
+    private InputStream openStream() throws IOException {
+        BundleFileEntry fileEntry = getBundleFileEntry();
+        if (fileEntry != null) {
+            return fileEntry.getInputStream();
+        }
+        URL url = getURL();
+        return url != null ? url.openStream() : null;
+    }
+
+    /**
+     * Returns the entry as provided by the framework's storage, looked up in the host or in the fragment that provides
+     * it, or <code>null</code> if the framework does not support reading entries directly.
+     */
+    BundleFileEntry getBundleFileEntry() {
+        if (!this.bundleFileEntryResolved) {
+            Bundle owner = this.entryIndex.getOwner(this.entryPath);
+            if (owner != null) {
+                this.bundleFileEntry = this.bundleFileResolver.resolveBundleEntry(owner, this.entryPath);
+            }
+            this.bundleFileEntryResolved = true;
+        }
+        return this.bundleFileEntry;
+    }
+
+    /**
+     * Discards the cached content of this bundle if the bundle has been modified since it was cached.
+     */
+    void gcContentCache() {
+        BundleWebResourceContentCache contentCache = getContentCache();
+        if (contentCache != null) {
+            contentCache.gc(this.bundle.getLastModified());
+        }
+    }
+
+    private BundleWebResourceContentCache getContentCache() {
+        if (this.root instanceof BundleWebResourceRoot) {
+            return ((BundleWebResourceRoot) this.root).getContentCache();
+        }
+        return null;
+    }
+
     @Override
     protected Log getLog() {
         return null;
     }
 
-    Entry<BundleWebResource, URL> getNamedEntry(String name) {
+    BundleWebResource getNamedEntry(String name) {
         checkCanLookup(name);
         return getEntry(name);
     }
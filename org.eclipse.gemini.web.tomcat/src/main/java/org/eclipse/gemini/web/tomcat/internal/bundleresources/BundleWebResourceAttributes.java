@@ -20,6 +20,8 @@ import java.io.IOException;
 import java.net.URL;
 import java.net.URLConnection;
 
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileEntry;
+
 final class BundleWebResourceAttributes {
 
     private static final long TIME_NOT_SET = -1L;
@@ -38,6 +40,15 @@ final class BundleWebResourceAttributes {
 
     BundleWebResourceAttributes(BundleWebResource resource) {
         this.resource = resource;
+        BundleFileEntry bundleFileEntry = resource.getBundleFileEntry();
+        if (bundleFileEntry != null) {
+            // the entry is read directly, no URLConnection is needed. Entries do not record a creation time.
+            this.lastModified = bundleFileEntry.getLastModified();
+            this.creation = this.lastModified;
+            this.contentLength = bundleFileEntry.getSize();
+            return;
+        }
+
         URLConnection urlConnection = getURLConnection();
         if (urlConnection != null) {
             getLastModified(urlConnection);
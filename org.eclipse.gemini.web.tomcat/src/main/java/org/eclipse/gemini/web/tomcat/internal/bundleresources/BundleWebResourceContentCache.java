@@ -0,0 +1,369 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size bounded cache of the content of bundle entries, held outside of the Java heap in direct {@link ByteBuffer}s.
+ * The least recently used content is evicted first. Concurrent misses for the same entry are coalesced so that the
+ * entry is read from the bundle only once.
+ * <p />
+ * All cached content belongs to a generation, the bundle's {@link org.osgi.framework.Bundle#getLastModified() last
+ * modified} time stamp. When a lookup or {@link #gc(long)} is done for a different generation the whole cache is
+ * discarded.
+ * <p />
+ * The content of an entry of known length is read straight into a direct buffer of that length. The memory of evicted
+ * or discarded content is not freed when it leaves the cache but only when the garbage collector collects its buffer,
+ * which, as the buffers are small on the heap, may be much later.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+final class BundleWebResourceContentCache {
+
+    /**
+     * The source of the content of a single bundle entry.
+     */
+    interface ContentSource {
+
+        /**
+         * @return the content length or -1 if unknown
+         */
+        long getContentLength();
+
+        InputStream openStream() throws IOException;
+    }
+
+    private static final int OBJECT_MAX_SIZE_FACTOR = 20;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final long maxSize;
+
+    private final long objectMaxSize;
+
+    private final Object monitor = new Object();
+
+    private final LinkedHashMap<String, ByteBuffer> contents = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ConcurrentMap<String, FutureTask<ByteBuffer>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private long size;
+
+    private long generation;
+
+    /**
+     * @param maxSize the maximum number of bytes to hold. A single entry can use at most a twentieth of it.
+     */
+    BundleWebResourceContentCache(long maxSize) {
+        this.maxSize = maxSize;
+        this.objectMaxSize = maxSize / OBJECT_MAX_SIZE_FACTOR;
+    }
+
+    /**
+     * Returns the content of the entry with the given path, loading it from the given source on a miss.
+     *
+     * @param path the entry path
+     * @param generation the current generation of the bundle
+     * @param source the source to load the content from
+     * @return a read-only view of the content positioned at its beginning, or <code>null</code> if the content is too
+     *         large to be cached
+     * @throws IOException if the content cannot be read from the source
+     */
+    ByteBuffer getContent(String path, long generation, ContentSource source) throws IOException {
+        ByteBuffer content = lookup(path, generation);
+        if (content != null) {
+            this.hitCount.incrementAndGet();
+            return content.duplicate();
+        }
+        this.missCount.incrementAndGet();
+
+        FutureTask<ByteBuffer> task = new FutureTask<>(new ContentLoader(path, generation, source));
+        FutureTask<ByteBuffer> existing = this.loading.putIfAbsent(path, task);
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                this.loading.remove(path, task);
+            }
+            existing = task;
+        }
+
+        try {
+            content = existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the content of [" + path + "].", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Unable to load the content of [" + path + "].", cause);
+        }
+        return content != null ? content.duplicate() : null;
+    }
+
+    /**
+     * Discards all content if the bundle has moved to another generation.
+     *
+     * @param generation the current generation of the bundle
+     */
+    void gc(long generation) {
+        synchronized (this.monitor) {
+            checkGeneration(generation);
+        }
+    }
+
+    /**
+     * Discards all content.
+     */
+    void clear() {
+        synchronized (this.monitor) {
+            this.evictionCount.addAndGet(this.contents.size());
+            this.contents.clear();
+            this.size = 0;
+        }
+    }
+
+    long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    long getMissCount() {
+        return this.missCount.get();
+    }
+
+    long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    long getSize() {
+        synchronized (this.monitor) {
+            return this.size;
+        }
+    }
+
+    long getMaxSize() {
+        return this.maxSize;
+    }
+
+    private ByteBuffer lookup(String path, long generation) {
+        synchronized (this.monitor) {
+            checkGeneration(generation);
+            return this.contents.get(path);
+        }
+    }
+
+    private void store(String path, long generation, ByteBuffer content) {
+        synchronized (this.monitor) {
+            checkGeneration(generation);
+            if (generation != this.generation) {
+                return;
+            }
+            ByteBuffer previous = this.contents.put(path, content);
+            if (previous != null) {
+                this.size -= previous.capacity();
+            }
+            this.size += content.capacity();
+
+            Iterator<Map.Entry<String, ByteBuffer>> eldest = this.contents.entrySet().iterator();
+            while (this.size > this.maxSize && eldest.hasNext()) {
+                ByteBuffer evicted = eldest.next().getValue();
+                eldest.remove();
+                this.size -= evicted.capacity();
+                this.evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private void checkGeneration(long generation) {
+        if (generation > this.generation) {
+            this.evictionCount.addAndGet(this.contents.size());
+            this.contents.clear();
+            this.size = 0;
+            this.generation = generation;
+        }
+    }
+
+    private ByteBuffer load(ContentSource source) throws IOException {
+        long contentLength = source.getContentLength();
+        if (contentLength > this.objectMaxSize) {
+            return null;
+        }
+
+        try (InputStream is = source.openStream()) {
+            if (is == null) {
+                return null;
+            }
+            ByteBuffer content = contentLength >= 0 ? read(is, (int) contentLength) : read(is);
+            return content != null ? content.asReadOnlyBuffer() : null;
+        }
+    }
+
+    /**
+     * Reads content of the given length into a direct buffer of that length.
+     *
+     * @return the content, flipped, or <code>null</code> if the content is longer than its length or direct memory is
+     *         exhausted
+     */
+    private static ByteBuffer read(InputStream is, int contentLength) throws IOException {
+        ByteBuffer content = allocateDirect(contentLength);
+        if (content == null) {
+            return null;
+        }
+        byte[] buffer = new byte[Math.min(BUFFER_SIZE, Math.max(contentLength, 1))];
+        int n;
+        while (content.hasRemaining() && (n = is.read(buffer, 0, Math.min(buffer.length, content.remaining()))) != -1) {
+            content.put(buffer, 0, n);
+        }
+        if (!content.hasRemaining() && is.read() != -1) {
+            // the entry has changed since its length was determined
+            return null;
+        }
+        content.flip();
+        return content;
+    }
+
+    /**
+     * Reads content of unknown length, which has to be buffered on the heap first.
+     *
+     * @return the content, flipped, or <code>null</code> if the content is too large or direct memory is exhausted
+     */
+    private ByteBuffer read(InputStream is) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteArrayOutputStream os = new ByteArrayOutputStream(BUFFER_SIZE);
+        int n;
+        while ((n = is.read(buffer)) != -1) {
+            os.write(buffer, 0, n);
+            if (os.size() > this.objectMaxSize) {
+                return null;
+            }
+        }
+        ByteBuffer content = allocateDirect(os.size());
+        if (content == null) {
+            return null;
+        }
+        content.put(os.toByteArray());
+        content.flip();
+        return content;
+    }
+
+    private static ByteBuffer allocateDirect(int capacity) {
+        try {
+            return ByteBuffer.allocateDirect(capacity);
+        } catch (OutOfMemoryError e) {
+            // direct memory is exhausted, serve this entry without caching it
+            return null;
+        }
+    }
+
+    private final class ContentLoader implements Callable<ByteBuffer> {
+
+        private final String path;
+
+        private final long generation;
+
+        private final ContentSource source;
+
+        ContentLoader(String path, long generation, ContentSource source) {
+            this.path = path;
+            this.generation = generation;
+            this.source = source;
+        }
+
+        @Override
+        public ByteBuffer call() throws IOException {
+            ByteBuffer content = lookup(this.path, this.generation);
+            if (content == null) {
+                content = load(this.source);
+                if (content != null) {
+                    store(this.path, this.generation, content);
+                }
+            }
+            return content;
+        }
+    }
+
+    /**
+     * An <code>InputStream</code> over a <code>ByteBuffer</code> returned by the cache.
+     */
+    static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            return this.buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            int skipped = (int) Math.min(n, this.buffer.remaining());
+            this.buffer.position(this.buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+}
@@ -1,162 +1,381 @@
-/*******************************************************************************
- * Copyright (c) 2015, 2017 SAP SE
- *
- * All rights reserved. This program and the accompanying materials
- * are made available under the terms of the Eclipse Public License v1.0
- * and Apache License v2.0 which accompanies this distribution.
- * The Eclipse Public License is available at
- *   http://www.eclipse.org/legal/epl-v10.html
- * and the Apache License v2.0 is available at
- *   http://www.opensource.org/licenses/apache2.0.php.
- * You may elect to redistribute this code under either of these licenses.
- *
- * Contributors:
- *   Violeta Georgieva - initial contribution
- *******************************************************************************/
-
-package org.eclipse.gemini.web.tomcat.internal.bundleresources;
-
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Locale;
-
-import org.apache.catalina.Host;
-import org.apache.catalina.WebResource;
-import org.apache.catalina.WebResourceSet;
-import org.apache.catalina.webresources.StandardRoot;
-import org.osgi.framework.Bundle;
-import org.osgi.util.tracker.ServiceTracker;
-
-public class BundleWebResourceRoot extends StandardRoot {
-
-    private final Bundle bundle;
-
-    private final WebResource main;
-
-    private final ServiceTracker<?, ?> urlConverterTracker;
-
-    private Path docBase;
-
-    public BundleWebResourceRoot(Bundle bundle, ServiceTracker<?, ?> urlConverterTracker) {
-        this.bundle = bundle;
-        this.urlConverterTracker = urlConverterTracker;
-        this.main = new BundleWebResource(this.bundle, this);
-    }
-
-    @Override
-    public void createWebResourceSet(ResourceSetType type, String webAppMount, URL url, String internalPath) {
-        BaseLocation baseLocation = new BaseLocation(url);
-        createWebResourceSet(type, webAppMount, baseLocation.getBasePath(), baseLocation.getArchivePath(), internalPath);
-    }
-
-    @Override
-    public void createWebResourceSet(ResourceSetType type, String webAppMount, String base, String archivePath, String internalPath) {
-        WebResourceSet resourceSet = null;
-
-        if (archivePath != null) {
-            if (archivePath.toLowerCase(Locale.ENGLISH).endsWith(".jar")) {
-                resourceSet = new BundleJarResourceSet(this, webAppMount, base + archivePath, internalPath);
-            } else {
-                WebResource entry = ((BundleWebResource) this.main).getNamedEntry(archivePath).getKey();
-                if (entry != null) {
-                    resourceSet = new BundleWebResourceSet(entry, this, webAppMount, base + archivePath, internalPath);
-                }
-            }
-
-            if (type.equals(ResourceSetType.CLASSES_JAR) && resourceSet != null) {
-                resourceSet.setClassLoaderOnly(true);
-            }
-        }
-
-        if (resourceSet != null) {
-            switch (type) {
-                case PRE:
-                    addPreResources(resourceSet);
-                    break;
-                case CLASSES_JAR:
-                    addClassResources(resourceSet);
-                    break;
-                case RESOURCE_JAR:
-                    addJarResources(resourceSet);
-                    break;
-                case POST:
-                    addPostResources(resourceSet);
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unable to create WebResourceSet of unknown type [" + type + "].");
-            }
-        }
-    }
-
-    @Override
-    protected String getObjectNameKeyProperties() {
-        StringBuilder keyProperties = new StringBuilder("type=BundleWebResourceRoot");
-        keyProperties.append(getContext().getMBeanKeyProperties());
-
-        return keyProperties.toString();
-    }
-
-    ServiceTracker<?, ?> getUrlConverterTracker() {
-        return this.urlConverterTracker;
-    }
-
-    @Override
-    protected void registerURLStreamHandlerFactory() {
-        // no-op
-    }
-
-    @Override
-    protected WebResourceSet createMainResourceSet() {
-        String docBaseStr = getContext().getDocBase();
-        if (docBaseStr != null) {
-            this.docBase = Paths.get(docBaseStr);
-            if (!this.docBase.isAbsolute()) {
-                this.docBase = Paths.get(((Host) getContext().getParent()).getAppBaseFile().getPath()).resolve(this.docBase);
-            }
-        }
-
-        return new BundleWebResourceSet(this.main, this, "/", this.docBase != null ? this.docBase.toAbsolutePath().toString() : null, "/");
-    }
-
-    private static class BaseLocation {
-
-        private String basePath = "";
-
-        private String archivePath = "";
-
-        BaseLocation(URL url) {
-            String protocol = url.getProtocol();
-            if ("jar".equals(protocol)) {
-                String jarUrl = url.toString();
-                int endOfFileUrl = jarUrl.indexOf("!/");
-                String fileUrl = jarUrl.substring(4, endOfFileUrl);
-                if (fileUrl.startsWith("bundle")) {
-                    URL file = null;
-                    try {
-                        file = new URL(fileUrl);
-                    } catch (MalformedURLException e) {
-                        throw new IllegalArgumentException(e);
-                    }
-                    this.archivePath = file.getFile();
-                    this.basePath = fileUrl.substring(0, fileUrl.indexOf(this.archivePath));
-                }
-            } else if (protocol != null && protocol.startsWith("bundle")) {
-                this.archivePath = url.getFile();
-                String fileUrl = url.toString();
-                this.basePath = fileUrl.substring(0, fileUrl.indexOf(this.archivePath));
-            } else {
-                throw new IllegalArgumentException("The URL protocol [" + protocol + "] is not supported by this web resources implementation");
-            }
-        }
-
-        String getBasePath() {
-            return this.basePath;
-        }
-
-        String getArchivePath() {
-            return this.archivePath;
-        }
-    }
-}
+/*******************************************************************************
+ * Copyright (c) 2015, 2017 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Violeta Georgieva - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.ServletContext;
+
+import org.apache.catalina.Host;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.WebResource;
+import org.apache.catalina.WebResourceSet;
+import org.apache.catalina.webresources.StandardRoot;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileEntry;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.util.tracker.ServiceTracker;
+
+public class BundleWebResourceRoot extends StandardRoot {
+
+    static final String CONTENT_CACHE_MAX_SIZE_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.resources.content.cache.max.size";
+
+    static final String SENDFILE_MIN_SIZE_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.resources.sendfile.min.size";
+
+    private static final long SIZE_NOT_SET = -1L;
+
+    private final Bundle bundle;
+
+    private final WebResource main;
+
+    private final ServiceTracker<?, ?> urlConverterTracker;
+
+    private final BundleListener entryIndexInvalidator = new EntryIndexInvalidator();
+
+    private volatile BundleWebResourceContentCache contentCache;
+
+    private volatile long sendfileMinSize = SIZE_NOT_SET;
+
+    private final Map<String, File> archiveCopies = new HashMap<>();
+
+    private Path docBase;
+
+    public BundleWebResourceRoot(Bundle bundle, ServiceTracker<?, ?> urlConverterTracker) {
+        this.bundle = bundle;
+        this.urlConverterTracker = urlConverterTracker;
+        this.main = new BundleWebResource(this.bundle, this);
+    }
+
+    @Override
+    public void createWebResourceSet(ResourceSetType type, String webAppMount, URL url, String internalPath) {
+        BaseLocation baseLocation = new BaseLocation(url);
+        createWebResourceSet(type, webAppMount, baseLocation.getBasePath(), baseLocation.getArchivePath(), internalPath);
+    }
+
+    @Override
+    public void createWebResourceSet(ResourceSetType type, String webAppMount, String base, String archivePath, String internalPath) {
+        WebResourceSet resourceSet = null;
+
+        if (archivePath != null) {
+            if (archivePath.toLowerCase(Locale.ENGLISH).endsWith(".jar")) {
+                resourceSet = new BundleJarResourceSet(this, webAppMount, base + archivePath, internalPath);
+            } else {
+                WebResource entry = ((BundleWebResource) this.main).getNamedEntry(archivePath);
+                if (entry != null) {
+                    resourceSet = new BundleWebResourceSet(entry, this, webAppMount, base + archivePath, internalPath);
+                }
+            }
+
+            if (type.equals(ResourceSetType.CLASSES_JAR) && resourceSet != null) {
+                resourceSet.setClassLoaderOnly(true);
+            }
+        }
+
+        if (resourceSet != null) {
+            switch (type) {
+                case PRE:
+                    addPreResources(resourceSet);
+                    break;
+                case CLASSES_JAR:
+                    addClassResources(resourceSet);
+                    break;
+                case RESOURCE_JAR:
+                    addJarResources(resourceSet);
+                    break;
+                case POST:
+                    addPostResources(resourceSet);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unable to create WebResourceSet of unknown type [" + type + "].");
+            }
+        }
+    }
+
+    @Override
+    protected void startInternal() throws LifecycleException {
+        BundleContext bundleContext = this.bundle.getBundleContext();
+        if (bundleContext != null) {
+            bundleContext.addBundleListener(this.entryIndexInvalidator);
+        }
+        long contentCacheMaxSize = getSizeProperty(bundleContext, CONTENT_CACHE_MAX_SIZE_PROPERTY_NAME, 0);
+        if (contentCacheMaxSize > 0) {
+            this.contentCache = new BundleWebResourceContentCache(contentCacheMaxSize);
+        }
+        this.sendfileMinSize = getSizeProperty(bundleContext, SENDFILE_MIN_SIZE_PROPERTY_NAME, SIZE_NOT_SET);
+        super.startInternal();
+    }
+
+    @Override
+    protected void stopInternal() throws LifecycleException {
+        super.stopInternal();
+        BundleWebResourceContentCache currentContentCache = this.contentCache;
+        this.contentCache = null;
+        if (currentContentCache != null) {
+            currentContentCache.clear();
+        }
+        BundleContext bundleContext = this.bundle.getBundleContext();
+        if (bundleContext != null) {
+            try {
+                bundleContext.removeBundleListener(this.entryIndexInvalidator);
+            } catch (IllegalStateException e) {
+                // the bundle context is no longer valid, the listener has already been removed by the framework
+            }
+        }
+        // the resource sets have been destroyed and have closed the archives
+        deleteArchiveCopies();
+    }
+
+    /**
+     * Returns a file with the content of the given archive of the bundle, so that the archive can be opened as a
+     * {@link java.util.jar.JarFile} and its entries can be read by random access. If the framework provides the
+     * archive as a file, that file is returned, otherwise the archive is copied into the work directory of the web
+     * application the first time it is requested. Resource sets close their archives when they are garbage collected
+     * and reopen them later, the copy is reused then. Copies are deleted when the root is stopped.
+     *
+     * @param archivePath the path of the archive in the bundle
+     * @return the archive <code>File</code>
+     * @throws IOException if the archive does not exist or cannot be copied
+     */
+    File getArchiveFile(String archivePath) throws IOException {
+        BundleWebResource entry = ((BundleWebResource) this.main).getNamedEntry(archivePath);
+        if (entry == null) {
+            throw new FileNotFoundException("Archive [" + archivePath + "] not found in bundle [" + this.bundle + "].");
+        }
+
+        BundleFileEntry bundleFileEntry = entry.getBundleFileEntry();
+        if (bundleFileEntry != null) {
+            File file = bundleFileEntry.getFile();
+            if (file != null) {
+                return file;
+            }
+        }
+
+        synchronized (this.archiveCopies) {
+            File archiveCopy = this.archiveCopies.get(archivePath);
+            if (archiveCopy != null && archiveCopy.isFile()) {
+                return archiveCopy;
+            }
+            File workDir = getContext() != null ? (File) getContext().getServletContext().getAttribute(ServletContext.TEMPDIR) : null;
+            archiveCopy = File.createTempFile("archive", ".jar", workDir);
+            try (InputStream is = entry.getInputStream()) {
+                if (is == null) {
+                    throw new FileNotFoundException("Archive [" + archivePath + "] cannot be read from bundle [" + this.bundle + "].");
+                }
+                Files.copy(is, archiveCopy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(archiveCopy.toPath());
+                throw e;
+            }
+            this.archiveCopies.put(archivePath, archiveCopy);
+            return archiveCopy;
+        }
+    }
+
+    /**
+     * Deletes the copies of the archives made by {@link #getArchiveFile(String)}. The archives must have been closed.
+     */
+    void deleteArchiveCopies() {
+        synchronized (this.archiveCopies) {
+            for (File archiveCopy : this.archiveCopies.values()) {
+                try {
+                    Files.deleteIfExists(archiveCopy.toPath());
+                } catch (IOException e) {
+                    archiveCopy.deleteOnExit();
+                }
+            }
+            this.archiveCopies.clear();
+        }
+    }
+
+    @Override
+    protected String getObjectNameKeyProperties() {
+        StringBuilder keyProperties = new StringBuilder("type=BundleWebResourceRoot");
+        keyProperties.append(getContext().getMBeanKeyProperties());
+
+        return keyProperties.toString();
+    }
+
+    /**
+     * Returns the size in bytes configured in kilobytes with the given framework property.
+     * <p />
+     * {@value #CONTENT_CACHE_MAX_SIZE_PROPERTY_NAME} is the maximum size of the off-heap content cache of each web
+     * application. It defaults to <code>0</code>, which disables the content cache. The cache keeps the content of the
+     * cached resources in direct memory, so it has to be enabled explicitly, for example with a value like the maximum
+     * size of the resource cache (<code>10240</code>). Cached resources then have no content on the heap and are served
+     * from the cache as a stream. Note that the direct memory of evicted content is freed lazily, when the garbage
+     * collector collects its buffer, so the direct memory used may exceed the maximum size for a while and
+     * <code>-XX:MaxDirectMemorySize</code> should leave room for that.
+     * <p />
+     * {@value #SENDFILE_MIN_SIZE_PROPERTY_NAME} is the minimum size of a file of a bundle installed from an archive to be
+     * exposed through the file the framework extracts it to, so that it can be served with sendfile. Note that such
+     * files then also have a real path. It is not set by default, which keeps files of such bundles without a real path.
+     */
+    private static long getSizeProperty(BundleContext bundleContext, String name, long defaultValue) {
+        String property = bundleContext != null ? bundleContext.getProperty(name) : null;
+        if (property == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(property.trim()) * 1024;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value [" + property + "] for property [" + name + "].", e);
+        }
+    }
+
+    /**
+     * @return the minimum size in bytes of an archived file to be exposed through an extracted file, or <code>-1</code>
+     *         if archived files are not exposed
+     */
+    long getSendfileMinSize() {
+        return this.sendfileMinSize;
+    }
+
+    BundleWebResourceContentCache getContentCache() {
+        return this.contentCache;
+    }
+
+    public long getContentCacheHitCount() {
+        BundleWebResourceContentCache currentContentCache = this.contentCache;
+        return currentContentCache != null ? currentContentCache.getHitCount() : 0;
+    }
+
+    public long getContentCacheMissCount() {
+        BundleWebResourceContentCache currentContentCache = this.contentCache;
+        return currentContentCache != null ? currentContentCache.getMissCount() : 0;
+    }
+
+    public long getContentCacheEvictionCount() {
+        BundleWebResourceContentCache currentContentCache = this.contentCache;
+        return currentContentCache != null ? currentContentCache.getEvictionCount() : 0;
+    }
+
+    public long getContentCacheSize() {
+        BundleWebResourceContentCache currentContentCache = this.contentCache;
+        return currentContentCache != null ? currentContentCache.getSize() : 0;
+    }
+
+    public long getContentCacheMaxSize() {
+        BundleWebResourceContentCache currentContentCache = this.contentCache;
+        return currentContentCache != null ? currentContentCache.getMaxSize() : 0;
+    }
+
+    ServiceTracker<?, ?> getUrlConverterTracker() {
+        return this.urlConverterTracker;
+    }
+
+    @Override
+    protected void registerURLStreamHandlerFactory() {
+        // no-op
+    }
+
+    @Override
+    protected WebResourceSet createMainResourceSet() {
+        String docBaseStr = getContext().getDocBase();
+        if (docBaseStr != null) {
+            this.docBase = Paths.get(docBaseStr);
+            if (!this.docBase.isAbsolute()) {
+                this.docBase = Paths.get(((Host) getContext().getParent()).getAppBaseFile().getPath()).resolve(this.docBase);
+            }
+        }
+
+        return new BundleWebResourceSet(this.main, this, "/", this.docBase != null ? this.docBase.toAbsolutePath().toString() : null, "/");
+    }
+
+    /**
+     * Discards the entry index and the cached content of the web application's bundle when the bundle is updated or
+     * when a fragment is resolved or unresolved, as this may change the set of entries that the bundle provides.
+     */
+    private final class EntryIndexInvalidator implements BundleListener {
+
+        @Override
+        public void bundleChanged(BundleEvent event) {
+            int type = event.getType();
+            if (type != BundleEvent.UPDATED && type != BundleEvent.RESOLVED && type != BundleEvent.UNRESOLVED) {
+                return;
+            }
+
+            Bundle source = event.getBundle();
+            if (source.equals(BundleWebResourceRoot.this.bundle) || isFragment(source)) {
+                ((BundleWebResource) BundleWebResourceRoot.this.main).invalidateEntryIndex();
+                BundleWebResourceContentCache currentContentCache = BundleWebResourceRoot.this.contentCache;
+                if (currentContentCache != null) {
+                    currentContentCache.clear();
+                }
+            }
+        }
+
+        private boolean isFragment(Bundle bundle) {
+            BundleRevision bundleRevision = bundle.adapt(BundleRevision.class);
+            return bundleRevision != null && (bundleRevision.getTypes() & BundleRevision.TYPE_FRAGMENT) != 0;
+        }
+    }
+
+    private static class BaseLocation {
+
+        private String basePath = "";
+
+        private String archivePath = "";
+
+        BaseLocation(URL url) {
+            String protocol = url.getProtocol();
+            if ("jar".equals(protocol)) {
+                String jarUrl = url.toString();
+                int endOfFileUrl = jarUrl.indexOf("!/");
+                String fileUrl = jarUrl.substring(4, endOfFileUrl);
+                if (fileUrl.startsWith("bundle")) {
+                    URL file = null;
+                    try {
+                        file = new URL(fileUrl);
+                    } catch (MalformedURLException e) {
+                        throw new IllegalArgumentException(e);
+                    }
+                    this.archivePath = file.getFile();
+                    this.basePath = fileUrl.substring(0, fileUrl.indexOf(this.archivePath));
+                }
+            } else if (protocol != null && protocol.startsWith("bundle")) {
+                this.archivePath = url.getFile();
+                String fileUrl = url.toString();
+                this.basePath = fileUrl.substring(0, fileUrl.indexOf(this.archivePath));
+            } else {
+                throw new IllegalArgumentException("The URL protocol [" + protocol + "] is not supported by this web resources implementation");
+            }
+        }
+
+        String getBasePath() {
+            return this.basePath;
+        }
+
+        String getArchivePath() {
+            return this.archivePath;
+        }
+    }
+}
@@ -36,6 +36,10 @@ import org.osgi.framework.Bundle;
  */
 class BundleDelegatingClassLoader extends ClassLoader {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     private final ClassLoader bridge;
 
     private final Bundle backingBundle;
@@ -156,4 +160,11 @@ class BundleDelegatingClassLoader extends ClassLoader {
     public Bundle getBundle() {
         return this.backingBundle;
     }
+
+    /**
+     * @return <code>true</code> if this class loader falls back to another class loader
+     */
+    boolean hasFallback() {
+        return this.bridge != null;
+    }
 }
\ No newline at end of file
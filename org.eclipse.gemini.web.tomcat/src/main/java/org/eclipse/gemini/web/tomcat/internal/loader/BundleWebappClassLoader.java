@@ -16,6 +16,7 @@
 
 package org.eclipse.gemini.web.tomcat.internal.loader;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.instrument.ClassFileTransformer;
@@ -23,26 +24,51 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.sql.Driver;
-import java.sql.DriverManager;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.catalina.Context;
 import org.apache.catalina.Lifecycle;
 import org.apache.catalina.LifecycleException;
 import org.apache.catalina.LifecycleListener;
 import org.apache.catalina.LifecycleState;
-import org.apache.tomcat.util.IntrospectionUtils;
+import org.eclipse.gemini.web.tomcat.internal.loader.ResourceLocationCache.ResourceLocation;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileEntry;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolverFactory;
 import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
 import org.osgi.framework.BundleReference;
+import org.osgi.framework.Constants;
+import org.osgi.framework.SynchronousBundleListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle, BundleReference {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private static final int MAX_RESOURCE_LOCATIONS = 4096;
+
+    private static final String BUNDLE_RESOURCE_PROTOCOL = "bundleresource";
+
+    private static final String BUNDLE_ROOT = ".";
+
+    private static final String PATH_SEPARATOR = "/";
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     /**
@@ -53,7 +79,9 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
     /**
      * The delegating class loader for the web application's bundle(s).
      */
-    private final ClassLoader bundleDelegatingClassLoader;
+    private final ChainedClassLoader bundleDelegatingClassLoader;
+
+    private final SynchronousBundleListener lookupCachesInvalidator = new LookupCachesInvalidator();
 
     private final ClassLoaderCustomizer classLoaderCustomizer;
 
@@ -61,15 +89,84 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
 
     private volatile LifecycleState state = LifecycleState.NEW;
 
+    /**
+     * Per class name locks, so that concurrent loads of different classes do not wait for each other. A lock is removed
+     * when the last thread using it releases it, so only the names currently being loaded have a lock.
+     */
+    private final ConcurrentMap<String, ClassLoadingLock> classLoadingLocks = new ConcurrentHashMap<>();
+
+    private final AtomicLong classLoadingLockContentionCount = new AtomicLong();
+
+    private final AtomicLong classLoadingLockWaitTime = new AtomicLong();
+
+    /**
+     * The cache of transformed classes or <code>null</code> if transformed classes are not cached.
+     */
+    private final TransformedClassCache transformedClassCache;
+
+    /**
+     * The profile of the classes to preload or to record or <code>null</code> if classes are not preloaded.
+     */
+    private volatile ClassPreloadProfile classPreloadProfile;
+
+    private final ReferenceCleaner referenceCleaner;
+
+    /**
+     * The cleaner of the bundle's classes once the bundle's revision is discarded or <code>null</code> if they are not
+     * cleared.
+     */
+    private volatile DiscardedRevisionCleaner discardedRevisionCleaner;
+
+    /**
+     * The classes of the web application loaded through this class loader, whose references are cleared when it is
+     * stopped.
+     */
+    private final Set<Class<?>> webApplicationClasses = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+
+    private volatile boolean clearReferencesStatic = false;
+
+    private volatile boolean clearReferencesStopThreads = false;
+
+    private volatile boolean clearReferencesStopTimerThreads = false;
+
+    private volatile boolean clearReferencesRmiTargets = true;
+
+    private final ResourceLocationCache resourceLocationCache = new ResourceLocationCache(MAX_RESOURCE_LOCATIONS);
+
+    private final BundleFileResolver bundleFileResolver = BundleFileResolverFactory.createBundleFileResolver();
+
+    /**
+     * The directories of the bundle's class path that are searched before any JAR of the class path, ending with
+     * {@link #PATH_SEPARATOR} or empty for the root of the bundle.
+     */
+    private final List<String> bundleClassPathDirectories;
+
     // ------------------------------------------------------------------------
     // --- Constructors
     // ------------------------------------------------------------------------
 
     public BundleWebappClassLoader(final Bundle bundle, ClassLoaderCustomizer classLoaderCustomizer) {
+        this(bundle, classLoaderCustomizer, null);
+    }
+
+    /**
+     * Creates a class loader which caches the output of the {@link #addTransformer(ClassFileTransformer) added}
+     * transformers in the given directory, so that classes which have not changed are not transformed again on later
+     * starts.
+     *
+     * @param bundle the web application bundle
+     * @param classLoaderCustomizer the customizer of the class loader
+     * @param transformedClassCacheDirectory the cache directory or <code>null</code> if transformed classes are not
+     *        cached
+     */
+    public BundleWebappClassLoader(final Bundle bundle, ClassLoaderCustomizer classLoaderCustomizer, File transformedClassCacheDirectory) {
         // Make the parent class loader consistent with the parent class loader of all the bundles in the framework.
         super(new URL[0], BundleWebappClassLoader.class.getClassLoader().getParent());
         this.bundle = bundle;
         this.classLoaderCustomizer = classLoaderCustomizer;
+        this.transformedClassCache = transformedClassCacheDirectory == null ? null : new TransformedClassCache(transformedClassCacheDirectory);
+        this.referenceCleaner = new ReferenceCleaner(this, bundle);
+        this.bundleClassPathDirectories = getBundleClassPathDirectories(bundle);
 
         addBundleClassPathURLs(bundle);
 
@@ -91,7 +188,32 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
         } else {
             finalLoaders = loaders;
         }
-        return ChainedClassLoader.create(finalLoaders);
+        return ChainedClassLoader.createWithLookupCaches(finalLoaders);
+    }
+
+    private static List<String> getBundleClassPathDirectories(Bundle bundle) {
+        List<String> directories = new ArrayList<>();
+        String bundleClassPath = bundle.getHeaders().get(Constants.BUNDLE_CLASSPATH);
+        String[] entries = bundleClassPath == null ? new String[] { BUNDLE_ROOT } : bundleClassPath.split(",");
+        for (String entry : entries) {
+            String path = entry.split(";")[0].trim();
+            if (BUNDLE_ROOT.equals(path) || PATH_SEPARATOR.equals(path)) {
+                directories.add("");
+                continue;
+            }
+            if (path.startsWith(PATH_SEPARATOR)) {
+                path = path.substring(1);
+            }
+            if (!path.endsWith(PATH_SEPARATOR)) {
+                path = path + PATH_SEPARATOR;
+            }
+            if (bundle.getEntry(path) == null) {
+                // a JAR, or an entry that is not present, the search order of the resources after it is not known
+                break;
+            }
+            directories.add(path);
+        }
+        return directories;
     }
 
     private void addBundleClassPathURLs(Bundle bundle) {
@@ -110,9 +232,32 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
     // -------------------------------------------------------------------------
 
     public void addTransformer(ClassFileTransformer transformer) {
+        if (this.transformedClassCache != null) {
+            transformer = this.transformedClassCache.wrap(transformer, this.bundle);
+        }
         this.classLoaderCustomizer.addClassFileTransformer(transformer, this.bundle);
     }
 
+    /**
+     * Sets the profile of the classes to preload when this class loader is started or, if the profile has not been
+     * recorded yet, to record the classes loaded in.
+     *
+     * @param classPreloadProfile the profile
+     */
+    void setClassPreloadProfile(ClassPreloadProfile classPreloadProfile) {
+        this.classPreloadProfile = classPreloadProfile;
+    }
+
+    /**
+     * Sets the cleaner which deregisters the JDBC drivers and, if {@link #setClearReferencesStatic(boolean) enabled},
+     * clears the static fields of the bundle's classes once the bundle's revision is discarded.
+     *
+     * @param discardedRevisionCleaner the cleaner
+     */
+    void setDiscardedRevisionCleaner(DiscardedRevisionCleaner discardedRevisionCleaner) {
+        this.discardedRevisionCleaner = discardedRevisionCleaner;
+    }
+
     public ClassLoader getThrowawayClassLoader() {
         return this.classLoaderCustomizer.createThrowawayClassLoader(this.bundle);
     }
@@ -177,7 +322,16 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
      */
     @Override
     public void start() throws LifecycleException {
+        BundleContext bundleContext = this.bundle.getBundleContext();
+        if (bundleContext != null) {
+            bundleContext.addBundleListener(this.lookupCachesInvalidator);
+        }
         this.started = true;
+
+        ClassPreloadProfile profile = this.classPreloadProfile;
+        if (profile != null) {
+            profile.start(this, Runtime.getRuntime().availableProcessors());
+        }
     }
 
     /**
@@ -185,11 +339,25 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
      */
     @Override
     public void stop() throws LifecycleException {
+        ClassPreloadProfile profile = this.classPreloadProfile;
+        if (profile != null) {
+            profile.stop();
+        }
+
         // Clearing references should be done before setting started to
         // false, due to possible side effects
         clearReferences();
 
         this.started = false;
+
+        BundleContext bundleContext = this.bundle.getBundleContext();
+        if (bundleContext != null) {
+            try {
+                bundleContext.removeBundleListener(this.lookupCachesInvalidator);
+            } catch (IllegalStateException e) {
+                // the bundle context is no longer valid, the listener has already been removed by the framework
+            }
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -215,9 +383,7 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
             this.log.debug("getResource(" + name + ")");
         }
 
-        URL url = null;
-
-        url = this.bundleDelegatingClassLoader.getResource(name);
+        URL url = findResourceLocation(name).getUrl();
         if (url != null) {
             return url;
         }
@@ -230,9 +396,61 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
         return null;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A resource that is an entry of the web application's bundle itself is read from the entry directly.
+     */
     @Override
     public InputStream getResourceAsStream(String name) {
-        return this.bundleDelegatingClassLoader.getResourceAsStream(name);
+        ResourceLocation location = findResourceLocation(name);
+        if (location.getEntryPath() != null) {
+            BundleFileEntry entry = this.bundleFileResolver.resolveBundleEntry(this.bundle, location.getEntryPath());
+            if (entry != null) {
+                try {
+                    return entry.getInputStream();
+                } catch (IOException e) {
+                    this.log.debug("Cannot read bundle entry [" + location.getEntryPath() + "], reading [" + location.getUrl() + "]", e);
+                }
+            }
+        }
+        URL url = location.getUrl();
+        if (url == null) {
+            return null;
+        }
+        try {
+            return url.openStream();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private ResourceLocation findResourceLocation(String name) {
+        ResourceLocation location = this.resourceLocationCache.get(name);
+        if (location == null) {
+            URL url = this.bundleDelegatingClassLoader.getResource(name);
+            location = url == null ? ResourceLocationCache.NOT_FOUND : new ResourceLocation(url, findBundleEntryPath(name, url));
+            this.resourceLocationCache.put(name, location);
+        }
+        return location;
+    }
+
+    /**
+     * Finds the bundle entry for a resource the web application's bundle found on its own class path, rather than
+     * through its imports or the other loaders of the chain.
+     */
+    private String findBundleEntryPath(String name, URL url) {
+        if (!BUNDLE_RESOURCE_PROTOCOL.equals(url.getProtocol()) || url.getHost() == null
+            || !url.getHost().startsWith(this.bundle.getBundleId() + ".") || name.startsWith(PATH_SEPARATOR)) {
+            return null;
+        }
+        for (String directory : this.bundleClassPathDirectories) {
+            String entryPath = directory + name;
+            if (this.bundleFileResolver.resolveBundleEntry(this.bundle, entryPath) != null) {
+                return entryPath;
+            }
+        }
+        return null;
     }
 
     /**
@@ -259,6 +477,9 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
      * </ul>
      * If the class was found using the above steps, and the <code>resolve</code> flag is <code>true</code>, this method
      * will then call <code>resolveClass(Class)</code> on the resulting Class object.
+     * <p>
+     * This class loader is parallel capable. A class that is not in the cache is loaded while holding a lock for its
+     * name only, so that threads loading different classes do not wait for each other.
      *
      * @param name Name of the class to be loaded
      * @param resolve If <code>true</code> then resolve the class
@@ -296,26 +517,164 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
             return clazz;
         }
 
+        ClassLoadingLock classLoadingLock = lockClassLoading(name);
+        try {
+            return loadClassFromChain(name, resolve);
+        } finally {
+            unlockClassLoading(name, classLoadingLock);
+        }
+    }
+
+    /**
+     * Acquires the lock for the given class name, recording the time spent waiting if another thread holds it.
+     */
+    private ClassLoadingLock lockClassLoading(String name) {
+        ClassLoadingLock lock;
+        for (;;) {
+            lock = this.classLoadingLocks.get(name);
+            if (lock == null) {
+                ClassLoadingLock newLock = new ClassLoadingLock();
+                lock = this.classLoadingLocks.putIfAbsent(name, newLock);
+                if (lock == null) {
+                    lock = newLock;
+                }
+            }
+            if (lock.retain()) {
+                break;
+            }
+            // the lock has been retired by its last user, remove it in case that user has not done so yet
+            this.classLoadingLocks.remove(name, lock);
+        }
+        if (!lock.tryLock()) {
+            long start = System.nanoTime();
+            lock.lock();
+            this.classLoadingLockContentionCount.incrementAndGet();
+            this.classLoadingLockWaitTime.addAndGet(System.nanoTime() - start);
+        }
+        return lock;
+    }
+
+    private void unlockClassLoading(String name, ClassLoadingLock lock) {
+        lock.unlock();
+        if (lock.release()) {
+            this.classLoadingLocks.remove(name, lock);
+        }
+    }
+
+    private Class<?> loadClassFromChain(String name, boolean resolve) throws ClassNotFoundException {
         // Search the application's bundle
         if (this.log.isDebugEnabled()) {
             this.log.debug("Searching the application's bundle.");
         }
-        try {
-            clazz = this.bundleDelegatingClassLoader.loadClass(name);
-            if (clazz != null) {
-                if (this.log.isDebugEnabled()) {
-                    this.log.debug("Loading class from the delegating classloader.");
-                }
-                if (resolve) {
-                    resolveClass(clazz);
-                }
-                return clazz;
-            }
-        } catch (ClassNotFoundException e) {
-            /* no-op */
+        // the chain's ClassNotFoundException is propagated as is
+        Class<?> clazz = this.bundleDelegatingClassLoader.loadClass(name);
+        if (this.log.isDebugEnabled()) {
+            this.log.debug("Loading class from the delegating classloader.");
+        }
+        if (resolve) {
+            resolveClass(clazz);
+        }
+        if (this.referenceCleaner.isWebApplicationClassLoader(clazz.getClassLoader())) {
+            this.webApplicationClasses.add(clazz);
+        }
+        ClassPreloadProfile profile = this.classPreloadProfile;
+        if (profile != null) {
+            profile.record(name);
+        }
+        return clazz;
+    }
+
+    // -------------------------------------------------------------------------
+    // --- Statistics, exposed through the class loader's MBean
+    // -------------------------------------------------------------------------
+
+    /**
+     * @return the number of classes loaded directly from the loader that served their package before
+     */
+    public long getPackageRouteHitCount() {
+        return this.bundleDelegatingClassLoader.getPackageRouteHitCount();
+    }
+
+    /**
+     * @return the number of classes searched for in the whole class loader chain
+     */
+    public long getPackageRouteMissCount() {
+        return this.bundleDelegatingClassLoader.getPackageRouteMissCount();
+    }
+
+    /**
+     * @return the number of class loads rejected because the class was not found before
+     */
+    public long getNotFoundCacheHitCount() {
+        return this.bundleDelegatingClassLoader.getNotFoundCacheHitCount();
+    }
+
+    /**
+     * @return the number of class names currently remembered as not found
+     */
+    public int getNotFoundCacheSize() {
+        return this.bundleDelegatingClassLoader.getNotFoundCacheSize();
+    }
+
+    /**
+     * @return the number of resource lookups answered from the resource location cache
+     */
+    public long getResourceLocationCacheHitCount() {
+        return this.resourceLocationCache.getHitCount();
+    }
+
+    /**
+     * @return the number of resource lookups that searched the class loader chain
+     */
+    public long getResourceLocationCacheMissCount() {
+        return this.resourceLocationCache.getMissCount();
+    }
+
+    /**
+     * @return the number of times a thread had to wait for another thread loading a class of the same name
+     */
+    public long getClassLoadingLockContentionCount() {
+        return this.classLoadingLockContentionCount.get();
+    }
+
+    /**
+     * @return the total time in milliseconds threads waited for other threads loading a class of the same name
+     */
+    public long getClassLoadingLockWaitTime() {
+        return this.classLoadingLockWaitTime.get() / 1000000L;
+    }
+
+    int getClassLoadingLockCount() {
+        return this.classLoadingLocks.size();
+    }
+
+    /**
+     * @return the ratio of class transformations whose result was taken from the transformed class cache, or
+     *         <code>0</code> if transformed classes are not cached
+     */
+    public double getTransformedClassCacheHitRatio() {
+        if (this.transformedClassCache == null) {
+            return 0;
         }
+        long hits = this.transformedClassCache.getHitCount();
+        long total = hits + this.transformedClassCache.getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
 
-        throw new ClassNotFoundException(name);
+    /**
+     * @return the time in milliseconds the class transformations whose result was taken from the transformed class
+     *         cache took originally
+     */
+    public long getTransformedClassCacheTimeSaved() {
+        return this.transformedClassCache == null ? 0 : this.transformedClassCache.getTimeSaved() / 1000000L;
+    }
+
+    /**
+     * @return the number of classes preloaded from the class preload profile
+     */
+    public int getPreloadedClassCount() {
+        ClassPreloadProfile profile = this.classPreloadProfile;
+        return profile == null ? 0 : profile.getPreloadedClassCount();
     }
 
     // -------------------------------------------------------------------------
@@ -326,32 +685,36 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
      * Clear references.
      */
     private void clearReferences() {
-        // TODO think about more references that have to be cleared
-        // Bug 345938 - BundleWebappClassLoader.clearReferences() - extend current functionality
-
         // Unregister any JDBC drivers loaded by this classloader
-        Enumeration<Driver> drivers = DriverManager.getDrivers();
-        while (drivers.hasMoreElements()) {
-            Driver driver = drivers.nextElement();
-            if (driver.getClass().getClassLoader() == this) {
-                try {
-                    DriverManager.deregisterDriver(driver);
-                } catch (SQLException e) {
-                    this.log.warn("SQL driver deregistration failed.", e);
+        this.referenceCleaner.clearJdbcDrivers();
+
+        // Check for threads started by the web application and not stopped
+        this.referenceCleaner.clearThreads(this.clearReferencesStopThreads, this.clearReferencesStopTimerThreads);
+
+        if (this.clearReferencesRmiTargets) {
+            this.referenceCleaner.clearRmiTargets();
+        }
+
+        this.referenceCleaner.clearIntrospectionCaches(this.webApplicationClasses);
+
+        DiscardedRevisionCleaner cleaner = this.discardedRevisionCleaner;
+        if (cleaner != null) {
+            // The bundle's classes are used again on restart, their drivers and static fields are cleared once they
+            // can no longer be used. The bundle's class loader also defines classes which were never requested from
+            // this class loader.
+            Set<Class<?>> classes = new HashSet<>();
+            for (Class<?> clazz : this.webApplicationClasses) {
+                if (clazz.getClassLoader() != this) {
+                    classes.add(clazz);
                 }
             }
+            classes.addAll(this.referenceCleaner.findLoadedBundleClasses());
+            cleaner.track(this.bundle, classes, this.clearReferencesStatic);
         }
-
-        // XXX Determine if we need to null out static or final fields from loaded classes as in WebappClassLoader
-
-        // Clear the IntrospectionUtils cache.
-        IntrospectionUtils.clear();
+        this.webApplicationClasses.clear();
 
         // Clear the classloader reference in common-logging
         org.apache.juli.logging.LogFactory.release(this);
-
-        // Clear the classloader reference in the VM's bean introspector
-        java.beans.Introspector.flushCaches();
     }
 
     @Override
@@ -359,13 +722,30 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
         return this.bundle;
     }
 
+    /**
+     * Invalidates the lookup caches of the class loader chain and the resource location cache whenever a bundle is
+     * resolved or unresolved, as this changes the wiring of the web application's bundle or may satisfy one of its
+     * dynamic imports.
+     */
+    private final class LookupCachesInvalidator implements SynchronousBundleListener {
+
+        @Override
+        public void bundleChanged(BundleEvent event) {
+            int type = event.getType();
+            if (type == BundleEvent.RESOLVED || type == BundleEvent.UNRESOLVED) {
+                BundleWebappClassLoader.this.bundleDelegatingClassLoader.invalidateLookupCaches();
+                BundleWebappClassLoader.this.resourceLocationCache.clear();
+            }
+        }
+    }
+
     /**
      * Set the clearReferencesStatic feature for this Context.
      *
      * @param clearReferencesStatic The new flag value
      */
     public void setClearReferencesStatic(boolean clearReferencesStatic) {
-        // no-op
+        this.clearReferencesStatic = clearReferencesStatic;
     }
 
     /**
@@ -374,7 +754,7 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
      * @param clearReferencesStopThreads The new flag value
      */
     public void setClearReferencesStopThreads(boolean clearReferencesStopThreads) {
-        // no-op
+        this.clearReferencesStopThreads = clearReferencesStopThreads;
     }
 
     /**
@@ -383,7 +763,7 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
      * @param clearReferencesStopTimerThreads The new flag value
      */
     public void setClearReferencesStopTimerThreads(boolean clearReferencesStopTimerThreads) {
-        // no-op
+        this.clearReferencesStopTimerThreads = clearReferencesStopTimerThreads;
     }
 
     /**
@@ -395,7 +775,47 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
         // no-op
     }
 
+    /**
+     * Set the clearReferencesRmiTargets feature for this Context.
+     *
+     * @param clearReferencesRmiTargets The new flag value
+     */
     public void setClearReferencesRmiTargets(boolean clearReferencesRmiTargets) {
-        // no-op
+        this.clearReferencesRmiTargets = clearReferencesRmiTargets;
+    }
+
+    /**
+     * A class loading lock which counts the threads using it. Once the count drops to zero the lock is retired and can
+     * no longer be retained, so that it can be removed without another thread still locking it.
+     */
+    private static final class ClassLoadingLock extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int RETIRED = -1;
+
+        private final AtomicInteger users = new AtomicInteger();
+
+        /**
+         * @return <code>false</code> if the lock has been retired and must not be used
+         */
+        boolean retain() {
+            for (;;) {
+                int current = this.users.get();
+                if (current == RETIRED) {
+                    return false;
+                }
+                if (this.users.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * @return <code>true</code> if this was the last user and the lock has been retired
+         */
+        boolean release() {
+            return this.users.decrementAndGet() == 0 && this.users.compareAndSet(0, RETIRED);
+        }
     }
 }
@@ -16,23 +16,64 @@
 
 package org.eclipse.gemini.web.tomcat.internal.loader;
 
+import java.io.File;
+
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 import javax.servlet.ServletContext;
 
 import org.apache.catalina.Context;
 import org.apache.catalina.Globals;
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.LifecycleEvent;
 import org.apache.catalina.LifecycleException;
+import org.apache.catalina.LifecycleListener;
 import org.apache.catalina.LifecycleState;
 import org.apache.tomcat.util.ExceptionUtils;
 import org.apache.tomcat.util.modeler.Registry;
 import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class BundleWebappLoader extends BaseWebappLoader {
 
+    /**
+     * Enables caching the output of class file transformers in the work directory of the container, per bundle symbolic
+     * name and version, so that classes which have not changed are not transformed again when the web application is
+     * restarted. Must only be enabled when the transformers' output depends on nothing but their input. The syntax is
+     * <code>org.eclipse.gemini.web.tomcat.classloader.transformer.cache=true|false</code>, the default is
+     * <code>false</code>.
+     */
+    static final String TRANSFORMER_CACHE_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.classloader.transformer.cache";
+
+    private static final String TRANSFORMER_CACHE_DIRECTORY_NAME = "transformed-classes";
+
+    /**
+     * Enables recording the classes a web application loads on its first start and preloading them in the background
+     * on later starts. The profile is kept in the work directory of the container, per bundle symbolic name and version,
+     * as Tomcat deletes the work directory of the web application when it is stopped, and is recorded again when the
+     * bundle's last modified time stamp changes, for example when a <code>SNAPSHOT</code> bundle is updated. The syntax is
+     * <code>org.eclipse.gemini.web.tomcat.classloader.preload.profile=true|false</code>, the default is
+     * <code>false</code>.
+     */
+    static final String PRELOAD_PROFILE_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.classloader.preload.profile";
+
+    /**
+     * The time in seconds classes are still recorded after the web application became available, so that the classes
+     * needed by its first requests are part of the profile. The syntax is
+     * <code>org.eclipse.gemini.web.tomcat.classloader.preload.profile.recording.window=&lt;seconds&gt;</code>, the
+     * default is <code>60</code>.
+     */
+    static final String PRELOAD_PROFILE_RECORDING_WINDOW_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.classloader.preload.profile.recording.window";
+
+    private static final long PRELOAD_PROFILE_RECORDING_WINDOW_DEFAULT = 60;
+
+    private static final String PRELOAD_PROFILE_FILE_NAME = "class-preload.profile";
+
+    private static final String WORK_DIRECTORY_NAME = "work";
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     /**
@@ -42,6 +83,10 @@ public class BundleWebappLoader extends BaseWebappLoader {
 
     private volatile ClassLoaderCustomizer classLoaderCustomizer;
 
+    private final ClassLoaderLeakDetector classLoaderLeakDetector;
+
+    private final DiscardedRevisionCleaner discardedRevisionCleaner;
+
     /**
      * The time stamp which is used to track when the bundle's {@link Bundle#getLastModified() last modified} time stamp
      * was last checked.
@@ -55,14 +100,45 @@ public class BundleWebappLoader extends BaseWebappLoader {
      */
     private BundleWebappClassLoader classLoader = null;
 
+    private volatile ClassPreloadProfile classPreloadProfile;
+
+    private final LifecycleListener contextAvailableListener = new ContextAvailableListener();
+
     // -------------------------------------------------------------------------
     // --- Constructors
     // -------------------------------------------------------------------------
 
     public BundleWebappLoader(Bundle bundle, ClassLoaderCustomizer classLoaderCustomizer) {
+        this(bundle, classLoaderCustomizer, null);
+    }
+
+    /**
+     * Creates a loader whose class loader is tracked by the given leak detector once it is stopped.
+     *
+     * @param bundle the web application bundle
+     * @param classLoaderCustomizer the customizer of the class loader
+     * @param classLoaderLeakDetector the leak detector or <code>null</code> if stopped class loaders are not tracked
+     */
+    public BundleWebappLoader(Bundle bundle, ClassLoaderCustomizer classLoaderCustomizer, ClassLoaderLeakDetector classLoaderLeakDetector) {
+        this(bundle, classLoaderCustomizer, classLoaderLeakDetector, null);
+    }
+
+    /**
+     * Creates a loader whose class loader is tracked by the given leak detector once it is stopped and whose bundle's
+     * classes are cleared by the given cleaner once the bundle's revision is discarded.
+     *
+     * @param bundle the web application bundle
+     * @param classLoaderCustomizer the customizer of the class loader
+     * @param classLoaderLeakDetector the leak detector or <code>null</code> if stopped class loaders are not tracked
+     * @param discardedRevisionCleaner the cleaner or <code>null</code> if the bundle's classes are not cleared
+     */
+    public BundleWebappLoader(Bundle bundle, ClassLoaderCustomizer classLoaderCustomizer, ClassLoaderLeakDetector classLoaderLeakDetector,
+        DiscardedRevisionCleaner discardedRevisionCleaner) {
         this.bundle = bundle;
         this.bundleModificationCheckTimestamp = this.bundle.getLastModified();
         this.classLoaderCustomizer = classLoaderCustomizer;
+        this.classLoaderLeakDetector = classLoaderLeakDetector;
+        this.discardedRevisionCleaner = discardedRevisionCleaner;
     }
 
     // -------------------------------------------------------------------------
@@ -74,7 +150,49 @@ public class BundleWebappLoader extends BaseWebappLoader {
      * @see #getClassLoaderName()
      */
     private BundleWebappClassLoader createClassLoader() {
-        return new BundleWebappClassLoader(this.bundle, this.classLoaderCustomizer);
+        BundleWebappClassLoader bundleWebappClassLoader = new BundleWebappClassLoader(this.bundle, this.classLoaderCustomizer,
+            getTransformedClassCacheDirectory());
+        bundleWebappClassLoader.setDiscardedRevisionCleaner(this.discardedRevisionCleaner);
+        this.classPreloadProfile = createClassPreloadProfile();
+        if (this.classPreloadProfile != null) {
+            bundleWebappClassLoader.setClassPreloadProfile(this.classPreloadProfile);
+            getContext().addLifecycleListener(this.contextAvailableListener);
+        }
+        return bundleWebappClassLoader;
+    }
+
+    private ClassPreloadProfile createClassPreloadProfile() {
+        BundleContext bundleContext = this.bundle.getBundleContext();
+        if (bundleContext == null || !Boolean.parseBoolean(bundleContext.getProperty(PRELOAD_PROFILE_PROPERTY_NAME))) {
+            return null;
+        }
+        long recordingWindow = PRELOAD_PROFILE_RECORDING_WINDOW_DEFAULT;
+        String property = bundleContext.getProperty(PRELOAD_PROFILE_RECORDING_WINDOW_PROPERTY_NAME);
+        if (property != null) {
+            try {
+                recordingWindow = Long.parseLong(property.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value [" + property + "] of property [" + PRELOAD_PROFILE_RECORDING_WINDOW_PROPERTY_NAME + "]", e);
+            }
+        }
+        return new ClassPreloadProfile(new File(getBundleWorkDirectory(), PRELOAD_PROFILE_FILE_NAME), recordingWindow * 1000L,
+            this.bundle.getLastModified());
+    }
+
+    /**
+     * @return the directory of the web application's bundle in the work directory of the container, which, unlike the
+     *         work directory of the web application, survives stopping the web application
+     */
+    private File getBundleWorkDirectory() {
+        return new File(new File(getContext().getCatalinaBase(), WORK_DIRECTORY_NAME), this.bundle.getSymbolicName() + '_' + this.bundle.getVersion());
+    }
+
+    File getTransformedClassCacheDirectory() {
+        BundleContext bundleContext = this.bundle.getBundleContext();
+        if (bundleContext == null || !Boolean.parseBoolean(bundleContext.getProperty(TRANSFORMER_CACHE_PROPERTY_NAME))) {
+            return null;
+        }
+        return new File(getBundleWorkDirectory(), TRANSFORMER_CACHE_DIRECTORY_NAME);
     }
 
     // -------------------------------------------------------------------------
@@ -160,6 +278,11 @@ public class BundleWebappLoader extends BaseWebappLoader {
         ServletContext servletContext = getContext().getServletContext();
         servletContext.removeAttribute(Globals.CLASS_PATH_ATTR);
 
+        if (this.classPreloadProfile != null) {
+            getContext().removeLifecycleListener(this.contextAvailableListener);
+            this.classPreloadProfile = null;
+        }
+
         // Throw away our current class loader
         try {
             this.classLoader.stop();
@@ -169,6 +292,10 @@ public class BundleWebappLoader extends BaseWebappLoader {
 
         unregisterClassLoaderMBean();
 
+        if (this.classLoaderLeakDetector != null) {
+            this.classLoaderLeakDetector.track(this.classLoader, this.bundle, getCatalinaContextPath(getContext()));
+        }
+
         this.classLoader = null;
         this.bundle = null;
         this.classLoaderCustomizer = null;
@@ -193,4 +320,18 @@ public class BundleWebappLoader extends BaseWebappLoader {
             + ",context=" + getCatalinaContextPath(ctx));
     }
 
+    /**
+     * Ends the recording of the class preload profile the recording window after the context became available.
+     */
+    private final class ContextAvailableListener implements LifecycleListener {
+
+        @Override
+        public void lifecycleEvent(LifecycleEvent event) {
+            ClassPreloadProfile profile = BundleWebappLoader.this.classPreloadProfile;
+            if (Lifecycle.AFTER_START_EVENT.equals(event.getType()) && profile != null) {
+                profile.available();
+            }
+        }
+    }
+
 }
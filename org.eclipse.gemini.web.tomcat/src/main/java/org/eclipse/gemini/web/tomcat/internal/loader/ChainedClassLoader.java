@@ -18,6 +18,7 @@ package org.eclipse.gemini.web.tomcat.internal.loader;
 
 import java.io.IOException;
 import java.net.URL;
+import java.security.AccessControlContext;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
@@ -25,23 +26,79 @@ import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleReference;
+import org.osgi.framework.namespace.BundleNamespace;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.framework.wiring.BundleRequirement;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
 
 /**
+ * A class loader that delegates to a list of class loaders in order.
+ * <p />
+ * A chain created with {@link #createWithLookupCaches(ClassLoader...)} additionally remembers, per package, the loader
+ * that first served a class of that package and asks it first, and remembers a bounded number of class names that no
+ * loader could serve, and the result of {@link #getResources(String)} for service provider configuration files under
+ * <code>META-INF/services/</code>. A package is only routed to a loader if the loaders before it in the chain are known
+ * not to serve that package: they must be bundle class loaders whose wiring neither imports the package nor contains
+ * classes of it, and which do not require bundles or import packages dynamically. Split packages therefore keep the
+ * chain's precedence. These caches must be invalidated with {@link #invalidateLookupCaches()} when the wiring of the
+ * backing bundles changes.
+ *
  * <strong>Concurrent Semantics</strong><br />
  *
- * This class is immutable and therefore thread safe.
+ * Thread-safe.
  */
 public final class ChainedClassLoader extends ClassLoader implements BundleReference {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private static final int MAX_NOT_FOUND_CLASS_NAMES = 1024;
+
+    private static final String SERVICES_PREFIX = "META-INF/services/";
+
     /** list of loaders */
     private final List<ClassLoader> loaders;
 
+    private final boolean lookupCaches;
+
+    private final ConcurrentMap<String, ClassLoader> packageLoaders = new ConcurrentHashMap<>();
+
+    private final Set<String> unroutablePackages = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    // looked up with get() so that the access order, and with it the eviction, is least recently used
+    private final Map<String, Boolean> notFoundClassNames = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_NOT_FOUND_CLASS_NAMES;
+        }
+    };
+
+    private final ConcurrentMap<String, List<URL>> serviceResources = new ConcurrentHashMap<>();
+
+    private final AtomicLong packageRouteHitCount = new AtomicLong();
+
+    private final AtomicLong packageRouteMissCount = new AtomicLong();
+
+    private final AtomicLong notFoundCacheHitCount = new AtomicLong();
+
     private Bundle bundle;
 
     /**
@@ -51,6 +108,11 @@ public final class ChainedClassLoader extends ClassLoader implements BundleRefer
      * @param parent parent class loader (can be null)
      */
     ChainedClassLoader(ClassLoader... loaders) {
+        this(false, loaders);
+    }
+
+    private ChainedClassLoader(boolean lookupCaches, ClassLoader... loaders) {
+        this.lookupCaches = lookupCaches;
 
         List<ClassLoader> l = new ArrayList<>();
 
@@ -75,6 +137,23 @@ public final class ChainedClassLoader extends ClassLoader implements BundleRefer
         });
     }
 
+    /**
+     * Creates a chain that caches the loader serving each package and the class names that cannot be loaded.
+     *
+     * @param loaders array of non-null class loaders
+     * @return the chain
+     */
+    static ChainedClassLoader createWithLookupCaches(final ClassLoader... loaders) {
+        return AccessController.doPrivileged(new PrivilegedAction<ChainedClassLoader>() {
+
+            @Override
+            public ChainedClassLoader run() {
+                return new ChainedClassLoader(true, loaders);
+            }
+
+        });
+    }
+
     @Override
     public URL getResource(final String name) {
         if (System.getSecurityManager() != null) {
@@ -116,19 +195,22 @@ public final class ChainedClassLoader extends ClassLoader implements BundleRefer
     }
 
     private Enumeration<URL> doGetResources(String name) throws IOException {
-        Map<String, URL> urls = new HashMap<>();
-        for (ClassLoader loader : this.loaders) {
-            Enumeration<URL> resources = loader.getResources(name);
-            if (resources != null) {
-                while (resources.hasMoreElements()) {
-                    URL url = resources.nextElement();
-                    // We use Map structure and not Set structure, because
-                    // URL#toExternalForm() perform better than URL#equals()
-                    urls.put(url.toExternalForm(), url);
-                }
+        if (this.lookupCaches && name.startsWith(SERVICES_PREFIX)) {
+            List<URL> urls = this.serviceResources.get(name);
+            if (urls == null) {
+                urls = Collections.list(getResourcesFromChain(name));
+                this.serviceResources.put(name, urls);
             }
+            return Collections.enumeration(urls);
         }
-        return Collections.enumeration(urls.values());
+        return getResourcesFromChain(name);
+    }
+
+    private Enumeration<URL> getResourcesFromChain(String name) throws IOException {
+        Iterator<ClassLoader> loaders = this.loaders.iterator();
+        // the first loader is always asked, so it is asked right away and its failure is reported to the caller
+        Enumeration<URL> first = loaders.hasNext() ? loaders.next().getResources(name) : null;
+        return new ChainedResources(name, first, loaders);
     }
 
     private URL doGetResource(String name) {
@@ -163,12 +245,51 @@ public final class ChainedClassLoader extends ClassLoader implements BundleRefer
     }
 
     private Class<?> doLoadClass(String name) throws ClassNotFoundException {
-        Class<?> clazz = null;
+        if (!this.lookupCaches) {
+            return loadClassFromChain(name, null);
+        }
+
+        synchronized (this.notFoundClassNames) {
+            if (this.notFoundClassNames.get(name) != null) {
+                this.notFoundCacheHitCount.incrementAndGet();
+                throw new ClassNotFoundException(name);
+            }
+        }
+
+        String packageName = getPackageName(name);
+        ClassLoader packageLoader = this.packageLoaders.get(packageName);
+        if (packageLoader != null) {
+            try {
+                Class<?> clazz = packageLoader.loadClass(name);
+                this.packageRouteHitCount.incrementAndGet();
+                return clazz;
+            } catch (ClassNotFoundException e) {
+                // the class is not in the package's loader, search the rest of the chain
+            }
+        }
+        this.packageRouteMissCount.incrementAndGet();
 
+        try {
+            return loadClassFromChain(name, packageLoader);
+        } catch (ClassNotFoundException e) {
+            synchronized (this.notFoundClassNames) {
+                this.notFoundClassNames.put(name, Boolean.TRUE);
+            }
+            throw e;
+        }
+    }
+
+    private Class<?> loadClassFromChain(String name, ClassLoader loaderToSkip) throws ClassNotFoundException {
         for (int i = 0; i < this.loaders.size(); i++) {
             ClassLoader loader = this.loaders.get(i);
+            if (loader == loaderToSkip) {
+                continue;
+            }
             try {
-                clazz = loader.loadClass(name);
+                Class<?> clazz = loader.loadClass(name);
+                if (this.lookupCaches) {
+                    routePackage(getPackageName(name), i);
+                }
                 return clazz;
             } catch (ClassNotFoundException e) {
                 // keep moving through the class loaders
@@ -178,6 +299,170 @@ public final class ChainedClassLoader extends ClassLoader implements BundleRefer
         throw new ClassNotFoundException(name);
     }
 
+    private void routePackage(String packageName, int loaderIndex) {
+        if (this.packageLoaders.containsKey(packageName) || this.unroutablePackages.contains(packageName)) {
+            return;
+        }
+        for (int i = 0; i < loaderIndex; i++) {
+            if (!isKnownNotToServe(this.loaders.get(i), packageName)) {
+                this.unroutablePackages.add(packageName);
+                return;
+            }
+        }
+        this.packageLoaders.putIfAbsent(packageName, this.loaders.get(loaderIndex));
+    }
+
+    /**
+     * Returns whether the wiring of the bundle behind the given loader shows that the loader cannot load classes of the
+     * given package. Loaders which are not backed by a bundle alone are never known not to serve a package.
+     */
+    private static boolean isKnownNotToServe(ClassLoader loader, String packageName) {
+        BundleWiring wiring = getWiring(loader);
+        if (wiring == null || !wiring.isInUse() || !wiring.getRequiredWires(BundleNamespace.BUNDLE_NAMESPACE).isEmpty()) {
+            return false;
+        }
+        for (BundleRequirement requirement : wiring.getRequirements(PackageNamespace.PACKAGE_NAMESPACE)) {
+            if (PackageNamespace.RESOLUTION_DYNAMIC.equals(requirement.getDirectives().get(PackageNamespace.REQUIREMENT_RESOLUTION_DIRECTIVE))) {
+                return false;
+            }
+        }
+        for (BundleWire wire : wiring.getRequiredWires(PackageNamespace.PACKAGE_NAMESPACE)) {
+            if (packageName.equals(wire.getCapability().getAttributes().get(PackageNamespace.PACKAGE_NAMESPACE))) {
+                return false;
+            }
+        }
+        return wiring.listResources(packageName.replace('.', '/'), "*.class", BundleWiring.LISTRESOURCES_LOCAL).isEmpty();
+    }
+
+    private static BundleWiring getWiring(ClassLoader loader) {
+        if (loader instanceof BundleDelegatingClassLoader) {
+            BundleDelegatingClassLoader bundleLoader = (BundleDelegatingClassLoader) loader;
+            return bundleLoader.hasFallback() ? null : bundleLoader.getBundle().adapt(BundleWiring.class);
+        }
+        if (loader instanceof BundleReference) {
+            // only the framework's class loader of the bundle is fully described by the bundle's wiring
+            Bundle bundle = ((BundleReference) loader).getBundle();
+            BundleWiring wiring = bundle != null ? bundle.adapt(BundleWiring.class) : null;
+            return wiring != null && wiring.getClassLoader() == loader ? wiring : null;
+        }
+        return null;
+    }
+
+    private static String getPackageName(String className) {
+        int index = className.lastIndexOf('.');
+        return index > 0 ? className.substring(0, index) : "";
+    }
+
+    /**
+     * Discards the loaders remembered per package and the class names that could not be loaded.
+     */
+    void invalidateLookupCaches() {
+        this.packageLoaders.clear();
+        this.unroutablePackages.clear();
+        this.serviceResources.clear();
+        synchronized (this.notFoundClassNames) {
+            this.notFoundClassNames.clear();
+        }
+    }
+
+    long getPackageRouteHitCount() {
+        return this.packageRouteHitCount.get();
+    }
+
+    long getPackageRouteMissCount() {
+        return this.packageRouteMissCount.get();
+    }
+
+    long getNotFoundCacheHitCount() {
+        return this.notFoundCacheHitCount.get();
+    }
+
+    int getNotFoundCacheSize() {
+        synchronized (this.notFoundClassNames) {
+            return this.notFoundClassNames.size();
+        }
+    }
+
+    /**
+     * The resources of all loaders of the chain in chain order, without duplicates. A loader is only asked for its
+     * resources once the resources of the loaders before it are exhausted, and the elements are taken from each loader's
+     * enumeration only as they are requested. A loader after the first that fails to look up the resources is skipped,
+     * as {@link java.net.URLClassLoader} does for the JARs of its class path.
+     */
+    private static final class ChainedResources implements Enumeration<URL> {
+
+        private final String name;
+
+        private final Iterator<ClassLoader> loaders;
+
+        /**
+         * The context to ask the loaders in, if a security manager is installed, as they are asked after
+         * {@link ChainedClassLoader#getResources(String)} returned.
+         */
+        private final AccessControlContext accessControlContext;
+
+        // URL#toExternalForm() performs better than URL#equals()
+        private final Set<String> seen = new HashSet<>();
+
+        private Enumeration<URL> current;
+
+        private URL next;
+
+        ChainedResources(String name, Enumeration<URL> first, Iterator<ClassLoader> loaders) {
+            this.name = name;
+            this.loaders = loaders;
+            this.accessControlContext = System.getSecurityManager() != null ? AccessController.getContext() : null;
+            this.current = first != null ? first : Collections.<URL> emptyEnumeration();
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            while (this.next == null) {
+                while (!this.current.hasMoreElements()) {
+                    if (!this.loaders.hasNext()) {
+                        return false;
+                    }
+                    this.current = getResources(this.loaders.next());
+                }
+                URL url = this.current.nextElement();
+                if (this.seen.add(url.toExternalForm())) {
+                    this.next = url;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public URL nextElement() {
+            if (!hasMoreElements()) {
+                throw new NoSuchElementException();
+            }
+            URL url = this.next;
+            this.next = null;
+            return url;
+        }
+
+        private Enumeration<URL> getResources(final ClassLoader loader) {
+            try {
+                Enumeration<URL> resources;
+                if (this.accessControlContext != null) {
+                    resources = AccessController.doPrivileged(new PrivilegedExceptionAction<Enumeration<URL>>() {
+
+                        @Override
+                        public Enumeration<URL> run() throws IOException {
+                            return loader.getResources(ChainedResources.this.name);
+                        }
+                    }, this.accessControlContext);
+                } else {
+                    resources = loader.getResources(this.name);
+                }
+                return resources != null ? resources : Collections.<URL> emptyEnumeration();
+            } catch (IOException | PrivilegedActionException e) {
+                return Collections.emptyEnumeration();
+            }
+        }
+    }
+
     @Override
     public Bundle getBundle() {
         return this.bundle;
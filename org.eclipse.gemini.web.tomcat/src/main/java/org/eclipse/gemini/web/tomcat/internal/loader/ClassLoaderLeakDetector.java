@@ -0,0 +1,373 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.osgi.framework.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the class loaders of stopped web applications through weak references and reports those which are still
+ * reachable a given time after the web application was stopped, together with the kinds of references found to keep
+ * them reachable. The leaks are logged and exposed through the detector's MBean.
+ * <p />
+ * Class loaders are usually only collected by a collection of the old generation, so a class loader is only reported
+ * once such a collection has happened since its web application was stopped. Until then it is checked again after the
+ * given time.
+ * <p />
+ * The references found are the running threads, timer threads and thread locals of the web application and its JDBC
+ * drivers. A class loader that is reachable although none of these is found is most likely referenced from a static
+ * field or a cache of a class outside the web application, which can only be told apart with a heap dump.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+public final class ClassLoaderLeakDetector {
+
+    /**
+     * The kinds of references that keep the class loader of a stopped web application reachable.
+     */
+    enum Cause {
+        THREAD, TIMER, THREAD_LOCAL, JDBC_DRIVER,
+
+        /**
+         * None of the other kinds of references was found.
+         */
+        UNKNOWN {
+
+            @Override
+            public String toString() {
+                return "unknown (heap dump needed)";
+            }
+        }
+    }
+
+    private static final String THREAD_NAME = "gemini-web-classloader-leak-detector";
+
+    private static final long MIN_RECHECK_DELAY = 100;
+
+    private static final String[] OLD_GENERATION_POOL_NAMES = { "Old", "Tenured" };
+
+    private static final String YOUNG_GENERATION_COLLECTOR_NAME = "Young";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final long delay;
+
+    private final List<TrackedClassLoader> trackedClassLoaders = new CopyOnWriteArrayList<>();
+
+    private final Object monitor = new Object();
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param delay the time in milliseconds after which a stopped class loader that is still reachable is reported
+     */
+    public ClassLoaderLeakDetector(long delay) {
+        this.delay = delay;
+    }
+
+    public void start() {
+        synchronized (this.monitor) {
+            ScheduledThreadPoolExecutor scheduledExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            scheduledExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            this.executor = scheduledExecutor;
+        }
+    }
+
+    public void stop() {
+        synchronized (this.monitor) {
+            if (this.executor != null) {
+                this.executor.shutdownNow();
+                this.executor = null;
+            }
+        }
+        this.trackedClassLoaders.clear();
+    }
+
+    /**
+     * Starts tracking the class loader of a stopped web application.
+     *
+     * @param classLoader the class loader of the web application
+     * @param bundle the web application's bundle
+     * @param contextPath the context path the web application was deployed at
+     */
+    void track(ClassLoader classLoader, Bundle bundle, String contextPath) {
+        TrackedClassLoader trackedClassLoader = new TrackedClassLoader(classLoader, bundle,
+            bundle.getSymbolicName() + ' ' + bundle.getVersion() + " [" + contextPath + "]", getFullCollectionCount());
+        this.trackedClassLoaders.add(trackedClassLoader);
+        schedule(trackedClassLoader, this.delay);
+    }
+
+    private void schedule(final TrackedClassLoader trackedClassLoader, long checkDelay) {
+        synchronized (this.monitor) {
+            if (this.executor != null) {
+                this.executor.schedule(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        if (getFullCollectionCount() > trackedClassLoader.fullCollectionCount) {
+                            check(trackedClassLoader);
+                        } else if (trackedClassLoader.get() != null) {
+                            // the class loader may just not have been collected yet
+                            schedule(trackedClassLoader, Math.max(ClassLoaderLeakDetector.this.delay, MIN_RECHECK_DELAY));
+                        } else {
+                            ClassLoaderLeakDetector.this.trackedClassLoaders.remove(trackedClassLoader);
+                        }
+                    }
+                }, checkDelay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of collections of the old generation, or of all collections if the collectors do not tell
+     * the generations apart.
+     */
+    static long getFullCollectionCount() {
+        long oldGenerationCount = 0;
+        long totalCount = 0;
+        boolean oldGenerationFound = false;
+        for (GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long count = Math.max(garbageCollector.getCollectionCount(), 0);
+            totalCount += count;
+            if (isOldGenerationCollector(garbageCollector)) {
+                oldGenerationFound = true;
+                oldGenerationCount += count;
+            }
+        }
+        return oldGenerationFound ? oldGenerationCount : totalCount;
+    }
+
+    private static boolean isOldGenerationCollector(GarbageCollectorMXBean garbageCollector) {
+        // the young generation collector of G1 also manages the old generation pool
+        if (garbageCollector.getName().contains(YOUNG_GENERATION_COLLECTOR_NAME)) {
+            return false;
+        }
+        for (String poolName : garbageCollector.getMemoryPoolNames()) {
+            for (String oldGenerationPoolName : OLD_GENERATION_POOL_NAMES) {
+                if (poolName.contains(oldGenerationPoolName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of class loaders of stopped web applications that have not been garbage collected yet
+     */
+    public int getTrackedClassLoaderCount() {
+        removeCollected();
+        return this.trackedClassLoaders.size();
+    }
+
+    /**
+     * @return the number of class loaders reported as leaked that have not been garbage collected since
+     */
+    public int getLeakedClassLoaderCount() {
+        return getLeaks().length;
+    }
+
+    /**
+     * @return the class loaders reported as leaked that have not been garbage collected since, with the references
+     *         found to keep them reachable
+     */
+    public String[] getLeaks() {
+        removeCollected();
+        List<String> leaks = new ArrayList<>();
+        for (TrackedClassLoader trackedClassLoader : this.trackedClassLoaders) {
+            String leak = trackedClassLoader.leak;
+            if (leak != null) {
+                leaks.add(leak);
+            }
+        }
+        return leaks.toArray(new String[leaks.size()]);
+    }
+
+    /**
+     * Runs the garbage collector and reports every class loader of a stopped web application that is still reachable,
+     * regardless of how long ago the web application was stopped. The garbage collection is expensive, so this is
+     * meant to be triggered by an administrator.
+     *
+     * @return the class loaders that are still reachable, with the references found to keep them reachable
+     */
+    public String[] findLeaks() {
+        System.gc();
+        List<String> leaks = new ArrayList<>();
+        for (TrackedClassLoader trackedClassLoader : this.trackedClassLoaders) {
+            String leak = check(trackedClassLoader);
+            if (leak != null) {
+                leaks.add(leak);
+            }
+        }
+        return leaks.toArray(new String[leaks.size()]);
+    }
+
+    private String check(TrackedClassLoader trackedClassLoader) {
+        ClassLoader classLoader = trackedClassLoader.get();
+        if (classLoader == null) {
+            this.trackedClassLoaders.remove(trackedClassLoader);
+            return null;
+        }
+        Set<Cause> causes = findCauses(new ReferenceCleaner(classLoader, trackedClassLoader.bundle));
+
+        String leak = trackedClassLoader.description + " stopped at " + new Date(trackedClassLoader.stopTime) + ": " + causes;
+        if (trackedClassLoader.leak == null) {
+            this.log.warn("The class loader of the web application " + trackedClassLoader.description + " is still reachable "
+                + (System.currentTimeMillis() - trackedClassLoader.stopTime) / 1000 + " s after the web application was stopped. Probable causes: "
+                + causes);
+        }
+        trackedClassLoader.leak = leak;
+        return leak;
+    }
+
+    private void removeCollected() {
+        for (TrackedClassLoader trackedClassLoader : this.trackedClassLoaders) {
+            if (trackedClassLoader.get() == null) {
+                this.trackedClassLoaders.remove(trackedClassLoader);
+            }
+        }
+    }
+
+    private Set<Cause> findCauses(ReferenceCleaner referenceCleaner) {
+        Set<Cause> causes = EnumSet.noneOf(Cause.class);
+        for (Thread thread : ReferenceCleaner.getThreads()) {
+            if (thread == null || !thread.isAlive()) {
+                continue;
+            }
+            if (referenceCleaner.isWebApplicationClassLoader(thread.getContextClassLoader())
+                || referenceCleaner.isWebApplicationClassLoader(thread.getClass().getClassLoader())) {
+                causes.add(ReferenceCleaner.TIMER_THREAD_CLASS_NAME.equals(thread.getClass().getName()) ? Cause.TIMER : Cause.THREAD);
+            }
+            if (hasThreadLocalReferences(thread, referenceCleaner)) {
+                causes.add(Cause.THREAD_LOCAL);
+            }
+        }
+
+        Enumeration<Driver> drivers = DriverManager.getDrivers();
+        while (drivers.hasMoreElements()) {
+            if (referenceCleaner.isWebApplicationClassLoader(drivers.nextElement().getClass().getClassLoader())) {
+                causes.add(Cause.JDBC_DRIVER);
+            }
+        }
+
+        if (causes.isEmpty()) {
+            causes.add(Cause.UNKNOWN);
+        }
+        return causes;
+    }
+
+    private boolean hasThreadLocalReferences(Thread thread, ReferenceCleaner referenceCleaner) {
+        try {
+            return hasThreadLocalReferences(thread, "threadLocals", referenceCleaner)
+                || hasThreadLocalReferences(thread, "inheritableThreadLocals", referenceCleaner);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // the thread locals are not accessible on this JVM
+            this.log.trace("Cannot check the thread locals of thread [" + thread.getName() + "]", e);
+            return false;
+        }
+    }
+
+    private static boolean hasThreadLocalReferences(Thread thread, String fieldName, ReferenceCleaner referenceCleaner)
+        throws ReflectiveOperationException {
+        Field mapField = Thread.class.getDeclaredField(fieldName);
+        mapField.setAccessible(true);
+        Object map = mapField.get(thread);
+        if (map == null) {
+            return false;
+        }
+        Field tableField = map.getClass().getDeclaredField("table");
+        tableField.setAccessible(true);
+        Object[] table = (Object[]) tableField.get(map);
+        if (table == null) {
+            return false;
+        }
+        for (Object entry : table) {
+            if (entry == null) {
+                continue;
+            }
+            Object key = ((Reference<?>) entry).get();
+            Field valueField = entry.getClass().getDeclaredField("value");
+            valueField.setAccessible(true);
+            Object value = valueField.get(entry);
+            if (isWebApplicationObject(key, referenceCleaner) || isWebApplicationObject(value, referenceCleaner)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWebApplicationObject(Object object, ReferenceCleaner referenceCleaner) {
+        if (object == null) {
+            return false;
+        }
+        if (object instanceof ClassLoader && referenceCleaner.isWebApplicationClassLoader((ClassLoader) object)) {
+            return true;
+        }
+        Class<?> clazz = object instanceof Class ? (Class<?>) object : object.getClass();
+        return referenceCleaner.isWebApplicationClassLoader(clazz.getClassLoader());
+    }
+
+    private static final class TrackedClassLoader extends WeakReference<ClassLoader> {
+
+        private final Bundle bundle;
+
+        private final String description;
+
+        private final long stopTime = System.currentTimeMillis();
+
+        private final long fullCollectionCount;
+
+        private volatile String leak;
+
+        TrackedClassLoader(ClassLoader classLoader, Bundle bundle, String description, long fullCollectionCount) {
+            super(classLoader);
+            this.bundle = bundle;
+            this.description = description;
+            this.fullCollectionCount = fullCollectionCount;
+        }
+    }
+}
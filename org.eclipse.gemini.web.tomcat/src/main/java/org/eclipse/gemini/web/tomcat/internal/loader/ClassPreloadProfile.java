@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The classes a web application loads while it starts and while it serves its first requests, in the order they were
+ * first loaded.
+ * <p />
+ * If no profile has been persisted yet, the class names are recorded from the first start of the web application until
+ * a given time after it became available, and the profile is persisted then, even if no more classes are loaded, or,
+ * at the latest, when the web application is stopped. Otherwise the recorded classes are loaded in the background, so that they are already loaded when the
+ * web application needs them.
+ * <p />
+ * The profile starts with a header holding the {@link org.osgi.framework.Bundle#getLastModified() last modified} time
+ * stamp of the bundle it was recorded for. A profile recorded for another time stamp, for example before a
+ * <code>SNAPSHOT</code> bundle was updated, is discarded and recorded again.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+final class ClassPreloadProfile {
+
+    private static final String SYSTEM_PACKAGE_PREFIX = "java.";
+
+    private static final int CHUNK_SIZE = 64;
+
+    private static final String PERSIST_THREAD_NAME = "gemini-web-class-preload-profile";
+
+    private static final String HEADER_PREFIX = "#bundle-last-modified=";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final File file;
+
+    private final long recordingWindow;
+
+    private final String header;
+
+    private final Object monitor = new Object();
+
+    /**
+     * Held while the profile is persisted, so that a thread which finds the profile persisted finds it written.
+     */
+    private final Object persistMonitor = new Object();
+
+    private final AtomicInteger preloadedClassCount = new AtomicInteger();
+
+    private volatile boolean recording;
+
+    private volatile long recordingDeadline = Long.MAX_VALUE;
+
+    private Set<String> classNames = new LinkedHashSet<>();
+
+    private ForkJoinPool preloadPool;
+
+    private ScheduledThreadPoolExecutor persistScheduler;
+
+    /**
+     * @param file the file the profile is persisted in
+     * @param recordingWindow the time in milliseconds classes are still recorded after the web application became
+     *        available
+     * @param bundleLastModified the last modified time stamp of the web application's bundle
+     */
+    ClassPreloadProfile(File file, long recordingWindow, long bundleLastModified) {
+        this.file = file;
+        this.recordingWindow = recordingWindow;
+        this.header = HEADER_PREFIX + bundleLastModified;
+    }
+
+    /**
+     * Preloads the classes of the persisted profile through the given class loader in the background or, if no profile
+     * has been persisted yet or it was recorded for another version of the bundle, starts recording the classes loaded.
+     *
+     * @param classLoader the class loader to preload the classes with
+     * @param parallelism the number of threads to preload the classes with
+     */
+    void start(final ClassLoader classLoader, int parallelism) {
+        if (!this.file.isFile()) {
+            this.recording = true;
+            return;
+        }
+
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(this.file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            this.log.warn("Cannot read class preload profile [" + this.file + "]", e);
+            return;
+        }
+        if (lines.isEmpty() || !this.header.equals(lines.get(0))) {
+            this.log.info("Class preload profile [" + this.file + "] is out of date and is recorded again");
+            this.recording = true;
+            return;
+        }
+        List<String> names = lines.subList(1, lines.size());
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        synchronized (this.monitor) {
+            this.preloadPool = pool;
+        }
+        // chunks are submitted in profile order, so that the classes needed first are loaded first
+        for (int i = 0; i < names.size(); i += CHUNK_SIZE) {
+            final List<String> chunk = names.subList(i, Math.min(i + CHUNK_SIZE, names.size()));
+            pool.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    preload(classLoader, chunk);
+                }
+            });
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Stops preloading and recording. A profile recorded until the web application became available is persisted.
+     */
+    void stop() {
+        ForkJoinPool pool;
+        ScheduledThreadPoolExecutor scheduler;
+        synchronized (this.monitor) {
+            pool = this.preloadPool;
+            this.preloadPool = null;
+            scheduler = this.persistScheduler;
+            this.persistScheduler = null;
+        }
+        if (scheduler != null) {
+            // a persist in progress is completed, a scheduled one is cancelled and done below
+            scheduler.shutdown();
+        }
+        if (pool != null) {
+            pool.shutdownNow();
+            try {
+                pool.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (this.recordingDeadline != Long.MAX_VALUE) {
+            persist();
+        }
+        this.recording = false;
+    }
+
+    /**
+     * Notifies the profile that the web application became available, so that recording ends and the profile is
+     * persisted after the recording window.
+     */
+    void available() {
+        if (!this.recording) {
+            return;
+        }
+        this.recordingDeadline = System.currentTimeMillis() + this.recordingWindow;
+
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, PERSIST_THREAD_NAME);
+                thread.setDaemon(true);
+                // the thread must not keep the web application's class loader reachable
+                thread.setContextClassLoader(ClassPreloadProfile.class.getClassLoader());
+                return thread;
+            }
+        });
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        synchronized (this.monitor) {
+            if (this.persistScheduler != null) {
+                this.persistScheduler.shutdown();
+            }
+            this.persistScheduler = scheduler;
+        }
+        scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                persist();
+                scheduler.shutdown();
+            }
+        }, this.recordingWindow, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records that the class with the given name was loaded.
+     *
+     * @param className the name of the class
+     */
+    void record(String className) {
+        if (!this.recording || className.startsWith(SYSTEM_PACKAGE_PREFIX)) {
+            return;
+        }
+        if (System.currentTimeMillis() > this.recordingDeadline) {
+            persist();
+            return;
+        }
+        synchronized (this.monitor) {
+            if (this.classNames != null) {
+                this.classNames.add(className);
+            }
+        }
+    }
+
+    int getPreloadedClassCount() {
+        return this.preloadedClassCount.get();
+    }
+
+    private void preload(ClassLoader classLoader, List<String> names) {
+        for (String name : names) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                Class.forName(name, false, classLoader);
+                this.preloadedClassCount.incrementAndGet();
+            } catch (ClassNotFoundException | LinkageError e) {
+                // the web application has changed since the profile was recorded
+            }
+        }
+    }
+
+    private void persist() {
+        synchronized (this.persistMonitor) {
+            List<String> names;
+            synchronized (this.monitor) {
+                if (this.classNames == null) {
+                    return;
+                }
+                names = new ArrayList<>(this.classNames);
+                this.classNames = null;
+            }
+            this.recording = false;
+
+            try {
+                File parent = this.file.getParentFile();
+                if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+                    throw new IOException("Cannot create directory [" + parent + "]");
+                }
+                File temp = File.createTempFile("profile", ".tmp", parent);
+                try {
+                    try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                        writer.write(this.header);
+                        writer.newLine();
+                        for (String name : names) {
+                            writer.write(name);
+                            writer.newLine();
+                        }
+                    }
+                    Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temp.toPath());
+                }
+            } catch (IOException e) {
+                this.log.warn("Cannot write class preload profile [" + this.file + "]", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.SynchronousBundleListener;
+
+/**
+ * Clears the references to the classes of a stopped web application's bundle once the bundle's revision is discarded,
+ * that is when the bundle is refreshed or uninstalled. Until then the bundle's class loader outlives the web
+ * application and its classes are used again when the web application is restarted, so their static fields must keep
+ * their values and their JDBC drivers must stay registered.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+public final class DiscardedRevisionCleaner {
+
+    private final BundleContext bundleContext;
+
+    private final ConcurrentMap<Bundle, TrackedRevision> trackedRevisions = new ConcurrentHashMap<>();
+
+    private final SynchronousBundleListener revisionDiscardedListener = new RevisionDiscardedListener();
+
+    /**
+     * @param bundleContext the context of a bundle that outlives the web applications
+     */
+    public DiscardedRevisionCleaner(BundleContext bundleContext) {
+        this.bundleContext = bundleContext;
+    }
+
+    public void start() {
+        this.bundleContext.addBundleListener(this.revisionDiscardedListener);
+    }
+
+    public void stop() {
+        try {
+            this.bundleContext.removeBundleListener(this.revisionDiscardedListener);
+        } catch (IllegalStateException e) {
+            // the bundle context is no longer valid, the listener has already been removed by the framework
+        }
+        this.trackedRevisions.clear();
+    }
+
+    /**
+     * Starts tracking the current revision of a stopped web application's bundle, replacing the classes tracked when
+     * the web application was stopped before.
+     *
+     * @param bundle the web application's bundle
+     * @param classes the classes of the bundle loaded by the web application
+     * @param clearStaticReferences whether the static fields of the classes are cleared when the revision is discarded
+     */
+    void track(Bundle bundle, Collection<Class<?>> classes, boolean clearStaticReferences) {
+        this.trackedRevisions.put(bundle, new TrackedRevision(classes, clearStaticReferences));
+    }
+
+    int getTrackedRevisionCount() {
+        return this.trackedRevisions.size();
+    }
+
+    void revisionDiscarded(Bundle bundle) {
+        TrackedRevision trackedRevision = this.trackedRevisions.remove(bundle);
+        if (trackedRevision == null) {
+            return;
+        }
+        // the web application's class loader is gone, only the classes of the bundle's class loader are left
+        ReferenceCleaner referenceCleaner = new ReferenceCleaner(null, bundle);
+        referenceCleaner.clearJdbcDriverRegistrations(trackedRevision.classes);
+        if (trackedRevision.clearStaticReferences) {
+            referenceCleaner.clearStaticReferences(trackedRevision.classes);
+        }
+    }
+
+    private static final class TrackedRevision {
+
+        private final Collection<Class<?>> classes;
+
+        private final boolean clearStaticReferences;
+
+        private TrackedRevision(Collection<Class<?>> classes, boolean clearStaticReferences) {
+            this.classes = new ArrayList<>(classes);
+            this.clearStaticReferences = clearStaticReferences;
+        }
+    }
+
+    private final class RevisionDiscardedListener implements SynchronousBundleListener {
+
+        @Override
+        public void bundleChanged(BundleEvent event) {
+            int type = event.getType();
+            if (type == BundleEvent.UNRESOLVED || type == BundleEvent.UNINSTALLED) {
+                revisionDiscarded(event.getBundle());
+            }
+        }
+    }
+}
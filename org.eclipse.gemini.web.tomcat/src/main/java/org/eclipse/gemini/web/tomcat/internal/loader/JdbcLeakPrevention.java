@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Deregisters the JDBC drivers of a web application. {@link DriverManager} only returns and deregisters the drivers
+ * visible to the class loader of its caller, so this class is not used directly but defined again by a class loader
+ * which sees the web application's drivers, see {@link ReferenceCleaner#clearJdbcDriverRegistrations(Collection)}. It
+ * must therefore only refer to classes of the JDK.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+public final class JdbcLeakPrevention {
+
+    /**
+     * Deregisters the drivers defined by the given class loaders.
+     *
+     * @param classLoaders the class loaders of the web application
+     * @return the class names of the deregistered drivers
+     * @throws SQLException if a driver cannot be deregistered
+     */
+    public List<String> clearJdbcDriverRegistrations(Collection<ClassLoader> classLoaders) throws SQLException {
+        List<String> driverNames = new ArrayList<>();
+        Enumeration<Driver> drivers = DriverManager.getDrivers();
+        while (drivers.hasMoreElements()) {
+            Driver driver = drivers.nextElement();
+            if (classLoaders.contains(driver.getClass().getClassLoader())) {
+                DriverManager.deregisterDriver(driver);
+                driverNames.add(driver.getClass().getName());
+            }
+        }
+        return driverNames;
+    }
+}
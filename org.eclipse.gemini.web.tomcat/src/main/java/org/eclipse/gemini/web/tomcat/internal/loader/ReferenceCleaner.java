@@ -0,0 +1,426 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.beans.Introspector;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.tomcat.util.IntrospectionUtils;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleReference;
+import org.osgi.framework.wiring.BundleWiring;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Clears the references the JVM and the container hold to the classes and the class loaders of a stopped web
+ * application, so that they can be garbage collected. Where a cache can be pruned, only the entries belonging to the web
+ * application are cleared and the entries of the other web applications are left intact.
+ * <p />
+ * A class belongs to the web application if it is defined by the web application's class loader or by the class loader
+ * of the web application's bundle.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+final class ReferenceCleaner {
+
+    static final String TIMER_THREAD_CLASS_NAME = "java.util.TimerThread";
+
+    private static final String THREAD_POOL_WORKER_CLASS_NAME = "java.util.concurrent.ThreadPoolExecutor$Worker";
+
+    private static final String RMI_TARGET_CLASS_NAME = "sun.rmi.transport.Target";
+
+    private static final String RMI_OBJECT_TABLE_CLASS_NAME = "sun.rmi.transport.ObjectTable";
+
+    private static final String SYSTEM_THREAD_GROUP_NAME = "system";
+
+    /**
+     * The public method of the Equinox bundle class loader which returns a class it has loaded, or <code>null</code>.
+     */
+    private static final String FIND_LOADED_METHOD_NAME = "publicFindLoaded";
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private static final String CLEAR_JDBC_DRIVER_REGISTRATIONS_METHOD_NAME = "clearJdbcDriverRegistrations";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final ClassLoader webappClassLoader;
+
+    private final Bundle bundle;
+
+    ReferenceCleaner(ClassLoader webappClassLoader, Bundle bundle) {
+        this.webappClassLoader = webappClassLoader;
+        this.bundle = bundle;
+    }
+
+    /**
+     * @param classLoader a class loader, may be <code>null</code>
+     * @return <code>true</code> if the given class loader is the web application's class loader or the class loader of
+     *         the web application's bundle
+     */
+    boolean isWebApplicationClassLoader(ClassLoader classLoader) {
+        if (classLoader == null) {
+            return false;
+        }
+        if (classLoader == this.webappClassLoader) {
+            return true;
+        }
+        return classLoader instanceof BundleReference && ((BundleReference) classLoader).getBundle() == this.bundle;
+    }
+
+    /**
+     * Deregisters the JDBC drivers defined by the web application's class loader. The drivers of the web application's
+     * bundle are left registered, as the bundle's class loader outlives the web application and the drivers do not
+     * register themselves again when it is restarted, see {@link #clearJdbcDriverRegistrations(Collection)}.
+     */
+    void clearJdbcDrivers() {
+        Enumeration<Driver> drivers = DriverManager.getDrivers();
+        while (drivers.hasMoreElements()) {
+            Driver driver = drivers.nextElement();
+            if (driver.getClass().getClassLoader() == this.webappClassLoader) {
+                try {
+                    DriverManager.deregisterDriver(driver);
+                } catch (SQLException e) {
+                    this.log.warn("SQL driver deregistration failed.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deregisters the JDBC drivers among the given classes. {@link DriverManager} only deregisters the drivers visible
+     * to the class loader of its caller, so {@link JdbcLeakPrevention} is defined again by a class loader which sees the
+     * given classes. Must only be called once the given classes can no longer be used, that is when the revision of the
+     * web application's bundle that defines them is discarded.
+     *
+     * @param classes the classes loaded by the web application
+     */
+    void clearJdbcDriverRegistrations(Collection<Class<?>> classes) {
+        Set<ClassLoader> classLoaders = new HashSet<>();
+        for (Class<?> clazz : classes) {
+            if (Driver.class.isAssignableFrom(clazz)) {
+                classLoaders.add(clazz.getClassLoader());
+            }
+        }
+        if (classLoaders.isEmpty()) {
+            return;
+        }
+        try {
+            Class<?> jdbcLeakPreventionClass = new JdbcLeakPreventionClassLoader(classes).defineJdbcLeakPrevention();
+            Object jdbcLeakPrevention = jdbcLeakPreventionClass.getConstructor().newInstance();
+            @SuppressWarnings("unchecked")
+            List<String> driverNames = (List<String>) jdbcLeakPreventionClass.getMethod(CLEAR_JDBC_DRIVER_REGISTRATIONS_METHOD_NAME,
+                Collection.class).invoke(jdbcLeakPrevention, classLoaders);
+            for (String driverName : driverNames) {
+                this.log.info("Deregistered the JDBC driver [" + driverName + "] of the web application [" + this.bundle.getSymbolicName() + "]");
+            }
+        } catch (IOException | ReflectiveOperationException | RuntimeException | LinkageError e) {
+            this.log.warn("SQL driver deregistration failed.", e);
+        }
+    }
+
+    /**
+     * Removes the given classes and the classes of the web application's bundle which its class loader has already
+     * loaded from the bean introspection cache of the JVM, and the web application's classes from the cache of Tomcat.
+     * The entries of the other web applications and of the container are left intact.
+     *
+     * @param classes the classes loaded by the web application
+     */
+    void clearIntrospectionCaches(Collection<Class<?>> classes) {
+        for (Class<?> clazz : classes) {
+            Introspector.flushFromCaches(clazz);
+        }
+        for (Class<?> clazz : findLoadedBundleClasses()) {
+            Introspector.flushFromCaches(clazz);
+        }
+
+        try {
+            Field objectMethodsField = IntrospectionUtils.class.getDeclaredField("objectMethods");
+            objectMethodsField.setAccessible(true);
+            Map<?, ?> objectMethods = (Map<?, ?>) objectMethodsField.get(null);
+            synchronized (objectMethods) {
+                Iterator<?> keys = objectMethods.keySet().iterator();
+                while (keys.hasNext()) {
+                    if (isWebApplicationClassLoader(((Class<?>) keys.next()).getClassLoader())) {
+                        keys.remove();
+                    }
+                }
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            this.log.debug("Cannot clear the IntrospectionUtils cache selectively, clearing it completely.", e);
+            IntrospectionUtils.clear();
+        }
+    }
+
+    /**
+     * Sets the static fields of the given classes which are neither final nor of a primitive type to <code>null</code>.
+     *
+     * @param classes the classes loaded by the web application
+     */
+    void clearStaticReferences(Collection<Class<?>> classes) {
+        for (Class<?> clazz : classes) {
+            try {
+                for (Field field : clazz.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && !field.getType().isPrimitive()) {
+                        field.setAccessible(true);
+                        field.set(null, null);
+                    }
+                }
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                this.log.debug("Cannot clear the static fields of class [" + clazz.getName() + "]", e);
+            }
+        }
+    }
+
+    /**
+     * Finds the classes of the web application's bundle which its class loader has already loaded, including those loaded
+     * implicitly through the bundle's wiring. No class is loaded by doing so.
+     *
+     * @return the loaded classes, empty if the bundle's class loader does not allow to find them
+     */
+    Collection<Class<?>> findLoadedBundleClasses() {
+        BundleWiring bundleWiring = this.bundle.adapt(BundleWiring.class);
+        ClassLoader bundleClassLoader = bundleWiring == null ? null : bundleWiring.getClassLoader();
+        if (bundleClassLoader == null) {
+            return Collections.emptyList();
+        }
+        Method findLoadedMethod;
+        try {
+            findLoadedMethod = bundleClassLoader.getClass().getMethod(FIND_LOADED_METHOD_NAME, String.class);
+        } catch (NoSuchMethodException e) {
+            this.log.debug("Cannot find the loaded classes of the web application [" + this.bundle.getSymbolicName() + "]", e);
+            return Collections.emptyList();
+        }
+
+        Collection<Class<?>> classes = new ArrayList<>();
+        for (String resource : bundleWiring.listResources("/", "*" + CLASS_FILE_SUFFIX,
+            BundleWiring.LISTRESOURCES_LOCAL | BundleWiring.LISTRESOURCES_RECURSE)) {
+            String className = resource.substring(0, resource.length() - CLASS_FILE_SUFFIX.length()).replace('/', '.');
+            try {
+                Object clazz = findLoadedMethod.invoke(bundleClassLoader, className);
+                if (clazz instanceof Class) {
+                    classes.add((Class<?>) clazz);
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                this.log.debug("Cannot find the loaded class [" + className + "]", e);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Checks for threads started by the web application that are still running and stops them if requested.
+     *
+     * @param stopThreads whether to stop the threads, thread pools are shut down instead
+     * @param stopTimerThreads whether to cancel the tasks of {@link java.util.Timer} threads
+     */
+    void clearThreads(boolean stopThreads, boolean stopTimerThreads) {
+        for (Thread thread : getThreads()) {
+            if (thread == null || thread == Thread.currentThread() || !thread.isAlive()
+                || !isWebApplicationClassLoader(thread.getContextClassLoader())) {
+                continue;
+            }
+            ThreadGroup threadGroup = thread.getThreadGroup();
+            if (threadGroup != null && SYSTEM_THREAD_GROUP_NAME.equals(threadGroup.getName())) {
+                continue;
+            }
+
+            if (TIMER_THREAD_CLASS_NAME.equals(thread.getClass().getName())) {
+                if (stopTimerThreads) {
+                    stopTimerThread(thread);
+                } else {
+                    this.log.warn("The web application [" + this.bundle.getSymbolicName() + "] appears to have started a TimerThread named ["
+                        + thread.getName() + "] but has failed to stop it.");
+                }
+                continue;
+            }
+
+            this.log.warn("The web application [" + this.bundle.getSymbolicName() + "] appears to have started a thread named ["
+                + thread.getName() + "] but has failed to stop it.");
+            if (stopThreads) {
+                stopThread(thread);
+            }
+        }
+    }
+
+    /**
+     * Unexports the RMI objects whose context class loader is the web application's class loader.
+     */
+    void clearRmiTargets() {
+        try {
+            Field cclField = Class.forName(RMI_TARGET_CLASS_NAME).getDeclaredField("ccl");
+            cclField.setAccessible(true);
+            Class<?> objectTableClass = Class.forName(RMI_OBJECT_TABLE_CLASS_NAME);
+            clearRmiTargets(objectTableClass, "objTable", cclField);
+            clearRmiTargets(objectTableClass, "implTable", cclField);
+        } catch (ClassNotFoundException e) {
+            this.log.debug("RMI targets cannot be cleared on this JVM.", e);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            this.log.warn("Cannot clear the RMI targets of the web application [" + this.bundle.getSymbolicName() + "]", e);
+        }
+    }
+
+    private void clearRmiTargets(Class<?> objectTableClass, String tableName, Field cclField) throws ReflectiveOperationException {
+        Field tableField = objectTableClass.getDeclaredField(tableName);
+        tableField.setAccessible(true);
+        Map<?, ?> table = (Map<?, ?>) tableField.get(null);
+        if (table == null) {
+            return;
+        }
+        synchronized (table) {
+            Iterator<?> targets = table.values().iterator();
+            while (targets.hasNext()) {
+                if (isWebApplicationClassLoader((ClassLoader) cclField.get(targets.next()))) {
+                    targets.remove();
+                }
+            }
+        }
+    }
+
+    private void stopTimerThread(Thread thread) {
+        try {
+            Field queueField = thread.getClass().getDeclaredField("queue");
+            queueField.setAccessible(true);
+            Object queue = queueField.get(thread);
+            Field newTasksMayBeScheduledField = thread.getClass().getDeclaredField("newTasksMayBeScheduled");
+            newTasksMayBeScheduledField.setAccessible(true);
+            Method clearMethod = queue.getClass().getDeclaredMethod("clear");
+            clearMethod.setAccessible(true);
+            synchronized (queue) {
+                newTasksMayBeScheduledField.setBoolean(thread, false);
+                clearMethod.invoke(queue);
+                queue.notify();
+            }
+            this.log.info("Stopped the TimerThread named [" + thread.getName() + "] of the web application [" + this.bundle.getSymbolicName() + "]");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            this.log.warn("Cannot stop the TimerThread named [" + thread.getName() + "] of the web application [" + this.bundle.getSymbolicName() + "]",
+                e);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void stopThread(Thread thread) {
+        ThreadPoolExecutor executor = getThreadPoolExecutor(thread);
+        if (executor != null) {
+            executor.shutdownNow();
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.stop();
+        } catch (RuntimeException e) {
+            // Thread.stop() is not supported on this JVM, interrupting is all that can be done
+            this.log.debug("Cannot stop the thread named [" + thread.getName() + "]", e);
+        }
+    }
+
+    private ThreadPoolExecutor getThreadPoolExecutor(Thread thread) {
+        try {
+            Field targetField = Thread.class.getDeclaredField("target");
+            targetField.setAccessible(true);
+            Object target = targetField.get(thread);
+            if (target != null && THREAD_POOL_WORKER_CLASS_NAME.equals(target.getClass().getName())) {
+                Field executorField = target.getClass().getDeclaredField("this$0");
+                executorField.setAccessible(true);
+                Object executor = executorField.get(target);
+                if (executor instanceof ThreadPoolExecutor) {
+                    return (ThreadPoolExecutor) executor;
+                }
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            this.log.debug("Cannot determine whether the thread named [" + thread.getName() + "] belongs to a thread pool", e);
+        }
+        return null;
+    }
+
+    static Thread[] getThreads() {
+        ThreadGroup root = Thread.currentThread().getThreadGroup();
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        Thread[] threads = new Thread[root.activeCount() + 16];
+        int count;
+        while ((count = root.enumerate(threads)) == threads.length) {
+            threads = new Thread[threads.length * 2];
+        }
+        Thread[] result = new Thread[count];
+        System.arraycopy(threads, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Defines {@link JdbcLeakPrevention} again, so that the JDBC drivers among the given classes are visible to it. The
+     * given classes are found by their name, any other class is loaded by the class loader of {@link DriverManager}.
+     */
+    private static final class JdbcLeakPreventionClassLoader extends ClassLoader {
+
+        private final Map<String, Class<?>> classes = new HashMap<>();
+
+        JdbcLeakPreventionClassLoader(Collection<Class<?>> classes) {
+            super(DriverManager.class.getClassLoader());
+            for (Class<?> clazz : classes) {
+                this.classes.put(clazz.getName(), clazz);
+            }
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            Class<?> clazz = this.classes.get(name);
+            return clazz != null ? clazz : super.loadClass(name, resolve);
+        }
+
+        Class<?> defineJdbcLeakPrevention() throws IOException {
+            String resourceName = JdbcLeakPrevention.class.getName().replace('.', '/') + CLASS_FILE_SUFFIX;
+            ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+            try (InputStream inputStream = ReferenceCleaner.class.getClassLoader().getResourceAsStream(resourceName)) {
+                if (inputStream == null) {
+                    throw new IOException("Cannot find [" + resourceName + "]");
+                }
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    classBytes.write(buffer, 0, read);
+                }
+            }
+            return defineClass(JdbcLeakPrevention.class.getName(), classBytes.toByteArray(), 0, classBytes.size(),
+                ReferenceCleaner.class.getProtectionDomain());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of where the resources of a web application were found, including the resources that were not
+ * found. The least recently used locations are evicted first. The cache must be cleared when the wiring of the web
+ * application's bundle changes.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+final class ResourceLocationCache {
+
+    /**
+     * The location of a resource that was not found.
+     */
+    static final ResourceLocation NOT_FOUND = new ResourceLocation(null, null);
+
+    private final Map<String, ResourceLocation> locations;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    ResourceLocationCache(final int maxSize) {
+        this.locations = new LinkedHashMap<String, ResourceLocation>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ResourceLocation> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param name the name of the resource
+     * @return the cached location or <code>null</code> if the location of the resource is not cached
+     */
+    ResourceLocation get(String name) {
+        ResourceLocation location;
+        synchronized (this.locations) {
+            location = this.locations.get(name);
+        }
+        if (location == null) {
+            this.missCount.incrementAndGet();
+        } else {
+            this.hitCount.incrementAndGet();
+        }
+        return location;
+    }
+
+    void put(String name, ResourceLocation location) {
+        synchronized (this.locations) {
+            this.locations.put(name, location);
+        }
+    }
+
+    void clear() {
+        synchronized (this.locations) {
+            this.locations.clear();
+        }
+    }
+
+    long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * Where a resource was found: its <code>URL</code> and, if the resource is an entry of the web application's bundle
+     * itself, the path of the entry, so that it can be read without going through the <code>URL</code>.
+     */
+    static final class ResourceLocation {
+
+        private final URL url;
+
+        private final String entryPath;
+
+        ResourceLocation(URL url, String entryPath) {
+            this.url = url;
+            this.entryPath = entryPath;
+        }
+
+        /**
+         * @return the <code>URL</code> of the resource or <code>null</code> if it was not found
+         */
+        URL getUrl() {
+            return this.url;
+        }
+
+        /**
+         * @return the path of the bundle entry or <code>null</code> if the resource is not an entry of the bundle
+         */
+        String getEntryPath() {
+            return this.entryPath;
+        }
+    }
+}
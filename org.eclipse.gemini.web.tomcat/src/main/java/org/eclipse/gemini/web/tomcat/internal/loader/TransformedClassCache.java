@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.ProtectionDomain;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.catalina.startup.ExpandWar;
+import org.apache.tomcat.util.buf.HexUtils;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A content-addressed disk cache of the output of {@link ClassFileTransformer}s, so that classes which have not changed
+ * are not transformed again when a web application is restarted. An entry is keyed by a digest of the transformer's
+ * class and version, the web application bundle's revision, the class name and the original class bytes. The time an
+ * entry took to produce is stored with it and counted as saved whenever the entry is used.
+ * <p />
+ * The entries of each bundle revision are kept in a directory of their own. When a bundle revision is seen for the first
+ * time, the directories of all other revisions are deleted, so that an updated bundle does not leave the classes of its
+ * previous revisions behind.
+ * <p />
+ * A transformer whose result is taken from the cache is not called, so the cache must only be used with transformers
+ * whose output depends on nothing but their input.
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Thread-safe.
+ */
+final class TransformedClassCache {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final String ENTRY_SUFFIX = ".class";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final File directory;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong timeSaved = new AtomicLong();
+
+    private final Object monitor = new Object();
+
+    private String currentRevision;
+
+    TransformedClassCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Wraps the given transformer so that its output for the classes of the given bundle is taken from, and added to,
+     * this cache.
+     *
+     * @param transformer the transformer to wrap
+     * @param bundle the bundle whose classes are transformed
+     * @return the caching transformer
+     */
+    ClassFileTransformer wrap(ClassFileTransformer transformer, Bundle bundle) {
+        String bundleRevision = getBundleRevision(bundle);
+        File revisionDirectory = new File(this.directory, digest(bundleRevision));
+        deleteOtherRevisions(bundleRevision, revisionDirectory);
+        return new CachingClassFileTransformer(transformer, revisionDirectory, getTransformerIdentity(transformer) + '|' + bundleRevision);
+    }
+
+    long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * @return the time, in nanoseconds, the transformations whose results were taken from the cache took originally
+     */
+    long getTimeSaved() {
+        return this.timeSaved.get();
+    }
+
+    private void deleteOtherRevisions(String bundleRevision, File revisionDirectory) {
+        synchronized (this.monitor) {
+            if (bundleRevision.equals(this.currentRevision)) {
+                return;
+            }
+            this.currentRevision = bundleRevision;
+        }
+        File[] files = this.directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.equals(revisionDirectory) && !ExpandWar.delete(file, false)) {
+                this.log.warn("Cannot delete stale transformed class cache entries [" + file + "]");
+            }
+        }
+    }
+
+    private byte[] transform(ClassFileTransformer transformer, File revisionDirectory, String scope, ClassLoader loader, String className,
+        ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+        File entry = new File(revisionDirectory, getKey(scope, className, classfileBuffer) + ENTRY_SUFFIX);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entry)))) {
+            long transformationTime = in.readLong();
+            byte[] result = null;
+            if (in.readBoolean()) {
+                result = new byte[in.readInt()];
+                in.readFully(result);
+            }
+            this.hitCount.incrementAndGet();
+            this.timeSaved.addAndGet(transformationTime);
+            return result;
+        } catch (FileNotFoundException e) {
+            // not cached yet
+        } catch (IOException e) {
+            this.log.warn("Cannot read transformed class cache entry [" + entry + "] of class [" + className + "]", e);
+        }
+
+        this.missCount.incrementAndGet();
+        long start = System.nanoTime();
+        byte[] result = transformer.transform(loader, className, null, protectionDomain, classfileBuffer);
+        store(revisionDirectory, entry, System.nanoTime() - start, result);
+        return result;
+    }
+
+    private void store(File revisionDirectory, File entry, long transformationTime, byte[] result) {
+        try {
+            if (!revisionDirectory.isDirectory() && !revisionDirectory.mkdirs() && !revisionDirectory.isDirectory()) {
+                throw new IOException("Cannot create directory [" + revisionDirectory + "]");
+            }
+            File temp = File.createTempFile("transform", ".tmp", revisionDirectory);
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                    out.writeLong(transformationTime);
+                    out.writeBoolean(result != null);
+                    if (result != null) {
+                        out.writeInt(result.length);
+                        out.write(result);
+                    }
+                }
+                try {
+                    Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+        } catch (IOException e) {
+            this.log.warn("Cannot write transformed class cache entry [" + entry + "]", e);
+        }
+    }
+
+    private static String getKey(String scope, String className, byte[] classfileBuffer) {
+        MessageDigest digest = createDigest();
+        digest.update(scope.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(String.valueOf(className).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(classfileBuffer);
+        return HexUtils.toHexString(digest.digest());
+    }
+
+    private static String digest(String value) {
+        return HexUtils.toHexString(createDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String getTransformerIdentity(ClassFileTransformer transformer) {
+        Class<?> transformerClass = transformer.getClass();
+        String version = null;
+        ClassLoader classLoader = transformerClass.getClassLoader();
+        if (classLoader instanceof BundleReference && ((BundleReference) classLoader).getBundle() != null) {
+            Bundle transformerBundle = ((BundleReference) classLoader).getBundle();
+            version = transformerBundle.getSymbolicName() + '_' + transformerBundle.getVersion() + '_' + transformerBundle.getLastModified();
+        } else if (transformerClass.getPackage() != null) {
+            version = transformerClass.getPackage().getImplementationVersion();
+        }
+        return transformerClass.getName() + '_' + version;
+    }
+
+    private static String getBundleRevision(Bundle bundle) {
+        return bundle.getSymbolicName() + '_' + bundle.getVersion() + '_' + bundle.getLastModified();
+    }
+
+    private final class CachingClassFileTransformer implements ClassFileTransformer {
+
+        private final ClassFileTransformer transformer;
+
+        private final File revisionDirectory;
+
+        private final String scope;
+
+        CachingClassFileTransformer(ClassFileTransformer transformer, File revisionDirectory, String scope) {
+            this.transformer = transformer;
+            this.revisionDirectory = revisionDirectory;
+            this.scope = scope;
+        }
+
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain,
+            byte[] classfileBuffer) throws IllegalClassFormatException {
+            if (classBeingRedefined != null) {
+                return this.transformer.transform(loader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+            }
+            return TransformedClassCache.this.transform(this.transformer, this.revisionDirectory, this.scope, loader, className,
+                protectionDomain, classfileBuffer);
+        }
+    }
+}
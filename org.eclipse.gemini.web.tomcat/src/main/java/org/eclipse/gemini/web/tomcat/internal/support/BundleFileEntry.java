@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An entry of the content a {@link org.osgi.framework.Bundle Bundle} is being loaded from, read directly without going
+ * through the framework's entry <code>URL</code> handlers.
+ *
+ * @see BundleFileResolver#resolveBundleEntry(org.osgi.framework.Bundle, String)
+ */
+public interface BundleFileEntry {
+
+    /**
+     * @return the size of the entry in bytes
+     */
+    long getSize();
+
+    /**
+     * @return the time the entry was last modified, in milliseconds since the epoch
+     */
+    long getLastModified();
+
+    /**
+     * Opens a new stream on the content of the entry.
+     *
+     * @return the <code>InputStream</code>
+     * @throws IOException if the content cannot be read
+     */
+    InputStream getInputStream() throws IOException;
+
+    /**
+     * Returns a file holding the content of the entry. For a bundle installed from a directory this is the entry
+     * itself, for a bundle installed from an archive the framework may extract the entry into its storage area first.
+     *
+     * @return the <code>File</code> or <code>null</code> if the content is not available as a file
+     */
+    File getFile();
+}
@@ -44,4 +44,14 @@ public interface BundleFileResolver {
      * @return the size of the specified bundle entry from the given bundle, or -1 if it cannot be determined.
      */
     long resolveBundleEntrySize(Bundle bundle, String path);
+
+    /**
+     * Attempts to resolve the specified bundle entry from the given bundle, so that its attributes and content can be
+     * read without opening a <code>URLConnection</code>.
+     * 
+     * @param bundle the bundle that contains the specified bundle entry.
+     * @param path the specified bundle entry.
+     * @return the bundle entry, or <code>null</code> if it cannot be resolved.
+     */
+    BundleFileEntry resolveBundleEntry(Bundle bundle, String path);
 }
@@ -45,5 +45,10 @@ public final class BundleFileResolverFactory {
             return -1L;
         }
 
+        @Override
+        public BundleFileEntry resolveBundleEntry(Bundle bundle, String path) {
+            return null;
+        }
+
     }
 }
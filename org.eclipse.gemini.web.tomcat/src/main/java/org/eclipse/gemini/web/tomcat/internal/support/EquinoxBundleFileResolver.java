@@ -17,6 +17,8 @@
 package org.eclipse.gemini.web.tomcat.internal.support;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 
 import org.eclipse.osgi.internal.framework.EquinoxBundle;
 import org.eclipse.osgi.storage.BundleInfo.Generation;
@@ -55,6 +57,18 @@ final class EquinoxBundleFileResolver implements BundleFileResolver {
         return -1L;
     }
 
+    @Override
+    public BundleFileEntry resolveBundleEntry(Bundle bundle, String path) {
+        BundleFile bundleFile = getBundleFile(bundle);
+        if (bundleFile != null) {
+            BundleEntry bundleEntry = bundleFile.getEntry(path);
+            if (bundleEntry != null) {
+                return new EquinoxBundleFileEntry(bundleFile, bundleEntry);
+            }
+        }
+        return null;
+    }
+
     public static boolean canUse() {
         try {
             EquinoxBundleFileResolver.class.getClassLoader().loadClass(EquinoxBundle.class.getName());
@@ -72,4 +86,36 @@ final class EquinoxBundleFileResolver implements BundleFileResolver {
         }
         return null;
     }
+
+    private static final class EquinoxBundleFileEntry implements BundleFileEntry {
+
+        private final BundleFile bundleFile;
+
+        private final BundleEntry bundleEntry;
+
+        EquinoxBundleFileEntry(BundleFile bundleFile, BundleEntry bundleEntry) {
+            this.bundleFile = bundleFile;
+            this.bundleEntry = bundleEntry;
+        }
+
+        @Override
+        public long getSize() {
+            return this.bundleEntry.getSize();
+        }
+
+        @Override
+        public long getLastModified() {
+            return this.bundleEntry.getTime();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return this.bundleEntry.getInputStream();
+        }
+
+        @Override
+        public File getFile() {
+            return this.bundleFile.getFile(this.bundleEntry.getName(), false);
+        }
+    }
 }
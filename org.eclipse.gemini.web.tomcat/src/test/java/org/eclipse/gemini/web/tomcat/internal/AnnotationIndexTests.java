@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.ServletContainerInitializer;
+import javax.servlet.annotation.WebListener;
+
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.Test;
+
+public class AnnotationIndexTests {
+
+    private static final String INDEX = "gemini-web-annotation-index\t1\n" //
+        + "L\tWEB-INF/classes\t-1\n" //
+        + "C\ta/Plain.class\t100\t33\ta/Plain\tjava/lang/Object\t-\t-\n" //
+        + "C\ta/Listener.class\t200\t33\ta/Listener\tjava/lang/Object\tjava/util/EventListener\tjavax/servlet/annotation/WebListener\n" //
+        + "C\ta/Runner.class\t300\t33\ta/Runner\ta/Plain\tjava/lang/Runnable\t-\n" //
+        + "C\ta/Servlet.class\t400\t33\ta/Servlet\tjavax/servlet/http/HttpServlet\t-\t-\n" //
+        + "L\tWEB-INF/lib/lib.jar\t1000\n" //
+        + "C\tb/Marked.class\t500\t33\tb/Marked\tjava/lang/Object\t-\tjava/lang/Deprecated\n";
+
+    @Test
+    public void testWithoutHandledTypes() throws IOException {
+        AnnotationIndex index = read(INDEX);
+        index.setHandledTypes(Collections.<Class<?>, Set<ServletContainerInitializer>> emptyMap());
+
+        assertTrue(index.canSkip(AnnotationIndex.CLASSES_LOCATION, "a/Plain.class", 100));
+        assertFalse(index.canSkip(AnnotationIndex.CLASSES_LOCATION, "a/Plain.class", 101));
+        assertFalse(index.canSkip(AnnotationIndex.CLASSES_LOCATION, "a/Missing.class", 100));
+        assertFalse(index.canSkip(AnnotationIndex.CLASSES_LOCATION, "a/Listener.class", 200));
+        assertTrue(index.canSkip(AnnotationIndex.CLASSES_LOCATION, "a/Servlet.class", 400));
+        assertTrue(index.canSkip("WEB-INF/lib/lib.jar", "b/Marked.class", -1));
+        assertFalse(index.canSkip("WEB-INF/lib/other.jar", "b/Marked.class", -1));
+    }
+
+    @Test
+    public void testWithHandledTypes() throws IOException {
+        AnnotationIndex index = read(INDEX);
+        Map<Class<?>, Set<ServletContainerInitializer>> typeInitializerMap = new HashMap<>();
+        typeInitializerMap.put(Runnable.class, Collections.<ServletContainerInitializer> emptySet());
+        typeInitializerMap.put(Deprecated.class, Collections.<ServletContainerInitializer> emptySet());
+        index.setHandledTypes(typeInitializerMap);
+
+        assertTrue(index.canSkip(AnnotationIndex.CLASSES_LOCATION, "a/Plain.class", 100));
+        assertFalse(index.canSkip(AnnotationIndex.CLASSES_LOCATION, "a/Runner.class", 300));
+        assertFalse(index.canSkip(AnnotationIndex.CLASSES_LOCATION, "a/Servlet.class", 400));
+        assertFalse(index.canSkip("WEB-INF/lib/lib.jar", "b/Marked.class", -1));
+
+        typeInitializerMap.clear();
+        typeInitializerMap.put(WebListener.class, Collections.<ServletContainerInitializer> emptySet());
+        index.setHandledTypes(typeInitializerMap);
+        assertTrue(index.canSkip(AnnotationIndex.CLASSES_LOCATION, "a/Runner.class", 300));
+    }
+
+    @Test
+    public void testCovers() throws IOException {
+        AnnotationIndex index = read(INDEX);
+        assertTrue(index.covers(AnnotationIndex.CLASSES_LOCATION, -1));
+        assertTrue(index.covers("WEB-INF/lib/lib.jar", 1000));
+        assertFalse(index.covers("WEB-INF/lib/lib.jar", 1001));
+        assertFalse(index.covers("WEB-INF/lib/other.jar", 1000));
+    }
+
+    @Test
+    public void testInvalidIndex() throws IOException {
+        URL invalidIndex = new File("src/test/resources/bundle.jar").toURI().toURL();
+        assertNull(AnnotationIndex.read(new StubBundle().addEntry(AnnotationIndex.INDEX_ENTRY_NAME, invalidIndex)));
+        assertNull(AnnotationIndex.read(new StubBundle()));
+    }
+
+    private static AnnotationIndex read(String index) throws IOException {
+        return AnnotationIndex.read(new ByteArrayInputStream(index.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -24,14 +24,23 @@ import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.isNull;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletContext;
 
@@ -39,6 +48,7 @@ import org.apache.tomcat.Jar;
 import org.apache.tomcat.JarScannerCallback;
 import org.eclipse.gemini.web.tomcat.internal.loader.BundleWebappClassLoader;
 import org.eclipse.gemini.web.tomcat.internal.support.BundleDependencyDeterminer;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileEntry;
 import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
 import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
 import org.eclipse.osgi.service.urlconversion.URLConverter;
@@ -47,6 +57,7 @@ import org.eclipse.virgo.test.stubs.framework.StubBundleContext;
 import org.eclipse.virgo.test.stubs.framework.StubFilter;
 import org.junit.Test;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.Version;
 import org.osgi.util.tracker.ServiceTracker;
 
 public class BundleDependenciesJarScannerTests {
@@ -150,4 +161,145 @@ public class BundleDependenciesJarScannerTests {
 
         verify(this.dependencyDeterminer, this.bundleFileResolver, this.callback, this.dependency, this.servletContext);
     }
+
+    @Test
+    public void scanInParallel() throws IOException {
+        final Map<Bundle, File> bundleFiles = new HashMap<>();
+        Set<Bundle> dependencies = new LinkedHashSet<>();
+        for (int i = 0; i < 6; i++) {
+            Bundle dependency = new StubBundle("dependency" + i, Version.emptyVersion);
+            bundleFiles.put(dependency, new File(i % 3 == 0 ? "src/test/resources" : "src/test/resources/bundle.jar"));
+            dependencies.add(dependency);
+        }
+        expect(this.dependencyDeterminer.getDependencies(this.bundle)).andReturn(dependencies).times(2);
+
+        BundleFileResolver resolver = new BundleFileResolver() {
+
+            @Override
+            public File resolve(Bundle bundle) {
+                return bundleFiles.get(bundle);
+            }
+
+            @Override
+            public long resolveBundleEntrySize(Bundle bundle, String path) {
+                return -1;
+            }
+
+            @Override
+            public BundleFileEntry resolveBundleEntry(Bundle bundle, String path) {
+                return null;
+            }
+        };
+
+        BundleWebappClassLoader classLoader = new BundleWebappClassLoader(this.bundle, this.classLoaderCustomizer);
+        expect(this.servletContext.getClassLoader()).andReturn(classLoader).times(2);
+        replay(this.dependencyDeterminer, this.servletContext);
+
+        OrderRecordingCallback sequentialCallback = new OrderRecordingCallback();
+        new BundleDependenciesJarScanner(this.dependencyDeterminer, resolver, this.bundleContext, this.converter).scan(null,
+            this.servletContext, sequentialCallback);
+
+        BundleDependenciesJarScanner parallelScanner = new BundleDependenciesJarScanner(this.dependencyDeterminer, resolver,
+            new StubBundleContext().addProperty(BundleDependenciesJarScanner.SCANNER_THREADS_PROPERTY_NAME, "4"), this.converter);
+        OrderRecordingCallback parallelCallback = new OrderRecordingCallback();
+        try {
+            parallelScanner.scan(null, this.servletContext, parallelCallback);
+        } finally {
+            parallelScanner.destroy();
+            classLoader.close();
+        }
+
+        assertEquals(6, sequentialCallback.scanned.size());
+        assertEquals(sequentialCallback.scanned, parallelCallback.scanned);
+        verify(this.dependencyDeterminer, this.servletContext);
+    }
+
+    @Test
+    public void scanInParallelReadsBoundedNumberOfBundlesAhead() throws IOException {
+        Set<Bundle> dependencies = new LinkedHashSet<>();
+        for (int i = 0; i < 40; i++) {
+            dependencies.add(new StubBundle("dependency" + i, Version.emptyVersion));
+        }
+        expect(this.dependencyDeterminer.getDependencies(this.bundle)).andReturn(dependencies);
+
+        final AtomicInteger resolved = new AtomicInteger();
+        final AtomicInteger scanned = new AtomicInteger();
+        final AtomicInteger maxReadAhead = new AtomicInteger();
+        BundleFileResolver resolver = new BundleFileResolver() {
+
+            @Override
+            public File resolve(Bundle bundle) {
+                int readAhead = resolved.incrementAndGet() - scanned.get();
+                int max;
+                while ((max = maxReadAhead.get()) < readAhead && !maxReadAhead.compareAndSet(max, readAhead)) {
+                }
+                return new File("src/test/resources/bundle.jar");
+            }
+
+            @Override
+            public long resolveBundleEntrySize(Bundle bundle, String path) {
+                return -1;
+            }
+
+            @Override
+            public BundleFileEntry resolveBundleEntry(Bundle bundle, String path) {
+                return null;
+            }
+        };
+
+        BundleWebappClassLoader classLoader = new BundleWebappClassLoader(this.bundle, this.classLoaderCustomizer);
+        expect(this.servletContext.getClassLoader()).andReturn(classLoader);
+        replay(this.dependencyDeterminer, this.servletContext);
+
+        BundleDependenciesJarScanner parallelScanner = new BundleDependenciesJarScanner(this.dependencyDeterminer, resolver,
+            new StubBundleContext().addProperty(BundleDependenciesJarScanner.SCANNER_THREADS_PROPERTY_NAME, "2"), this.converter);
+        try {
+            parallelScanner.scan(null, this.servletContext, new OrderRecordingCallback() {
+
+                @Override
+                public void scan(Jar jar, String webappPath, boolean isWebapp) throws IOException {
+                    super.scan(jar, webappPath, isWebapp);
+                    scanned.incrementAndGet();
+                    try {
+                        // let the pool run ahead of the callback
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        } finally {
+            parallelScanner.destroy();
+            classLoader.close();
+        }
+
+        assertEquals(40, scanned.get());
+        // two bundles per thread are read ahead of the one being scanned
+        assertTrue("Read ahead " + maxReadAhead.get(), maxReadAhead.get() <= 5);
+        verify(this.dependencyDeterminer, this.servletContext);
+    }
+
+    private static class OrderRecordingCallback implements JarScannerCallback {
+
+        private final Thread thread = Thread.currentThread();
+
+        private final List<String> scanned = new ArrayList<>();
+
+        @Override
+        public void scan(Jar jar, String webappPath, boolean isWebapp) throws IOException {
+            assertEquals(this.thread, Thread.currentThread());
+            jar.nextEntry();
+            this.scanned.add(jar.getJarFileURL() + " " + jar.getEntryName() + " " + (jar.getManifest() != null));
+        }
+
+        @Override
+        public void scan(File file, String webappPath, boolean isWebapp) throws IOException {
+            assertEquals(this.thread, Thread.currentThread());
+            this.scanned.add(file.getPath());
+        }
+
+        @Override
+        public void scanWebInfClasses() throws IOException {
+        }
+    }
 }
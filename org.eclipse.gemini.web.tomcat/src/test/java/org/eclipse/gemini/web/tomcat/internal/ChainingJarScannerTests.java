@@ -16,17 +16,23 @@
 
 package org.eclipse.gemini.web.tomcat.internal;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.ServletContext;
 
+import org.apache.tomcat.Jar;
 import org.apache.tomcat.JarScanFilter;
 import org.apache.tomcat.JarScanType;
 import org.apache.tomcat.JarScanner;
 import org.apache.tomcat.JarScannerCallback;
+import org.apache.tomcat.util.scan.JarFactory;
 import org.junit.Test;
 
 public class ChainingJarScannerTests {
@@ -48,6 +54,62 @@ public class ChainingJarScannerTests {
         assertTrue(resource2.equals(this.scannedResources.get(1)));
     }
 
+    @Test
+    public void testDuplicateLocationsAreScannedOnce() {
+        final List<String> callbackScans = new ArrayList<>();
+        JarScannerCallback callback = new JarScannerCallback() {
+
+            @Override
+            public void scan(Jar jar, String webappPath, boolean isWebapp) {
+                callbackScans.add(jar.getJarFileURL().toExternalForm());
+            }
+
+            @Override
+            public void scan(File file, String webappPath, boolean isWebapp) {
+                callbackScans.add(file.getPath());
+            }
+
+            @Override
+            public void scanWebInfClasses() {
+            }
+        };
+
+        JarScanner jarScanner = new ChainingJarScanner(locationScannerFor("src/test/resources"), locationScannerFor("src/test/../test/resources"),
+            locationScannerFor("src/test/resources"));
+        jarScanner.scan(null, null, callback);
+        assertEquals(2, callbackScans.size());
+        assertEquals("src/test/resources", callbackScans.get(0));
+        assertTrue(callbackScans.get(1).endsWith("bundle.jar"));
+    }
+
+    private JarScanner locationScannerFor(final String directory) {
+        return new JarScanner() {
+
+            @Override
+            public void scan(JarScanType jarScanType, ServletContext context, JarScannerCallback callback) {
+                try {
+                    callback.scan(new File(directory), null, true);
+                    try (Jar jar = JarFactory.newInstance(new URL("jar:" + new File(directory, "bundle.jar").toURI().toURL() + "!/"))) {
+                        callback.scan(jar, null, true);
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public JarScanFilter getJarScanFilter() {
+                return null;
+            }
+
+            @Override
+            public void setJarScanFilter(JarScanFilter arg0) {
+                // no-op
+            }
+
+        };
+    }
+
     private JarScanner jarScannerFor(final String resource) {
         return new JarScanner() {
 
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import javax.servlet.ServletContext;
+
+import org.apache.catalina.startup.ExpandWar;
+import org.apache.tomcat.Jar;
+import org.apache.tomcat.JarScanFilter;
+import org.apache.tomcat.JarScanType;
+import org.apache.tomcat.JarScanner;
+import org.apache.tomcat.JarScannerCallback;
+import org.apache.tomcat.util.scan.JarFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JarScanProfilerTests {
+
+    private static final File BUNDLE_JAR = new File("src/test/resources/bundle.jar");
+
+    private final JarScanProfiler profiler = new JarScanProfiler();
+
+    private Path directory;
+
+    private File jasperJar;
+
+    private File annotatedJar;
+
+    @Before
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("jar-scan-profiler");
+        Path webFragment = this.directory.resolve("META-INF/web-fragment.xml");
+        Files.createDirectories(webFragment.getParent());
+        Files.write(webFragment, "<web-fragment/>".getBytes());
+
+        this.jasperJar = createJar("jasper.jar", "org/apache/jasper/Jasper.class", "not annotated".getBytes());
+        this.annotatedJar = createJar("annotated.jar", "a/AnnotatedServlet.class", "annotated".getBytes());
+    }
+
+    @After
+    public void tearDown() {
+        ExpandWar.delete(this.directory.toFile());
+    }
+
+    @Test
+    public void testProfile() throws Exception {
+        ReadingCallback callback = new ReadingCallback(true);
+        new ChainingJarScanner(this.profiler, new BundleScanner()).scan(JarScanType.TLD, null, callback);
+
+        assertTrue(callback.bytes > 0);
+        assertEquals(1, this.profiler.getProfileCount());
+        // nothing is suggested until the annotations of the JARs are processed
+        assertArrayEquals(new String[0], this.profiler.getSuggestedSkipBundles());
+
+        this.profiler.recordAnnotationProcessing(BUNDLE_JAR.toURI().toURL(), false);
+        this.profiler.recordAnnotationProcessing(new URL("jar:" + this.annotatedJar.toURI().toURL() + "!/"), true);
+
+        // the Jasper bundle contributes nothing either but is never skipped
+        assertArrayEquals(new String[] { "jar.bundle" }, this.profiler.getSuggestedSkipBundles());
+        String report = this.profiler.report();
+        assertTrue(report, report.contains("directory.bundle [" + this.directory.toFile().getPath()
+            + "] [WEB_FRAGMENT] (entries not listed) (annotations not processed)"));
+        assertTrue(report, report.contains("annotated.bundle [" + this.annotatedJar.toURI().toURL() + "] [ANNOTATIONS]\n"));
+        assertTrue(report, report.contains("jar.bundle [" + BUNDLE_JAR.toURI().toURL() + "] []\n"));
+        assertTrue(report, report.endsWith(": jar.bundle"));
+
+        this.profiler.reset();
+        assertEquals(0, this.profiler.getProfileCount());
+    }
+
+    @Test
+    public void testNoSuggestionWithoutListedEntries() throws Exception {
+        ReadingCallback callback = new ReadingCallback(false);
+        new ChainingJarScanner(this.profiler, new BundleScanner()).scan(JarScanType.PLUGGABILITY, null, callback);
+
+        this.profiler.recordAnnotationProcessing(BUNDLE_JAR.toURI().toURL(), false);
+
+        assertTrue(callback.bytes > 0);
+        assertArrayEquals(new String[0], this.profiler.getSuggestedSkipBundles());
+        String report = this.profiler.report();
+        assertTrue(report, report.contains("jar.bundle [" + BUNDLE_JAR.toURI().toURL() + "] [] (entries not listed)"));
+    }
+
+    private File createJar(String name, String entryName, byte[] content) throws IOException {
+        File jar = this.directory.resolve(name).toFile();
+        try (OutputStream out = Files.newOutputStream(jar.toPath()); JarOutputStream jos = new JarOutputStream(out)) {
+            jos.putNextEntry(new JarEntry(entryName));
+            jos.write(content);
+            jos.closeEntry();
+        }
+        return jar;
+    }
+
+    private final class BundleScanner implements JarScanner {
+
+        @Override
+        public void scan(JarScanType jarScanType, ServletContext context, JarScannerCallback callback) {
+            try {
+                scanDirectory("directory.bundle", JarScanProfilerTests.this.directory.toFile(), callback);
+                scanJar("jar.bundle", true, BUNDLE_JAR, callback);
+                scanJar("annotated.bundle", true, JarScanProfilerTests.this.annotatedJar, callback);
+                scanJar("jasper.bundle", false, JarScanProfilerTests.this.jasperJar, callback);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void scanDirectory(String bundleSymbolicName, File directory, JarScannerCallback callback) throws IOException {
+            JarScanProfilerTests.this.profiler.setCurrentBundle(bundleSymbolicName, true);
+            try {
+                callback.scan(directory, null, true);
+            } finally {
+                JarScanProfilerTests.this.profiler.setCurrentBundle(null, false);
+            }
+        }
+
+        private void scanJar(String bundleSymbolicName, boolean skippable, File file, JarScannerCallback callback) throws IOException {
+            JarScanProfilerTests.this.profiler.setCurrentBundle(bundleSymbolicName, skippable);
+            try (Jar jar = JarFactory.newInstance(new URL("jar:" + file.toURI().toURL() + "!/"))) {
+                callback.scan(jar, null, skippable);
+            } finally {
+                JarScanProfilerTests.this.profiler.setCurrentBundle(null, false);
+            }
+        }
+
+        @Override
+        public JarScanFilter getJarScanFilter() {
+            return null;
+        }
+
+        @Override
+        public void setJarScanFilter(JarScanFilter jarScanFilter) {
+            // no-op
+        }
+    }
+
+    /**
+     * Reads the manifest of the JARs like the scan for web fragments and, if requested, goes through their entries
+     * like the scan for TLDs.
+     */
+    private static final class ReadingCallback implements JarScannerCallback {
+
+        private final boolean listEntries;
+
+        private long bytes;
+
+        ReadingCallback(boolean listEntries) {
+            this.listEntries = listEntries;
+        }
+
+        @Override
+        public void scan(Jar jar, String webappPath, boolean isWebapp) throws IOException {
+            try (InputStream in = jar.getInputStream("META-INF/MANIFEST.MF")) {
+                if (in != null) {
+                    read(in);
+                }
+            }
+            if (this.listEntries) {
+                jar.nextEntry();
+                for (String name = jar.getEntryName(); name != null; jar.nextEntry(), name = jar.getEntryName()) {
+                    if (name.startsWith("META-INF/") && name.endsWith(".tld")) {
+                        try (InputStream in = jar.getEntryInputStream()) {
+                            read(in);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void read(InputStream in) throws IOException {
+            byte[] buffer = new byte[4];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                this.bytes += read;
+            }
+        }
+
+        @Override
+        public void scan(File file, String webappPath, boolean isWebapp) {
+        }
+
+        @Override
+        public void scanWebInfClasses() {
+        }
+    }
+}
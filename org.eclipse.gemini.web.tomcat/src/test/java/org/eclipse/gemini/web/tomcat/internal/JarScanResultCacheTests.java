@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tomcat.Jar;
+import org.apache.tomcat.JarScanType;
+import org.apache.tomcat.JarScannerCallback;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.eclipse.virgo.test.stubs.framework.StubBundleContext;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+
+public class JarScanResultCacheTests {
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    private final StubBundle bundle = new StubBundle().setLastModified(1L);
+
+    @Test
+    public void testReplay() throws Exception {
+        JarScanResultCache cache = new JarScanResultCache(new StubBundleContext());
+
+        EntryCollectingCallback callback = new EntryCollectingCallback();
+        cache.scan(this.bundle, JarScanType.TLD, getBundleUrl(), null, callback, true);
+        assertEquals(1, cache.getMissCount());
+        assertTrue(callback.entryNames.contains("org/eclipse/gemini/web/Activator.java"));
+        assertTrue(callback.entryNames.contains(MANIFEST));
+
+        EntryCollectingCallback replayedCallback = new EntryCollectingCallback();
+        cache.scan(this.bundle, JarScanType.TLD, getBundleUrl(), null, replayedCallback, true);
+        assertEquals(1, cache.getHitCount());
+        assertFalse(replayedCallback.entryNames.contains("org/eclipse/gemini/web/Activator.java"));
+        assertTrue(replayedCallback.entryNames.contains(MANIFEST));
+        assertArrayEquals(callback.manifest, replayedCallback.manifest);
+        assertEquals(callback.jarFileUrl, replayedCallback.jarFileUrl);
+        assertFalse(replayedCallback.missingEntryExists);
+    }
+
+    @Test
+    public void testModifiedBundleIsScannedAgain() throws Exception {
+        JarScanResultCache cache = new JarScanResultCache(new StubBundleContext());
+        cache.scan(this.bundle, JarScanType.TLD, getBundleUrl(), null, new EntryCollectingCallback(), true);
+
+        this.bundle.setLastModified(2L);
+        cache.scan(this.bundle, JarScanType.TLD, getBundleUrl(), null, new EntryCollectingCallback(), true);
+        cache.scan(this.bundle, JarScanType.PLUGGABILITY, getBundleUrl(), null, new EntryCollectingCallback(), true);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        BundleContext bundleContext = createNiceMock(BundleContext.class);
+        expect(bundleContext.getBundle(this.bundle.getBundleId())).andReturn(this.bundle).anyTimes();
+        replay(bundleContext);
+
+        File directory = Files.createTempDirectory("jar-scan-cache").toFile();
+        File cacheFile = new File(directory, JarScanResultCache.CACHE_FILE_NAME);
+        try {
+            JarScanResultCache cache = new JarScanResultCache(bundleContext);
+            cache.load(cacheFile);
+            EntryCollectingCallback callback = new EntryCollectingCallback();
+            cache.scan(this.bundle, JarScanType.TLD, getBundleUrl(), null, callback, true);
+            cache.save();
+            assertTrue(cacheFile.isFile());
+
+            JarScanResultCache loadedCache = new JarScanResultCache(bundleContext);
+            loadedCache.load(cacheFile);
+            EntryCollectingCallback replayedCallback = new EntryCollectingCallback();
+            loadedCache.scan(this.bundle, JarScanType.TLD, getBundleUrl(), null, replayedCallback, true);
+            assertEquals(1, loadedCache.getHitCount());
+            assertArrayEquals(callback.manifest, replayedCallback.manifest);
+        } finally {
+            Files.deleteIfExists(cacheFile.toPath());
+            Files.deleteIfExists(directory.toPath());
+        }
+    }
+
+    private static URL getBundleUrl() throws IOException {
+        return new URL("jar:" + new File("src/test/resources/bundle.jar").toURI().toURL() + "!/");
+    }
+
+    private static final class EntryCollectingCallback implements JarScannerCallback {
+
+        private final List<String> entryNames = new ArrayList<>();
+
+        private byte[] manifest;
+
+        private URL jarFileUrl;
+
+        private boolean missingEntryExists;
+
+        @Override
+        public void scan(Jar jar, String webappPath, boolean isWebapp) throws IOException {
+            this.jarFileUrl = jar.getJarFileURL();
+            this.missingEntryExists = jar.exists("META-INF/web-fragment.xml");
+            jar.nextEntry();
+            for (String name = jar.getEntryName(); name != null; jar.nextEntry(), name = jar.getEntryName()) {
+                this.entryNames.add(name);
+                if (MANIFEST.equals(name)) {
+                    try (InputStream in = jar.getEntryInputStream()) {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        byte[] buffer = new byte[1024];
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            out.write(buffer, 0, read);
+                        }
+                        this.manifest = out.toByteArray();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void scan(File file, String webappPath, boolean isWebapp) throws IOException {
+        }
+
+        @Override
+        public void scanWebInfClasses() throws IOException {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PreReadJarTests {
+
+    private static final String TLD = "META-INF/tags/test.tld";
+
+    private static final String WEB_FRAGMENT = "META-INF/web-fragment.xml";
+
+    private static final String SERVICE = "META-INF/services/javax.servlet.ServletContainerInitializer";
+
+    private static final String RESOURCE = "META-INF/resources/index.html";
+
+    private static final String CLASS = "test/Test.class";
+
+    private Path jarFile;
+
+    @Before
+    public void setUp() throws IOException {
+        this.jarFile = Files.createTempFile("pre-read", ".jar");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Test-Header", "test");
+        try (JarOutputStream jos = new JarOutputStream(Files.newOutputStream(this.jarFile), manifest)) {
+            for (String name : new String[] { TLD, WEB_FRAGMENT, SERVICE, RESOURCE, CLASS }) {
+                jos.putNextEntry(new ZipEntry(name));
+                jos.write(name.getBytes(StandardCharsets.UTF_8));
+                jos.closeEntry();
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.jarFile);
+    }
+
+    @Test
+    public void testEntriesReadByCallbacksAreReadUpFront() throws IOException {
+        try (PreReadJar jar = PreReadJar.read(new URL("jar:" + this.jarFile.toUri() + "!/"))) {
+            // only the entries read up front can be read once the JAR is gone
+            Files.delete(this.jarFile);
+
+            assertEquals("test", jar.getManifest().getMainAttributes().getValue("Test-Header"));
+            for (String name : new String[] { TLD, WEB_FRAGMENT, SERVICE }) {
+                assertArrayEquals(name.getBytes(StandardCharsets.UTF_8), read(jar.getInputStream(name)));
+            }
+            for (String name : new String[] { RESOURCE, CLASS }) {
+                assertTrue(jar.exists(name));
+                try {
+                    read(jar.getInputStream(name));
+                    fail("Entry [" + name + "] has been read up front");
+                } catch (IOException e) {
+                    // expected
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEntryNames() throws IOException {
+        try (PreReadJar jar = PreReadJar.read(new URL("jar:" + this.jarFile.toUri() + "!/"))) {
+            List<String> entryNames = new ArrayList<>();
+            for (jar.nextEntry(); jar.getEntryName() != null; jar.nextEntry()) {
+                entryNames.add(jar.getEntryName());
+            }
+            assertEquals(Arrays.asList("META-INF/MANIFEST.MF", TLD, WEB_FRAGMENT, SERVICE, RESOURCE, CLASS), entryNames);
+            assertFalse(jar.exists("missing"));
+
+            jar.reset();
+            jar.nextEntry();
+            assertNotNull(jar.getEntryInputStream());
+        }
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        if (in == null) {
+            throw new IOException("No entry");
+        }
+        try (InputStream is = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[256];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
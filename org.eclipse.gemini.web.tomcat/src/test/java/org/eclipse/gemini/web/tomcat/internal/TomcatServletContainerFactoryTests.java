@@ -46,6 +46,10 @@ public class TomcatServletContainerFactoryTests {
         expect(this.bundleContext.getProperty(TomcatConfigLocator.CONFIG_PATH_FRAMEWORK_PROPERTY)).andReturn(null);
         expect(this.bundleContext.getProperty(OsgiAwareEmbeddedTomcat.USE_NAMING)).andReturn(null);
         expect(this.bundleContext.getProperty(BundleDependenciesJarScanFilter.SCANNER_SKIP_BUNDLES_PROPERTY_NAME)).andReturn(null);
+        expect(this.bundleContext.getProperty(BundleDependenciesJarScanner.SCANNER_CACHE_PROPERTY_NAME)).andReturn(null);
+        expect(this.bundleContext.getProperty(BundleDependenciesJarScanner.SCANNER_THREADS_PROPERTY_NAME)).andReturn(null);
+        expect(this.bundleContext.getProperty(JarScanProfiler.SCANNER_PROFILE_PROPERTY_NAME)).andReturn(null);
+        expect(this.bundleContext.getProperty(TomcatServletContainer.LEAK_DETECTION_DELAY_PROPERTY_NAME)).andReturn(null);
         expect(this.bundleContext.createFilter("(objectClass=org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer)")).andReturn(null);
         expect(this.bundleContext.createFilter("(objectClass=org.eclipse.gemini.web.tomcat.spi.JarScannerCustomizer)")).andReturn(null);
         expect(this.bundleContext.getBundle()).andReturn(null);
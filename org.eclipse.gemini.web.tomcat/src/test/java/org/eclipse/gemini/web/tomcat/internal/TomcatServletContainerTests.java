@@ -94,6 +94,10 @@ public class TomcatServletContainerTests {
         expect(this.bundleContext.createFilter(FILTER_2)).andReturn(this.filter);
         expect(this.bundleContext.getProperty(OsgiAwareEmbeddedTomcat.USE_NAMING)).andReturn(OsgiAwareEmbeddedTomcat.NAMING_DISABLED);
         expect(this.bundleContext.getProperty(BundleDependenciesJarScanFilter.SCANNER_SKIP_BUNDLES_PROPERTY_NAME)).andReturn(null);
+        expect(this.bundleContext.getProperty(BundleDependenciesJarScanner.SCANNER_CACHE_PROPERTY_NAME)).andReturn(null);
+        expect(this.bundleContext.getProperty(BundleDependenciesJarScanner.SCANNER_THREADS_PROPERTY_NAME)).andReturn(null);
+        expect(this.bundleContext.getProperty(JarScanProfiler.SCANNER_PROFILE_PROPERTY_NAME)).andReturn(null);
+        expect(this.bundleContext.getProperty(TomcatServletContainer.LEAK_DETECTION_DELAY_PROPERTY_NAME)).andReturn(null);
 
         expect(this.server.findServices()).andReturn(new Service[] { this.service }).anyTimes();
         this.server.init();
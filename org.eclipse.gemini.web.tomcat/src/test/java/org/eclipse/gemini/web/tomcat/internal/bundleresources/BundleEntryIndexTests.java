@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+
+public class BundleEntryIndexTests {
+
+    private final StubBundle testBundle = new StubBundle();
+
+    @Before
+    public void createEntries() throws Exception {
+        this.testBundle.addEntryPaths("", createPathsEnumeration("sub/", "index.html"));
+        this.testBundle.addEntryPaths("sub/", createPathsEnumeration("sub/one.txt", "sub/another.sub/"));
+        this.testBundle.addEntryPaths("sub/another.sub/", createPathsEnumeration("sub/another.sub/two.txt"));
+
+        this.testBundle.addEntry("sub/one.txt", new File("src/test/resources/sub/one.txt").toURI().toURL());
+    }
+
+    @Test
+    public void testFindEntryPath() {
+        BundleEntryIndex index = new BundleEntryIndex(this.testBundle);
+
+        assertEquals("", index.findEntryPath(""));
+        assertEquals("", index.findEntryPath("/"));
+        assertEquals("", index.findEntryPath("."));
+        assertEquals("sub/", index.findEntryPath("/sub/"));
+        assertEquals("sub/", index.findEntryPath("sub"));
+        assertEquals("sub/", index.findEntryPath("sub/."));
+        assertEquals("sub/one.txt", index.findEntryPath("/sub/one.txt"));
+        assertEquals("sub/another.sub/two.txt", index.findEntryPath("sub/another.sub/two.txt"));
+
+        assertNull(index.findEntryPath("/sub/missing.txt"));
+        assertNull(index.findEntryPath("/sub/one.txt/"));
+        assertNull(index.findEntryPath("/sub/*.txt"));
+    }
+
+    @Test
+    public void testList() {
+        BundleEntryIndex index = new BundleEntryIndex(this.testBundle);
+
+        assertEquals(Arrays.asList("index.html", "sub/"), index.list(""));
+        assertEquals(Arrays.asList("sub/another.sub/", "sub/one.txt"), index.list("sub/"));
+        assertTrue(index.list("sub/one.txt").isEmpty());
+        assertTrue(index.list("missing/").isEmpty());
+    }
+
+    @Test
+    public void testGetEntry() throws Exception {
+        BundleEntryIndex index = new BundleEntryIndex(this.testBundle);
+
+        assertEquals(new File("src/test/resources/sub/one.txt").toURI().toURL(), index.getEntry("sub/one.txt"));
+        assertNull(index.getEntry("sub/missing.txt"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        BundleEntryIndex index = new BundleEntryIndex(this.testBundle);
+        assertNull(index.findEntryPath("new.txt"));
+
+        this.testBundle.addEntryPaths("", createPathsEnumeration("sub/", "index.html", "new.txt"));
+        this.testBundle.addEntryPaths("sub/", createPathsEnumeration("sub/one.txt", "sub/another.sub/"));
+        this.testBundle.addEntryPaths("sub/another.sub/", createPathsEnumeration("sub/another.sub/two.txt"));
+        assertNull(index.findEntryPath("new.txt"));
+
+        index.invalidate();
+        assertEquals("new.txt", index.findEntryPath("new.txt"));
+    }
+
+    @Test
+    public void testHostTakesPrecedenceOverFragment() throws Exception {
+        URL hostEntry = new File("src/test/resources/sub/one.txt").toURI().toURL();
+        URL fragmentEntry = new File("src/test/resources/sub/another.sub/two.txt").toURI().toURL();
+
+        Bundle bundle = createMock(Bundle.class);
+        BundleRevision bundleRevision = createMock(BundleRevision.class);
+        BundleWiring bundleWiring = createMock(BundleWiring.class);
+        BundleWire bundleWire = createMock(BundleWire.class);
+        Bundle fbundle = createMock(Bundle.class);
+        BundleRevision fbundleRevision = createMock(BundleRevision.class);
+        BundleWiring fbundleWiring = createMock(BundleWiring.class);
+        expect(bundle.adapt(BundleRevision.class)).andReturn(bundleRevision);
+        expect(bundleRevision.getWiring()).andReturn(bundleWiring);
+        expect(bundleWiring.getProvidedWires(BundleRevision.HOST_NAMESPACE)).andReturn(Arrays.asList(new BundleWire[] { bundleWire }));
+        expect(bundleWire.getRequirerWiring()).andReturn(fbundleWiring);
+        expect(fbundleWiring.getRevision()).andReturn(fbundleRevision);
+        expect(fbundleRevision.getBundle()).andReturn(fbundle);
+        expect(bundle.getEntryPaths("")).andReturn(createPathsEnumeration("sub/"));
+        expect(bundle.getEntryPaths("sub/")).andReturn(createPathsEnumeration("sub/one.txt"));
+        expect(fbundle.getEntryPaths("")).andReturn(createPathsEnumeration("sub/"));
+        expect(fbundle.getEntryPaths("sub/")).andReturn(createPathsEnumeration("sub/one.txt", "sub/two.txt"));
+        expect(bundle.getEntry("sub/one.txt")).andReturn(hostEntry);
+        expect(fbundle.getEntry("sub/two.txt")).andReturn(fragmentEntry);
+
+        replay(bundle, bundleRevision, bundleWiring, bundleWire, fbundle, fbundleRevision, fbundleWiring);
+
+        BundleEntryIndex index = new BundleEntryIndex(bundle);
+        assertEquals(Arrays.asList("sub/one.txt", "sub/two.txt"), index.list("sub/"));
+        assertEquals(hostEntry, index.getEntry("sub/one.txt"));
+        assertEquals(fragmentEntry, index.getEntry("sub/two.txt"));
+
+        verify(bundle, bundleRevision, bundleWiring, bundleWire, fbundle, fbundleRevision, fbundleWiring);
+    }
+
+    private Enumeration<String> createPathsEnumeration(String... paths) {
+        return Collections.enumeration(Arrays.asList(paths));
+    }
+}
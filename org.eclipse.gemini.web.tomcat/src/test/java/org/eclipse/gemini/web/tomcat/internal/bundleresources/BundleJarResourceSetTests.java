@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.apache.catalina.WebResource;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BundleJarResourceSetTests {
+
+    private static final String ARCHIVE_PATH = "/WEB-INF/lib/test.jar";
+
+    private static final byte[] CONTENT = "<html/>".getBytes(StandardCharsets.UTF_8);
+
+    private final StubBundle testBundle = new StubBundle();
+
+    private File jar;
+
+    private BundleWebResourceRoot root;
+
+    private BundleJarResourceSet bundleJarResourceSet;
+
+    @Before
+    public void setUp() throws Exception {
+        this.jar = File.createTempFile("test", ".jar");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Test-Header", "test");
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(this.jar), manifest)) {
+            jos.putNextEntry(new JarEntry("META-INF/resources/"));
+            jos.putNextEntry(new JarEntry("META-INF/resources/index.html"));
+            jos.write(CONTENT);
+            jos.putNextEntry(new JarEntry("META-INF/resources/other.html"));
+            jos.write(CONTENT);
+        }
+
+        this.testBundle.addEntryPaths("", Collections.enumeration(Arrays.asList("WEB-INF/")));
+        this.testBundle.addEntryPaths("WEB-INF/", Collections.enumeration(Arrays.asList("WEB-INF/lib/")));
+        this.testBundle.addEntryPaths("WEB-INF/lib/", Collections.enumeration(Arrays.asList(ARCHIVE_PATH.substring(1))));
+        this.testBundle.addEntry(ARCHIVE_PATH.substring(1), this.jar.toURI().toURL());
+
+        this.root = new BundleWebResourceRoot(this.testBundle, null);
+        this.bundleJarResourceSet = new BundleJarResourceSet(this.root, "/", "file:" + ARCHIVE_PATH, "/META-INF/resources");
+        this.bundleJarResourceSet.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.bundleJarResourceSet.stop();
+        this.bundleJarResourceSet.destroy();
+        // the root is not started, so stopping it would not delete the copy of the archive
+        this.root.deleteArchiveCopies();
+        this.jar.delete();
+    }
+
+    @Test
+    public void testManifest() {
+        assertEquals("test", this.bundleJarResourceSet.getResource("/index.html").getManifest().getMainAttributes().getValue("Test-Header"));
+    }
+
+    @Test
+    public void testGetResource() throws IOException {
+        WebResource resource = this.bundleJarResourceSet.getResource("/index.html");
+        assertTrue(resource.exists());
+        assertTrue(resource.isFile());
+        assertEquals(CONTENT.length, resource.getContentLength());
+        assertArrayEquals(CONTENT, resource.getContent());
+        assertNotNull(resource.getURL());
+
+        assertFalse(this.bundleJarResourceSet.getResource("/missing.html").exists());
+    }
+
+    @Test
+    public void testList() {
+        assertEquals(Arrays.asList("index.html", "other.html"), sorted(this.bundleJarResourceSet.list("/")));
+    }
+
+    @Test
+    public void testGcReopensArchive() {
+        this.bundleJarResourceSet.gc();
+        assertArrayEquals(CONTENT, this.bundleJarResourceSet.getResource("/other.html").getContent());
+    }
+
+    @Test
+    public void testGcReusesArchiveCopy() throws IOException {
+        File archiveCopy = this.root.getArchiveFile(ARCHIVE_PATH);
+
+        this.bundleJarResourceSet.gc();
+        assertArrayEquals(CONTENT, this.bundleJarResourceSet.getResource("/other.html").getContent());
+
+        assertEquals(archiveCopy, this.root.getArchiveFile(ARCHIVE_PATH));
+    }
+
+    @Test
+    public void testDeleteArchiveCopies() throws Exception {
+        File archiveCopy = this.root.getArchiveFile(ARCHIVE_PATH);
+        assertTrue(archiveCopy.isFile());
+
+        this.bundleJarResourceSet.stop();
+        this.root.deleteArchiveCopies();
+
+        assertFalse(archiveCopy.exists());
+    }
+
+    private static List<String> sorted(String[] names) {
+        String[] copy = names.clone();
+        Arrays.sort(copy);
+        return Arrays.asList(copy);
+    }
+}
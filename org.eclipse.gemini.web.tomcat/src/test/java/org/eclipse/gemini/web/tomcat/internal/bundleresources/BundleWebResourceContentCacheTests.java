@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class BundleWebResourceContentCacheTests {
+
+    private static final long GENERATION = 1L;
+
+    @Test
+    public void testHitAndMiss() throws Exception {
+        BundleWebResourceContentCache cache = new BundleWebResourceContentCache(2000);
+        TestContentSource source = new TestContentSource(new byte[] { 1, 2, 3 });
+
+        assertArrayEquals(new byte[] { 1, 2, 3 }, toByteArray(cache.getContent("a.txt", GENERATION, source)));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, toByteArray(cache.getContent("a.txt", GENERATION, source)));
+
+        assertEquals(1, source.openCount.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(3, cache.getSize());
+    }
+
+    @Test
+    public void testTooLargeContentIsNotCached() throws Exception {
+        BundleWebResourceContentCache cache = new BundleWebResourceContentCache(2000);
+
+        assertNull(cache.getContent("large.txt", GENERATION, new TestContentSource(new byte[101])));
+        assertNull(cache.getContent("unknown.txt", GENERATION, new TestContentSource(new byte[101], -1)));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testContentIsReadUpToItsLength() throws Exception {
+        BundleWebResourceContentCache cache = new BundleWebResourceContentCache(2000);
+
+        assertNull(cache.getContent("longer.txt", GENERATION, new TestContentSource(new byte[] { 1, 2, 3 }, 2)));
+        assertArrayEquals(new byte[] { 1, 2 },
+            toByteArray(cache.getContent("shorter.txt", GENERATION, new TestContentSource(new byte[] { 1, 2 }, 3))));
+        assertArrayEquals(new byte[] { 1, 2 },
+            toByteArray(cache.getContent("unknown.txt", GENERATION, new TestContentSource(new byte[] { 1, 2 }, -1))));
+        assertEquals(5, cache.getSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        BundleWebResourceContentCache cache = new BundleWebResourceContentCache(2000);
+        TestContentSource first = new TestContentSource(new byte[100]);
+        TestContentSource second = new TestContentSource(new byte[100]);
+
+        for (int i = 0; i < 20; i++) {
+            cache.getContent(i + ".txt", GENERATION, i == 0 ? first : second);
+        }
+        cache.getContent("0.txt", GENERATION, first);
+        cache.getContent("20.txt", GENERATION, second);
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2000, cache.getSize());
+        cache.getContent("0.txt", GENERATION, first);
+        assertEquals(1, first.openCount.get());
+    }
+
+    @Test
+    public void testNewGenerationDiscardsContent() throws Exception {
+        BundleWebResourceContentCache cache = new BundleWebResourceContentCache(2000);
+        cache.getContent("a.txt", GENERATION, new TestContentSource(new byte[] { 1 }));
+
+        cache.gc(GENERATION);
+        assertEquals(1, cache.getSize());
+
+        cache.gc(GENERATION + 1);
+        assertEquals(0, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+
+        assertArrayEquals(new byte[] { 2 }, toByteArray(cache.getContent("a.txt", GENERATION + 1, new TestContentSource(new byte[] { 2 }))));
+    }
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        final BundleWebResourceContentCache cache = new BundleWebResourceContentCache(2000);
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestContentSource source = new TestContentSource(new byte[] { 1 }) {
+
+            @Override
+            public InputStream openStream() throws IOException {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return super.openStream();
+            }
+        };
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        cache.getContent("a.txt", GENERATION, source);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, source.openCount.get());
+    }
+
+    private static byte[] toByteArray(ByteBuffer buffer) throws IOException {
+        try (InputStream is = new BundleWebResourceContentCache.ByteBufferInputStream(buffer)) {
+            byte[] result = new byte[is.available()];
+            assertEquals(result.length, Math.max(is.read(result), 0));
+            assertEquals(-1, is.read());
+            return result;
+        }
+    }
+
+    private static class TestContentSource implements BundleWebResourceContentCache.ContentSource {
+
+        private final byte[] content;
+
+        private final long contentLength;
+
+        final AtomicInteger openCount = new AtomicInteger();
+
+        TestContentSource(byte[] content) {
+            this(content, content.length);
+        }
+
+        TestContentSource(byte[] content, long contentLength) {
+            this.content = content;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.contentLength;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            this.openCount.incrementAndGet();
+            return new ByteArrayInputStream(this.content);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.ServiceLoader;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.apache.catalina.WebResource;
+import org.apache.catalina.startup.ExpandWar;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.launch.FrameworkFactory;
+
+/**
+ * Compares the throughput of serving a file of a web bundle installed from an archive by copying its stream through a
+ * heap buffer, as the connector does when the resource has no canonical path, with serving the file named by
+ * {@link WebResource#getCanonicalPath()} with {@link FileChannel#transferTo}, as the connector does with sendfile. The
+ * bundle is installed in an Equinox framework and the resource is looked up through a root that exposes files of any
+ * size, so the canonical path is the file the framework extracts the entry to.
+ * <p />
+ * Not run as part of the tests. Usage: <code>BundleWebResourceSendfileBenchmark [sizeInMB] [iterations]</code>
+ */
+public final class BundleWebResourceSendfileBenchmark {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final String ENTRY_NAME = "large.bin";
+
+    public static void main(String[] args) throws Exception {
+        int size = (args.length > 0 ? Integer.parseInt(args[0]) : 64) * 1024 * 1024;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        Path storage = Files.createTempDirectory("sendfile-benchmark");
+        Map<String, String> configuration = new HashMap<>();
+        configuration.put(Constants.FRAMEWORK_STORAGE, storage.toString());
+        configuration.put(Constants.FRAMEWORK_STORAGE_CLEAN, Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT);
+        Framework framework = ServiceLoader.load(FrameworkFactory.class).iterator().next().newFramework(configuration);
+        framework.init();
+        try {
+            Bundle bundle = framework.getBundleContext().installBundle(createBundle(storage.resolve("large.jar"), size).toUri().toString());
+            BundleWebResourceRoot root = new BundleWebResourceRoot(bundle, null) {
+
+                @Override
+                long getSendfileMinSize() {
+                    return 0;
+                }
+            };
+            WebResource resource = new BundleWebResource(bundle, root).getNamedEntry("/" + ENTRY_NAME);
+
+            long start = System.nanoTime();
+            if (resource.getCanonicalPath() == null) {
+                throw new IllegalStateException("[" + ENTRY_NAME + "] has no canonical path, sendfile cannot be used.");
+            }
+            System.out.println(String.format("%-12s %10.1f ms", "extraction", (System.nanoTime() - start) / 1e6));
+
+            try (ServerSocketChannel server = ServerSocketChannel.open()) {
+                server.bind(new InetSocketAddress("127.0.0.1", 0));
+                Thread drain = startDrain(server);
+                try (SocketChannel client = SocketChannel.open(server.getLocalAddress())) {
+                    // warm up
+                    streamCopy(resource, client);
+                    transferTo(resource, client);
+
+                    long streamCopyNanos = 0;
+                    long transferToNanos = 0;
+                    for (int i = 0; i < iterations; i++) {
+                        streamCopyNanos += streamCopy(resource, client);
+                        transferToNanos += transferTo(resource, client);
+                    }
+
+                    report("stream copy", size, iterations, streamCopyNanos);
+                    report("transferTo", size, iterations, transferToNanos);
+                }
+                drain.join();
+            }
+        } finally {
+            framework.stop();
+            framework.waitForStop(0);
+            ExpandWar.delete(storage.toFile());
+        }
+    }
+
+    private static Path createBundle(Path jar, int size) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+        attributes.putValue(Constants.BUNDLE_SYMBOLICNAME, "sendfile.benchmark");
+        // random content, so that the stream copy cannot benefit from a high compression ratio
+        Random random = new Random(0);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jos = new JarOutputStream(out, manifest)) {
+            jos.putNextEntry(new ZipEntry(ENTRY_NAME));
+            for (int written = 0; written < size; written += buffer.length) {
+                random.nextBytes(buffer);
+                jos.write(buffer, 0, Math.min(buffer.length, size - written));
+            }
+            jos.closeEntry();
+        }
+        return jar;
+    }
+
+    private static long streamCopy(WebResource resource, SocketChannel target) throws IOException {
+        long start = System.nanoTime();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream is = resource.getInputStream()) {
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                ByteBuffer bb = ByteBuffer.wrap(buffer, 0, n);
+                while (bb.hasRemaining()) {
+                    target.write(bb);
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long transferTo(WebResource resource, SocketChannel target) throws IOException {
+        long start = System.nanoTime();
+        // the connector resolves the file to send through the canonical path on every request
+        File file = new File(resource.getCanonicalPath());
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = 0;
+            long size = channel.size();
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static Thread startDrain(final ServerSocketChannel server) {
+        Thread drain = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try (SocketChannel channel = server.accept()) {
+                    ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+                    while (channel.read(buffer) != -1) {
+                        buffer.clear();
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        drain.setDaemon(true);
+        drain.start();
+        return drain;
+    }
+
+    private static void report(String name, int size, int iterations, long nanos) {
+        double seconds = nanos / 1e9;
+        double megabytes = (double) size * iterations / (1024 * 1024);
+        System.out.println(String.format("%-12s %10.1f MB/s", name, megabytes / seconds));
+    }
+}
@@ -24,6 +24,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
 
 import org.apache.catalina.LifecycleState;
 import org.apache.catalina.WebResource;
@@ -47,9 +49,13 @@ public class BundleWebResourceSetTests {
 
     @Before
     public void setUp() throws Exception {
+        this.testBundle.addEntryPaths("", Collections.enumeration(Arrays.asList(DIRECTORY_NAME.substring(1))));
+        this.testBundle.addEntryPaths(DIRECTORY_NAME.substring(1), Collections.enumeration(Arrays.asList(FILE_NAME.substring(1))));
         this.testBundle.addEntry("", new File("src/test/resources/").toURI().toURL());
         this.testBundle.addEntry(DIRECTORY_NAME, new File("src/test/resources/sub/").toURI().toURL());
         this.testBundle.addEntry(FILE_NAME, new File("src/test/resources/sub/one.txt").toURI().toURL());
+        this.testBundle.addEntry(DIRECTORY_NAME.substring(1), new File("src/test/resources/sub/").toURI().toURL());
+        this.testBundle.addEntry(FILE_NAME.substring(1), new File("src/test/resources/sub/one.txt").toURI().toURL());
         this.testBundle.setFindEntriesDelegate(new FindEntriesDelegateImpl(this.testBundle));
 
         this.root = createMock(WebResourceRoot.class);
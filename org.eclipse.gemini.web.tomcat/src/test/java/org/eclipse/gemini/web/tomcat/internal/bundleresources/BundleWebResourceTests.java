@@ -20,24 +20,30 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Vector;
 
 import org.apache.catalina.WebResourceRoot;
 import org.eclipse.gemini.web.tomcat.internal.loader.FindEntriesDelegateImpl;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileEntry;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
 import org.eclipse.virgo.test.stubs.framework.StubBundle;
 import org.junit.Before;
 import org.junit.Test;
@@ -52,9 +58,11 @@ public class BundleWebResourceTests {
 
     @Before
     public void createEntries() throws MalformedURLException {
-        this.testBundle.addEntryPaths("", createPathsEnumeration("sub/"));
+        this.testBundle.addEntryPaths("", createPathsEnumeration("sub/", "a/"));
         this.testBundle.addEntryPaths("sub/", createPathsEnumeration("sub/one.txt", "sub/another.sub/"));
         this.testBundle.addEntryPaths("sub/another.sub/", createPathsEnumeration("sub/another.sub/two.txt"));
+        this.testBundle.addEntryPaths("a/", createPathsEnumeration("a/b/"));
+        this.testBundle.addEntryPaths("a/b/", createPathsEnumeration("a/b/c.txt"));
 
         this.testBundle.addEntry("", new File("src/test/resources/").toURI().toURL());
         this.testBundle.addEntry("sub/", new File("src/test/resources/sub/").toURI().toURL());
@@ -107,6 +115,7 @@ public class BundleWebResourceTests {
         expect(bundle.getEntry("sub/another.sub/")).andReturn(Paths.get("src/test/resources/sub/another.sub/").toUri().toURL()).anyTimes();
         expect(fbundle.getEntryPaths("")).andReturn(createPathsEnumeration("sub/"));
         expect(fbundle.getEntryPaths("sub/")).andReturn(createPathsEnumeration("sub/another.sub/"));
+        expect(fbundle.getEntryPaths("sub/another.sub/")).andReturn(null);
 
         replay(bundle, bundleRevision, bundleWiring, bundleWire, fbundle, fbundleRevision, fbundleWiring);
 
@@ -129,12 +138,12 @@ public class BundleWebResourceTests {
         assertNotNull(entry.getEntry(""));
         assertNotNull(entry.getEntry("/"));
 
-        assertTrue(entry.getEntry("sub/").getKey().isDirectory());
-        assertTrue(entry.getEntry("sub/another.sub/").getKey().isDirectory());
-        assertTrue(entry.getEntry(".").getKey().isDirectory());
-        assertTrue(entry.getEntry("sub/.").getKey().isDirectory());
-        assertTrue(entry.getEntry("").getKey().isDirectory());
-        assertTrue(entry.getEntry("/").getKey().isDirectory());
+        assertTrue(entry.getEntry("sub/").isDirectory());
+        assertTrue(entry.getEntry("sub/another.sub/").isDirectory());
+        assertTrue(entry.getEntry(".").isDirectory());
+        assertTrue(entry.getEntry("sub/.").isDirectory());
+        assertTrue(entry.getEntry("").isDirectory());
+        assertTrue(entry.getEntry("/").isDirectory());
     }
 
     @Test
@@ -142,41 +151,86 @@ public class BundleWebResourceTests {
         WebResourceRoot root = createMock(WebResourceRoot.class);
         BundleWebResource entry = new BundleWebResource(this.testBundle, root);
 
-        Entry<BundleWebResource, URL> e = entry.getEntry("/");
-        assertEquals("/", e.getKey().getName());
+        BundleWebResource e = entry.getEntry("/");
+        assertEquals("/", e.getName());
 
         e = entry.getEntry("/sub/");
-        assertEquals("sub", e.getKey().getName());
+        assertEquals("sub", e.getName());
 
         e = entry.getEntry("/sub/one.txt");
-        assertEquals("one.txt", e.getKey().getName());
+        assertEquals("one.txt", e.getName());
 
         e = entry.getEntry("");
-        assertEquals("/", e.getKey().getName());
+        assertEquals("/", e.getName());
 
         e = entry.getEntry("sub/");
-        assertEquals("sub", e.getKey().getName());
+        assertEquals("sub", e.getName());
 
         e = entry.getEntry("sub/one.txt");
-        assertEquals("one.txt", e.getKey().getName());
+        assertEquals("one.txt", e.getName());
 
         e = entry.getEntry("/a/");
-        assertEquals("a", e.getKey().getName());
+        assertEquals("a", e.getName());
 
         e = entry.getEntry("/a/b/");
-        assertEquals("b", e.getKey().getName());
+        assertEquals("b", e.getName());
 
         e = entry.getEntry("/a/b/c.txt");
-        assertEquals("c.txt", e.getKey().getName());
+        assertEquals("c.txt", e.getName());
 
         e = entry.getEntry("a/");
-        assertEquals("a", e.getKey().getName());
+        assertEquals("a", e.getName());
 
         e = entry.getEntry("a/b/");
-        assertEquals("b", e.getKey().getName());
+        assertEquals("b", e.getName());
 
         e = entry.getEntry("a/b/c.txt");
-        assertEquals("c.txt", e.getKey().getName());
+        assertEquals("c.txt", e.getName());
+    }
+
+    @Test
+    public void testAttributesAndContentFromBundleFileEntry() throws IOException {
+        final byte[] content = "content of the bundle entry".getBytes(StandardCharsets.UTF_8);
+        WebResourceRoot root = createMock(WebResourceRoot.class);
+        BundleFileResolver bundleFileResolver = createMock(BundleFileResolver.class);
+        BundleFileEntry bundleFileEntry = createMock(BundleFileEntry.class);
+        expect(bundleFileResolver.resolve(this.testBundle)).andReturn(null);
+        expect(bundleFileResolver.resolveBundleEntry(this.testBundle, "sub/one.txt")).andReturn(bundleFileEntry);
+        expect(bundleFileEntry.getLastModified()).andReturn(1234L);
+        expect(bundleFileEntry.getSize()).andReturn((long) content.length);
+        expect(bundleFileEntry.getInputStream()).andReturn(new ByteArrayInputStream(content));
+        expect(bundleFileEntry.getInputStream()).andReturn(new ByteArrayInputStream(content));
+
+        replay(bundleFileResolver, bundleFileEntry);
+
+        BundleWebResource entry = new BundleWebResource(this.testBundle, root, bundleFileResolver).getEntry("sub/one.txt");
+        assertEquals(1234L, entry.getLastModified());
+        assertEquals(1234L, entry.getCreation());
+        assertEquals(content.length, entry.getContentLength());
+        assertArrayEquals(content, entry.getContent());
+        try (InputStream is = entry.getInputStream()) {
+            assertEquals(content[0], is.read());
+        }
+
+        verify(bundleFileResolver, bundleFileEntry);
+    }
+
+    @Test
+    public void testAttributesFromURLWithoutBundleFileEntry() {
+        WebResourceRoot root = createMock(WebResourceRoot.class);
+        BundleFileResolver bundleFileResolver = createMock(BundleFileResolver.class);
+        expect(bundleFileResolver.resolve(this.testBundle)).andReturn(null);
+        expect(bundleFileResolver.resolveBundleEntry(this.testBundle, "sub/one.txt")).andReturn(null);
+        expect(bundleFileResolver.resolveBundleEntrySize(this.testBundle, "sub/one.txt")).andReturn(-1L);
+
+        replay(bundleFileResolver);
+
+        File file = new File("src/test/resources/sub/one.txt");
+        BundleWebResource entry = new BundleWebResource(this.testBundle, root, bundleFileResolver).getEntry("sub/one.txt");
+        assertEquals(file.lastModified(), entry.getLastModified());
+        assertEquals(file.length(), entry.getContentLength());
+
+        verify(bundleFileResolver);
     }
 
     private BundleWebResource findByPath(List<BundleWebResource> entries, String entry) {
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.io.File;
+import java.lang.instrument.ClassFileTransformer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.catalina.Context;
+import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.osgi.framework.Bundle;
+
+/**
+ * Loads all classes of the Catalina JAR through a {@link BundleWebappClassLoader} from an increasing number of threads
+ * and reports the throughput and the time spent waiting on class loading locks. Each run uses fresh class loaders, so
+ * that every class is defined again.
+ * <p />
+ * Not run as part of the tests. Usage: <code>BundleWebappClassLoaderStressBenchmark [maxThreads]</code>
+ */
+public final class BundleWebappClassLoaderStressBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 2;
+
+        URL jarUrl = Context.class.getProtectionDomain().getCodeSource().getLocation();
+        List<String> classNames = listClassNames(new File(jarUrl.toURI()));
+        System.out.println("Loading " + classNames.size() + " classes from " + jarUrl);
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            run(jarUrl, classNames, threads);
+        }
+    }
+
+    private static void run(URL jarUrl, final List<String> classNames, final int threads) throws Exception {
+        final URLClassLoader bundleClassLoader = new URLClassLoader(new URL[] { jarUrl }, null);
+        StubBundle bundle = new StubBundle() {
+
+            @Override
+            public Class<?> loadClass(String name) throws ClassNotFoundException {
+                return bundleClassLoader.loadClass(name);
+            }
+        };
+        final BundleWebappClassLoader classLoader = new BundleWebappClassLoader(bundle, new NoOpClassLoaderCustomizer());
+        classLoader.start();
+
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final int offset = i;
+            workers[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = offset; j < classNames.size(); j += threads) {
+                        try {
+                            classLoader.loadClass(classNames.get(j));
+                        } catch (ClassNotFoundException | LinkageError e) {
+                            // optional dependencies of Catalina are not available
+                        }
+                    }
+                }
+            });
+            workers[i].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        System.out.println(String.format("%3d threads: %8.0f classes/s, %6d lock waits, %6d ms waiting", threads,
+            classNames.size() / (elapsed / 1e9), classLoader.getClassLoadingLockContentionCount(), classLoader.getClassLoadingLockWaitTime()));
+
+        classLoader.stop();
+        classLoader.destroy();
+        bundleClassLoader.close();
+    }
+
+    private static List<String> listClassNames(File jar) throws Exception {
+        List<String> classNames = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && !name.endsWith("package-info.class") && !name.endsWith("module-info.class")) {
+                    classNames.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        }
+        return classNames;
+    }
+
+    private static final class NoOpClassLoaderCustomizer implements ClassLoaderCustomizer {
+
+        @Override
+        public ClassLoader[] extendClassLoaderChain(Bundle bundle) {
+            return null;
+        }
+
+        @Override
+        public void addClassFileTransformer(ClassFileTransformer transformer, Bundle bundle) {
+        }
+
+        @Override
+        public ClassLoader createThrowawayClassLoader(Bundle bundle) {
+            return null;
+        }
+    }
+}
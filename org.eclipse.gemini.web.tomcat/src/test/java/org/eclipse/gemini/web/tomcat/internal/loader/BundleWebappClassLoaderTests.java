@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+public class BundleWebappClassLoaderTests {
+
+    private static final int THREADS = 8;
+
+    private static final int LOADS_PER_THREAD = 200;
+
+    private final AtomicInteger bundleLoads = new AtomicInteger();
+
+    private BundleWebappClassLoader classLoader;
+
+    @Before
+    public void setUp() throws Exception {
+        StubBundle bundle = new StubBundle() {
+
+            @Override
+            public Class<?> loadClass(String name) throws ClassNotFoundException {
+                BundleWebappClassLoaderTests.this.bundleLoads.incrementAndGet();
+                if (name.startsWith("missing.")) {
+                    throw new ClassNotFoundException(name);
+                }
+                return BundleWebappClassLoaderTests.class;
+            }
+        };
+        this.classLoader = new BundleWebappClassLoader(bundle, new NoOpClassLoaderCustomizer());
+        this.classLoader.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.classLoader.stop();
+        this.classLoader.destroy();
+    }
+
+    @Test
+    public void testClassLoadingLocksAreRemovedAfterLoading() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            workers[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < LOADS_PER_THREAD; j++) {
+                            // shared names contend for the same lock, unique names each need a lock of their own
+                            String name = j % 2 == 0 ? "test.Shared" + j % 10 : "missing.Unique" + thread + "_" + j;
+                            try {
+                                BundleWebappClassLoaderTests.this.classLoader.loadClass(name);
+                            } catch (ClassNotFoundException e) {
+                                // expected for the missing classes
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(THREADS * LOADS_PER_THREAD, this.bundleLoads.get());
+        assertEquals(0, this.classLoader.getClassLoadingLockCount());
+    }
+
+    @Test
+    public void testClassLoadingLockIsRemovedAfterFailedLoad() {
+        try {
+            this.classLoader.loadClass("missing.Class");
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+
+        assertEquals(0, this.classLoader.getClassLoadingLockCount());
+    }
+
+    @Test
+    public void testClassLoadingLockIsRemovedAfterSuccessfulLoad() throws ClassNotFoundException {
+        assertSame(BundleWebappClassLoaderTests.class, this.classLoader.loadClass("test.Class"));
+
+        assertEquals(0, this.classLoader.getClassLoadingLockCount());
+    }
+
+    private static final class NoOpClassLoaderCustomizer implements ClassLoaderCustomizer {
+
+        @Override
+        public ClassLoader[] extendClassLoaderChain(Bundle bundle) {
+            return null;
+        }
+
+        @Override
+        public void addClassFileTransformer(ClassFileTransformer transformer, Bundle bundle) {
+        }
+
+        @Override
+        public ClassLoader createThrowawayClassLoader(Bundle bundle) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.lang.instrument.ClassFileTransformer;
+import java.nio.file.Files;
+import java.security.ProtectionDomain;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.ExpandWar;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Version;
+
+public class BundleWebappLoaderTests {
+
+    private static final byte[] ORIGINAL = { 1, 2, 3 };
+
+    private static final byte[] TRANSFORMED = { 4, 5, 6 };
+
+    private File catalinaBase;
+
+    private File contextWorkDirectory;
+
+    private Bundle bundle;
+
+    private BundleWebappLoader loader;
+
+    @Before
+    public void setUp() throws Exception {
+        this.catalinaBase = Files.createTempDirectory("catalina-base").toFile();
+        this.contextWorkDirectory = new File(this.catalinaBase, "work/Catalina/localhost/test");
+
+        BundleContext bundleContext = createNiceMock(BundleContext.class);
+        expect(bundleContext.getProperty(BundleWebappLoader.TRANSFORMER_CACHE_PROPERTY_NAME)).andReturn("true").anyTimes();
+        this.bundle = createNiceMock(Bundle.class);
+        expect(this.bundle.getBundleContext()).andReturn(bundleContext).anyTimes();
+        expect(this.bundle.getSymbolicName()).andReturn("test.wab").anyTimes();
+        expect(this.bundle.getVersion()).andReturn(new Version(1, 0, 0)).anyTimes();
+        Context context = createNiceMock(Context.class);
+        expect(context.getCatalinaBase()).andReturn(this.catalinaBase).anyTimes();
+        replay(bundleContext, this.bundle, context);
+
+        this.loader = new BundleWebappLoader(this.bundle, null);
+        this.loader.setContext(context);
+    }
+
+    @After
+    public void tearDown() {
+        ExpandWar.delete(this.catalinaBase);
+    }
+
+    @Test
+    public void testTransformedClassCacheDirectoryIsPerBundleRevision() {
+        assertEquals(new File(this.catalinaBase, "work/test.wab_1.0.0/transformed-classes"), this.loader.getTransformedClassCacheDirectory());
+    }
+
+    @Test
+    public void testTransformedClassCacheSurvivesStopStart() throws Exception {
+        CountingTransformer transformer = new CountingTransformer();
+        File cacheDirectory = this.loader.getTransformedClassCacheDirectory();
+        new TransformedClassCache(cacheDirectory).wrap(transformer, this.bundle).transform(null, "a/A", null, null, ORIGINAL);
+
+        // Tomcat deletes the work directory of the context when the web application is stopped
+        assertFalse(cacheDirectory.getPath().startsWith(this.contextWorkDirectory.getPath()));
+        ExpandWar.delete(this.contextWorkDirectory);
+
+        TransformedClassCache cache = new TransformedClassCache(this.loader.getTransformedClassCacheDirectory());
+        assertArrayEquals(TRANSFORMED, cache.wrap(transformer, this.bundle).transform(null, "a/A", null, null, ORIGINAL));
+        assertEquals(1, transformer.count);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    private static final class CountingTransformer implements ClassFileTransformer {
+
+        private int count;
+
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain,
+            byte[] classfileBuffer) {
+            this.count++;
+            return TRANSFORMED;
+        }
+    }
+}
@@ -16,13 +16,32 @@
 
 package org.eclipse.gemini.web.tomcat.internal.loader;
 
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.namespace.BundleNamespace;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.framework.wiring.BundleRequirement;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
 
 public class ChainedClassLoaderTests {
 
@@ -47,8 +66,186 @@ public class ChainedClassLoaderTests {
         assertNotNull(resources);
     }
 
-    private ClassLoader classLoaderFor(Class<?> cls) {
+    @Test
+    public void testGetResourcesInChainOrderWithoutDuplicates() throws Exception {
+        URL a = new URL("file:/a/test.txt");
+        URL b = new URL("file:/b/test.txt");
+        URL c = new URL("file:/c/test.txt");
+        ChainedClassLoader loader = new ChainedClassLoader(new ResourcesClassLoader(null, b, a), new ResourcesClassLoader(null, a, c));
+        assertEquals(Arrays.asList(b, a, c), Collections.list(loader.getResources("test.txt")));
+    }
+
+    @Test
+    public void testGetResourcesAsksLoadersOnDemand() throws Exception {
+        URL a = new URL("file:/a/test.txt");
+        URL b = new URL("file:/b/test.txt");
+        AtomicInteger firstLookups = new AtomicInteger();
+        AtomicInteger secondLookups = new AtomicInteger();
+        ChainedClassLoader loader = new ChainedClassLoader(new ResourcesClassLoader(firstLookups, a), new ResourcesClassLoader(secondLookups, b));
+
+        Enumeration<URL> resources = loader.getResources("test.txt");
+        assertEquals(1, firstLookups.get());
+        assertEquals(0, secondLookups.get());
+
+        assertEquals(a, resources.nextElement());
+        assertEquals(0, secondLookups.get());
+
+        assertEquals(b, resources.nextElement());
+        assertEquals(1, secondLookups.get());
+        assertFalse(resources.hasMoreElements());
+    }
+
+    @Test
+    public void testGetServiceResourcesWithLookupCaches() throws Exception {
+        URL a = new URL("file:/a/META-INF/services/test.Service");
+        AtomicInteger lookups = new AtomicInteger();
+        ChainedClassLoader loader = ChainedClassLoader.createWithLookupCaches(new ResourcesClassLoader(lookups, a));
+
+        assertEquals(Arrays.asList(a), Collections.list(loader.getResources("META-INF/services/test.Service")));
+        assertEquals(Arrays.asList(a), Collections.list(loader.getResources("META-INF/services/test.Service")));
+        assertEquals(1, lookups.get());
+
+        Collections.list(loader.getResources("test.txt"));
+        Collections.list(loader.getResources("test.txt"));
+        assertEquals(3, lookups.get());
+
+        loader.invalidateLookupCaches();
+        Collections.list(loader.getResources("META-INF/services/test.Service"));
+        assertEquals(4, lookups.get());
+    }
+
+    @Test
+    public void testLoadClassWithLookupCaches() throws Exception {
+        ChainedClassLoader loader = ChainedClassLoader.createWithLookupCaches(bundleClassLoader(null, Collections.<String> emptyList()),
+            classLoaderFor(ChainedClassLoaderTests.class));
+
+        Class<?> clazz = loader.loadClass(ChainedClassLoaderTests.class.getName());
+        assertEquals(0, loader.getPackageRouteHitCount());
+        assertEquals(1, loader.getPackageRouteMissCount());
+
+        assertSame(clazz, loader.loadClass(ChainedClassLoaderTests.class.getName()));
+        assertNotNull(loader.loadClass(SamePackage.class.getName()));
+        assertEquals(2, loader.getPackageRouteHitCount());
+        assertEquals(1, loader.getPackageRouteMissCount());
+
+        loader.invalidateLookupCaches();
+        loader.loadClass(ChainedClassLoaderTests.class.getName());
+        assertEquals(2, loader.getPackageRouteMissCount());
+    }
+
+    @Test
+    public void testNoPackageRouteBehindLoaderWithoutWiring() throws Exception {
+        ChainedClassLoader loader = ChainedClassLoader.createWithLookupCaches(classLoaderFor(Test.class),
+            classLoaderFor(ChainedClassLoaderTests.class));
+
+        loader.loadClass(ChainedClassLoaderTests.class.getName());
+        loader.loadClass(ChainedClassLoaderTests.class.getName());
+        assertEquals(0, loader.getPackageRouteHitCount());
+        assertEquals(2, loader.getPackageRouteMissCount());
+    }
+
+    @Test
+    public void testSplitPackageKeepsChainPrecedence() throws Exception {
+        String packagePath = SamePackage.class.getPackage().getName().replace('.', '/');
+        ChainedClassLoader loader = ChainedClassLoader.createWithLookupCaches(
+            bundleClassLoader(SamePackage.class.getName(), Arrays.asList(packagePath + "/SamePackage.class")),
+            classLoaderFor(ChainedClassLoaderTests.class));
+
+        assertNotNull(loader.loadClass(ChainedClassLoaderTests.class.getName()));
+        assertSame(SamePackage.class, loader.loadClass(SamePackage.class.getName()));
+        assertEquals(0, loader.getPackageRouteHitCount());
+    }
+
+    @Test
+    public void testNotFoundCacheEvictsLeastRecentlyUsed() throws Exception {
+        ChainedClassLoader loader = ChainedClassLoader.createWithLookupCaches(classLoaderFor(ChainedClassLoaderTests.class));
+
+        for (int i = 0; i < 1024; i++) {
+            assertClassNotFound(loader, "org.example.Missing" + i);
+        }
+        assertClassNotFound(loader, "org.example.Missing0");
+        assertEquals(1, loader.getNotFoundCacheHitCount());
+
+        assertClassNotFound(loader, "org.example.Missing1024");
+        assertEquals(1024, loader.getNotFoundCacheSize());
+        assertClassNotFound(loader, "org.example.Missing0");
+        assertEquals(2, loader.getNotFoundCacheHitCount());
+        assertClassNotFound(loader, "org.example.Missing1");
+        assertEquals(2, loader.getNotFoundCacheHitCount());
+    }
+
+    @Test
+    public void testNotFoundCache() throws Exception {
+        ChainedClassLoader loader = ChainedClassLoader.createWithLookupCaches(classLoaderFor(Test.class),
+            classLoaderFor(ChainedClassLoaderTests.class));
+
+        assertClassNotFound(loader, "org.example.Missing");
+        assertEquals(0, loader.getNotFoundCacheHitCount());
+        assertEquals(1, loader.getNotFoundCacheSize());
+
+        assertClassNotFound(loader, "org.example.Missing");
+        assertEquals(1, loader.getNotFoundCacheHitCount());
+
+        loader.invalidateLookupCaches();
+        assertEquals(0, loader.getNotFoundCacheSize());
+    }
+
+    private void assertClassNotFound(ClassLoader loader, String name) {
+        try {
+            loader.loadClass(name);
+            fail("ClassNotFoundException expected for " + name);
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Creates a loader for a bundle which only contains the given class, which it loads with the test's class loader,
+     * and whose wiring lists the given local class files.
+     */
+    private static ClassLoader bundleClassLoader(final String className, Collection<String> localClasses) throws ClassNotFoundException {
+        Bundle bundle = createMock(Bundle.class);
+        BundleWiring wiring = createMock(BundleWiring.class);
+        expect(bundle.adapt(BundleWiring.class)).andReturn(wiring).anyTimes();
+        if (className != null) {
+            expect(bundle.loadClass(className)).andReturn((Class) SamePackage.class).anyTimes();
+        }
+        expect(bundle.loadClass((String) anyObject())).andThrow(new ClassNotFoundException()).anyTimes();
+        expect(wiring.isInUse()).andReturn(true).anyTimes();
+        expect(wiring.getRequiredWires(BundleNamespace.BUNDLE_NAMESPACE)).andReturn(Collections.<BundleWire> emptyList()).anyTimes();
+        expect(wiring.getRequiredWires(PackageNamespace.PACKAGE_NAMESPACE)).andReturn(Collections.<BundleWire> emptyList()).anyTimes();
+        expect(wiring.getRequirements(PackageNamespace.PACKAGE_NAMESPACE)).andReturn(Collections.<BundleRequirement> emptyList()).anyTimes();
+        expect(wiring.listResources((String) anyObject(), (String) anyObject(), eq(BundleWiring.LISTRESOURCES_LOCAL))).andReturn(localClasses).anyTimes();
+        replay(bundle, wiring);
+        return BundleDelegatingClassLoader.createBundleClassLoaderFor(bundle);
+    }
+
+    private static ClassLoader classLoaderFor(Class<?> cls) {
         URL location = cls.getProtectionDomain().getCodeSource().getLocation();
         return new URLClassLoader(new URL[] { location }, null);
     }
+
+    private static final class SamePackage {
+    }
+
+    private static final class ResourcesClassLoader extends ClassLoader {
+
+        private final AtomicInteger lookups;
+
+        private final URL[] resources;
+
+        ResourcesClassLoader(AtomicInteger lookups, URL... resources) {
+            super(null);
+            this.lookups = lookups;
+            this.resources = resources;
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) {
+            if (this.lookups != null) {
+                this.lookups.incrementAndGet();
+            }
+            return Collections.enumeration(Arrays.asList(this.resources));
+        }
+    }
 }
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.CountDownLatch;
+
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Version;
+
+public class ClassLoaderLeakDetectorTests {
+
+    private final StubBundle bundle = new StubBundle("test.wab", new Version("1.0.0"));
+
+    private ClassLoaderLeakDetector detector;
+
+    @Before
+    public void setUp() {
+        this.detector = new ClassLoaderLeakDetector(0);
+        this.detector.start();
+    }
+
+    @After
+    public void tearDown() {
+        this.detector.stop();
+    }
+
+    @Test
+    public void testCollectedClassLoaderIsNotReported() throws Exception {
+        this.detector.track(new URLClassLoader(new URL[0], null), this.bundle, "/test");
+
+        for (int i = 0; i < 50 && this.detector.getTrackedClassLoaderCount() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(0, this.detector.getTrackedClassLoaderCount());
+        assertEquals(0, this.detector.findLeaks().length);
+    }
+
+    @Test
+    public void testThreadLeakIsReported() throws Exception {
+        final CountDownLatch stop = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    stop.await();
+                } catch (InterruptedException e) {
+                    // stopped
+                }
+            }
+        });
+        thread.setContextClassLoader(new URLClassLoader(new URL[0], null));
+        thread.start();
+        try {
+            this.detector.track(thread.getContextClassLoader(), this.bundle, "/test");
+
+            // the leak is only reported after a full garbage collection
+            for (int i = 0; i < 100 && this.detector.getLeakedClassLoaderCount() == 0; i++) {
+                System.gc();
+                Thread.sleep(20);
+            }
+            assertEquals(1, this.detector.getLeakedClassLoaderCount());
+            String leak = this.detector.getLeaks()[0];
+            assertTrue(leak, leak.startsWith("test.wab 1.0.0 [/test]"));
+            assertTrue(leak, leak.contains(ClassLoaderLeakDetector.Cause.THREAD.name()));
+        } finally {
+            stop.countDown();
+            thread.join();
+        }
+    }
+
+    @Test
+    public void testUnknownCauseIsReported() {
+        ClassLoader classLoader = new URLClassLoader(new URL[0], null);
+        this.detector.track(classLoader, this.bundle, "/test");
+
+        String[] leaks = this.detector.findLeaks();
+        assertEquals(1, leaks.length);
+        assertTrue(leaks[0], leaks[0].endsWith("[unknown (heap dump needed)]"));
+        assertNotNull(classLoader);
+    }
+}
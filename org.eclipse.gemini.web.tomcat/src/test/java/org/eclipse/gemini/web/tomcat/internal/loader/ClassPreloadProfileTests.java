@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClassPreloadProfileTests {
+
+    private static final long LAST_MODIFIED = 1;
+
+    private static final String HEADER = "#bundle-last-modified=" + LAST_MODIFIED;
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        this.file = File.createTempFile("class-preload-", ".profile");
+        this.file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        this.file.delete();
+    }
+
+    @Test
+    public void testRecordUntilStop() throws Exception {
+        ClassPreloadProfile profile = new ClassPreloadProfile(this.file, 60000, LAST_MODIFIED);
+        profile.start(getClass().getClassLoader(), 1);
+        profile.record(Test.class.getName());
+        profile.record("java.lang.String");
+        profile.available();
+        profile.record(ClassPreloadProfileTests.class.getName());
+        profile.record(Test.class.getName());
+        profile.stop();
+
+        assertEquals(Arrays.asList(HEADER, Test.class.getName(), ClassPreloadProfileTests.class.getName()),
+            Files.readAllLines(this.file.toPath(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRecordUntilRecordingWindowEnds() throws Exception {
+        ClassPreloadProfile profile = new ClassPreloadProfile(this.file, 0, LAST_MODIFIED);
+        profile.start(getClass().getClassLoader(), 1);
+        profile.record(Test.class.getName());
+        profile.available();
+        Thread.sleep(10);
+        profile.record(ClassPreloadProfileTests.class.getName());
+        assertTrue(this.file.isFile());
+        profile.stop();
+
+        assertEquals(Arrays.asList(HEADER, Test.class.getName()), Files.readAllLines(this.file.toPath(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testPersistedWhenRecordingWindowEndsWithoutFurtherLoads() throws Exception {
+        ClassPreloadProfile profile = new ClassPreloadProfile(this.file, 50, LAST_MODIFIED);
+        profile.start(getClass().getClassLoader(), 1);
+        profile.record(Test.class.getName());
+        profile.available();
+        for (int i = 0; i < 500 && !this.file.isFile(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(Arrays.asList(HEADER, Test.class.getName()), Files.readAllLines(this.file.toPath(), StandardCharsets.UTF_8));
+        profile.stop();
+    }
+
+    @Test
+    public void testNotPersistedIfNeverAvailable() {
+        ClassPreloadProfile profile = new ClassPreloadProfile(this.file, 60000, LAST_MODIFIED);
+        profile.start(getClass().getClassLoader(), 1);
+        profile.record(Test.class.getName());
+        profile.stop();
+
+        assertFalse(this.file.exists());
+    }
+
+    @Test
+    public void testPreload() throws Exception {
+        Files.write(this.file.toPath(), Arrays.asList(HEADER, Test.class.getName(), "org.example.Missing"), StandardCharsets.UTF_8);
+
+        ClassPreloadProfile profile = new ClassPreloadProfile(this.file, 60000, LAST_MODIFIED);
+        profile.start(getClass().getClassLoader(), 2);
+        for (int i = 0; i < 100 && profile.getPreloadedClassCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        profile.stop();
+
+        assertEquals(1, profile.getPreloadedClassCount());
+    }
+
+    @Test
+    public void testOutOfDateProfileIsRecordedAgain() throws Exception {
+        Files.write(this.file.toPath(), Arrays.asList(HEADER, "org.example.Removed"), StandardCharsets.UTF_8);
+
+        ClassPreloadProfile profile = new ClassPreloadProfile(this.file, 60000, LAST_MODIFIED + 1);
+        profile.start(getClass().getClassLoader(), 1);
+        profile.record(Test.class.getName());
+        profile.available();
+        profile.stop();
+
+        assertEquals(0, profile.getPreloadedClassCount());
+        assertEquals(Arrays.asList("#bundle-last-modified=" + (LAST_MODIFIED + 1), Test.class.getName()),
+            Files.readAllLines(this.file.toPath(), StandardCharsets.UTF_8));
+    }
+}
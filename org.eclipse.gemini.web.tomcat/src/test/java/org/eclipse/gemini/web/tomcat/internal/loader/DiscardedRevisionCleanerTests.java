@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+
+import org.eclipse.virgo.test.stubs.framework.StubBundleContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+public class DiscardedRevisionCleanerTests {
+
+    private final Bundle bundle = createNiceMock(Bundle.class);
+
+    private final DiscardedRevisionCleaner cleaner = new DiscardedRevisionCleaner(new StubBundleContext());
+
+    @Before
+    public void setUp() {
+        replay(this.bundle);
+        StaticHolder.reference = new Object();
+    }
+
+    @Test
+    public void testStaticReferencesSurviveRestart() {
+        Object reference = StaticHolder.reference;
+
+        this.cleaner.track(this.bundle, Collections.<Class<?>> singletonList(StaticHolder.class), true);
+        // the web application is started and stopped again with the same revision
+        this.cleaner.track(this.bundle, Collections.<Class<?>> singletonList(StaticHolder.class), true);
+
+        assertSame(reference, StaticHolder.reference);
+        assertEquals(1, this.cleaner.getTrackedRevisionCount());
+    }
+
+    @Test
+    public void testStaticReferencesClearedWhenRevisionDiscarded() {
+        this.cleaner.track(this.bundle, Collections.<Class<?>> singletonList(StaticHolder.class), true);
+
+        this.cleaner.revisionDiscarded(this.bundle);
+
+        assertNull(StaticHolder.reference);
+        assertEquals(0, this.cleaner.getTrackedRevisionCount());
+    }
+
+    @Test
+    public void testStaticReferencesKeptWhenNotRequested() {
+        this.cleaner.track(this.bundle, Collections.<Class<?>> singletonList(StaticHolder.class), false);
+
+        this.cleaner.revisionDiscarded(this.bundle);
+
+        assertNotNull(StaticHolder.reference);
+        assertEquals(0, this.cleaner.getTrackedRevisionCount());
+    }
+
+    public static final class StaticHolder {
+
+        static Object reference;
+    }
+}
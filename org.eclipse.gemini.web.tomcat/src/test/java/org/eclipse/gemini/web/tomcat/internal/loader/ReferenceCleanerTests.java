@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.tomcat.util.IntrospectionUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.wiring.BundleWiring;
+
+public class ReferenceCleanerTests {
+
+    private final Bundle bundle = createNiceMock(Bundle.class);
+
+    private URLClassLoader webappClassLoader;
+
+    private ReferenceCleaner referenceCleaner;
+
+    @Before
+    public void setUp() {
+        URL location = ReferenceCleanerTests.class.getProtectionDomain().getCodeSource().getLocation();
+        this.webappClassLoader = new URLClassLoader(new URL[] { location }, ReferenceCleanerTests.class.getClassLoader().getParent());
+        replay(this.bundle);
+        this.referenceCleaner = new ReferenceCleaner(this.webappClassLoader, this.bundle);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.webappClassLoader.close();
+    }
+
+    @Test
+    public void testClearIntrospectionCachesOnlyForWebApplicationClasses() throws Exception {
+        Class<?> webApplicationClass = this.webappClassLoader.loadClass(StaticHolder.class.getName());
+        IntrospectionUtils.findMethods(webApplicationClass);
+        IntrospectionUtils.findMethods(ReferenceCleanerTests.class);
+
+        this.referenceCleaner.clearIntrospectionCaches(Collections.<Class<?>> emptyList());
+
+        Map<?, ?> objectMethods = getIntrospectionUtilsCache();
+        assertFalse(objectMethods.containsKey(webApplicationClass));
+        assertTrue(objectMethods.containsKey(ReferenceCleanerTests.class));
+    }
+
+    @Test
+    public void testClearIntrospectionCachesFlushesOnlyWebApplicationClasses() throws Exception {
+        Class<?> webApplicationClass = this.webappClassLoader.loadClass(StaticHolder.class.getName());
+        BeanInfo webApplicationBeanInfo = Introspector.getBeanInfo(webApplicationClass);
+        assertSame(webApplicationBeanInfo, Introspector.getBeanInfo(webApplicationClass));
+        // loaded by another class loader
+        BeanInfo otherBeanInfo = Introspector.getBeanInfo(StaticHolder.class);
+
+        this.referenceCleaner.clearIntrospectionCaches(Collections.<Class<?>> singletonList(webApplicationClass));
+
+        assertNotSame(webApplicationBeanInfo, Introspector.getBeanInfo(webApplicationClass));
+        assertSame(otherBeanInfo, Introspector.getBeanInfo(StaticHolder.class));
+    }
+
+    @Test
+    public void testClearIntrospectionCachesFlushesLoadedBundleClasses() throws Exception {
+        Bundle bundle = createBundle(new LoadedClassesClassLoader(StaticHolder.class));
+        BeanInfo bundleBeanInfo = Introspector.getBeanInfo(StaticHolder.class);
+        BeanInfo otherBeanInfo = Introspector.getBeanInfo(ReferenceCleanerTests.class);
+
+        // the bundle's class is not known to the web application's class loader
+        new ReferenceCleaner(this.webappClassLoader, bundle).clearIntrospectionCaches(Collections.<Class<?>> emptyList());
+
+        assertNotSame(bundleBeanInfo, Introspector.getBeanInfo(StaticHolder.class));
+        assertSame(otherBeanInfo, Introspector.getBeanInfo(ReferenceCleanerTests.class));
+    }
+
+    @Test
+    public void testFindLoadedBundleClasses() {
+        Bundle bundle = createBundle(new LoadedClassesClassLoader(StaticHolder.class));
+
+        Collection<Class<?>> classes = new ReferenceCleaner(this.webappClassLoader, bundle).findLoadedBundleClasses();
+
+        assertEquals(Collections.<Class<?>> singletonList(StaticHolder.class), new ArrayList<>(classes));
+    }
+
+    @Test
+    public void testFindLoadedBundleClassesWithoutWiring() {
+        Bundle bundle = createMock(Bundle.class);
+        expect(bundle.adapt(BundleWiring.class)).andReturn(null);
+        replay(bundle);
+
+        assertTrue(new ReferenceCleaner(this.webappClassLoader, bundle).findLoadedBundleClasses().isEmpty());
+    }
+
+    @Test
+    public void testClearStaticReferences() throws Exception {
+        StaticHolder.reference = new Object();
+        this.referenceCleaner.clearStaticReferences(Arrays.<Class<?>> asList(StaticHolder.class));
+        assertNull(StaticHolder.reference);
+        assertNotNull(StaticHolder.CONSTANT);
+    }
+
+    @Test
+    public void testStopThreads() throws Exception {
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(60000);
+                } catch (InterruptedException e) {
+                    // stopped
+                }
+            }
+        });
+        thread.setContextClassLoader(this.webappClassLoader);
+        thread.start();
+
+        this.referenceCleaner.clearThreads(false, false);
+        assertTrue(thread.isAlive());
+
+        this.referenceCleaner.clearThreads(true, false);
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+    }
+
+    private static Bundle createBundle(LoadedClassesClassLoader bundleClassLoader) {
+        BundleWiring bundleWiring = createMock(BundleWiring.class);
+        expect(bundleWiring.getClassLoader()).andReturn(bundleClassLoader);
+        expect(bundleWiring.listResources("/", "*.class", BundleWiring.LISTRESOURCES_LOCAL | BundleWiring.LISTRESOURCES_RECURSE)).andReturn(
+            Arrays.asList(StaticHolder.class.getName().replace('.', '/') + ".class", "not/Loaded.class"));
+        Bundle bundle = createMock(Bundle.class);
+        expect(bundle.adapt(BundleWiring.class)).andReturn(bundleWiring);
+        replay(bundleWiring, bundle);
+        return bundle;
+    }
+
+    private static Map<?, ?> getIntrospectionUtilsCache() throws Exception {
+        Field field = IntrospectionUtils.class.getDeclaredField("objectMethods");
+        field.setAccessible(true);
+        return (Map<?, ?>) field.get(null);
+    }
+
+    /**
+     * Exposes its loaded classes the way the Equinox bundle class loader does.
+     */
+    public static final class LoadedClassesClassLoader extends ClassLoader {
+
+        private final Class<?> loadedClass;
+
+        LoadedClassesClassLoader(Class<?> loadedClass) {
+            super(null);
+            this.loadedClass = loadedClass;
+        }
+
+        public Class<?> publicFindLoaded(String className) {
+            return this.loadedClass.getName().equals(className) ? this.loadedClass : null;
+        }
+    }
+
+    public static final class StaticHolder {
+
+        static final Object CONSTANT = new Object();
+
+        static Object reference;
+    }
+}
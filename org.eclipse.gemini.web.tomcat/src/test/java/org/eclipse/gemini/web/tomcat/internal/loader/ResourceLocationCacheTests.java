@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.gemini.web.tomcat.internal.loader.ResourceLocationCache.ResourceLocation;
+import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.Test;
+
+public class ResourceLocationCacheTests {
+
+    @Test
+    public void testGetAndPut() throws Exception {
+        ResourceLocationCache cache = new ResourceLocationCache(2);
+        ResourceLocation location = new ResourceLocation(new URL("file:/a.xml"), null);
+
+        assertNull(cache.get("a.xml"));
+        cache.put("a.xml", location);
+        cache.put("b.xml", ResourceLocationCache.NOT_FOUND);
+        assertSame(location, cache.get("a.xml"));
+        assertSame(ResourceLocationCache.NOT_FOUND, cache.get("b.xml"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.clear();
+        assertNull(cache.get("a.xml"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        ResourceLocationCache cache = new ResourceLocationCache(2);
+        cache.put("a.xml", ResourceLocationCache.NOT_FOUND);
+        cache.put("b.xml", ResourceLocationCache.NOT_FOUND);
+        cache.get("a.xml");
+        cache.put("c.xml", ResourceLocationCache.NOT_FOUND);
+
+        assertSame(ResourceLocationCache.NOT_FOUND, cache.get("a.xml"));
+        assertNull(cache.get("b.xml"));
+    }
+
+    @Test
+    public void testWebappClassLoaderCachesResourceLocations() throws Exception {
+        final URL url = new URL("file:/config.xml");
+        final AtomicInteger lookups = new AtomicInteger();
+        StubBundle bundle = new StubBundle() {
+
+            @Override
+            public URL getResource(String name) {
+                lookups.incrementAndGet();
+                return "config.xml".equals(name) ? url : null;
+            }
+        };
+        ClassLoaderCustomizer classLoaderCustomizer = createNiceMock(ClassLoaderCustomizer.class);
+        replay(classLoaderCustomizer);
+        BundleWebappClassLoader classLoader = new BundleWebappClassLoader(bundle, classLoaderCustomizer);
+
+        assertEquals(url, classLoader.getResource("config.xml"));
+        assertEquals(url, classLoader.getResource("config.xml"));
+        int lookupsOfFoundResource = lookups.get();
+        assertNull(classLoader.getResourceAsStream("missing.xml"));
+        int lookupsOfMissingResource = lookups.get() - lookupsOfFoundResource;
+        assertNull(classLoader.getResourceAsStream("missing.xml"));
+
+        assertEquals(lookupsOfFoundResource + lookupsOfMissingResource, lookups.get());
+        assertEquals(2, classLoader.getResourceLocationCacheHitCount());
+        assertEquals(2, classLoader.getResourceLocationCacheMissCount());
+        classLoader.close();
+    }
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.lang.instrument.ClassFileTransformer;
+import java.nio.file.Files;
+import java.security.ProtectionDomain;
+
+import org.apache.catalina.startup.ExpandWar;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransformedClassCacheTests {
+
+    private static final byte[] ORIGINAL = { 1, 2, 3 };
+
+    private static final byte[] TRANSFORMED = { 4, 5, 6 };
+
+    private final StubBundle bundle = new StubBundle();
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        this.directory = new File(Files.createTempDirectory("transformed-classes").toFile(), "cache");
+    }
+
+    @After
+    public void tearDown() {
+        ExpandWar.delete(this.directory.getParentFile());
+    }
+
+    @Test
+    public void testTransformationIsCached() throws Exception {
+        CountingTransformer transformer = new CountingTransformer(TRANSFORMED);
+        TransformedClassCache cache = new TransformedClassCache(this.directory);
+        ClassFileTransformer cachingTransformer = cache.wrap(transformer, this.bundle);
+
+        assertArrayEquals(TRANSFORMED, cachingTransformer.transform(null, "a/A", null, null, ORIGINAL));
+        assertArrayEquals(TRANSFORMED, cachingTransformer.transform(null, "a/A", null, null, ORIGINAL));
+        assertEquals(1, transformer.count);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cachingTransformer.transform(null, "a/A", null, null, TRANSFORMED);
+        assertEquals(2, transformer.count);
+    }
+
+    @Test
+    public void testCacheSurvivesRestart() throws Exception {
+        CountingTransformer transformer = new CountingTransformer(TRANSFORMED);
+        new TransformedClassCache(this.directory).wrap(transformer, this.bundle).transform(null, "a/A", null, null, ORIGINAL);
+
+        TransformedClassCache cache = new TransformedClassCache(this.directory);
+        assertArrayEquals(TRANSFORMED, cache.wrap(transformer, this.bundle).transform(null, "a/A", null, null, ORIGINAL));
+        assertEquals(1, transformer.count);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testUnchangedClassIsCached() throws Exception {
+        CountingTransformer transformer = new CountingTransformer(null);
+        ClassFileTransformer cachingTransformer = new TransformedClassCache(this.directory).wrap(transformer, this.bundle);
+
+        assertNull(cachingTransformer.transform(null, "a/A", null, null, ORIGINAL));
+        assertNull(cachingTransformer.transform(null, "a/A", null, null, ORIGINAL));
+        assertEquals(1, transformer.count);
+    }
+
+    @Test
+    public void testBundleUpdateInvalidatesCache() throws Exception {
+        CountingTransformer transformer = new CountingTransformer(TRANSFORMED);
+        new TransformedClassCache(this.directory).wrap(transformer, this.bundle).transform(null, "a/A", null, null, ORIGINAL);
+
+        this.bundle.setLastModified(this.bundle.getLastModified() + 1);
+        new TransformedClassCache(this.directory).wrap(transformer, this.bundle).transform(null, "a/A", null, null, ORIGINAL);
+        assertEquals(2, transformer.count);
+    }
+
+    @Test
+    public void testBundleUpdateDeletesEntriesOfPreviousRevision() throws Exception {
+        CountingTransformer transformer = new CountingTransformer(TRANSFORMED);
+        new TransformedClassCache(this.directory).wrap(transformer, this.bundle).transform(null, "a/A", null, null, ORIGINAL);
+        File[] previousRevisions = this.directory.listFiles();
+        assertEquals(1, previousRevisions.length);
+
+        this.bundle.setLastModified(this.bundle.getLastModified() + 1);
+        TransformedClassCache cache = new TransformedClassCache(this.directory);
+        ClassFileTransformer cachingTransformer = cache.wrap(transformer, this.bundle);
+        assertFalse(previousRevisions[0].exists());
+
+        cachingTransformer.transform(null, "a/A", null, null, ORIGINAL);
+        cache.wrap(new CountingTransformer(ORIGINAL), this.bundle);
+        assertEquals(1, this.directory.listFiles().length);
+        assertArrayEquals(TRANSFORMED, cachingTransformer.transform(null, "a/A", null, null, ORIGINAL));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testRedefinitionIsNotCached() throws Exception {
+        CountingTransformer transformer = new CountingTransformer(TRANSFORMED);
+        ClassFileTransformer cachingTransformer = new TransformedClassCache(this.directory).wrap(transformer, this.bundle);
+
+        cachingTransformer.transform(null, "a/A", Object.class, null, ORIGINAL);
+        cachingTransformer.transform(null, "a/A", Object.class, null, ORIGINAL);
+        assertEquals(2, transformer.count);
+    }
+
+    private static final class CountingTransformer implements ClassFileTransformer {
+
+        private final byte[] result;
+
+        private int count;
+
+        CountingTransformer(byte[] result) {
+            this.result = result;
+        }
+
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain,
+            byte[] classfileBuffer) {
+            this.count++;
+            return this.result;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2026 SAP SE
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   SAP SE - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.support;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.launch.FrameworkFactory;
+
+public class EquinoxBundleFileResolverTests {
+
+    private static final String ENTRY_PATH = "sub/one.txt";
+
+    private static final byte[] ENTRY_CONTENT = "content of the bundle entry".getBytes(StandardCharsets.UTF_8);
+
+    private final EquinoxBundleFileResolver resolver = new EquinoxBundleFileResolver();
+
+    // the framework registers URL handler factories which cannot be reset on every JDK, so it is launched only once
+    private static Path tempDirectory;
+
+    private static Framework framework;
+
+    @BeforeClass
+    public static void startFramework() throws IOException, BundleException {
+        tempDirectory = Files.createTempDirectory("equinox-bundle-file-resolver");
+        Map<String, String> configuration = new HashMap<>();
+        configuration.put(Constants.FRAMEWORK_STORAGE, tempDirectory.resolve("storage").toString());
+        configuration.put(Constants.FRAMEWORK_STORAGE_CLEAN, Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT);
+        framework = ServiceLoader.load(FrameworkFactory.class).iterator().next().newFramework(configuration);
+        framework.init();
+    }
+
+    @AfterClass
+    public static void stopFramework() throws Exception {
+        framework.stop();
+        framework.waitForStop(0);
+        Files.walkFileTree(tempDirectory, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void testResolveBundleEntryOfDirectoryBundle() throws IOException, BundleException {
+        Path bundleDirectory = Files.createDirectories(tempDirectory.resolve("directory-bundle"));
+        Files.createDirectories(bundleDirectory.resolve("META-INF"));
+        try (OutputStream out = Files.newOutputStream(bundleDirectory.resolve("META-INF/MANIFEST.MF"))) {
+            createManifest("directory.bundle").write(out);
+        }
+        Path entryFile = Files.createDirectories(bundleDirectory.resolve("sub")).resolve("one.txt");
+        Files.write(entryFile, ENTRY_CONTENT);
+        Bundle bundle = framework.getBundleContext().installBundle("reference:file:" + bundleDirectory.toAbsolutePath());
+
+        BundleFileEntry bundleFileEntry = this.resolver.resolveBundleEntry(bundle, ENTRY_PATH);
+
+        assertNotNull(bundleFileEntry);
+        assertEquals(ENTRY_CONTENT.length, bundleFileEntry.getSize());
+        assertEquals(entryFile.toFile().lastModified(), bundleFileEntry.getLastModified());
+        assertArrayEquals(ENTRY_CONTENT, read(bundleFileEntry));
+        assertEquals(entryFile.toFile().getCanonicalFile(), bundleFileEntry.getFile().getCanonicalFile());
+        assertEquals(ENTRY_CONTENT.length, this.resolver.resolveBundleEntrySize(bundle, ENTRY_PATH));
+    }
+
+    @Test
+    public void testResolveBundleEntryOfArchiveBundle() throws IOException, BundleException {
+        Path bundleArchive = tempDirectory.resolve("archive-bundle.jar");
+        try (JarOutputStream jos = new JarOutputStream(Files.newOutputStream(bundleArchive), createManifest("archive.bundle"))) {
+            jos.putNextEntry(new ZipEntry(ENTRY_PATH));
+            jos.write(ENTRY_CONTENT);
+            jos.closeEntry();
+        }
+        Bundle bundle = framework.getBundleContext().installBundle(bundleArchive.toUri().toString());
+
+        BundleFileEntry bundleFileEntry = this.resolver.resolveBundleEntry(bundle, ENTRY_PATH);
+
+        assertNotNull(bundleFileEntry);
+        assertEquals(ENTRY_CONTENT.length, bundleFileEntry.getSize());
+        assertTrue(bundleFileEntry.getLastModified() > 0);
+        assertArrayEquals(ENTRY_CONTENT, read(bundleFileEntry));
+        File extractedFile = bundleFileEntry.getFile();
+        assertNotNull(extractedFile);
+        assertArrayEquals(ENTRY_CONTENT, Files.readAllBytes(extractedFile.toPath()));
+    }
+
+    @Test
+    public void testResolveMissingBundleEntry() throws IOException, BundleException {
+        Path bundleArchive = tempDirectory.resolve("empty-bundle.jar");
+        try (JarOutputStream jos = new JarOutputStream(Files.newOutputStream(bundleArchive), createManifest("empty.bundle"))) {
+        }
+        Bundle bundle = framework.getBundleContext().installBundle(bundleArchive.toUri().toString());
+
+        assertNull(this.resolver.resolveBundleEntry(bundle, ENTRY_PATH));
+        assertEquals(-1L, this.resolver.resolveBundleEntrySize(bundle, ENTRY_PATH));
+    }
+
+    @Test
+    public void testResolveBundleEntryOfNonEquinoxBundle() {
+        assertNull(this.resolver.resolveBundleEntry(new StubBundle(), ENTRY_PATH));
+    }
+
+    private static Manifest createManifest(String symbolicName) {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+        attributes.putValue(Constants.BUNDLE_SYMBOLICNAME, symbolicName);
+        return manifest;
+    }
+
+    private static byte[] read(BundleFileEntry bundleFileEntry) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream is = bundleFileEntry.getInputStream()) {
+            byte[] buffer = new byte[256];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+}